@@ -0,0 +1,274 @@
+package qub;
+
+/**
+ * A solver for {@link Room}s that finds a shortest solution with A*. States are expanded in order
+ * of their number of moves so far plus a heuristic estimate of the number of moves that they still
+ * need. As long as the heuristic never overestimates, the first solved state that is expanded is
+ * reached by a shortest solution. A better heuristic expands fewer states, and the default
+ * heuristic is the additive {@link RoomStateScorer} of a {@link PatternDatabase}.
+ */
+public class AStarSearch
+{
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private RoomStateScorer heuristic;
+    private long expandedStateCount;
+
+    private AStarSearch(StopPositionGraph graph, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = graph.getLayout();
+        this.graph = graph;
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+    }
+
+    /**
+     * Create a new {@link AStarSearch} that searches for solutions to the provided {@link Room}.
+     * Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     */
+    public static AStarSearch create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new AStarSearch(StopPositionGraph.create(layout), layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Create a new {@link AStarSearch} that searches for solutions to the provided {@link Room}
+     * with an existing {@link StopPositionGraph} of the {@link Room}'s layout, so that the graph
+     * can be shared between searches. Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     * @param graph The {@link StopPositionGraph} of the {@link Room}'s layout.
+     */
+    public static AStarSearch create(Room room, StopPositionGraph graph)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertNotNull(graph, "graph");
+        PreCondition.assertTrue(graph.getLayout().isLayoutOf(room), "graph.getLayout().isLayoutOf(room)");
+
+        final RoomLayout layout = graph.getLayout();
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new AStarSearch(graph, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Get a heuristic that estimates one move for each {@link RoomObject#Orb} that is left.
+     */
+    public static RoomStateScorer getOrbCountHeuristic()
+    {
+        return (int[] orbCells, int orbCount, long brokenBlocks) -> orbCount;
+    }
+
+    /**
+     * Set the heuristic that estimates how many moves a state still needs. It must never return
+     * more than the real number of moves, and it can return {@link PatternDatabase#unsolvable} for
+     * states that can't be solved.
+     * @param heuristic The heuristic that estimates how many moves a state still needs.
+     * @return This object for method chaining.
+     */
+    public AStarSearch setHeuristic(RoomStateScorer heuristic)
+    {
+        PreCondition.assertNotNull(heuristic, "heuristic");
+
+        this.heuristic = heuristic;
+
+        return this;
+    }
+
+    /**
+     * Get the heuristic that estimates how many moves a state still needs. If no heuristic has been
+     * set, then the additive {@link RoomStateScorer} of a {@link PatternDatabase} for this search's
+     * layout is created, unless the layout has too many cells for it, in which case the
+     * {@link RoomObject#Orb} count heuristic is used.
+     */
+    public RoomStateScorer getHeuristic()
+    {
+        if (this.heuristic == null)
+        {
+            this.heuristic = this.layout.getCellCount() <= PatternDatabase.maximumCellCount
+                ? PatternDatabase.create(this.layout, this.startOrbCells.length).getAdditiveScorer()
+                : AStarSearch.getOrbCountHeuristic();
+        }
+        return this.heuristic;
+    }
+
+    /**
+     * Get the number of states that the last call to {@link #findSolution()} expanded.
+     */
+    public long getExpandedStateCount()
+    {
+        return this.expandedStateCount;
+    }
+
+    /**
+     * Find a shortest solution.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            final RoomStateScorer heuristic = this.getHeuristic();
+            this.expandedStateCount = 0;
+
+            final java.util.HashMap<AStarSearchState,AStarSearchState> reachedStates = new java.util.HashMap<>();
+            final java.util.ArrayList<java.util.ArrayDeque<AStarSearchState>> buckets = new java.util.ArrayList<>();
+
+            AStarSearchState solvedState = null;
+            final int startEstimate = heuristic.score(this.startOrbCells, this.startOrbCells.length, this.startBrokenBlocks);
+            if (startEstimate != PatternDatabase.unsolvable)
+            {
+                final AStarSearchState startState = new AStarSearchState(this.startOrbCells, this.startBrokenBlocks, null, -1, RoomLayout.noMove, startEstimate);
+                reachedStates.put(startState, startState);
+                AStarSearch.addToBucket(buckets, startState);
+            }
+
+            int estimate = 0;
+            while (estimate < buckets.size() && solvedState == null)
+            {
+                final java.util.ArrayDeque<AStarSearchState> bucket = buckets.get(estimate);
+                if (bucket == null || bucket.isEmpty())
+                {
+                    ++estimate;
+                    continue;
+                }
+
+                final AStarSearchState state = bucket.removeFirst();
+                if (state.getEstimate() != estimate || reachedStates.get(state) != state)
+                {
+                    // This state was reached again in fewer moves after it was added to this
+                    // bucket.
+                    continue;
+                }
+
+                final int[] orbCells = state.orbCells;
+                final int orbCount = orbCells.length;
+                if (orbCount == 0)
+                {
+                    solvedState = state;
+                    break;
+                }
+
+                ++this.expandedStateCount;
+                for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, state.brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            final int[] nextOrbCells = new int[RoomLayout.getMoveResultEndsInGoal(moveResult) ? orbCount - 1 : orbCount];
+                            RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                            final long nextBrokenBlocks = this.layout.getNextBrokenBlocks(state.brokenBlocks, moveResult, direction);
+
+                            final AStarSearchState reachedState = reachedStates.get(new AStarSearchState(nextOrbCells, nextBrokenBlocks, null, -1, RoomLayout.noMove, 0));
+                            if (reachedState == null || state.moveCount + 1 < reachedState.moveCount)
+                            {
+                                final int nextRemainingEstimate = reachedState == null
+                                    ? heuristic.score(nextOrbCells, nextOrbCells.length, nextBrokenBlocks)
+                                    : reachedState.remainingEstimate;
+                                final AStarSearchState nextState = new AStarSearchState(nextOrbCells, nextBrokenBlocks, state, orbCells[orbIndex], moveResult, nextRemainingEstimate);
+                                reachedStates.put(nextState, nextState);
+                                if (nextRemainingEstimate != PatternDatabase.unsolvable)
+                                {
+                                    AStarSearch.addToBucket(buckets, nextState);
+                                    // A heuristic that isn't consistent can estimate less for the
+                                    // next state than for this one.
+                                    estimate = Math.min(estimate, nextState.getEstimate());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (solvedState == null)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+
+            final Move[] moves = new Move[solvedState.moveCount];
+            for (AStarSearchState state = solvedState; state.previousState != null; state = state.previousState)
+            {
+                moves[state.moveCount - 1] = this.layout.createMove(state.moveStartCell, state.moveResult);
+            }
+
+            final Iterable<Move> result = Iterable.create(moves);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    private static void addToBucket(java.util.ArrayList<java.util.ArrayDeque<AStarSearchState>> buckets, AStarSearchState state)
+    {
+        final int estimate = state.getEstimate();
+        while (buckets.size() <= estimate)
+        {
+            buckets.add(null);
+        }
+
+        java.util.ArrayDeque<AStarSearchState> bucket = buckets.get(estimate);
+        if (bucket == null)
+        {
+            bucket = new java.util.ArrayDeque<>();
+            buckets.set(estimate, bucket);
+        }
+        bucket.addLast(state);
+    }
+
+    /**
+     * A state that the search has reached, along with the shortest known move that reached it.
+     */
+    private static class AStarSearchState
+    {
+        private final int[] orbCells;
+        private final long brokenBlocks;
+        private final AStarSearchState previousState;
+        private final int moveStartCell;
+        private final int moveResult;
+        private final int moveCount;
+        private final int remainingEstimate;
+
+        private AStarSearchState(int[] orbCells, long brokenBlocks, AStarSearchState previousState, int moveStartCell, int moveResult, int remainingEstimate)
+        {
+            this.orbCells = orbCells;
+            this.brokenBlocks = brokenBlocks;
+            this.previousState = previousState;
+            this.moveStartCell = moveStartCell;
+            this.moveResult = moveResult;
+            this.moveCount = previousState == null ? 0 : previousState.moveCount + 1;
+            this.remainingEstimate = remainingEstimate;
+        }
+
+        /**
+         * Get the number of moves that reached this state plus the estimated number of moves that
+         * this state still needs.
+         */
+        private int getEstimate()
+        {
+            return this.moveCount + this.remainingEstimate;
+        }
+
+        @Override
+        public boolean equals(Object rhs)
+        {
+            return rhs instanceof AStarSearchState &&
+                this.brokenBlocks == ((AStarSearchState)rhs).brokenBlocks &&
+                java.util.Arrays.equals(this.orbCells, ((AStarSearchState)rhs).orbCells);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return java.util.Arrays.hashCode(this.orbCells) * 31 + Long.hashCode(this.brokenBlocks);
+        }
+    }
+}
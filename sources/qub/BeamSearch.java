@@ -0,0 +1,375 @@
+package qub;
+
+/**
+ * An anytime solver for {@link Room}s. Each pass is a breadth-first search that only keeps the
+ * best scoring states of each depth, which finds a solution quickly but not always the shortest
+ * one. Each later pass doubles the beam width and only looks for solutions that are shorter than
+ * the best one so far. When a pass doesn't have to drop any states it has searched every state,
+ * so its solution (or the lack of a shorter one) is proven to be optimal. The first pass always
+ * runs to the end so that a solution is returned quickly even with a short time limit, and later
+ * passes stop as soon as the time limit runs out.
+ */
+public class BeamSearch
+{
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private int beamWidth;
+    private long timeLimitMilliseconds;
+    private RoomStateScorer scorer;
+    private boolean solutionProvenOptimal;
+
+    private BeamSearch(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+        this.beamWidth = 64;
+        this.timeLimitMilliseconds = 50;
+        this.scorer = BeamSearch.createGoalDistanceScorer(this.graph);
+    }
+
+    /**
+     * Create a new {@link BeamSearch} that searches for solutions to the provided {@link Room}.
+     * Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     */
+    public static BeamSearch create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new BeamSearch(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Create a {@link RoomStateScorer} that scores a state by adding up how many moves each
+     * {@link RoomObject#Orb} would need to reach a {@link RoomObject#Goal} if it were alone.
+     * @param graph The {@link StopPositionGraph} of the layout that states are scored in.
+     */
+    public static RoomStateScorer createGoalDistanceScorer(StopPositionGraph graph)
+    {
+        PreCondition.assertNotNull(graph, "graph");
+
+        final int[] goalDistances = graph.getGoalDistances();
+        final int unreachableGoalDistance = graph.getLayout().getCellCount() + 1;
+        return (int[] orbCells, int orbCount, long brokenBlocks) ->
+        {
+            int result = 0;
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                final int goalDistance = goalDistances[orbCells[orbIndex]];
+                result += goalDistance == StopPositionGraph.unreachableGoalDistance
+                    ? unreachableGoalDistance
+                    : goalDistance;
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Set the number of states that the first pass keeps at each depth.
+     * @param beamWidth The number of states that the first pass keeps at each depth.
+     * @return This object for method chaining.
+     */
+    public BeamSearch setBeamWidth(int beamWidth)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(beamWidth, 1, "beamWidth");
+
+        this.beamWidth = beamWidth;
+
+        return this;
+    }
+
+    /**
+     * Get the number of states that the first pass keeps at each depth.
+     */
+    public int getBeamWidth()
+    {
+        return this.beamWidth;
+    }
+
+    /**
+     * Set the number of milliseconds that {@link #findSolution(Action1)} can run for before it
+     * returns the best solution that it has found. The first pass isn't limited, so it can run
+     * past this limit.
+     * @param timeLimitMilliseconds The number of milliseconds that the search can run for.
+     * @return This object for method chaining.
+     */
+    public BeamSearch setTimeLimit(long timeLimitMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(timeLimitMilliseconds, 0L, "timeLimitMilliseconds");
+
+        this.timeLimitMilliseconds = timeLimitMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that {@link #findSolution(Action1)} can run for.
+     */
+    public long getTimeLimit()
+    {
+        return this.timeLimitMilliseconds;
+    }
+
+    /**
+     * Set the {@link RoomStateScorer} that decides which states are kept at each depth. States
+     * with lower scores are kept first.
+     * @param scorer The {@link RoomStateScorer} that decides which states are kept.
+     * @return This object for method chaining.
+     */
+    public BeamSearch setScorer(RoomStateScorer scorer)
+    {
+        PreCondition.assertNotNull(scorer, "scorer");
+
+        this.scorer = scorer;
+
+        return this;
+    }
+
+    /**
+     * Get the {@link RoomStateScorer} that decides which states are kept at each depth.
+     */
+    public RoomStateScorer getScorer()
+    {
+        return this.scorer;
+    }
+
+    /**
+     * Get whether the solution that was returned by the last call to
+     * {@link #findSolution(Action1)} is proven to be a shortest solution.
+     */
+    public boolean isSolutionProvenOptimal()
+    {
+        return this.solutionProvenOptimal;
+    }
+
+    /**
+     * Find the shortest solution that can be found before the time limit runs out.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return this.findSolution((Iterable<Move> solution) -> {});
+    }
+
+    /**
+     * Find the shortest solution that can be found before the time limit runs out.
+     * @param onImprovedSolution The action that is run with each solution that is shorter than
+     *                           the solutions that were found before it.
+     */
+    public Result<Iterable<Move>> findSolution(Action1<Iterable<Move>> onImprovedSolution)
+    {
+        PreCondition.assertNotNull(onImprovedSolution, "onImprovedSolution");
+
+        return Result.create(() ->
+        {
+            this.solutionProvenOptimal = false;
+
+            final long deadline = System.nanoTime() + this.timeLimitMilliseconds * 1000000L;
+            Iterable<Move> result = null;
+            int maximumDepth = Integer.MAX_VALUE;
+            long passBeamWidth = this.beamWidth;
+            while (true)
+            {
+                final long passDeadline = passBeamWidth == this.beamWidth ? Long.MAX_VALUE : deadline;
+                final BeamSearchPass pass = new BeamSearchPass((int)Math.min(passBeamWidth, Integer.MAX_VALUE), maximumDepth, passDeadline);
+                final Iterable<Move> passSolution = pass.run();
+                if (passSolution != null)
+                {
+                    result = passSolution;
+                    maximumDepth = result.getCount() - 1;
+                    onImprovedSolution.run(result);
+                }
+
+                if (pass.isComplete())
+                {
+                    this.solutionProvenOptimal = true;
+                    break;
+                }
+                else if (pass.isTimedOut() || System.nanoTime() >= deadline)
+                {
+                    break;
+                }
+
+                passBeamWidth *= 2;
+            }
+
+            if (result == null)
+            {
+                throw new NotFoundException(this.solutionProvenOptimal
+                    ? "No solution exists for the provided room."
+                    : "No solution was found for the provided room before the time limit.");
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * A state that a pass of the search has reached, along with the move that reached it.
+     */
+    private static class BeamSearchState
+    {
+        private final int[] orbCells;
+        private final long brokenBlocks;
+        private final BeamSearchState previousState;
+        private final int moveStartCell;
+        private final int moveResult;
+        private final int depth;
+        private int score;
+
+        private BeamSearchState(int[] orbCells, long brokenBlocks, BeamSearchState previousState, int moveStartCell, int moveResult)
+        {
+            this.orbCells = orbCells;
+            this.brokenBlocks = brokenBlocks;
+            this.previousState = previousState;
+            this.moveStartCell = moveStartCell;
+            this.moveResult = moveResult;
+            this.depth = previousState == null ? 0 : previousState.depth + 1;
+        }
+
+        @Override
+        public boolean equals(Object rhs)
+        {
+            return rhs instanceof BeamSearchState &&
+                this.brokenBlocks == ((BeamSearchState)rhs).brokenBlocks &&
+                java.util.Arrays.equals(this.orbCells, ((BeamSearchState)rhs).orbCells);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return java.util.Arrays.hashCode(this.orbCells) * 31 + Long.hashCode(this.brokenBlocks);
+        }
+    }
+
+    /**
+     * A single breadth-first pass that keeps at most a beam width of states at each depth.
+     */
+    private class BeamSearchPass
+    {
+        private final int passBeamWidth;
+        private final int maximumDepth;
+        private final long deadline;
+        private boolean statesDropped;
+        private boolean timedOut;
+
+        private BeamSearchPass(int passBeamWidth, int maximumDepth, long deadline)
+        {
+            this.passBeamWidth = passBeamWidth;
+            this.maximumDepth = maximumDepth;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Get whether this pass visited every state that it could reach within its maximum depth.
+         */
+        private boolean isComplete()
+        {
+            return !this.statesDropped && !this.timedOut;
+        }
+
+        private boolean isTimedOut()
+        {
+            return this.timedOut;
+        }
+
+        /**
+         * Run this pass.
+         * @return The solution that this pass found, or null if it didn't find one.
+         */
+        private Iterable<Move> run()
+        {
+            final RoomLayout layout = BeamSearch.this.layout;
+            final StopPositionGraph graph = BeamSearch.this.graph;
+            final RoomStateScorer scorer = BeamSearch.this.scorer;
+
+            final BeamSearchState startState = new BeamSearchState(BeamSearch.this.startOrbCells, BeamSearch.this.startBrokenBlocks, null, -1, RoomLayout.noMove);
+            if (startState.orbCells.length == 0)
+            {
+                return BeamSearch.getMoves(layout, startState);
+            }
+
+            final java.util.HashSet<BeamSearchState> visitedStates = new java.util.HashSet<>();
+            visitedStates.add(startState);
+
+            java.util.ArrayList<BeamSearchState> beam = new java.util.ArrayList<>();
+            beam.add(startState);
+            for (int depth = 0; depth < this.maximumDepth && !beam.isEmpty(); ++depth)
+            {
+                final java.util.ArrayList<BeamSearchState> nextBeam = new java.util.ArrayList<>();
+                for (final BeamSearchState state : beam)
+                {
+                    // The beam of a late pass can be wide enough that one depth takes much
+                    // longer than the time limit, so the deadline is checked for each state.
+                    if (System.nanoTime() >= this.deadline)
+                    {
+                        this.timedOut = true;
+                        return null;
+                    }
+
+                    final int[] orbCells = state.orbCells;
+                    final int orbCount = orbCells.length;
+                    for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                    {
+                        for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                        {
+                            final int moveResult = graph.getMoveResult(orbCells, orbCount, state.brokenBlocks, orbCells[orbIndex], direction);
+                            if (moveResult != RoomLayout.noMove)
+                            {
+                                final int[] nextOrbCells = new int[RoomLayout.getMoveResultEndsInGoal(moveResult) ? orbCount - 1 : orbCount];
+                                RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                                final long nextBrokenBlocks = layout.getNextBrokenBlocks(state.brokenBlocks, moveResult, direction);
+                                final BeamSearchState nextState = new BeamSearchState(nextOrbCells, nextBrokenBlocks, state, orbCells[orbIndex], moveResult);
+                                if (nextOrbCells.length == 0)
+                                {
+                                    return BeamSearch.getMoves(layout, nextState);
+                                }
+                                else if (visitedStates.add(nextState))
+                                {
+                                    nextState.score = scorer.score(nextOrbCells, nextOrbCells.length, nextBrokenBlocks);
+                                    nextBeam.add(nextState);
+                                }
+                            }
+                        }
+                    }
+                }
+
+                if (nextBeam.size() > this.passBeamWidth)
+                {
+                    nextBeam.sort((BeamSearchState lhs, BeamSearchState rhs) -> Integer.compare(lhs.score, rhs.score));
+                    nextBeam.subList(this.passBeamWidth, nextBeam.size()).clear();
+                    this.statesDropped = true;
+                }
+                beam = nextBeam;
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Get the moves that lead from the start state to the provided state.
+     */
+    private static Iterable<Move> getMoves(RoomLayout layout, BeamSearchState state)
+    {
+        final Move[] moves = new Move[state.depth];
+        for (BeamSearchState currentState = state; currentState.previousState != null; currentState = currentState.previousState)
+        {
+            moves[currentState.depth - 1] = layout.createMove(currentState.moveStartCell, currentState.moveResult);
+        }
+
+        final Iterable<Move> result = Iterable.create(moves);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
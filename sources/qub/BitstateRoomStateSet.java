@@ -0,0 +1,219 @@
+package qub;
+
+/**
+ * A {@link RoomStateSet} that only remembers a few bits for each key instead of the key itself
+ * (bitstate hashing). Each key sets a configurable number of bits in a Bloom filter, and a key is
+ * treated as added when all of its bits are set. That lets a search visit far more states than an
+ * exact set could hold, at the cost of sometimes saying that a new key was already added, which
+ * makes the search skip (omit) that state. The bits are kept outside of the heap in direct
+ * {@link java.nio.ByteBuffer} regions.
+ *
+ * Since the set can't tell an omitted key from one that really was added, it estimates how many
+ * keys it omitted from how full the filter was each time a key was added. The estimate assumes
+ * that keys keep being added, so it is too low if a search runs on after the filter is so full
+ * that almost no new key can be added, which a large enough filter avoids.
+ */
+public class BitstateRoomStateSet implements RoomStateSet
+{
+    private static final int regionLongCountBits = 27;
+
+    private final int keyLongCount;
+    private final int bitsPerState;
+    private final int hashCount;
+    private final long bitCount;
+    private final java.nio.LongBuffer[] bitRegions;
+    private long setBitCount;
+    private long count;
+    private double expectedOmittedCount;
+
+    private BitstateRoomStateSet(int keyLongCount, int bitsPerState, int hashCount, long bitCount)
+    {
+        this.keyLongCount = keyLongCount;
+        this.bitsPerState = bitsPerState;
+        this.hashCount = hashCount;
+        this.bitCount = bitCount;
+
+        final long longCount = (bitCount + Long.SIZE - 1) / Long.SIZE;
+        final int regionLongCount = 1 << BitstateRoomStateSet.regionLongCountBits;
+        this.bitRegions = new java.nio.LongBuffer[(int)((longCount + regionLongCount - 1) / regionLongCount)];
+        for (int regionIndex = 0; regionIndex < this.bitRegions.length; ++regionIndex)
+        {
+            final long regionStart = (long)regionIndex * regionLongCount;
+            this.bitRegions[regionIndex] = java.nio.ByteBuffer.allocateDirect((int)Math.min(regionLongCount, longCount - regionStart) * Long.BYTES)
+                .order(java.nio.ByteOrder.nativeOrder())
+                .asLongBuffer();
+        }
+    }
+
+    /**
+     * Create a new empty {@link BitstateRoomStateSet}.
+     * @param keyLongCount The number of longs in each key.
+     * @param expectedCount The number of keys that are expected to be added. The filter has
+     *                      bitsPerState bits for each of them.
+     * @param bitsPerState The number of filter bits to make room for for each expected key.
+     * @param hashCount The number of bits that each key sets in the filter.
+     */
+    public static BitstateRoomStateSet create(int keyLongCount, long expectedCount, int bitsPerState, int hashCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(keyLongCount, 1, "keyLongCount");
+        PreCondition.assertBetween(1, expectedCount, 1L << 40, "expectedCount");
+        PreCondition.assertBetween(1, bitsPerState, 1 << 10, "bitsPerState");
+        PreCondition.assertBetween(1, hashCount, 64, "hashCount");
+
+        return new BitstateRoomStateSet(keyLongCount, bitsPerState, hashCount, expectedCount * bitsPerState);
+    }
+
+    /**
+     * Get the number of hash functions that minimizes the chance of omitting a key when the
+     * filter has the provided number of bits for each key.
+     * @param bitsPerState The number of filter bits for each key.
+     */
+    public static int getOptimalHashCount(int bitsPerState)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(bitsPerState, 1, "bitsPerState");
+
+        return Math.max(1, Math.min(64, (int)Math.round(bitsPerState * Math.log(2))));
+    }
+
+    @Override
+    public int getKeyLongCount()
+    {
+        return this.keyLongCount;
+    }
+
+    /**
+     * Get the number of filter bits that were made room for for each expected key.
+     */
+    public int getBitsPerState()
+    {
+        return this.bitsPerState;
+    }
+
+    /**
+     * Get the number of bits that each key sets in the filter.
+     */
+    public int getHashCount()
+    {
+        return this.hashCount;
+    }
+
+    /**
+     * Get the number of bits in the filter.
+     */
+    public long getBitCount()
+    {
+        return this.bitCount;
+    }
+
+    /**
+     * Get the number of bits in the filter that are set.
+     */
+    public long getSetBitCount()
+    {
+        return this.setBitCount;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the estimated number of keys that were omitted because all of their bits were already
+     * set by other keys.
+     */
+    public double getExpectedOmittedCount()
+    {
+        return this.expectedOmittedCount;
+    }
+
+    @Override
+    public double getOmissionProbability()
+    {
+        // The number of omitted keys is close to a Poisson distribution with the expected count as
+        // its mean, so this is the chance that the count isn't zero.
+        return -Math.expm1(-this.expectedOmittedCount);
+    }
+
+    @Override
+    public boolean contains(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        final long hash = RoomStateKeyFormat.getKeyHash(key, keyStart, this.keyLongCount);
+        final long hashStep = BitstateRoomStateSet.getHashStep(hash);
+        boolean result = true;
+        for (int hashIndex = 0; hashIndex < this.hashCount && result; ++hashIndex)
+        {
+            result = this.isBitSet(Long.remainderUnsigned(hash + hashIndex * hashStep, this.bitCount));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        final double fillRatio = (double)this.setBitCount / this.bitCount;
+
+        final long hash = RoomStateKeyFormat.getKeyHash(key, keyStart, this.keyLongCount);
+        final long hashStep = BitstateRoomStateSet.getHashStep(hash);
+        boolean result = false;
+        for (int hashIndex = 0; hashIndex < this.hashCount; ++hashIndex)
+        {
+            if (this.setBit(Long.remainderUnsigned(hash + hashIndex * hashStep, this.bitCount)))
+            {
+                result = true;
+            }
+        }
+
+        if (result)
+        {
+            ++this.count;
+
+            // A new key had this chance of finding all of its bits already set. Each key that is
+            // added stands for about 1 / (1 - omissionChance) new keys that were checked, so this
+            // is the expected number of those that were omitted.
+            final double omissionChance = Math.pow(fillRatio, this.hashCount);
+            this.expectedOmittedCount += omissionChance / (1 - omissionChance);
+        }
+        return result;
+    }
+
+    /**
+     * Get the step between the bit indexes of a key (double hashing). The step is odd, so it
+     * never makes every bit index the same.
+     */
+    private static long getHashStep(long hash)
+    {
+        return (Long.rotateLeft(hash, 32) * 0x94D049BB133111EBL) | 1;
+    }
+
+    private boolean isBitSet(long bitIndex)
+    {
+        final long longIndex = bitIndex / Long.SIZE;
+        final java.nio.LongBuffer bitRegion = this.bitRegions[(int)(longIndex >>> BitstateRoomStateSet.regionLongCountBits)];
+        return (bitRegion.get((int)(longIndex & ((1 << BitstateRoomStateSet.regionLongCountBits) - 1))) & (1L << (bitIndex % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Set the bit at the provided index and get whether it wasn't set before.
+     */
+    private boolean setBit(long bitIndex)
+    {
+        final long longIndex = bitIndex / Long.SIZE;
+        final java.nio.LongBuffer bitRegion = this.bitRegions[(int)(longIndex >>> BitstateRoomStateSet.regionLongCountBits)];
+        final int regionIndex = (int)(longIndex & ((1 << BitstateRoomStateSet.regionLongCountBits) - 1));
+        final long bits = bitRegion.get(regionIndex);
+        final long bit = 1L << (bitIndex % Long.SIZE);
+        final boolean result = (bits & bit) == 0;
+        if (result)
+        {
+            bitRegion.put(regionIndex, bits | bit);
+            ++this.setBitCount;
+        }
+        return result;
+    }
+}
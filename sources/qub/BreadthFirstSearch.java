@@ -0,0 +1,618 @@
+package qub;
+
+/**
+ * A solver for {@link Room}s that finds a shortest solution with a breadth-first search over
+ * packed state keys. The states that have been visited are kept in a {@link RoomStateSet} that is
+ * chosen for each search, so a search can keep its visited states on the heap, off of it, or only
+ * as bits in a {@link BitstateRoomStateSet}. A bitstate search can skip states that it hasn't
+ * visited, so it may find a longer solution or none at all, and it reports how likely that was
+ * with {@link #getOmissionProbability()}.
+ * <p>
+ * The states of each depth are kept in order in a {@link RoomStateList}, and the solution is found
+ * by walking back from the solved state through the states of each depth, so no links between
+ * states need to be stored. That also makes the states of each finished depth a complete
+ * checkpoint of the search: the visited states can be rebuilt by adding them again in order, and
+ * the last depth is the frontier. A search with a checkpoint file appends each depth to it as the
+ * depth finishes. The depth is written and forced to the disk on a background thread while the
+ * next depth is searched, so the checkpoint is at most one depth behind the search.
+ */
+public class BreadthFirstSearch
+{
+    private static final int checkpointFileSignature = 0x51424331;
+    private static final int checkpointLevelSignature = 0x4C45564C;
+
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final RoomStateKeyFormat keyFormat;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private Function1<Integer,RoomStateSet> visitedStatesCreator;
+    private long expandedStateCount;
+    private long visitedStateCount;
+    private double omissionProbability;
+    private Path checkpointFilePath;
+
+    private BreadthFirstSearch(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.keyFormat = RoomStateKeyFormat.create(layout, startOrbCells.length);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+        this.visitedStatesCreator = BreadthFirstSearch.getHeapVisitedStatesCreator();
+    }
+
+    /**
+     * Create a new {@link BreadthFirstSearch} that searches for solutions to the provided
+     * {@link Room}. Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     */
+    public static BreadthFirstSearch create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new BreadthFirstSearch(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Get a function that creates a {@link HeapRoomStateSet} for keys with the provided number of
+     * longs.
+     */
+    public static Function1<Integer,RoomStateSet> getHeapVisitedStatesCreator()
+    {
+        return (Integer keyLongCount) -> HeapRoomStateSet.create(keyLongCount);
+    }
+
+    /**
+     * Get a function that creates an {@link OffHeapRoomStateSet} with the provided capacity for
+     * keys with the provided number of longs.
+     * @param capacity The number of states to make room for.
+     */
+    public static Function1<Integer,RoomStateSet> getOffHeapVisitedStatesCreator(long capacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(capacity, 0, "capacity");
+
+        return (Integer keyLongCount) -> OffHeapRoomStateSet.create(keyLongCount, capacity);
+    }
+
+    /**
+     * Get a function that creates a {@link BitstateRoomStateSet} for keys with the provided number
+     * of longs.
+     * @param expectedStateCount The number of states that the search is expected to visit.
+     * @param bitsPerState The number of filter bits to make room for for each expected state.
+     * @param hashCount The number of bits that each state sets in the filter.
+     */
+    public static Function1<Integer,RoomStateSet> getBitstateVisitedStatesCreator(long expectedStateCount, int bitsPerState, int hashCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(expectedStateCount, 1, "expectedStateCount");
+        PreCondition.assertGreaterThanOrEqualTo(bitsPerState, 1, "bitsPerState");
+        PreCondition.assertGreaterThanOrEqualTo(hashCount, 1, "hashCount");
+
+        return (Integer keyLongCount) -> BitstateRoomStateSet.create(keyLongCount, expectedStateCount, bitsPerState, hashCount);
+    }
+
+    /**
+     * Set the function that creates the {@link RoomStateSet} that each search keeps its visited
+     * states in. The function is given the number of longs in each key.
+     * @param visitedStatesCreator The function that creates the {@link RoomStateSet} that each
+     *                             search keeps its visited states in.
+     * @return This object for method chaining.
+     */
+    public BreadthFirstSearch setVisitedStatesCreator(Function1<Integer,RoomStateSet> visitedStatesCreator)
+    {
+        PreCondition.assertNotNull(visitedStatesCreator, "visitedStatesCreator");
+
+        this.visitedStatesCreator = visitedStatesCreator;
+
+        return this;
+    }
+
+    /**
+     * Get the function that creates the {@link RoomStateSet} that each search keeps its visited
+     * states in.
+     */
+    public Function1<Integer,RoomStateSet> getVisitedStatesCreator()
+    {
+        return this.visitedStatesCreator;
+    }
+
+    /**
+     * Get the {@link RoomStateKeyFormat} that this search packs its states with.
+     */
+    public RoomStateKeyFormat getKeyFormat()
+    {
+        return this.keyFormat;
+    }
+
+    /**
+     * Get the number of states that the last search expanded.
+     */
+    public long getExpandedStateCount()
+    {
+        return this.expandedStateCount;
+    }
+
+    /**
+     * Get the number of distinct states that the last search visited.
+     */
+    public long getVisitedStateCount()
+    {
+        return this.visitedStateCount;
+    }
+
+    /**
+     * Get the estimated probability that the last search skipped at least one state that it
+     * hadn't visited. This is only more than zero when the visited states are kept in a
+     * {@link RoomStateSet} that doesn't store its keys exactly, and then the solution that was
+     * found might not have the fewest moves.
+     */
+    public double getOmissionProbability()
+    {
+        return this.omissionProbability;
+    }
+
+    /**
+     * Set the path to the file that each search writes its checkpoint to, or null if searches
+     * shouldn't write checkpoints. The checkpoint is added to as each depth of the search
+     * finishes, so a search that is stopped can be continued with {@link #resumeSolution()}. The
+     * file isn't deleted when the search finishes.
+     * @param checkpointFilePath The path to the file that each search writes its checkpoint to.
+     * @return This object for method chaining.
+     */
+    public BreadthFirstSearch setCheckpointFilePath(Path checkpointFilePath)
+    {
+        this.checkpointFilePath = checkpointFilePath;
+
+        return this;
+    }
+
+    /**
+     * Get the path to the file that each search writes its checkpoint to, or null if searches
+     * don't write checkpoints.
+     */
+    public Path getCheckpointFilePath()
+    {
+        return this.checkpointFilePath;
+    }
+
+    /**
+     * Find a solution with the fewest moves. If this search has a checkpoint file path, then any
+     * checkpoint that is already in the file is replaced.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() -> this.search(false));
+    }
+
+    /**
+     * Continue the search that wrote the checkpoint file at {@link #getCheckpointFilePath()} from
+     * the last depth that it finished. The solution and the statistics are the same as if the
+     * search had never stopped. If the end of the checkpoint was only partly written, it is
+     * dropped and the search continues from the depth before it.
+     */
+    public Result<Iterable<Move>> resumeSolution()
+    {
+        PreCondition.assertNotNull(this.checkpointFilePath, "this.getCheckpointFilePath()");
+
+        return Result.create(() -> this.search(true));
+    }
+
+    private Iterable<Move> search(boolean resume)
+    {
+        this.expandedStateCount = 0;
+        this.visitedStateCount = 0;
+        this.omissionProbability = 0;
+
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final RoomStateSet visitedStates = this.visitedStatesCreator.run(keyLongCount);
+        if (visitedStates == null || visitedStates.getKeyLongCount() != keyLongCount)
+        {
+            throw new IllegalArgumentException("The visited states creator must create a set for keys with " + keyLongCount + " longs.");
+        }
+        final RoomStateList states = RoomStateList.create(keyLongCount);
+
+        final long[] key = new long[keyLongCount];
+        final long[] nextKey = new long[keyLongCount];
+        final int[] orbCells = new int[this.keyFormat.getMaxOrbCount()];
+        final int[] nextOrbCells = new int[this.keyFormat.getMaxOrbCount()];
+
+        try (final java.nio.channels.FileChannel checkpointChannel = this.openCheckpoint(resume))
+        {
+            // The states of depth d are the states from levelStarts[d] up to levelStarts[d + 1].
+            long[] levelStarts = resume ? this.readCheckpoint(checkpointChannel, visitedStates, states, key) : null;
+            final java.io.DataOutputStream checkpoint = checkpointChannel == null ? null : BreadthFirstSearch.createCheckpointOutput(checkpointChannel);
+            final java.util.concurrent.ExecutorService checkpointWriter = checkpoint == null ? null : java.util.concurrent.Executors.newSingleThreadExecutor();
+            java.util.concurrent.Future<?> checkpointLevel = null;
+            try
+            {
+                if (levelStarts == null)
+                {
+                    this.keyFormat.pack(this.startOrbCells, this.startOrbCells.length, this.startBrokenBlocks, key, 0);
+                    visitedStates.add(key, 0);
+                    states.add(key, 0);
+                    levelStarts = new long[] { 0, 1 };
+
+                    if (checkpoint != null)
+                    {
+                        if (checkpointChannel.size() == 0)
+                        {
+                            this.writeCheckpointHeader(checkpoint);
+                        }
+                        BreadthFirstSearch.writeCheckpointLevel(checkpoint, checkpointChannel, states, 0, 1, key);
+                    }
+                }
+
+                int depth = levelStarts.length - 2;
+                this.expandedStateCount = levelStarts[depth];
+                levelStarts = java.util.Arrays.copyOf(levelStarts, Math.max(2, levelStarts.length * 2));
+
+                long solvedStateIndex = this.startOrbCells.length == 0 ? 0 : -1;
+                while (solvedStateIndex == -1 && levelStarts[depth] < levelStarts[depth + 1])
+                {
+                    for (long stateIndex = levelStarts[depth]; stateIndex < levelStarts[depth + 1] && solvedStateIndex == -1; ++stateIndex)
+                    {
+                        states.get(stateIndex, key, 0);
+                        final int orbCount = this.keyFormat.unpackOrbCells(key, 0, orbCells);
+                        final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(key, 0);
+                        ++this.expandedStateCount;
+
+                        for (int orbIndex = 0; orbIndex < orbCount && solvedStateIndex == -1; ++orbIndex)
+                        {
+                            for (int direction = 0; direction < RoomLayout.directionCount && solvedStateIndex == -1; ++direction)
+                            {
+                                final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                                if (moveResult != RoomLayout.noMove)
+                                {
+                                    this.keyFormat.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+                                    if (visitedStates.add(nextKey, 0))
+                                    {
+                                        states.add(nextKey, 0);
+                                        if (this.keyFormat.unpackOrbCount(nextKey, 0) == 0)
+                                        {
+                                            solvedStateIndex = states.getCount() - 1;
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+
+                    ++depth;
+                    if (solvedStateIndex == -1)
+                    {
+                        if (levelStarts.length == depth + 1)
+                        {
+                            levelStarts = java.util.Arrays.copyOf(levelStarts, levelStarts.length * 2);
+                        }
+                        levelStarts[depth + 1] = states.getCount();
+
+                        if (checkpoint != null)
+                        {
+                            // The previous depth has to be written before this one is appended.
+                        BreadthFirstSearch.awaitCheckpointLevel(checkpointLevel);
+                        final RoomStateList levelStates = states.getSnapshot();
+                        final long levelStart = levelStarts[depth];
+                        final long levelEnd = levelStarts[depth + 1];
+                        checkpointLevel = checkpointWriter.submit(() ->
+                        {
+                            BreadthFirstSearch.writeCheckpointLevel(checkpoint, checkpointChannel, levelStates, levelStart, levelEnd, new long[keyLongCount]);
+                            return null;
+                        });
+                        }
+                    }
+                }
+                BreadthFirstSearch.awaitCheckpointLevel(checkpointLevel);
+                this.visitedStateCount = visitedStates.getCount();
+                this.omissionProbability = visitedStates.getOmissionProbability();
+
+                if (solvedStateIndex == -1)
+                {
+                    throw new NotFoundException(this.omissionProbability == 0
+                        ? "No solution exists for the provided room."
+                        : "No solution was found for the provided room, but states may have been skipped.");
+                }
+
+                final Move[] moves = new Move[solvedStateIndex == 0 ? 0 : depth];
+                states.get(solvedStateIndex, key, 0);
+                for (int moveIndex = moves.length - 1; moveIndex >= 0; --moveIndex)
+                {
+                    moves[moveIndex] = this.findPreviousMove(states, levelStarts[moveIndex], levelStarts[moveIndex + 1], key);
+                }
+
+                final Iterable<Move> result = Iterable.create(moves);
+
+                PostCondition.assertNotNull(result, "result");
+
+                return result;
+            }
+            finally
+            {
+                BreadthFirstSearch.stopCheckpointWriter(checkpointWriter);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open the checkpoint file, or get null if this search doesn't write checkpoints.
+     */
+    private java.nio.channels.FileChannel openCheckpoint(boolean resume) throws java.io.IOException
+    {
+        java.nio.channels.FileChannel result = null;
+        if (this.checkpointFilePath != null)
+        {
+            final java.nio.file.Path checkpointFile = java.nio.file.Paths.get(this.checkpointFilePath.toString());
+            if (resume)
+            {
+                if (!java.nio.file.Files.exists(checkpointFile))
+                {
+                    throw new NotFoundException("The checkpoint file " + this.checkpointFilePath + " doesn't exist.");
+                }
+                result = java.nio.channels.FileChannel.open(checkpointFile, java.nio.file.StandardOpenOption.READ, java.nio.file.StandardOpenOption.WRITE);
+            }
+            else
+            {
+                result = java.nio.channels.FileChannel.open(checkpointFile, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING, java.nio.file.StandardOpenOption.WRITE);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a buffered output stream that appends to the checkpoint file at the channel's
+     * position. Closing the stream closes the channel.
+     */
+    private static java.io.DataOutputStream createCheckpointOutput(java.nio.channels.FileChannel checkpointChannel)
+    {
+        return new java.io.DataOutputStream(new java.io.BufferedOutputStream(java.nio.channels.Channels.newOutputStream(checkpointChannel), 1 << 16));
+    }
+
+    private void writeCheckpointHeader(java.io.DataOutputStream checkpoint) throws java.io.IOException
+    {
+        checkpoint.writeInt(BreadthFirstSearch.checkpointFileSignature);
+        BreadthFirstSearch.writeStartState(checkpoint, this.layout, this.startOrbCells, this.startBrokenBlocks);
+    }
+
+    /**
+     * Write the provided layout's bounds and static objects, followed by the provided start
+     * state. This is the part of the header that the checkpoint shares with the files of a
+     * {@link PartitionedBreadthFirstSearch}.
+     */
+    static void writeStartState(java.io.DataOutput output, RoomLayout layout, int[] startOrbCells, long startBrokenBlocks) throws java.io.IOException
+    {
+        output.writeInt(layout.getLeft());
+        output.writeInt(layout.getTop());
+        output.writeInt(layout.getWidth());
+        output.writeInt(layout.getHeight());
+        for (int cell = 0; cell < layout.getCellCount(); ++cell)
+        {
+            final RoomObject staticObject = layout.getStaticObject(cell);
+            output.writeByte(staticObject == null ? 0 : staticObject.ordinal() + 1);
+        }
+        output.writeInt(startOrbCells.length);
+        for (final int startOrbCell : startOrbCells)
+        {
+            output.writeInt(startOrbCell);
+        }
+        output.writeLong(startBrokenBlocks);
+    }
+
+    /**
+     * Append the states in the provided range to the checkpoint as the next depth, and make sure
+     * that they reach the disk. This runs on the checkpoint writer's thread for every depth after
+     * the first, so those depths are read from a {@link RoomStateList#getSnapshot()}.
+     */
+    private static void writeCheckpointLevel(java.io.DataOutputStream checkpoint, java.nio.channels.FileChannel checkpointChannel, RoomStateList states, long rangeStart, long rangeEnd, long[] key) throws java.io.IOException
+    {
+        checkpoint.writeInt(BreadthFirstSearch.checkpointLevelSignature);
+        checkpoint.writeLong(rangeEnd - rangeStart);
+        for (long stateIndex = rangeStart; stateIndex < rangeEnd; ++stateIndex)
+        {
+            states.get(stateIndex, key, 0);
+            for (final long keyLong : key)
+            {
+                checkpoint.writeLong(keyLong);
+            }
+        }
+        checkpoint.flush();
+        checkpointChannel.force(false);
+    }
+
+    /**
+     * Wait for the provided depth to finish being written to the checkpoint, and throw whatever
+     * writing it threw. An interrupt doesn't stop the wait, since the search can't go on until
+     * the depth is written, but it is passed on afterward.
+     */
+    private static void awaitCheckpointLevel(java.util.concurrent.Future<?> checkpointLevel) throws java.io.IOException
+    {
+        boolean interrupted = false;
+        boolean done = checkpointLevel == null;
+        try
+        {
+            while (!done)
+            {
+                try
+                {
+                    checkpointLevel.get();
+                    done = true;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof java.io.IOException)
+            {
+                throw (java.io.IOException)cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            else if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop the provided checkpoint writer once it has finished the depth that it is writing, so
+     * that the checkpoint file isn't closed under it.
+     */
+    private static void stopCheckpointWriter(java.util.concurrent.ExecutorService checkpointWriter)
+    {
+        if (checkpointWriter != null)
+        {
+            checkpointWriter.shutdown();
+            boolean interrupted = false;
+            while (!checkpointWriter.isTerminated())
+            {
+                try
+                {
+                    checkpointWriter.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Read the states of each depth that was written to the checkpoint into the provided visited
+     * states and list of states, in the order that they were found, and get where each depth
+     * starts, or get null if no depth was written. A header or a depth at the end of the file
+     * that was only partly written is cut off, so that the search writes it again.
+     */
+    private long[] readCheckpoint(java.nio.channels.FileChannel checkpointChannel, RoomStateSet visitedStates, RoomStateList states, long[] key) throws java.io.IOException
+    {
+        final long fileByteCount = checkpointChannel.size();
+        final java.io.DataInputStream input = new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.channels.Channels.newInputStream(checkpointChannel.position(0)), 1 << 16));
+        long byteCount;
+        try
+        {
+            if (input.readInt() != BreadthFirstSearch.checkpointFileSignature)
+            {
+                throw new ParseException("The provided file is not a breadth-first search checkpoint.");
+            }
+            final int left = input.readInt();
+            final int top = input.readInt();
+            final int width = input.readInt();
+            final int height = input.readInt();
+            boolean sameRoom = left == this.layout.getLeft() && top == this.layout.getTop() &&
+                width == this.layout.getWidth() && height == this.layout.getHeight();
+            for (int cell = 0; sameRoom && cell < this.layout.getCellCount(); ++cell)
+            {
+                final RoomObject staticObject = this.layout.getStaticObject(cell);
+                sameRoom = input.readUnsignedByte() == (staticObject == null ? 0 : staticObject.ordinal() + 1);
+            }
+            sameRoom = sameRoom && input.readInt() == this.startOrbCells.length;
+            for (int orbIndex = 0; sameRoom && orbIndex < this.startOrbCells.length; ++orbIndex)
+            {
+                sameRoom = input.readInt() == this.startOrbCells[orbIndex];
+            }
+            if (!sameRoom || input.readLong() != this.startBrokenBlocks)
+            {
+                throw new IllegalArgumentException("The checkpoint file was written by a search of a different room.");
+            }
+            byteCount = 5L * Integer.BYTES + this.layout.getCellCount() + (1L + this.startOrbCells.length) * Integer.BYTES + Long.BYTES;
+        }
+        catch (java.io.EOFException e)
+        {
+            // The header is written along with the start state, so the search stopped before it
+            // got anywhere.
+            checkpointChannel.truncate(0).position(0);
+            return null;
+        }
+
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final long levelHeaderByteCount = Integer.BYTES + Long.BYTES;
+        long[] levelStarts = new long[] { 0 };
+        int levelCount = 0;
+        while (byteCount + levelHeaderByteCount <= fileByteCount)
+        {
+            if (input.readInt() != BreadthFirstSearch.checkpointLevelSignature)
+            {
+                throw new ParseException("The checkpoint file is corrupt after depth " + levelCount + ".");
+            }
+            final long levelStateCount = input.readLong();
+            if (levelStateCount < 0 || (fileByteCount - byteCount - levelHeaderByteCount) / ((long)keyLongCount * Long.BYTES) < levelStateCount)
+            {
+                break;
+            }
+
+            for (long stateIndex = 0; stateIndex < levelStateCount; ++stateIndex)
+            {
+                for (int i = 0; i < keyLongCount; ++i)
+                {
+                    key[i] = input.readLong();
+                }
+                visitedStates.add(key, 0);
+                states.add(key, 0);
+            }
+            byteCount += levelHeaderByteCount + levelStateCount * keyLongCount * Long.BYTES;
+
+            ++levelCount;
+            if (levelStarts.length == levelCount)
+            {
+                levelStarts = java.util.Arrays.copyOf(levelStarts, levelStarts.length * 2);
+            }
+            levelStarts[levelCount] = states.getCount();
+        }
+
+        checkpointChannel.truncate(byteCount).position(byteCount);
+
+        // If not even the start state was written, then the search starts over.
+        return levelCount == 0 ? null : java.util.Arrays.copyOf(levelStarts, levelCount + 1);
+    }
+
+    /**
+     * Find a state in the provided range of states that reaches the state of the provided key in
+     * one move. The key is replaced with the key of the state that was found, and the move is
+     * returned.
+     */
+    private Move findPreviousMove(RoomStateList states, long rangeStart, long rangeEnd, long[] targetKey)
+    {
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final long[] key = new long[keyLongCount];
+        final long[] nextKey = new long[keyLongCount];
+        final int[] orbCells = new int[this.keyFormat.getMaxOrbCount()];
+        final int[] nextOrbCells = new int[this.keyFormat.getMaxOrbCount()];
+
+        Move result = null;
+        for (long stateIndex = rangeStart; stateIndex < rangeEnd && result == null; ++stateIndex)
+        {
+            states.get(stateIndex, key, 0);
+            result = this.keyFormat.findMove(this.graph, key, 0, targetKey, 0, orbCells, nextOrbCells, nextKey);
+        }
+        System.arraycopy(key, 0, targetKey, 0, keyLongCount);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
@@ -0,0 +1,543 @@
+package qub;
+
+/**
+ * A table of the number of moves that it takes to solve every arrangement of up to a maximum
+ * number of {@link RoomObject#Orb}s in a {@link RoomLayout}. The table is built with retrograde
+ * analysis that works backward from the solved arrangements, and it can be saved to and mapped
+ * from a compact file.
+ */
+public class EndgameTablebase
+{
+    /**
+     * The distance that is returned for arrangements that can't be solved.
+     */
+    public static final int unsolvable = -1;
+    /**
+     * The largest distance that can be stored in a table.
+     */
+    public static final int maximumDistance = 254;
+
+    private static final byte unsolvableByte = (byte)0xFF;
+    private static final int fileSignature = 0x51544231;
+    private static final int fileHeaderIntegerCount = 6;
+
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int maxOrbCount;
+    private final int breakableBlockCount;
+    private final int[] freeCellIndexes;
+    private final int[] freeCells;
+    private final long[][] binomials;
+    private final long[] orbCountOffsets;
+    private final java.nio.ByteBuffer distances;
+
+    private EndgameTablebase(RoomLayout layout, int maxOrbCount, java.nio.ByteBuffer distances)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.maxOrbCount = maxOrbCount;
+        this.breakableBlockCount = layout.getBreakableBlockCount();
+
+        final int cellCount = layout.getCellCount();
+        this.freeCellIndexes = new int[cellCount];
+        int freeCellCount = 0;
+        for (int cell = 0; cell < cellCount; ++cell)
+        {
+            if (EndgameTablebase.isFreeCell(layout, cell))
+            {
+                this.freeCellIndexes[cell] = freeCellCount;
+                ++freeCellCount;
+            }
+            else
+            {
+                this.freeCellIndexes[cell] = -1;
+            }
+        }
+        this.freeCells = new int[freeCellCount];
+        for (int cell = 0; cell < cellCount; ++cell)
+        {
+            if (this.freeCellIndexes[cell] != -1)
+            {
+                this.freeCells[this.freeCellIndexes[cell]] = cell;
+            }
+        }
+
+        this.binomials = EndgameTablebase.createBinomials(freeCellCount, maxOrbCount);
+        this.orbCountOffsets = new long[maxOrbCount + 2];
+        for (int orbCount = 0; orbCount <= maxOrbCount; ++orbCount)
+        {
+            this.orbCountOffsets[orbCount + 1] = this.orbCountOffsets[orbCount] + this.binomials[freeCellCount][orbCount];
+        }
+
+        this.distances = distances;
+    }
+
+    /**
+     * Build the {@link EndgameTablebase} for the static layout of the provided {@link Room}.
+     * @param room The {@link Room} to build the {@link EndgameTablebase} for.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s in the arrangements that the
+     *                    table covers.
+     */
+    public static Result<EndgameTablebase> create(Room room, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return EndgameTablebase.create(RoomLayout.create(room), maxOrbCount);
+    }
+
+    /**
+     * Build the {@link EndgameTablebase} for the provided {@link RoomLayout}.
+     * @param layout The {@link RoomLayout} to build the {@link EndgameTablebase} for.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s in the arrangements that the
+     *                    table covers.
+     */
+    public static Result<EndgameTablebase> create(RoomLayout layout, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+        PreCondition.assertGreaterThanOrEqualTo(maxOrbCount, 0, "maxOrbCount");
+        PreCondition.assertLessThanOrEqualTo(EndgameTablebase.getStateCount(layout, maxOrbCount), EndgameTablebase.getMaximumStateCount(layout), "EndgameTablebase.getStateCount(layout, maxOrbCount)");
+
+        return Result.create(() ->
+        {
+            final byte[] distances = new byte[(int)EndgameTablebase.getStateCount(layout, maxOrbCount)];
+            java.util.Arrays.fill(distances, EndgameTablebase.unsolvableByte);
+
+            final EndgameTablebase result = new EndgameTablebase(layout, maxOrbCount, java.nio.ByteBuffer.wrap(distances));
+            result.runRetrogradeAnalysis(distances);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Get the number of states that an {@link EndgameTablebase} for the provided
+     * {@link RoomLayout} and maximum {@link RoomObject#Orb} count would store, or
+     * {@link Long#MAX_VALUE} if that number doesn't fit in a long.
+     * @param layout The {@link RoomLayout} of the {@link EndgameTablebase}.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s in the arrangements that the
+     *                    table covers.
+     */
+    public static long getStateCount(RoomLayout layout, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+        PreCondition.assertGreaterThanOrEqualTo(maxOrbCount, 0, "maxOrbCount");
+
+        long result = Long.MAX_VALUE;
+        if (layout.getBreakableBlockCount() < Integer.SIZE - 1)
+        {
+            int freeCellCount = 0;
+            for (int cell = 0; cell < layout.getCellCount(); ++cell)
+            {
+                if (EndgameTablebase.isFreeCell(layout, cell))
+                {
+                    ++freeCellCount;
+                }
+            }
+
+            long arrangementCount = 0;
+            long binomial = 1;
+            for (int orbCount = 0; orbCount <= Math.min(maxOrbCount, freeCellCount) && arrangementCount < Integer.MAX_VALUE; ++orbCount)
+            {
+                arrangementCount += binomial;
+                binomial = binomial * (freeCellCount - orbCount) / (orbCount + 1);
+            }
+
+            if (arrangementCount < Integer.MAX_VALUE)
+            {
+                result = arrangementCount << layout.getBreakableBlockCount();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the maximum number of states that an {@link EndgameTablebase} for the provided
+     * {@link RoomLayout} can store and still fit in a single mappable file.
+     */
+    private static long getMaximumStateCount(RoomLayout layout)
+    {
+        return Integer.MAX_VALUE - EndgameTablebase.getFileHeaderByteCount(layout);
+    }
+
+    private static int getFileHeaderByteCount(RoomLayout layout)
+    {
+        return EndgameTablebase.fileHeaderIntegerCount * Integer.BYTES + layout.getCellCount();
+    }
+
+    private static boolean isFreeCell(RoomLayout layout, int cell)
+    {
+        final RoomObject staticObject = layout.getStaticObject(cell);
+        return staticObject == null || staticObject == RoomObject.BreakableBlock;
+    }
+
+    private static long[][] createBinomials(int n, int maxK)
+    {
+        final long[][] result = new long[n + 1][maxK + 2];
+        for (int i = 0; i <= n; ++i)
+        {
+            result[i][0] = 1;
+            for (int k = 1; k <= maxK + 1; ++k)
+            {
+                result[i][k] = (i == 0 ? 0 : result[i - 1][k - 1] + result[i - 1][k]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the {@link RoomLayout} that this table covers.
+     */
+    public RoomLayout getLayout()
+    {
+        return this.layout;
+    }
+
+    /**
+     * Get the maximum number of {@link RoomObject#Orb}s in the arrangements that this table covers.
+     */
+    public int getMaxOrbCount()
+    {
+        return this.maxOrbCount;
+    }
+
+    /**
+     * Get the number of states that this table stores.
+     */
+    public long getStateCount()
+    {
+        return this.distances.capacity();
+    }
+
+    /**
+     * Get whether this table covers the provided {@link Room}.
+     * @param room The {@link Room} to check.
+     */
+    public boolean covers(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return room.getRoomObjectCount(RoomObject.Orb) <= this.maxOrbCount &&
+            this.layout.isLayoutOf(room);
+    }
+
+    /**
+     * Get the number of moves that it takes to solve the provided arrangement, or
+     * {@link #unsolvable} if the arrangement can't be solved.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s, sorted in ascending order.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     */
+    public int getDistanceToSolve(int[] orbCells, int orbCount, long brokenBlocks)
+    {
+        PreCondition.assertNotNull(orbCells, "orbCells");
+        PreCondition.assertBetween(0, orbCount, this.maxOrbCount, "orbCount");
+
+        final byte distance = this.distances.get((int)this.getStateIndex(orbCells, orbCount, brokenBlocks));
+        return distance == EndgameTablebase.unsolvableByte ? EndgameTablebase.unsolvable : (distance & 0xFF);
+    }
+
+    /**
+     * Get the number of moves that it takes to solve the provided {@link Room}.
+     * @param room The {@link Room} to look up. This table must cover the {@link Room}.
+     */
+    public Result<Integer> getDistanceToSolve(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertTrue(this.covers(room), "this.covers(room)");
+
+        return Result.create(() ->
+        {
+            final int[] orbCells = this.layout.getOrbCells(room);
+            final int result = this.getDistanceToSolve(orbCells, orbCells.length, this.layout.getBrokenBlocks(room));
+            if (result == EndgameTablebase.unsolvable)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Find the shortest solution for the provided {@link Room} by only looking up distances in
+     * this table.
+     * @param room The {@link Room} to solve. This table must cover the {@link Room}.
+     */
+    public Result<Iterable<Move>> findSolution(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertTrue(this.covers(room), "this.covers(room)");
+
+        return Result.create(() ->
+        {
+            final int[] orbCells = java.util.Arrays.copyOf(this.layout.getOrbCells(room), this.maxOrbCount);
+            int orbCount = room.getRoomObjectCount(RoomObject.Orb);
+            long brokenBlocks = this.layout.getBrokenBlocks(room);
+
+            int distance = this.getDistanceToSolve(orbCells, orbCount, brokenBlocks);
+            if (distance == EndgameTablebase.unsolvable)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+
+            final List<Move> result = List.create();
+            final int[] nextOrbCells = new int[this.maxOrbCount];
+            while (distance > 0)
+            {
+                boolean foundMove = false;
+                for (int orbIndex = 0; orbIndex < orbCount && !foundMove; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount && !foundMove; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            final int nextOrbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                            final long nextBrokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+                            if (this.getDistanceToSolve(nextOrbCells, nextOrbCount, nextBrokenBlocks) == distance - 1)
+                            {
+                                result.add(this.layout.createMove(orbCells[orbIndex], moveResult));
+                                System.arraycopy(nextOrbCells, 0, orbCells, 0, nextOrbCount);
+                                orbCount = nextOrbCount;
+                                brokenBlocks = nextBrokenBlocks;
+                                foundMove = true;
+                            }
+                        }
+                    }
+                }
+                PostCondition.assertTrue(foundMove, "foundMove");
+
+                --distance;
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    private long getStateIndex(int[] orbCells, int orbCount, long brokenBlocks)
+    {
+        long arrangementIndex = this.orbCountOffsets[orbCount];
+        for (int i = 0; i < orbCount; ++i)
+        {
+            arrangementIndex += this.binomials[this.freeCellIndexes[orbCells[i]]][i + 1];
+        }
+        return (arrangementIndex << this.breakableBlockCount) | brokenBlocks;
+    }
+
+    private int getOrbCells(long stateIndex, int[] orbCells)
+    {
+        long arrangementIndex = stateIndex >>> this.breakableBlockCount;
+        int result = 0;
+        while (arrangementIndex >= this.orbCountOffsets[result + 1])
+        {
+            ++result;
+        }
+        arrangementIndex -= this.orbCountOffsets[result];
+
+        int freeCellIndex = this.freeCells.length;
+        for (int i = result - 1; i >= 0; --i)
+        {
+            --freeCellIndex;
+            while (this.binomials[freeCellIndex][i + 1] > arrangementIndex)
+            {
+                --freeCellIndex;
+            }
+            orbCells[i] = this.freeCells[freeCellIndex];
+            arrangementIndex -= this.binomials[freeCellIndex][i + 1];
+        }
+
+        return result;
+    }
+
+    /**
+     * Fill in the provided distances by repeatedly stepping backward from every state at the
+     * current distance to each of the states that can reach it in one move.
+     */
+    private void runRetrogradeAnalysis(byte[] distances)
+    {
+        final long brokenBlocksMask = (1L << this.breakableBlockCount) - 1;
+        for (int stateIndex = 0; stateIndex <= brokenBlocksMask; ++stateIndex)
+        {
+            distances[stateIndex] = 0;
+        }
+
+        final int[] orbCells = new int[this.maxOrbCount];
+        final int[] predecessorOrbCells = new int[this.maxOrbCount];
+        final boolean[] foundPredecessor = new boolean[] { true };
+        for (int distance = 0; foundPredecessor[0]; ++distance)
+        {
+            foundPredecessor[0] = false;
+            final int currentDistance = distance;
+            final byte predecessorDistance = (byte)(distance + 1);
+            final RoomStateAction setPredecessorDistance = (int[] predecessorCells, int predecessorOrbCount, long predecessorBrokenBlocks) ->
+            {
+                final int predecessorIndex = (int)this.getStateIndex(predecessorCells, predecessorOrbCount, predecessorBrokenBlocks);
+                if (distances[predecessorIndex] == EndgameTablebase.unsolvableByte)
+                {
+                    // A distance past the maximum would be stored as the unsolvable byte, so
+                    // stop before it is written.
+                    if (currentDistance == EndgameTablebase.maximumDistance)
+                    {
+                        throw new PreConditionFailure("The provided layout has arrangements that take more than " + EndgameTablebase.maximumDistance + " moves to solve, which is more than an EndgameTablebase can store.");
+                    }
+
+                    distances[predecessorIndex] = predecessorDistance;
+                    foundPredecessor[0] = true;
+                }
+            };
+
+            for (int stateIndex = 0; stateIndex < distances.length; ++stateIndex)
+            {
+                if (distances[stateIndex] == (byte)distance)
+                {
+                    final int orbCount = this.getOrbCells(stateIndex, orbCells);
+                    final long brokenBlocks = stateIndex & brokenBlocksMask;
+                    this.layout.visitPredecessors(orbCells, orbCount, brokenBlocks, this.maxOrbCount, predecessorOrbCells, setPredecessorDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the bytes of this table in the same format that {@link #save(Path)} writes.
+     */
+    public java.nio.ByteBuffer toByteBuffer()
+    {
+        final java.nio.ByteBuffer result = java.nio.ByteBuffer.allocate(EndgameTablebase.getFileHeaderByteCount(this.layout) + this.distances.capacity());
+        this.writeHeader(result);
+        result.put(this.distances.duplicate());
+        result.flip();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private void writeHeader(java.nio.ByteBuffer buffer)
+    {
+        buffer.putInt(EndgameTablebase.fileSignature);
+        buffer.putInt(this.maxOrbCount);
+        buffer.putInt(this.layout.getLeft());
+        buffer.putInt(this.layout.getTop());
+        buffer.putInt(this.layout.getWidth());
+        buffer.putInt(this.layout.getHeight());
+        for (int cell = 0; cell < this.layout.getCellCount(); ++cell)
+        {
+            final RoomObject staticObject = this.layout.getStaticObject(cell);
+            buffer.put((byte)(staticObject == null ? 0 : staticObject.ordinal() + 1));
+        }
+    }
+
+    /**
+     * Save this table to the file at the provided path.
+     * @param filePath The path to the file to save this table to.
+     */
+    public Result<Void> save(Path filePath)
+    {
+        PreCondition.assertNotNull(filePath, "filePath");
+
+        return Result.create(() ->
+        {
+            try (final java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(
+                java.nio.file.Paths.get(filePath.toString()),
+                java.nio.file.StandardOpenOption.CREATE,
+                java.nio.file.StandardOpenOption.TRUNCATE_EXISTING,
+                java.nio.file.StandardOpenOption.WRITE))
+            {
+                final java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(EndgameTablebase.getFileHeaderByteCount(this.layout));
+                this.writeHeader(header);
+                header.flip();
+                while (header.hasRemaining())
+                {
+                    channel.write(header);
+                }
+
+                final java.nio.ByteBuffer distances = this.distances.duplicate();
+                while (distances.hasRemaining())
+                {
+                    channel.write(distances);
+                }
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Map the table in the file at the provided path into memory. The distances are read directly
+     * from the mapped file instead of being copied onto the heap.
+     * @param filePath The path to the file that contains the table.
+     */
+    public static Result<EndgameTablebase> load(Path filePath)
+    {
+        PreCondition.assertNotNull(filePath, "filePath");
+
+        return Result.create(() ->
+        {
+            try (final java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(filePath.toString())))
+            {
+                return EndgameTablebase.parse(channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, channel.size())).await();
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Parse a table from the provided bytes. The returned table reads its distances directly from
+     * the provided bytes.
+     * @param bytes The bytes that were written by {@link #save(Path)} or {@link #toByteBuffer()}.
+     */
+    public static Result<EndgameTablebase> parse(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return Result.create(() ->
+        {
+            final java.nio.ByteBuffer buffer = bytes.duplicate();
+            if (buffer.remaining() < EndgameTablebase.fileHeaderIntegerCount * Integer.BYTES ||
+                buffer.getInt() != EndgameTablebase.fileSignature)
+            {
+                throw new ParseException("The provided bytes are not an endgame tablebase.");
+            }
+
+            final int maxOrbCount = buffer.getInt();
+            final int left = buffer.getInt();
+            final int top = buffer.getInt();
+            final int width = buffer.getInt();
+            final int height = buffer.getInt();
+            if (maxOrbCount < 0 || width < 0 || height < 0 || (long)width * height > buffer.remaining())
+            {
+                throw new ParseException("The endgame tablebase header is corrupt.");
+            }
+
+            final RoomObject[] roomObjects = RoomObject.values();
+            final RoomObject[] staticObjects = new RoomObject[width * height];
+            for (int cell = 0; cell < staticObjects.length; ++cell)
+            {
+                final int staticObjectByte = buffer.get();
+                if (staticObjectByte < 0 || roomObjects.length < staticObjectByte || staticObjectByte == RoomObject.Orb.ordinal() + 1)
+                {
+                    throw new ParseException("The endgame tablebase layout is corrupt.");
+                }
+                staticObjects[cell] = staticObjectByte == 0 ? null : roomObjects[staticObjectByte - 1];
+            }
+            final RoomLayout layout = RoomLayout.create(left, top, width, height, staticObjects);
+
+            if (EndgameTablebase.getStateCount(layout, maxOrbCount) != buffer.remaining())
+            {
+                throw new ParseException("The endgame tablebase has the wrong number of distances.");
+            }
+
+            return new EndgameTablebase(layout, maxOrbCount, buffer.slice());
+        });
+    }
+}
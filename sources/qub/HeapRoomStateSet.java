@@ -0,0 +1,147 @@
+package qub;
+
+/**
+ * A {@link RoomStateSet} that keeps its keys in a long array on the heap. Keys are stored inline
+ * in an open-addressing table that is searched with linear probing, and a separate bit for each
+ * slot marks whether the slot is used, so any key can be stored.
+ */
+public class HeapRoomStateSet implements RoomStateSet
+{
+    private static final long minimumCapacity = 16;
+
+    private final int keyLongCount;
+    private long[] slots;
+    private long[] usedSlots;
+    private int capacityBits;
+    private long count;
+
+    private HeapRoomStateSet(int keyLongCount, int capacityBits)
+    {
+        this.keyLongCount = keyLongCount;
+        this.capacityBits = capacityBits;
+        this.slots = new long[(1 << capacityBits) * keyLongCount];
+        this.usedSlots = new long[Math.max(1, (1 << capacityBits) / Long.SIZE)];
+    }
+
+    /**
+     * Create a new empty {@link HeapRoomStateSet}.
+     * @param keyLongCount The number of longs in each key.
+     */
+    public static HeapRoomStateSet create(int keyLongCount)
+    {
+        return HeapRoomStateSet.create(keyLongCount, HeapRoomStateSet.minimumCapacity);
+    }
+
+    /**
+     * Create a new empty {@link HeapRoomStateSet} that can hold the provided number of keys
+     * without being resized.
+     * @param keyLongCount The number of longs in each key.
+     * @param capacity The number of keys to make room for.
+     */
+    public static HeapRoomStateSet create(int keyLongCount, long capacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(keyLongCount, 1, "keyLongCount");
+        PreCondition.assertBetween(0, capacity, (1L << 29) / keyLongCount, "capacity");
+
+        return new HeapRoomStateSet(keyLongCount, OffHeapRoomStateSet.getCapacityBits(capacity));
+    }
+
+    @Override
+    public int getKeyLongCount()
+    {
+        return this.keyLongCount;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the number of slots in this set's table.
+     */
+    public long getSlotCount()
+    {
+        return 1L << this.capacityBits;
+    }
+
+    @Override
+    public boolean contains(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        return this.isSlotUsed(this.findSlot(key, keyStart));
+    }
+
+    @Override
+    public boolean add(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        int slot = this.findSlot(key, keyStart);
+        final boolean result = !this.isSlotUsed(slot);
+        if (result)
+        {
+            if (OffHeapRoomStateSet.isFull(this.count + 1, this.capacityBits))
+            {
+                this.resize();
+                slot = this.findSlot(key, keyStart);
+            }
+            System.arraycopy(key, keyStart, this.slots, slot * this.keyLongCount, this.keyLongCount);
+            this.usedSlots[slot / Long.SIZE] |= 1L << (slot % Long.SIZE);
+            ++this.count;
+        }
+        return result;
+    }
+
+    @Override
+    public double getOmissionProbability()
+    {
+        return 0;
+    }
+
+    private boolean isSlotUsed(int slot)
+    {
+        return (this.usedSlots[slot / Long.SIZE] & (1L << (slot % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Get the slot that contains the provided key, or the unused slot where the key would go.
+     */
+    private int findSlot(long[] key, int keyStart)
+    {
+        final int mask = (1 << this.capacityBits) - 1;
+        int slot = (int)(RoomStateKeyFormat.getKeyHash(key, keyStart, this.keyLongCount) >>> (Long.SIZE - this.capacityBits));
+        while (this.isSlotUsed(slot) && !RoomStateKeyFormat.keysEqual(this.slots, slot * this.keyLongCount, key, keyStart, this.keyLongCount))
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize()
+    {
+        if ((2L << this.capacityBits) * this.keyLongCount > Integer.MAX_VALUE - 8)
+        {
+            throw new IllegalStateException("The visited states don't fit in a heap array. Use an OffHeapRoomStateSet instead.");
+        }
+
+        final long[] oldSlots = this.slots;
+        final long[] oldUsedSlots = this.usedSlots;
+        final int oldSlotCount = 1 << this.capacityBits;
+        ++this.capacityBits;
+        this.slots = new long[(1 << this.capacityBits) * this.keyLongCount];
+        this.usedSlots = new long[Math.max(1, (1 << this.capacityBits) / Long.SIZE)];
+
+        for (int oldSlot = 0; oldSlot < oldSlotCount; ++oldSlot)
+        {
+            if ((oldUsedSlots[oldSlot / Long.SIZE] & (1L << (oldSlot % Long.SIZE))) != 0)
+            {
+                final int slot = this.findSlot(oldSlots, oldSlot * this.keyLongCount);
+                System.arraycopy(oldSlots, oldSlot * this.keyLongCount, this.slots, slot * this.keyLongCount, this.keyLongCount);
+                this.usedSlots[slot / Long.SIZE] |= 1L << (slot % Long.SIZE);
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package qub;
+
+/**
+ * The {@link RoomObject#Orb}s of a {@link Room} split into groups that can never affect each
+ * other. Two {@link RoomObject#Orb}s are put in the same group when the cells that they could ever
+ * stop in share a row or a column, or when they could ever depend on the same
+ * {@link RoomObject#BreakableBlock}. The cells that an {@link RoomObject#Orb} could stop in
+ * include every cell where a sliding {@link RoomObject#Orb} could be stopped by another
+ * {@link RoomObject#Orb} from its own group, so the groups are grown until they stop changing.
+ *
+ * Since every move only moves one {@link RoomObject#Orb}, the shortest solution of a
+ * {@link Room} is the shortest solution of each group, one group after another.
+ */
+public class IndependentOrbGroups
+{
+    /**
+     * The largest number of {@link RoomLayout} cells that a {@link Room} can have and still be
+     * split. Splitting keeps a few cell-sized tables for each {@link RoomObject#Orb}, so
+     * {@link Room}s whose {@link RoomObject}s are spread far apart are searched without splitting.
+     */
+    public static final long maximumCellCount = 1L << 16;
+
+    private final RoomLayout layout;
+    private final int[][] groupOrbCells;
+
+    private IndependentOrbGroups(RoomLayout layout, int[][] groupOrbCells)
+    {
+        this.layout = layout;
+        this.groupOrbCells = groupOrbCells;
+    }
+
+    /**
+     * Split the {@link RoomObject#Orb}s of the provided {@link Room} into independent groups.
+     * @param room The {@link Room} to split.
+     */
+    public static IndependentOrbGroups create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertLessThanOrEqualTo(RoomLayout.getCellCount(room), IndependentOrbGroups.maximumCellCount, "RoomLayout.getCellCount(room)");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        final int[] orbCells = layout.getOrbCells(room);
+        final int orbCount = orbCells.length;
+
+        final int[] groups = new int[orbCount];
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            groups[orbIndex] = orbIndex;
+        }
+
+        final boolean[][] stopCells = new boolean[orbCount][];
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            stopCells[orbIndex] = IndependentOrbGroups.getStopCells(layout, orbCells[orbIndex], null);
+        }
+
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+
+            final boolean[][] groupStopCells = new boolean[orbCount][];
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                final int group = IndependentOrbGroups.getGroup(groups, orbIndex);
+                if (groupStopCells[group] == null)
+                {
+                    groupStopCells[group] = new boolean[layout.getCellCount()];
+                }
+                for (int cell = 0; cell < layout.getCellCount(); ++cell)
+                {
+                    groupStopCells[group][cell] |= stopCells[orbIndex][cell];
+                }
+            }
+
+            final boolean[][] rows = new boolean[orbCount][];
+            final boolean[][] columns = new boolean[orbCount][];
+            final boolean[][] breakableBlocks = new boolean[orbCount][];
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                final boolean[] orbStopCells = IndependentOrbGroups.getStopCells(
+                    layout,
+                    orbCells[orbIndex],
+                    groupStopCells[IndependentOrbGroups.getGroup(groups, orbIndex)]);
+                if (!java.util.Arrays.equals(orbStopCells, stopCells[orbIndex]))
+                {
+                    stopCells[orbIndex] = orbStopCells;
+                    changed = true;
+                }
+
+                rows[orbIndex] = new boolean[layout.getHeight()];
+                columns[orbIndex] = new boolean[layout.getWidth()];
+                breakableBlocks[orbIndex] = new boolean[layout.getBreakableBlockCount()];
+                for (int cell = 0; cell < orbStopCells.length; ++cell)
+                {
+                    if (orbStopCells[cell])
+                    {
+                        rows[orbIndex][cell / layout.getWidth()] = true;
+                        columns[orbIndex][cell % layout.getWidth()] = true;
+                        for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                        {
+                            IndependentOrbGroups.addBreakableBlocks(layout, cell, direction, breakableBlocks[orbIndex]);
+                        }
+                    }
+                }
+            }
+
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                for (int otherOrbIndex = orbIndex + 1; otherOrbIndex < orbCount; ++otherOrbIndex)
+                {
+                    final int group = IndependentOrbGroups.getGroup(groups, orbIndex);
+                    final int otherGroup = IndependentOrbGroups.getGroup(groups, otherOrbIndex);
+                    if (group != otherGroup &&
+                        (IndependentOrbGroups.intersects(rows[orbIndex], rows[otherOrbIndex]) ||
+                         IndependentOrbGroups.intersects(columns[orbIndex], columns[otherOrbIndex]) ||
+                         IndependentOrbGroups.intersects(breakableBlocks[orbIndex], breakableBlocks[otherOrbIndex])))
+                    {
+                        groups[Math.max(group, otherGroup)] = Math.min(group, otherGroup);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        final List<List<Integer>> groupOrbCellLists = List.create();
+        final int[] groupIndexes = new int[orbCount];
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            final int group = IndependentOrbGroups.getGroup(groups, orbIndex);
+            if (group == orbIndex)
+            {
+                groupIndexes[orbIndex] = groupOrbCellLists.getCount();
+                groupOrbCellLists.add(List.create());
+            }
+            groupOrbCellLists.get(groupIndexes[group]).add(orbCells[orbIndex]);
+        }
+
+        final int[][] groupOrbCells = new int[groupOrbCellLists.getCount()][];
+        for (int groupIndex = 0; groupIndex < groupOrbCells.length; ++groupIndex)
+        {
+            final List<Integer> groupOrbCellList = groupOrbCellLists.get(groupIndex);
+            groupOrbCells[groupIndex] = new int[groupOrbCellList.getCount()];
+            for (int i = 0; i < groupOrbCells[groupIndex].length; ++i)
+            {
+                groupOrbCells[groupIndex][i] = groupOrbCellList.get(i);
+            }
+        }
+
+        return new IndependentOrbGroups(layout, groupOrbCells);
+    }
+
+    private static int getGroup(int[] groups, int orbIndex)
+    {
+        int result = orbIndex;
+        while (groups[result] != result)
+        {
+            result = groups[result];
+        }
+        return result;
+    }
+
+    private static boolean intersects(boolean[] lhs, boolean[] rhs)
+    {
+        for (int i = 0; i < lhs.length; ++i)
+        {
+            if (lhs[i] && rhs[i])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get every cell that an {@link RoomObject#Orb} that starts in the provided cell could ever
+     * stop in, whichever {@link RoomObject#BreakableBlock}s are broken.
+     * @param layout The {@link RoomLayout} that the {@link RoomObject#Orb} moves in.
+     * @param startCell The cell that the {@link RoomObject#Orb} starts in.
+     * @param blockerCells The cells that another {@link RoomObject#Orb} could be in and stop the
+     *                     sliding {@link RoomObject#Orb}, or null if no other
+     *                     {@link RoomObject#Orb}s are considered.
+     */
+    private static boolean[] getStopCells(RoomLayout layout, int startCell, boolean[] blockerCells)
+    {
+        final boolean[] result = new boolean[layout.getCellCount()];
+        final int[] cellsToVisit = new int[layout.getCellCount()];
+        int cellsToVisitCount = 0;
+
+        result[startCell] = true;
+        cellsToVisit[cellsToVisitCount++] = startCell;
+        while (cellsToVisitCount > 0)
+        {
+            final int cell = cellsToVisit[--cellsToVisitCount];
+            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+            {
+                final int pusherCell = layout.getNeighborCell(cell, RoomLayout.getOppositeDirection(direction));
+                if (pusherCell != -1 && layout.getStaticObject(pusherCell) == RoomObject.Block)
+                {
+                    continue;
+                }
+
+                int currentCell = cell;
+                while (true)
+                {
+                    final int nextCell = layout.getNeighborCell(currentCell, direction);
+                    if (nextCell == -1)
+                    {
+                        break;
+                    }
+
+                    final RoomObject nextObject = layout.getStaticObject(nextCell);
+                    if (nextObject == RoomObject.Goal)
+                    {
+                        break;
+                    }
+
+                    final boolean canStop = currentCell != cell &&
+                        (nextObject != null || (blockerCells != null && blockerCells[nextCell]));
+                    if (canStop && !result[currentCell])
+                    {
+                        result[currentCell] = true;
+                        cellsToVisit[cellsToVisitCount++] = currentCell;
+                    }
+
+                    if (nextObject == RoomObject.Block)
+                    {
+                        break;
+                    }
+                    currentCell = nextCell;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Mark every {@link RoomObject#BreakableBlock} that a push of an {@link RoomObject#Orb} in the
+     * provided cell in the provided direction could depend on.
+     */
+    private static void addBreakableBlocks(RoomLayout layout, int cell, int direction, boolean[] breakableBlocks)
+    {
+        final int pusherCell = layout.getNeighborCell(cell, RoomLayout.getOppositeDirection(direction));
+        if (pusherCell != -1 && layout.getStaticObject(pusherCell) == RoomObject.BreakableBlock)
+        {
+            breakableBlocks[layout.getBreakableBlockIndex(pusherCell)] = true;
+        }
+
+        int currentCell = layout.getNeighborCell(cell, direction);
+        while (currentCell != -1)
+        {
+            final RoomObject staticObject = layout.getStaticObject(currentCell);
+            if (staticObject == RoomObject.Block || staticObject == RoomObject.Goal)
+            {
+                break;
+            }
+            else if (staticObject == RoomObject.BreakableBlock)
+            {
+                breakableBlocks[layout.getBreakableBlockIndex(currentCell)] = true;
+            }
+            currentCell = layout.getNeighborCell(currentCell, direction);
+        }
+    }
+
+    /**
+     * Get the number of independent groups of {@link RoomObject#Orb}s.
+     */
+    public int getGroupCount()
+    {
+        return this.groupOrbCells.length;
+    }
+
+    /**
+     * Get the locations of the {@link RoomObject#Orb}s in the provided group.
+     * @param groupIndex The index of the group.
+     */
+    public Iterable<Point2Integer> getGroupOrbLocations(int groupIndex)
+    {
+        PreCondition.assertIndexAccess(groupIndex, this.getGroupCount(), "groupIndex");
+
+        final List<Point2Integer> result = List.create();
+        for (final int orbCell : this.groupOrbCells[groupIndex])
+        {
+            result.add(this.layout.getCellLocation(orbCell));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get a {@link Room} with the static layout of the original {@link Room} and only the
+     * {@link RoomObject#Orb}s in the provided group.
+     * @param groupIndex The index of the group.
+     */
+    public Room getGroupRoom(int groupIndex)
+    {
+        PreCondition.assertIndexAccess(groupIndex, this.getGroupCount(), "groupIndex");
+
+        final int[] orbCells = this.groupOrbCells[groupIndex];
+        final Room result = this.layout.createRoom(orbCells, orbCells.length, 0L);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Find the shortest solution for each group, and then join them together into the shortest
+     * solution for the original {@link Room}.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            final List<Move> result = List.create();
+            for (int groupIndex = 0; groupIndex < this.getGroupCount(); ++groupIndex)
+            {
+                result.addAll(this.getGroupRoom(groupIndex).findSolution().await());
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+}
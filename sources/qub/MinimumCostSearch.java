@@ -0,0 +1,284 @@
+package qub;
+
+/**
+ * A solver for {@link Room}s that finds the solution with the lowest total cost according to a
+ * {@link MoveCostFunction}, instead of the solution with the fewest moves. States are expanded in
+ * order of their cost so far (Dijkstra's algorithm). Since move costs are small integers, the
+ * states that are waiting to be expanded are kept in one bucket per cost instead of in a heap.
+ */
+public class MinimumCostSearch
+{
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private MoveCostFunction moveCostFunction;
+
+    private MinimumCostSearch(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+        this.moveCostFunction = MinimumCostSearch.getSlideDistanceCostFunction();
+    }
+
+    /**
+     * Create a new {@link MinimumCostSearch} that searches for solutions to the provided
+     * {@link Room}. Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     */
+    public static MinimumCostSearch create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new MinimumCostSearch(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Get a {@link MoveCostFunction} where every move costs 1.
+     */
+    public static MoveCostFunction getMoveCountCostFunction()
+    {
+        return (RoomLayout layout, int startCell, int direction, int moveResult) -> 1;
+    }
+
+    /**
+     * Get a {@link MoveCostFunction} where every move costs the number of cells that the
+     * {@link RoomObject#Orb} slides.
+     */
+    public static MoveCostFunction getSlideDistanceCostFunction()
+    {
+        return (RoomLayout layout, int startCell, int direction, int moveResult) ->
+        {
+            final int endCell = RoomLayout.getMoveResultEndCell(moveResult);
+            return Math.abs(layout.getCellX(endCell) - layout.getCellX(startCell)) +
+                Math.abs(layout.getCellY(endCell) - layout.getCellY(startCell));
+        };
+    }
+
+    /**
+     * Get a {@link MoveCostFunction} that adds the provided penalty to the cost of every move that
+     * breaks a {@link RoomObject#BreakableBlock}.
+     * @param moveCostFunction The {@link MoveCostFunction} to add the penalty to.
+     * @param blockBreakPenalty The cost to add to every move that breaks a
+     * {@link RoomObject#BreakableBlock}.
+     */
+    public static MoveCostFunction getBlockBreakPenaltyCostFunction(MoveCostFunction moveCostFunction, int blockBreakPenalty)
+    {
+        PreCondition.assertNotNull(moveCostFunction, "moveCostFunction");
+        PreCondition.assertGreaterThanOrEqualTo(blockBreakPenalty, 0, "blockBreakPenalty");
+
+        return (RoomLayout layout, int startCell, int direction, int moveResult) ->
+        {
+            int result = moveCostFunction.getCost(layout, startCell, direction, moveResult);
+            if (RoomLayout.getMoveResultBreaksBlock(moveResult))
+            {
+                result += blockBreakPenalty;
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Set the {@link MoveCostFunction} that the total cost of a solution is added up from.
+     * @param moveCostFunction The {@link MoveCostFunction} that the total cost of a solution is
+     *                         added up from.
+     * @return This object for method chaining.
+     */
+    public MinimumCostSearch setMoveCostFunction(MoveCostFunction moveCostFunction)
+    {
+        PreCondition.assertNotNull(moveCostFunction, "moveCostFunction");
+
+        this.moveCostFunction = moveCostFunction;
+
+        return this;
+    }
+
+    /**
+     * Get the {@link MoveCostFunction} that the total cost of a solution is added up from.
+     */
+    public MoveCostFunction getMoveCostFunction()
+    {
+        return this.moveCostFunction;
+    }
+
+    /**
+     * Get the total cost of the provided {@link Move}s.
+     * @param moves The {@link Move}s to get the total cost of. They must start from the
+     *              {@link Room} that this search was created from.
+     */
+    public int getCost(Iterable<Move> moves)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+
+        int result = 0;
+        for (final Move move : moves)
+        {
+            final int startCell = this.layout.getCellIndex(move.getStartLocation());
+            PreCondition.assertNotEqual(-1, startCell, "this.layout.getCellIndex(move.getStartLocation())");
+            final int endCell = this.layout.getCellIndex(move.getEndLocation());
+            PreCondition.assertNotEqual(-1, endCell, "this.layout.getCellIndex(move.getEndLocation())");
+            int moveResult = endCell;
+            if (move.getEndLocationIsGoal())
+            {
+                moveResult |= RoomLayout.moveEndsInGoalFlag;
+            }
+            if (move.getBlockBroken())
+            {
+                moveResult |= RoomLayout.moveBreaksBlockFlag;
+            }
+            result += this.moveCostFunction.getCost(this.layout, startCell, RoomLayout.getDirection(move), moveResult);
+        }
+
+        PostCondition.assertGreaterThanOrEqualTo(result, 0, "result");
+
+        return result;
+    }
+
+    /**
+     * Find the solution with the lowest total cost.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            final java.util.HashMap<MinimumCostSearchState,MinimumCostSearchState> reachedStates = new java.util.HashMap<>();
+            final java.util.ArrayList<java.util.ArrayDeque<MinimumCostSearchState>> buckets = new java.util.ArrayList<>();
+
+            final MinimumCostSearchState startState = new MinimumCostSearchState(this.startOrbCells, this.startBrokenBlocks, null, -1, RoomLayout.noMove, 0);
+            reachedStates.put(startState, startState);
+            MinimumCostSearch.addToBucket(buckets, startState);
+
+            MinimumCostSearchState solvedState = null;
+            for (int cost = 0; cost < buckets.size() && solvedState == null; ++cost)
+            {
+                final java.util.ArrayDeque<MinimumCostSearchState> bucket = buckets.get(cost);
+                while (bucket != null && !bucket.isEmpty())
+                {
+                    final MinimumCostSearchState state = bucket.removeFirst();
+                    if (state.cost != cost || reachedStates.get(state) != state)
+                    {
+                        // This state was reached again more cheaply after it was added to this
+                        // bucket.
+                        continue;
+                    }
+
+                    final int[] orbCells = state.orbCells;
+                    final int orbCount = orbCells.length;
+                    if (orbCount == 0)
+                    {
+                        solvedState = state;
+                        break;
+                    }
+
+                    for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                    {
+                        for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                        {
+                            final int moveResult = this.graph.getMoveResult(orbCells, orbCount, state.brokenBlocks, orbCells[orbIndex], direction);
+                            if (moveResult != RoomLayout.noMove)
+                            {
+                                final int moveCost = this.moveCostFunction.getCost(this.layout, orbCells[orbIndex], direction, moveResult);
+                                if (moveCost < 0)
+                                {
+                                    throw new IllegalArgumentException("Move costs must not be negative.");
+                                }
+
+                                final int[] nextOrbCells = new int[RoomLayout.getMoveResultEndsInGoal(moveResult) ? orbCount - 1 : orbCount];
+                                RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                                final long nextBrokenBlocks = this.layout.getNextBrokenBlocks(state.brokenBlocks, moveResult, direction);
+                                final MinimumCostSearchState nextState = new MinimumCostSearchState(nextOrbCells, nextBrokenBlocks, state, orbCells[orbIndex], moveResult, cost + moveCost);
+
+                                final MinimumCostSearchState reachedState = reachedStates.get(nextState);
+                                if (reachedState == null || nextState.cost < reachedState.cost)
+                                {
+                                    reachedStates.put(nextState, nextState);
+                                    MinimumCostSearch.addToBucket(buckets, nextState);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (solvedState == null)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+
+            int moveCount = 0;
+            for (MinimumCostSearchState state = solvedState; state.previousState != null; state = state.previousState)
+            {
+                ++moveCount;
+            }
+            final Move[] moves = new Move[moveCount];
+            for (MinimumCostSearchState state = solvedState; state.previousState != null; state = state.previousState)
+            {
+                moves[--moveCount] = this.layout.createMove(state.moveStartCell, state.moveResult);
+            }
+
+            final Iterable<Move> result = Iterable.create(moves);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    private static void addToBucket(java.util.ArrayList<java.util.ArrayDeque<MinimumCostSearchState>> buckets, MinimumCostSearchState state)
+    {
+        while (buckets.size() <= state.cost)
+        {
+            buckets.add(null);
+        }
+
+        java.util.ArrayDeque<MinimumCostSearchState> bucket = buckets.get(state.cost);
+        if (bucket == null)
+        {
+            bucket = new java.util.ArrayDeque<>();
+            buckets.set(state.cost, bucket);
+        }
+        bucket.addLast(state);
+    }
+
+    /**
+     * A state that the search has reached, along with the cheapest known move that reached it.
+     */
+    private static class MinimumCostSearchState
+    {
+        private final int[] orbCells;
+        private final long brokenBlocks;
+        private final MinimumCostSearchState previousState;
+        private final int moveStartCell;
+        private final int moveResult;
+        private final int cost;
+
+        private MinimumCostSearchState(int[] orbCells, long brokenBlocks, MinimumCostSearchState previousState, int moveStartCell, int moveResult, int cost)
+        {
+            this.orbCells = orbCells;
+            this.brokenBlocks = brokenBlocks;
+            this.previousState = previousState;
+            this.moveStartCell = moveStartCell;
+            this.moveResult = moveResult;
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean equals(Object rhs)
+        {
+            return rhs instanceof MinimumCostSearchState &&
+                this.brokenBlocks == ((MinimumCostSearchState)rhs).brokenBlocks &&
+                java.util.Arrays.equals(this.orbCells, ((MinimumCostSearchState)rhs).orbCells);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return java.util.Arrays.hashCode(this.orbCells) * 31 + Long.hashCode(this.brokenBlocks);
+        }
+    }
+}
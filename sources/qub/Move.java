@@ -30,6 +30,11 @@ public class Move
         return this;
     }
 
+    public boolean hasStartLocation()
+    {
+        return this.startLocation != null;
+    }
+
     public Point2Integer getStartLocation()
     {
         PreCondition.assertNotNull(this.startLocation, "this.startLocation");
@@ -46,6 +51,11 @@ public class Move
         return this;
     }
 
+    public boolean hasEndLocation()
+    {
+        return this.endLocation != null;
+    }
+
     public Point2Integer getEndLocation()
     {
         PreCondition.assertNotNull(this.endLocation, "this.endLocation");
@@ -0,0 +1,11 @@
+package qub;
+
+/**
+ * A function that gets the cost of a move in a {@link RoomLayout}: the layout, the cell of the
+ * pushed {@link RoomObject#Orb}, the direction it was pushed in, and the move result from
+ * {@link RoomLayout#getMoveResult(int[], int, long, int, int)}. Costs must not be negative.
+ */
+public interface MoveCostFunction
+{
+    int getCost(RoomLayout layout, int startCell, int direction, int moveResult);
+}
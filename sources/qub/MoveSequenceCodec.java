@@ -0,0 +1,541 @@
+package qub;
+
+/**
+ * Writes and reads sequences of {@link Move}s that start from a particular {@link Room}.
+ *
+ * The binary format stores each {@link Move} as a single unsigned variable-length integer that
+ * holds the cell of the moving {@link RoomObject#Orb} and the direction that it moves in. The end
+ * location, goal, and broken block of each {@link Move} are recomputed while reading by replaying
+ * the {@link Move}s against the {@link Room}, so most {@link Move}s only take one or two bytes. A
+ * zero ends the sequence.
+ *
+ * The JSON format is an array of objects with the same property names as {@link Move#toJson()},
+ * but with each location written as an [x,y] array and with false booleans left out. It is written
+ * directly to a {@link java.io.Writer} without building a {@link JSONObject} for each {@link Move}.
+ */
+public class MoveSequenceCodec
+{
+    private static final String startLocationPropertyName = "startLocation";
+    private static final String endLocationPropertyName = "endLocation";
+    private static final String blockBrokenPropertyName = "blockBroken";
+    private static final String endLocationIsGoalPropertyName = "endLocationIsGoal";
+
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+
+    private MoveSequenceCodec(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+    }
+
+    /**
+     * Create a new {@link MoveSequenceCodec} for {@link Move}s that start from the provided
+     * {@link Room}. Later changes to the {@link Room} don't affect the codec.
+     * @param room The {@link Room} that the {@link Move}s start from.
+     */
+    public static MoveSequenceCodec create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new MoveSequenceCodec(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Write the provided {@link Move}s to the provided {@link java.io.OutputStream} in the binary
+     * format.
+     * @param moves The {@link Move}s to write.
+     * @param stream The {@link java.io.OutputStream} to write to.
+     */
+    public Result<Void> writeBinary(Iterable<Move> moves, java.io.OutputStream stream)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+        PreCondition.assertNotNull(stream, "stream");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                final byte[] buffer = new byte[5];
+                for (final Move move : moves)
+                {
+                    final int cell = this.layout.getCellIndex(move.getStartLocation());
+                    PreCondition.assertNotEqual(-1, cell, "this.layout.getCellIndex(move.getStartLocation())");
+
+                    final int value = (cell << 2 | RoomLayout.getDirection(move)) + 1;
+                    stream.write(buffer, 0, MoveSequenceCodec.encodeVariableLengthInteger(value, buffer));
+                }
+                stream.write(0);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Get the binary format of the provided {@link Move}s.
+     * @param moves The {@link Move}s to encode.
+     */
+    public byte[] toBinary(Iterable<Move> moves)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+
+        final java.io.ByteArrayOutputStream stream = new java.io.ByteArrayOutputStream();
+        this.writeBinary(moves, stream).await();
+        final byte[] result = stream.toByteArray();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Read a sequence of {@link Move}s in the binary format from the provided
+     * {@link java.io.InputStream}. Reading stops after the zero that ends the sequence.
+     * @param stream The {@link java.io.InputStream} to read from.
+     */
+    public Result<Iterable<Move>> readBinary(java.io.InputStream stream)
+    {
+        PreCondition.assertNotNull(stream, "stream");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                final List<Move> result = List.create();
+                final int[] orbCells = this.startOrbCells.clone();
+                int orbCount = orbCells.length;
+                long brokenBlocks = this.startBrokenBlocks;
+                while (true)
+                {
+                    final int value = MoveSequenceCodec.readVariableLengthInteger(stream);
+                    if (value == 0)
+                    {
+                        break;
+                    }
+
+                    final int cell = (value - 1) >>> 2;
+                    final int direction = (value - 1) & 3;
+                    final int orbIndex = MoveSequenceCodec.getOrbIndex(orbCells, orbCount, cell);
+                    final int moveResult = orbIndex == -1
+                        ? RoomLayout.noMove
+                        : this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, cell, direction);
+                    if (moveResult == RoomLayout.noMove)
+                    {
+                        throw new ParseException("Move " + result.getCount() + " is not a legal move.");
+                    }
+
+                    result.add(this.layout.createMove(cell, moveResult));
+                    brokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+                    orbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, orbCells);
+                }
+                return result;
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Parse a sequence of {@link Move}s from the provided bytes in the binary format.
+     * @param bytes The bytes that were written by {@link #writeBinary(Iterable, java.io.OutputStream)}.
+     */
+    public Result<Iterable<Move>> parseBinary(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return this.readBinary(new java.io.ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Write the provided {@link Move}s to the provided {@link java.io.Writer} in the JSON format.
+     * The {@link Move}s don't need to start from the {@link Room} of a codec to be written as JSON.
+     * @param moves The {@link Move}s to write.
+     * @param writer The {@link java.io.Writer} to write to.
+     */
+    public static Result<Void> writeJson(Iterable<Move> moves, java.io.Writer writer)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+        PreCondition.assertNotNull(writer, "writer");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                writer.write('[');
+                boolean firstMove = true;
+                for (final Move move : moves)
+                {
+                    if (firstMove)
+                    {
+                        firstMove = false;
+                    }
+                    else
+                    {
+                        writer.write(',');
+                    }
+
+                    writer.write('{');
+                    boolean firstProperty = true;
+                    if (move.hasStartLocation())
+                    {
+                        MoveSequenceCodec.writeJsonLocation(writer, MoveSequenceCodec.startLocationPropertyName, move.getStartLocation());
+                        firstProperty = false;
+                    }
+                    if (move.hasEndLocation())
+                    {
+                        if (!firstProperty)
+                        {
+                            writer.write(',');
+                        }
+                        MoveSequenceCodec.writeJsonLocation(writer, MoveSequenceCodec.endLocationPropertyName, move.getEndLocation());
+                        firstProperty = false;
+                    }
+                    if (move.getBlockBroken())
+                    {
+                        if (!firstProperty)
+                        {
+                            writer.write(',');
+                        }
+                        MoveSequenceCodec.writeJsonPropertyName(writer, MoveSequenceCodec.blockBrokenPropertyName);
+                        writer.write("true");
+                        firstProperty = false;
+                    }
+                    if (move.getEndLocationIsGoal())
+                    {
+                        if (!firstProperty)
+                        {
+                            writer.write(',');
+                        }
+                        MoveSequenceCodec.writeJsonPropertyName(writer, MoveSequenceCodec.endLocationIsGoalPropertyName);
+                        writer.write("true");
+                    }
+                    writer.write('}');
+                }
+                writer.write(']');
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Get the JSON format of the provided {@link Move}s.
+     * @param moves The {@link Move}s to encode.
+     */
+    public static String toJson(Iterable<Move> moves)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+
+        final java.io.StringWriter writer = new java.io.StringWriter();
+        MoveSequenceCodec.writeJson(moves, writer).await();
+        final String result = writer.toString();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Read a sequence of {@link Move}s in the JSON format from the provided {@link java.io.Reader}.
+     * The {@link Move}s are read as they were written and aren't checked against a {@link Room}.
+     * @param reader The {@link java.io.Reader} to read from.
+     */
+    public static Result<Iterable<Move>> readJson(java.io.Reader reader)
+    {
+        PreCondition.assertNotNull(reader, "reader");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                final java.io.PushbackReader input = new java.io.PushbackReader(reader);
+                final List<Move> result = List.create();
+                MoveSequenceCodec.readJsonCharacter(input, '[');
+                if (MoveSequenceCodec.peekJsonCharacter(input) == ']')
+                {
+                    input.read();
+                }
+                else
+                {
+                    while (true)
+                    {
+                        result.add(MoveSequenceCodec.readJsonMove(input));
+                        if (MoveSequenceCodec.peekJsonCharacter(input) == ',')
+                        {
+                            input.read();
+                        }
+                        else
+                        {
+                            MoveSequenceCodec.readJsonCharacter(input, ']');
+                            break;
+                        }
+                    }
+                }
+                return result;
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Parse a sequence of {@link Move}s from the provided text in the JSON format.
+     * @param text The text that was written by {@link #writeJson(Iterable, java.io.Writer)}.
+     */
+    public static Result<Iterable<Move>> parseJson(String text)
+    {
+        PreCondition.assertNotNull(text, "text");
+
+        return MoveSequenceCodec.readJson(new java.io.StringReader(text));
+    }
+
+    private static int getOrbIndex(int[] orbCells, int orbCount, int cell)
+    {
+        int result = -1;
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            if (orbCells[orbIndex] == cell)
+            {
+                result = orbIndex;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encode the provided non-negative value into the provided buffer seven bits at a time, lowest
+     * bits first.
+     * @return The number of bytes that were used.
+     */
+    private static int encodeVariableLengthInteger(int value, byte[] buffer)
+    {
+        int byteCount = 0;
+        while ((value & ~0x7F) != 0)
+        {
+            buffer[byteCount++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[byteCount++] = (byte)value;
+        return byteCount;
+    }
+
+    private static int readVariableLengthInteger(java.io.InputStream stream) throws java.io.IOException
+    {
+        int result = 0;
+        int shift = 0;
+        while (true)
+        {
+            final int nextByte = stream.read();
+            if (nextByte == -1)
+            {
+                throw new ParseException("The move sequence ended before its terminating zero.");
+            }
+            else if (shift > 28)
+            {
+                throw new ParseException("The move sequence contains a move that is too large.");
+            }
+
+            result |= (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0)
+            {
+                break;
+            }
+            shift += 7;
+        }
+        return result;
+    }
+
+    private static void writeJsonPropertyName(java.io.Writer writer, String propertyName) throws java.io.IOException
+    {
+        writer.write('"');
+        writer.write(propertyName);
+        writer.write("\":");
+    }
+
+    private static void writeJsonLocation(java.io.Writer writer, String propertyName, Point2Integer location) throws java.io.IOException
+    {
+        MoveSequenceCodec.writeJsonPropertyName(writer, propertyName);
+        writer.write('[');
+        writer.write(Integer.toString(location.getXAsInt()));
+        writer.write(',');
+        writer.write(Integer.toString(location.getYAsInt()));
+        writer.write(']');
+    }
+
+    /**
+     * Get the next character that isn't whitespace without consuming it, or -1 if the input has
+     * ended.
+     */
+    private static int peekJsonCharacter(java.io.PushbackReader input) throws java.io.IOException
+    {
+        int result = input.read();
+        while (result != -1 && Character.isWhitespace(result))
+        {
+            result = input.read();
+        }
+        if (result != -1)
+        {
+            input.unread(result);
+        }
+        return result;
+    }
+
+    private static void readJsonCharacter(java.io.PushbackReader input, char expected) throws java.io.IOException
+    {
+        final int character = MoveSequenceCodec.peekJsonCharacter(input);
+        if (character != expected)
+        {
+            throw new ParseException("Expected '" + expected + "' but found " + (character == -1 ? "the end of the input" : "'" + (char)character + "'") + ".");
+        }
+        input.read();
+    }
+
+    private static String readJsonPropertyName(java.io.PushbackReader input) throws java.io.IOException
+    {
+        MoveSequenceCodec.readJsonCharacter(input, '"');
+        final StringBuilder builder = new StringBuilder();
+        int character = input.read();
+        while (character != '"')
+        {
+            if (character == -1)
+            {
+                throw new ParseException("Expected '\"' but found the end of the input.");
+            }
+            builder.append((char)character);
+            character = input.read();
+        }
+        MoveSequenceCodec.readJsonCharacter(input, ':');
+        return builder.toString();
+    }
+
+    private static int readJsonInteger(java.io.PushbackReader input) throws java.io.IOException
+    {
+        int character = MoveSequenceCodec.peekJsonCharacter(input);
+        final boolean negative = character == '-';
+        if (negative)
+        {
+            input.read();
+            character = input.read();
+            if (character != -1)
+            {
+                input.unread(character);
+            }
+        }
+        if (character < '0' || '9' < character)
+        {
+            throw new ParseException("Expected a digit but found " + (character == -1 ? "the end of the input" : "'" + (char)character + "'") + ".");
+        }
+
+        long result = 0;
+        character = input.read();
+        while ('0' <= character && character <= '9')
+        {
+            result = result * 10 + (character - '0');
+            if (result > (long)Integer.MAX_VALUE + 1)
+            {
+                throw new ParseException("The integer is too large.");
+            }
+            character = input.read();
+        }
+        if (character != -1)
+        {
+            input.unread(character);
+        }
+
+        result = negative ? -result : result;
+        if (result > Integer.MAX_VALUE)
+        {
+            throw new ParseException("The integer is too large.");
+        }
+        return (int)result;
+    }
+
+    private static Point2Integer readJsonLocation(java.io.PushbackReader input) throws java.io.IOException
+    {
+        MoveSequenceCodec.readJsonCharacter(input, '[');
+        final int x = MoveSequenceCodec.readJsonInteger(input);
+        MoveSequenceCodec.readJsonCharacter(input, ',');
+        final int y = MoveSequenceCodec.readJsonInteger(input);
+        MoveSequenceCodec.readJsonCharacter(input, ']');
+        return Point2Integer.create(x, y);
+    }
+
+    private static boolean readJsonBoolean(java.io.PushbackReader input) throws java.io.IOException
+    {
+        final boolean result = MoveSequenceCodec.peekJsonCharacter(input) == 't';
+        for (final char expected : (result ? "true" : "false").toCharArray())
+        {
+            if (input.read() != expected)
+            {
+                throw new ParseException("Expected a boolean value.");
+            }
+        }
+        return result;
+    }
+
+    private static Move readJsonMove(java.io.PushbackReader input) throws java.io.IOException
+    {
+        final Move result = Move.create();
+        MoveSequenceCodec.readJsonCharacter(input, '{');
+        if (MoveSequenceCodec.peekJsonCharacter(input) == '}')
+        {
+            input.read();
+        }
+        else
+        {
+            while (true)
+            {
+                final String propertyName = MoveSequenceCodec.readJsonPropertyName(input);
+                switch (propertyName)
+                {
+                    case MoveSequenceCodec.startLocationPropertyName:
+                        result.setStartLocation(MoveSequenceCodec.readJsonLocation(input));
+                        break;
+
+                    case MoveSequenceCodec.endLocationPropertyName:
+                        result.setEndLocation(MoveSequenceCodec.readJsonLocation(input));
+                        break;
+
+                    case MoveSequenceCodec.blockBrokenPropertyName:
+                        result.setBlockBroken(MoveSequenceCodec.readJsonBoolean(input));
+                        break;
+
+                    case MoveSequenceCodec.endLocationIsGoalPropertyName:
+                        result.setEndLocationIsGoal(MoveSequenceCodec.readJsonBoolean(input));
+                        break;
+
+                    default:
+                        throw new ParseException("Unrecognized move property: " + Strings.escapeAndQuote(propertyName) + ".");
+                }
+
+                if (MoveSequenceCodec.peekJsonCharacter(input) == ',')
+                {
+                    input.read();
+                }
+                else
+                {
+                    MoveSequenceCodec.readJsonCharacter(input, '}');
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
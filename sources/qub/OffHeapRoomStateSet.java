@@ -0,0 +1,253 @@
+package qub;
+
+/**
+ * A {@link RoomStateSet} that keeps its keys outside of the heap in direct
+ * {@link java.nio.ByteBuffer} regions, so the garbage collector never has to look at them no
+ * matter how many states are visited. Keys are stored inline in an open-addressing table that is
+ * searched with linear probing, and a separate bit for each slot marks whether the slot is used.
+ * The table is split into regions of at most 1 GiB each, since a single
+ * {@link java.nio.ByteBuffer} can't be larger than 2 GiB.
+ *
+ * The table doubles in size when it gets too full, which briefly needs room for both the old and
+ * the new table, so large searches should create the set with enough capacity up front. The
+ * memory is freed when the set is garbage collected, and counts against the JVM's
+ * -XX:MaxDirectMemorySize limit.
+ */
+public class OffHeapRoomStateSet implements RoomStateSet
+{
+    private static final long minimumCapacity = 16;
+    private static final int minimumCapacityBits = 4;
+    private static final int maximumCapacityBits = 40;
+    private static final int maximumRegionLongCountBits = 27;
+
+    private final int keyLongCount;
+    private int capacityBits;
+    private int regionSlotCountBits;
+    private java.nio.LongBuffer[] slotRegions;
+    private java.nio.LongBuffer[] usedSlotRegions;
+    private long count;
+
+    private OffHeapRoomStateSet(int keyLongCount, int capacityBits)
+    {
+        this.keyLongCount = keyLongCount;
+        this.allocate(capacityBits);
+    }
+
+    /**
+     * Create a new empty {@link OffHeapRoomStateSet}.
+     * @param keyLongCount The number of longs in each key.
+     */
+    public static OffHeapRoomStateSet create(int keyLongCount)
+    {
+        return OffHeapRoomStateSet.create(keyLongCount, OffHeapRoomStateSet.minimumCapacity);
+    }
+
+    /**
+     * Create a new empty {@link OffHeapRoomStateSet} that can hold the provided number of keys
+     * without being resized.
+     * @param keyLongCount The number of longs in each key.
+     * @param capacity The number of keys to make room for.
+     */
+    public static OffHeapRoomStateSet create(int keyLongCount, long capacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(keyLongCount, 1, "keyLongCount");
+        PreCondition.assertBetween(0, capacity, 1L << (OffHeapRoomStateSet.maximumCapacityBits - 1), "capacity");
+
+        return new OffHeapRoomStateSet(keyLongCount, OffHeapRoomStateSet.getCapacityBits(capacity));
+    }
+
+    /**
+     * Get the number of bits in the slot count of a table that can hold the provided number of
+     * keys without being resized.
+     */
+    static int getCapacityBits(long capacity)
+    {
+        int result = OffHeapRoomStateSet.minimumCapacityBits;
+        while (OffHeapRoomStateSet.isFull(capacity, result))
+        {
+            ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Get whether a table with the provided number of bits in its slot count is too full to hold
+     * the provided number of keys. Tables are kept at most three quarters full so that probe
+     * sequences stay short.
+     */
+    static boolean isFull(long count, int capacityBits)
+    {
+        return count > (3L << capacityBits) / 4;
+    }
+
+    @Override
+    public int getKeyLongCount()
+    {
+        return this.keyLongCount;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the number of slots in this set's table.
+     */
+    public long getSlotCount()
+    {
+        return 1L << this.capacityBits;
+    }
+
+    /**
+     * Get the number of bytes of direct memory that this set's table uses.
+     */
+    public long getByteCount()
+    {
+        return (this.getSlotCount() * this.keyLongCount + Math.max(1, this.getSlotCount() / Long.SIZE)) * Long.BYTES;
+    }
+
+    @Override
+    public boolean contains(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        return this.isSlotUsed(this.findSlot(key, keyStart));
+    }
+
+    @Override
+    public boolean add(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        long slot = this.findSlot(key, keyStart);
+        final boolean result = !this.isSlotUsed(slot);
+        if (result)
+        {
+            if (OffHeapRoomStateSet.isFull(this.count + 1, this.capacityBits))
+            {
+                this.resize();
+                slot = this.findSlot(key, keyStart);
+            }
+            this.setSlot(slot, key, keyStart);
+            ++this.count;
+        }
+        return result;
+    }
+
+    private void allocate(int capacityBits)
+    {
+        if (capacityBits > OffHeapRoomStateSet.maximumCapacityBits)
+        {
+            throw new IllegalStateException("The visited states don't fit in an off-heap table.");
+        }
+
+        this.capacityBits = capacityBits;
+
+        int regionSlotCountBits = capacityBits;
+        while ((long)this.keyLongCount << regionSlotCountBits > 1L << OffHeapRoomStateSet.maximumRegionLongCountBits)
+        {
+            --regionSlotCountBits;
+        }
+        this.regionSlotCountBits = regionSlotCountBits;
+        this.slotRegions = OffHeapRoomStateSet.allocateRegions(1 << (capacityBits - regionSlotCountBits), this.keyLongCount << regionSlotCountBits);
+
+        final int usedSlotLongCountBits = Math.max(0, capacityBits - 6);
+        final int usedSlotRegionLongCountBits = Math.min(usedSlotLongCountBits, OffHeapRoomStateSet.maximumRegionLongCountBits);
+        this.usedSlotRegions = OffHeapRoomStateSet.allocateRegions(1 << (usedSlotLongCountBits - usedSlotRegionLongCountBits), 1 << usedSlotRegionLongCountBits);
+    }
+
+    private static java.nio.LongBuffer[] allocateRegions(int regionCount, int regionLongCount)
+    {
+        final java.nio.LongBuffer[] result = new java.nio.LongBuffer[regionCount];
+        for (int regionIndex = 0; regionIndex < regionCount; ++regionIndex)
+        {
+            result[regionIndex] = java.nio.ByteBuffer.allocateDirect(regionLongCount * Long.BYTES)
+                .order(java.nio.ByteOrder.nativeOrder())
+                .asLongBuffer();
+        }
+        return result;
+    }
+
+    @Override
+    public double getOmissionProbability()
+    {
+        return 0;
+    }
+
+    private boolean isSlotUsed(long slot)
+    {
+        final long usedSlotIndex = slot / Long.SIZE;
+        final java.nio.LongBuffer usedSlotRegion = this.usedSlotRegions[(int)(usedSlotIndex >>> OffHeapRoomStateSet.maximumRegionLongCountBits)];
+        return (usedSlotRegion.get((int)(usedSlotIndex & ((1 << OffHeapRoomStateSet.maximumRegionLongCountBits) - 1))) & (1L << (slot % Long.SIZE))) != 0;
+    }
+
+    private boolean slotEquals(long slot, long[] key, int keyStart)
+    {
+        final java.nio.LongBuffer slotRegion = this.slotRegions[(int)(slot >>> this.regionSlotCountBits)];
+        final int slotStart = (int)(slot & ((1L << this.regionSlotCountBits) - 1)) * this.keyLongCount;
+        boolean result = true;
+        for (int i = 0; i < this.keyLongCount && result; ++i)
+        {
+            result = slotRegion.get(slotStart + i) == key[keyStart + i];
+        }
+        return result;
+    }
+
+    private void setSlot(long slot, long[] key, int keyStart)
+    {
+        final java.nio.LongBuffer slotRegion = this.slotRegions[(int)(slot >>> this.regionSlotCountBits)];
+        final int slotStart = (int)(slot & ((1L << this.regionSlotCountBits) - 1)) * this.keyLongCount;
+        for (int i = 0; i < this.keyLongCount; ++i)
+        {
+            slotRegion.put(slotStart + i, key[keyStart + i]);
+        }
+
+        final long usedSlotIndex = slot / Long.SIZE;
+        final java.nio.LongBuffer usedSlotRegion = this.usedSlotRegions[(int)(usedSlotIndex >>> OffHeapRoomStateSet.maximumRegionLongCountBits)];
+        final int usedSlotRegionIndex = (int)(usedSlotIndex & ((1 << OffHeapRoomStateSet.maximumRegionLongCountBits) - 1));
+        usedSlotRegion.put(usedSlotRegionIndex, usedSlotRegion.get(usedSlotRegionIndex) | (1L << (slot % Long.SIZE)));
+    }
+
+    /**
+     * Get the slot that contains the provided key, or the unused slot where the key would go.
+     */
+    private long findSlot(long[] key, int keyStart)
+    {
+        final long mask = (1L << this.capacityBits) - 1;
+        long slot = RoomStateKeyFormat.getKeyHash(key, keyStart, this.keyLongCount) >>> (Long.SIZE - this.capacityBits);
+        while (this.isSlotUsed(slot) && !this.slotEquals(slot, key, keyStart))
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize()
+    {
+        final java.nio.LongBuffer[] oldSlotRegions = this.slotRegions;
+        final java.nio.LongBuffer[] oldUsedSlotRegions = this.usedSlotRegions;
+        final int oldRegionSlotCountBits = this.regionSlotCountBits;
+        final long oldSlotCount = this.getSlotCount();
+        this.allocate(this.capacityBits + 1);
+
+        final long[] key = new long[this.keyLongCount];
+        for (long oldSlot = 0; oldSlot < oldSlotCount; ++oldSlot)
+        {
+            final long usedSlotIndex = oldSlot / Long.SIZE;
+            final long usedSlots = oldUsedSlotRegions[(int)(usedSlotIndex >>> OffHeapRoomStateSet.maximumRegionLongCountBits)]
+                .get((int)(usedSlotIndex & ((1 << OffHeapRoomStateSet.maximumRegionLongCountBits) - 1)));
+            if ((usedSlots & (1L << (oldSlot % Long.SIZE))) != 0)
+            {
+                final java.nio.LongBuffer oldSlotRegion = oldSlotRegions[(int)(oldSlot >>> oldRegionSlotCountBits)];
+                final int oldSlotStart = (int)(oldSlot & ((1L << oldRegionSlotCountBits) - 1)) * this.keyLongCount;
+                for (int i = 0; i < this.keyLongCount; ++i)
+                {
+                    key[i] = oldSlotRegion.get(oldSlotStart + i);
+                }
+                this.setSlot(this.findSlot(key, 0), key, 0);
+            }
+        }
+    }
+}
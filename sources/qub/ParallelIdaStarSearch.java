@@ -0,0 +1,422 @@
+package qub;
+
+/**
+ * A solver for {@link Room}s that finds a shortest solution with iterative deepening A* (IDA*)
+ * on several threads. Each iteration searches depth-first for a solution whose number of moves
+ * plus heuristic estimate stays within a bound, and the next iteration raises the bound to the
+ * smallest estimate that went past it. Only the current path is remembered, so each thread needs
+ * memory in proportion to the solution's length instead of the number of states.
+ * <p>
+ * The search tree is split into subtrees at a shallow depth. Each subtree is searched in place
+ * with {@link Room#applyMove(Move)} and {@link Room#undoMove(Move)} on its own copy of the
+ * {@link Room}, and the subtrees are balanced across the threads of a work-stealing pool. As soon
+ * as one thread finds a solution, the other threads stop. The default heuristic is the additive
+ * {@link RoomStateScorer} of a {@link PatternDatabase}.
+ */
+public class ParallelIdaStarSearch
+{
+    private final Room room;
+    private int threadCount;
+    private int splitDepth;
+    private Function1<Room,Integer> heuristic;
+    private long expandedStateCount;
+
+    private ParallelIdaStarSearch(Room room)
+    {
+        this.room = room;
+        this.threadCount = Runtime.getRuntime().availableProcessors();
+        this.splitDepth = 3;
+    }
+
+    /**
+     * Create a new {@link ParallelIdaStarSearch} that searches for solutions to the provided
+     * {@link Room}. Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     */
+    public static ParallelIdaStarSearch create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return new ParallelIdaStarSearch(room.clone());
+    }
+
+    /**
+     * Get a heuristic that estimates one move for each {@link RoomObject#Orb} that is left.
+     */
+    public static Function1<Room,Integer> getOrbCountHeuristic()
+    {
+        return (Room room) -> room.getRoomObjectCount(RoomObject.Orb);
+    }
+
+    /**
+     * Get a heuristic that looks up the additive {@link RoomStateScorer} of a
+     * {@link PatternDatabase} for the provided {@link Room}'s layout. It can only estimate
+     * {@link Room}s that are reached from the provided {@link Room}.
+     * @param room The {@link Room} to create the {@link PatternDatabase} for.
+     */
+    public static Function1<Room,Integer> getPatternDatabaseHeuristic(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        // The additive scorer reuses its buffers, so each search thread gets its own.
+        final PatternDatabase patternDatabase = PatternDatabase.create(layout, room.getRoomObjectCount(RoomObject.Orb));
+        final ThreadLocal<RoomStateScorer> scorers = ThreadLocal.withInitial(patternDatabase::getAdditiveScorer);
+        return (Room stateRoom) ->
+        {
+            final int[] orbCells = layout.getOrbCells(stateRoom);
+            return scorers.get().score(orbCells, orbCells.length, layout.getBrokenBlocks(stateRoom));
+        };
+    }
+
+    /**
+     * Set the number of threads that search subtrees at the same time.
+     * @param threadCount The number of threads that search subtrees at the same time.
+     * @return This object for method chaining.
+     */
+    public ParallelIdaStarSearch setThreadCount(int threadCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(threadCount, 1, "threadCount");
+
+        this.threadCount = threadCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of threads that search subtrees at the same time.
+     */
+    public int getThreadCount()
+    {
+        return this.threadCount;
+    }
+
+    /**
+     * Set the depth at which the search tree is split into subtrees that are searched on their
+     * own. A deeper split makes more, smaller subtrees, which balance better across threads but
+     * each need their own copy of the {@link Room}.
+     * @param splitDepth The depth at which the search tree is split into subtrees.
+     * @return This object for method chaining.
+     */
+    public ParallelIdaStarSearch setSplitDepth(int splitDepth)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(splitDepth, 0, "splitDepth");
+
+        this.splitDepth = splitDepth;
+
+        return this;
+    }
+
+    /**
+     * Get the depth at which the search tree is split into subtrees that are searched on their
+     * own.
+     */
+    public int getSplitDepth()
+    {
+        return this.splitDepth;
+    }
+
+    /**
+     * Set the heuristic that estimates how many moves a {@link Room} still needs. It must never
+     * return more than the real number of moves, and it can return
+     * {@link PatternDatabase#unsolvable} for {@link Room}s that can't be solved. It is called from
+     * several threads at the same time.
+     * @param heuristic The heuristic that estimates how many moves a {@link Room} still needs.
+     * @return This object for method chaining.
+     */
+    public ParallelIdaStarSearch setHeuristic(Function1<Room,Integer> heuristic)
+    {
+        PreCondition.assertNotNull(heuristic, "heuristic");
+
+        this.heuristic = heuristic;
+
+        return this;
+    }
+
+    /**
+     * Get the heuristic that estimates how many moves a {@link Room} still needs. If no heuristic
+     * has been set, then the {@link PatternDatabase} heuristic is created, unless the
+     * {@link Room} has too many {@link RoomObject#BreakableBlock}s or too many layout cells for
+     * it, in which case the {@link RoomObject#Orb} count heuristic is used.
+     */
+    public Function1<Room,Integer> getHeuristic()
+    {
+        if (this.heuristic == null)
+        {
+            this.heuristic = this.room.getRoomObjectCount(RoomObject.BreakableBlock) <= Long.SIZE && RoomLayout.getCellCount(this.room) <= PatternDatabase.maximumCellCount
+                ? ParallelIdaStarSearch.getPatternDatabaseHeuristic(this.room)
+                : ParallelIdaStarSearch.getOrbCountHeuristic();
+        }
+        return this.heuristic;
+    }
+
+    /**
+     * Get the number of states that the last call to {@link #findSolution()} expanded, summed over
+     * every iteration.
+     */
+    public long getExpandedStateCount()
+    {
+        return this.expandedStateCount;
+    }
+
+    /**
+     * Find a shortest solution.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            final IdaStarIteration iteration = new IdaStarIteration(this.getHeuristic(), this.splitDepth);
+            final int rootEstimate = iteration.estimate(this.room);
+
+            Move[] solution = null;
+            int bound = rootEstimate;
+            final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(this.threadCount);
+            try
+            {
+                while (solution == null && bound != PatternDatabase.unsolvable)
+                {
+                    iteration.start(bound);
+                    pool.invoke(new IdaStarTask(iteration, this.room.clone(), new Move[0], new int[] { this.room.hashCode() }, rootEstimate));
+                    solution = iteration.solution.get();
+                    bound = iteration.nextBound.get();
+                }
+            }
+            finally
+            {
+                pool.shutdown();
+                this.expandedStateCount = iteration.expandedStateCount.sum();
+            }
+
+            if (solution == null)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+
+            final Iterable<Move> result = Iterable.create(solution);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * The state that the tasks of one IDA* iteration share.
+     */
+    private static class IdaStarIteration
+    {
+        private final Function1<Room,Integer> heuristic;
+        private final int splitDepth;
+        private final java.util.concurrent.atomic.LongAdder expandedStateCount;
+        private final java.util.concurrent.atomic.AtomicReference<Move[]> solution;
+        /**
+         * The smallest estimate that went past this iteration's bound.
+         */
+        private final java.util.concurrent.atomic.AtomicInteger nextBound;
+        private int bound;
+
+        private IdaStarIteration(Function1<Room,Integer> heuristic, int splitDepth)
+        {
+            this.heuristic = heuristic;
+            this.splitDepth = splitDepth;
+            this.expandedStateCount = new java.util.concurrent.atomic.LongAdder();
+            this.solution = new java.util.concurrent.atomic.AtomicReference<>();
+            this.nextBound = new java.util.concurrent.atomic.AtomicInteger();
+        }
+
+        private void start(int bound)
+        {
+            this.bound = bound;
+            this.nextBound.set(PatternDatabase.unsolvable);
+        }
+
+        /**
+         * Get the heuristic's estimate for the provided {@link Room}.
+         */
+        private int estimate(Room room)
+        {
+            final Integer result = this.heuristic.run(room);
+            return result == null ? PatternDatabase.unsolvable : result;
+        }
+
+        private boolean isFinished()
+        {
+            return this.solution.get() != null;
+        }
+
+        private void addEstimatePastBound(int estimate)
+        {
+            this.nextBound.accumulateAndGet(estimate, Math::min);
+        }
+    }
+
+    /**
+     * A task that searches the subtree under a path of moves. Above the split depth, the task
+     * forks a task for each move. At the split depth, it searches the rest of the subtree
+     * depth-first on its own {@link Room}.
+     */
+    private static class IdaStarTask extends java.util.concurrent.RecursiveAction
+    {
+        private final IdaStarIteration iteration;
+        private final Room room;
+        /**
+         * The moves from the start of the search to the current state.
+         */
+        private Move[] pathMoves;
+        /**
+         * The hash codes of the {@link Room} at each state on the path, which are used to skip
+         * moves that return to a state that is already on the path.
+         */
+        private int[] pathHashCodes;
+        private final int pathLength;
+        private final int estimate;
+
+        private IdaStarTask(IdaStarIteration iteration, Room room, Move[] pathMoves, int[] pathHashCodes, int estimate)
+        {
+            this.iteration = iteration;
+            this.room = room;
+            this.pathMoves = pathMoves;
+            this.pathHashCodes = pathHashCodes;
+            this.pathLength = pathMoves.length;
+            this.estimate = estimate;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (!this.iteration.isFinished())
+            {
+                if (this.pathLength < this.iteration.splitDepth)
+                {
+                    final java.util.ArrayList<IdaStarTask> subtasks = new java.util.ArrayList<>();
+                    if (this.visit(this.pathLength, this.estimate))
+                    {
+                        for (final Move move : this.room.getMoves())
+                        {
+                            final Room nextRoom = this.room.clone();
+                            nextRoom.applyMove(move);
+                            if (!this.isOnPath(nextRoom, move, this.pathLength))
+                            {
+                                final int nextEstimate = this.iteration.estimate(nextRoom);
+                                if (nextEstimate != PatternDatabase.unsolvable)
+                                {
+                                    final Move[] nextPathMoves = java.util.Arrays.copyOf(this.pathMoves, this.pathLength + 1);
+                                    nextPathMoves[this.pathLength] = move;
+                                    final int[] nextPathHashCodes = java.util.Arrays.copyOf(this.pathHashCodes, this.pathLength + 2);
+                                    nextPathHashCodes[this.pathLength + 1] = nextRoom.hashCode();
+                                    subtasks.add(new IdaStarTask(this.iteration, nextRoom, nextPathMoves, nextPathHashCodes, nextEstimate));
+                                }
+                            }
+                        }
+                    }
+                    java.util.concurrent.ForkJoinTask.invokeAll(subtasks);
+                }
+                else
+                {
+                    this.search(this.pathLength, this.estimate);
+                }
+            }
+        }
+
+        /**
+         * Check the state at the end of the path against the iteration's bound, and record it if
+         * it is solved.
+         * @return Whether the state's moves should be searched.
+         */
+        private boolean visit(int pathLength, int estimate)
+        {
+            boolean result = false;
+            final int totalEstimate = pathLength + estimate;
+            if (totalEstimate > this.iteration.bound)
+            {
+                this.iteration.addEstimatePastBound(totalEstimate);
+            }
+            else if (this.room.getRoomObjectCount(RoomObject.Orb) == 0)
+            {
+                this.iteration.solution.compareAndSet(null, java.util.Arrays.copyOf(this.pathMoves, pathLength));
+            }
+            else
+            {
+                this.iteration.expandedStateCount.increment();
+                result = true;
+            }
+            return result;
+        }
+
+        /**
+         * Search the subtree under the state at the end of the path depth-first, by applying
+         * and undoing moves on this task's {@link Room}.
+         */
+        private void search(int pathLength, int estimate)
+        {
+            if (this.visit(pathLength, estimate))
+            {
+                for (final Move move : this.room.getMoves())
+                {
+                    if (this.iteration.isFinished())
+                    {
+                        break;
+                    }
+
+                    this.room.applyMove(move);
+                    if (!this.isOnPath(this.room, move, pathLength))
+                    {
+                        final int nextEstimate = this.iteration.estimate(this.room);
+                        if (nextEstimate != PatternDatabase.unsolvable)
+                        {
+                            this.push(pathLength, move, this.room.hashCode());
+                            this.search(pathLength + 1, nextEstimate);
+                        }
+                    }
+                    this.room.undoMove(move);
+                }
+            }
+        }
+
+        private void push(int pathLength, Move move, int hashCode)
+        {
+            if (this.pathMoves.length <= pathLength)
+            {
+                this.pathMoves = java.util.Arrays.copyOf(this.pathMoves, Math.max(8, pathLength * 2));
+            }
+            this.pathMoves[pathLength] = move;
+
+            if (this.pathHashCodes.length <= pathLength + 1)
+            {
+                this.pathHashCodes = java.util.Arrays.copyOf(this.pathHashCodes, Math.max(8, (pathLength + 1) * 2));
+            }
+            this.pathHashCodes[pathLength + 1] = hashCode;
+        }
+
+        /**
+         * Get whether the provided {@link Room}, which is one move past the end of the path, is
+         * the same as a state that is already on the path. Hash codes rule out most states, and a
+         * state whose hash code matches is rebuilt by undoing the moves on a copy.
+         * @param nextRoom The {@link Room} after the provided move.
+         * @param move The move that follows the end of the path.
+         * @param pathLength The number of moves on the path.
+         */
+        private boolean isOnPath(Room nextRoom, Move move, int pathLength)
+        {
+            boolean result = false;
+            final int hashCode = nextRoom.hashCode();
+            for (int i = pathLength; i >= 0 && !result; --i)
+            {
+                if (this.pathHashCodes[i] == hashCode)
+                {
+                    final Room pathRoom = nextRoom.clone();
+                    pathRoom.undoMove(move);
+                    for (int j = pathLength - 1; j >= i; --j)
+                    {
+                        pathRoom.undoMove(this.pathMoves[j]);
+                    }
+                    result = pathRoom.equals(nextRoom);
+                }
+            }
+            return result;
+        }
+    }
+}
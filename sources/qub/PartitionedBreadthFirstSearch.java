@@ -0,0 +1,778 @@
+package qub;
+
+/**
+ * A solver for {@link Room}s that finds a shortest solution with a breadth-first search that is
+ * split across several worker processes. Each worker owns the states whose packed key hashes to
+ * its partition, and only keeps the visited states of its own partition, so the search can use the
+ * memory of every worker. The workers exchange the states that they generate through files in a
+ * shared folder, so they can run on one machine or on several machines that share storage.
+ * <p>
+ * The search runs one depth at a time. Each worker expands the states of its partition at the
+ * current depth, writes the next states to one batch file for each partition, and publishes a
+ * done file. Once every worker has published its done file for the depth, each worker reads the
+ * batches that were written for its partition, drops the states it has already visited, and
+ * writes the rest to its states file for the next depth. Files are written under a temporary name
+ * and then renamed, so a file that exists is always complete.
+ * <p>
+ * The states files of every depth are kept until the search ends, and the solution is found by
+ * walking back from the solved state through them, so no links between states are stored. Each
+ * worker publishes an exited file once it has stopped reading the shared folder, and the files are
+ * only deleted after every worker has published one. The shared folder has these files:
+ * <ul>
+ *     <li>search.bin: the layout, the start state, and the number of partitions.</li>
+ *     <li>level-D/states-P.bin: the packed keys of the states at depth D in partition P.</li>
+ *     <li>level-D/batch-P-Q.bin: the packed keys of the states that partition P generated from
+ *     depth D for partition Q. It is deleted once partition Q has read it.</li>
+ *     <li>level-D/done-P.bin: the number of states that partition P expanded at depth D, followed
+ *     by the packed key of a solved state that it generated, if it generated one.</li>
+ *     <li>exited-P: published by the worker of partition P once it will no longer read or write
+ *     the folder.</li>
+ *     <li>abort: written when the search fails, so that the workers stop waiting.</li>
+ * </ul>
+ */
+public class PartitionedBreadthFirstSearch
+{
+    private static final int searchFileSignature = 0x51504231;
+    private static final String searchFileName = "search.bin";
+    private static final String abortFileName = "abort";
+    private static final long pollMilliseconds = 5;
+
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final RoomStateKeyFormat keyFormat;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private final java.nio.file.Path folder;
+    private int partitionCount;
+    private boolean launchLocalWorkers;
+    private long visitedStateCapacity;
+    private long expandedStateCount;
+
+    private PartitionedBreadthFirstSearch(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks, java.nio.file.Path folder)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.keyFormat = RoomStateKeyFormat.create(layout, startOrbCells.length);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+        this.folder = folder;
+        this.partitionCount = 2;
+        this.launchLocalWorkers = true;
+    }
+
+    /**
+     * Create a new {@link PartitionedBreadthFirstSearch} that searches for solutions to the
+     * provided {@link Room}. Later changes to the {@link Room} don't affect the search.
+     * @param room The {@link Room} to search for solutions to.
+     * @param folderPath The path to the folder that the workers exchange states through. Every
+     *                   worker must be able to read and write it.
+     */
+    public static PartitionedBreadthFirstSearch create(Room room, Path folderPath)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertNotNull(folderPath, "folderPath");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new PartitionedBreadthFirstSearch(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room), java.nio.file.Paths.get(folderPath.toString()));
+    }
+
+    /**
+     * Run one worker of a search.
+     * @param args The path to the search's folder and the index of the worker's partition.
+     */
+    public static void main(String[] args)
+    {
+        PreCondition.assertNotNull(args, "args");
+        PreCondition.assertEqual(2, args.length, "args.length");
+
+        PartitionedBreadthFirstSearch.runWorker(Path.parse(args[0]), Integer.parseInt(args[1])).await();
+    }
+
+    /**
+     * Set the number of partitions that the states are split into. There is one worker for each
+     * partition.
+     * @param partitionCount The number of partitions that the states are split into.
+     * @return This object for method chaining.
+     */
+    public PartitionedBreadthFirstSearch setPartitionCount(int partitionCount)
+    {
+        PreCondition.assertBetween(1, partitionCount, 1024, "partitionCount");
+
+        this.partitionCount = partitionCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of partitions that the states are split into.
+     */
+    public int getPartitionCount()
+    {
+        return this.partitionCount;
+    }
+
+    /**
+     * Set whether {@link #findSolution()} starts a local worker process for each partition. If it
+     * doesn't, a worker for each partition must be started with {@link #main(String[])} or
+     * {@link #runWorker(Path, int)}, such as on other machines that share the folder.
+     * @param launchLocalWorkers Whether {@link #findSolution()} starts a local worker process for
+     *                           each partition.
+     * @return This object for method chaining.
+     */
+    public PartitionedBreadthFirstSearch setLaunchLocalWorkers(boolean launchLocalWorkers)
+    {
+        this.launchLocalWorkers = launchLocalWorkers;
+
+        return this;
+    }
+
+    /**
+     * Get whether {@link #findSolution()} starts a local worker process for each partition.
+     */
+    public boolean getLaunchLocalWorkers()
+    {
+        return this.launchLocalWorkers;
+    }
+
+    /**
+     * Set the number of visited states that each worker's {@link OffHeapRoomStateSet} makes room
+     * for up front.
+     * @param visitedStateCapacity The number of visited states that each worker makes room for.
+     * @return This object for method chaining.
+     */
+    public PartitionedBreadthFirstSearch setVisitedStateCapacity(long visitedStateCapacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(visitedStateCapacity, 0, "visitedStateCapacity");
+
+        this.visitedStateCapacity = visitedStateCapacity;
+
+        return this;
+    }
+
+    /**
+     * Get the number of visited states that each worker's {@link OffHeapRoomStateSet} makes room
+     * for up front.
+     */
+    public long getVisitedStateCapacity()
+    {
+        return this.visitedStateCapacity;
+    }
+
+    /**
+     * Get the number of states that the workers of the last search expanded.
+     */
+    public long getExpandedStateCount()
+    {
+        return this.expandedStateCount;
+    }
+
+    /**
+     * Get the partition that owns the provided key.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     * @param keyLongCount The number of longs in the key.
+     * @param partitionCount The number of partitions.
+     */
+    public static int getPartition(long[] key, int keyStart, int keyLongCount, int partitionCount)
+    {
+        PreCondition.assertNotNull(key, "key");
+        PreCondition.assertGreaterThanOrEqualTo(partitionCount, 1, "partitionCount");
+
+        // The hash is mixed again so that the partitions don't depend on the high bits that
+        // RoomStateSets use to pick slots.
+        final long hash = RoomStateKeyFormat.getKeyHash(key, keyStart, keyLongCount) * 0xD6E8FEB86659FD93L;
+        return (int)(((hash >>> 32) * partitionCount) >>> 32);
+    }
+
+    /**
+     * Find a solution with the fewest moves. The workers are started if
+     * {@link #getLaunchLocalWorkers()} is true, and the search waits for them to finish.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            this.expandedStateCount = 0;
+
+            Move[] moves = new Move[0];
+            if (this.startOrbCells.length > 0)
+            {
+                final java.util.ArrayList<Process> workers = new java.util.ArrayList<>();
+                boolean completed = false;
+                try
+                {
+                    java.nio.file.Files.createDirectories(this.folder);
+                    if (java.nio.file.Files.exists(this.folder.resolve(PartitionedBreadthFirstSearch.searchFileName)))
+                    {
+                        throw new IllegalStateException("The folder " + this.folder + " already has a partitioned search.");
+                    }
+                    java.nio.file.Files.deleteIfExists(this.folder.resolve(PartitionedBreadthFirstSearch.abortFileName));
+                    this.writeSearchFile();
+
+                    if (this.launchLocalWorkers)
+                    {
+                        final String javaPath = java.nio.file.Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                        for (int partitionIndex = 0; partitionIndex < this.partitionCount; ++partitionIndex)
+                        {
+                            workers.add(new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"), PartitionedBreadthFirstSearch.class.getName(), this.folder.toString(), Integer.toString(partitionIndex))
+                                .redirectErrorStream(true)
+                                .redirectOutput(this.getWorkerLogFile(partitionIndex).toFile())
+                                .start());
+                        }
+                    }
+
+                    final long[] solvedKey = new long[this.keyFormat.getKeyLongCount()];
+                    boolean solved = false;
+                    int depth = 0;
+                    while (true)
+                    {
+                        final java.nio.file.Path levelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth);
+                        long levelStateCount = 0;
+                        for (int partitionIndex = 0; partitionIndex < this.partitionCount; ++partitionIndex)
+                        {
+                            final java.nio.file.Path doneFile = PartitionedBreadthFirstSearch.getDoneFile(levelFolder, partitionIndex);
+                            this.waitForFile(doneFile, workers);
+                            try (final java.io.DataInputStream input = new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(doneFile))))
+                            {
+                                levelStateCount += input.readLong();
+                                if (input.readBoolean() && !solved)
+                                {
+                                    solved = true;
+                                    for (int i = 0; i < solvedKey.length; ++i)
+                                    {
+                                        solvedKey[i] = input.readLong();
+                                    }
+                                }
+                            }
+                        }
+                        this.expandedStateCount += levelStateCount;
+
+                        if (solved || levelStateCount == 0)
+                        {
+                            break;
+                        }
+                        ++depth;
+                    }
+
+                    for (int partitionIndex = 0; partitionIndex < workers.size(); ++partitionIndex)
+                    {
+                        if (PartitionedBreadthFirstSearch.waitForExit(workers.get(partitionIndex)) != 0)
+                        {
+                            throw new IllegalStateException("The worker for partition " + partitionIndex + " failed. See " + this.getWorkerLogFile(partitionIndex) + ".");
+                        }
+                    }
+
+                    // Workers that weren't launched here may still be reading the last done files,
+                    // so wait until every worker has exited before the files are deleted.
+                    for (int partitionIndex = 0; partitionIndex < this.partitionCount; ++partitionIndex)
+                    {
+                        this.waitForFile(PartitionedBreadthFirstSearch.getExitedFile(this.folder, partitionIndex), workers);
+                    }
+
+                    if (!solved)
+                    {
+                        throw new NotFoundException("No solution exists for the provided room.");
+                    }
+
+                    moves = new Move[depth + 1];
+                    for (int moveIndex = depth; moveIndex >= 0; --moveIndex)
+                    {
+                        moves[moveIndex] = this.findPreviousMove(moveIndex, solvedKey);
+                    }
+                    completed = true;
+                }
+                catch (NotFoundException e)
+                {
+                    completed = true;
+                    throw e;
+                }
+                catch (java.io.IOException e)
+                {
+                    throw new java.io.UncheckedIOException(e);
+                }
+                finally
+                {
+                    this.finishSearch(workers, completed);
+                }
+            }
+
+            final Iterable<Move> result = Iterable.create(moves);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Run the worker for the provided partition of the search in the provided folder. The worker
+     * returns once the search has found a solution or run out of states.
+     * @param folderPath The path to the folder of the search.
+     * @param partitionIndex The index of the partition that the worker owns.
+     */
+    public static Result<Void> runWorker(Path folderPath, int partitionIndex)
+    {
+        PreCondition.assertNotNull(folderPath, "folderPath");
+        PreCondition.assertGreaterThanOrEqualTo(partitionIndex, 0, "partitionIndex");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.readSearchFile(java.nio.file.Paths.get(folderPath.toString()));
+                if (search.partitionCount <= partitionIndex)
+                {
+                    throw new IllegalArgumentException("The partition index " + partitionIndex + " must be less than the partition count " + search.partitionCount + ".");
+                }
+                search.runWorker(partitionIndex);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void runWorker(int partitionIndex) throws java.io.IOException
+    {
+        try
+        {
+            this.expandPartition(partitionIndex);
+        }
+        finally
+        {
+            final java.nio.file.Path exitedFile = PartitionedBreadthFirstSearch.getExitedFile(this.folder, partitionIndex);
+            PartitionedBreadthFirstSearch.createOutput(exitedFile).close();
+            PartitionedBreadthFirstSearch.publish(exitedFile);
+        }
+    }
+
+    /**
+     * Expand the states of the provided partition one depth at a time until the search has found
+     * a solution or run out of states.
+     */
+    private void expandPartition(int partitionIndex) throws java.io.IOException
+    {
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final RoomStateSet visitedStates = OffHeapRoomStateSet.create(keyLongCount, this.visitedStateCapacity);
+        final long[] key = new long[keyLongCount];
+        final long[] nextKey = new long[keyLongCount];
+        final int[] orbCells = new int[this.keyFormat.getMaxOrbCount()];
+        final int[] nextOrbCells = new int[this.keyFormat.getMaxOrbCount()];
+
+        // The partition that owns the start state begins with it, and the others begin empty.
+        final java.nio.file.Path firstLevelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, 0);
+        java.nio.file.Files.createDirectories(firstLevelFolder);
+        this.keyFormat.pack(this.startOrbCells, this.startOrbCells.length, this.startBrokenBlocks, key, 0);
+        final java.nio.file.Path firstStatesFile = PartitionedBreadthFirstSearch.getStatesFile(firstLevelFolder, partitionIndex);
+        try (final java.io.DataOutputStream output = PartitionedBreadthFirstSearch.createOutput(firstStatesFile))
+        {
+            if (PartitionedBreadthFirstSearch.getPartition(key, 0, keyLongCount, this.partitionCount) == partitionIndex)
+            {
+                visitedStates.add(key, 0);
+                PartitionedBreadthFirstSearch.writeKey(output, key);
+            }
+        }
+        PartitionedBreadthFirstSearch.publish(firstStatesFile);
+
+        int depth = 0;
+        while (true)
+        {
+            final java.nio.file.Path levelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth);
+
+            // Expand this partition's states and send each next state to its partition.
+            long stateCount = 0;
+            boolean solved = false;
+            final long[] solvedKey = new long[keyLongCount];
+            final java.io.DataOutputStream[] batchOutputs = new java.io.DataOutputStream[this.partitionCount];
+            try
+            {
+                for (int toPartitionIndex = 0; toPartitionIndex < this.partitionCount; ++toPartitionIndex)
+                {
+                    batchOutputs[toPartitionIndex] = PartitionedBreadthFirstSearch.createOutput(PartitionedBreadthFirstSearch.getBatchFile(levelFolder, partitionIndex, toPartitionIndex));
+                }
+
+                final java.nio.file.Path statesFile = PartitionedBreadthFirstSearch.getStatesFile(levelFolder, partitionIndex);
+                stateCount = java.nio.file.Files.size(statesFile) / (keyLongCount * Long.BYTES);
+                try (final java.io.DataInputStream input = PartitionedBreadthFirstSearch.createInput(statesFile))
+                {
+                    for (long stateIndex = 0; stateIndex < stateCount; ++stateIndex)
+                    {
+                        PartitionedBreadthFirstSearch.readKey(input, key);
+                        final int orbCount = this.keyFormat.unpackOrbCells(key, 0, orbCells);
+                        final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(key, 0);
+                        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                        {
+                            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                            {
+                                final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                                if (moveResult != RoomLayout.noMove)
+                                {
+                                    this.keyFormat.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+                                    if (!solved && this.keyFormat.unpackOrbCount(nextKey, 0) == 0)
+                                    {
+                                        solved = true;
+                                        System.arraycopy(nextKey, 0, solvedKey, 0, keyLongCount);
+                                    }
+                                    PartitionedBreadthFirstSearch.writeKey(batchOutputs[PartitionedBreadthFirstSearch.getPartition(nextKey, 0, keyLongCount, this.partitionCount)], nextKey);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                for (final java.io.DataOutputStream batchOutput : batchOutputs)
+                {
+                    if (batchOutput != null)
+                    {
+                        batchOutput.close();
+                    }
+                }
+            }
+            for (int toPartitionIndex = 0; toPartitionIndex < this.partitionCount; ++toPartitionIndex)
+            {
+                PartitionedBreadthFirstSearch.publish(PartitionedBreadthFirstSearch.getBatchFile(levelFolder, partitionIndex, toPartitionIndex));
+            }
+
+            final java.nio.file.Path doneFile = PartitionedBreadthFirstSearch.getDoneFile(levelFolder, partitionIndex);
+            try (final java.io.DataOutputStream output = PartitionedBreadthFirstSearch.createOutput(doneFile))
+            {
+                output.writeLong(stateCount);
+                output.writeBoolean(solved);
+                if (solved)
+                {
+                    PartitionedBreadthFirstSearch.writeKey(output, solvedKey);
+                }
+            }
+            PartitionedBreadthFirstSearch.publish(doneFile);
+
+            // Wait for every partition to finish this depth.
+            boolean anySolved = false;
+            long levelStateCount = 0;
+            for (int fromPartitionIndex = 0; fromPartitionIndex < this.partitionCount; ++fromPartitionIndex)
+            {
+                final java.nio.file.Path fromDoneFile = PartitionedBreadthFirstSearch.getDoneFile(levelFolder, fromPartitionIndex);
+                this.waitForFile(fromDoneFile, null);
+                try (final java.io.DataInputStream input = PartitionedBreadthFirstSearch.createInput(fromDoneFile))
+                {
+                    levelStateCount += input.readLong();
+                    anySolved |= input.readBoolean();
+                }
+            }
+            if (anySolved || levelStateCount == 0)
+            {
+                break;
+            }
+
+            // Keep the next states that this partition hasn't visited yet.
+            final java.nio.file.Path nextLevelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth + 1);
+            java.nio.file.Files.createDirectories(nextLevelFolder);
+            final java.nio.file.Path nextStatesFile = PartitionedBreadthFirstSearch.getStatesFile(nextLevelFolder, partitionIndex);
+            try (final java.io.DataOutputStream output = PartitionedBreadthFirstSearch.createOutput(nextStatesFile))
+            {
+                for (int fromPartitionIndex = 0; fromPartitionIndex < this.partitionCount; ++fromPartitionIndex)
+                {
+                    final java.nio.file.Path batchFile = PartitionedBreadthFirstSearch.getBatchFile(levelFolder, fromPartitionIndex, partitionIndex);
+                    final long batchStateCount = java.nio.file.Files.size(batchFile) / (keyLongCount * Long.BYTES);
+                    try (final java.io.DataInputStream input = PartitionedBreadthFirstSearch.createInput(batchFile))
+                    {
+                        for (long stateIndex = 0; stateIndex < batchStateCount; ++stateIndex)
+                        {
+                            PartitionedBreadthFirstSearch.readKey(input, key);
+                            if (visitedStates.add(key, 0))
+                            {
+                                PartitionedBreadthFirstSearch.writeKey(output, key);
+                            }
+                        }
+                    }
+                    java.nio.file.Files.delete(batchFile);
+                }
+            }
+            PartitionedBreadthFirstSearch.publish(nextStatesFile);
+
+            ++depth;
+        }
+    }
+
+    /**
+     * Find a state at the provided depth that reaches the state of the provided key in one move.
+     * The key is replaced with the key of the state that was found, and the move is returned.
+     */
+    private Move findPreviousMove(int depth, long[] targetKey) throws java.io.IOException
+    {
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final long[] key = new long[keyLongCount];
+        final long[] nextKey = new long[keyLongCount];
+        final int[] orbCells = new int[this.keyFormat.getMaxOrbCount()];
+        final int[] nextOrbCells = new int[this.keyFormat.getMaxOrbCount()];
+        final java.nio.file.Path levelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth);
+
+        Move result = null;
+        for (int partitionIndex = 0; partitionIndex < this.partitionCount && result == null; ++partitionIndex)
+        {
+            final java.nio.file.Path statesFile = PartitionedBreadthFirstSearch.getStatesFile(levelFolder, partitionIndex);
+            final long stateCount = java.nio.file.Files.size(statesFile) / (keyLongCount * Long.BYTES);
+            try (final java.io.DataInputStream input = PartitionedBreadthFirstSearch.createInput(statesFile))
+            {
+                for (long stateIndex = 0; stateIndex < stateCount && result == null; ++stateIndex)
+                {
+                    PartitionedBreadthFirstSearch.readKey(input, key);
+                    result = this.keyFormat.findMove(this.graph, key, 0, targetKey, 0, orbCells, nextOrbCells, nextKey);
+                }
+            }
+        }
+        System.arraycopy(key, 0, targetKey, 0, keyLongCount);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Stop the local workers, and either delete the search's files or tell the remaining workers
+     * to stop waiting.
+     */
+    private void finishSearch(java.util.List<Process> workers, boolean completed)
+    {
+        for (final Process worker : workers)
+        {
+            if (worker.isAlive())
+            {
+                worker.destroy();
+            }
+        }
+
+        try
+        {
+            if (completed)
+            {
+                for (int depth = 0; java.nio.file.Files.exists(PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth)); ++depth)
+                {
+                    final java.nio.file.Path levelFolder = PartitionedBreadthFirstSearch.getLevelFolder(this.folder, depth);
+                    try (final java.nio.file.DirectoryStream<java.nio.file.Path> levelFiles = java.nio.file.Files.newDirectoryStream(levelFolder))
+                    {
+                        for (final java.nio.file.Path levelFile : levelFiles)
+                        {
+                            java.nio.file.Files.delete(levelFile);
+                        }
+                    }
+                    java.nio.file.Files.delete(levelFolder);
+                }
+                for (int partitionIndex = 0; partitionIndex < workers.size(); ++partitionIndex)
+                {
+                    java.nio.file.Files.deleteIfExists(this.getWorkerLogFile(partitionIndex));
+                }
+                for (int partitionIndex = 0; partitionIndex < this.partitionCount; ++partitionIndex)
+                {
+                    java.nio.file.Files.deleteIfExists(PartitionedBreadthFirstSearch.getExitedFile(this.folder, partitionIndex));
+                }
+                java.nio.file.Files.deleteIfExists(this.folder.resolve(PartitionedBreadthFirstSearch.searchFileName));
+            }
+            else if (java.nio.file.Files.isDirectory(this.folder))
+            {
+                java.nio.file.Files.write(this.folder.resolve(PartitionedBreadthFirstSearch.abortFileName), new byte[0]);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private java.nio.file.Path getWorkerLogFile(int partitionIndex)
+    {
+        return this.folder.resolve("worker-" + partitionIndex + ".log");
+    }
+
+    private static java.nio.file.Path getLevelFolder(java.nio.file.Path folder, int depth)
+    {
+        return folder.resolve("level-" + depth);
+    }
+
+    private static java.nio.file.Path getStatesFile(java.nio.file.Path levelFolder, int partitionIndex)
+    {
+        return levelFolder.resolve("states-" + partitionIndex + ".bin");
+    }
+
+    private static java.nio.file.Path getBatchFile(java.nio.file.Path levelFolder, int fromPartitionIndex, int toPartitionIndex)
+    {
+        return levelFolder.resolve("batch-" + fromPartitionIndex + "-" + toPartitionIndex + ".bin");
+    }
+
+    private static java.nio.file.Path getDoneFile(java.nio.file.Path levelFolder, int partitionIndex)
+    {
+        return levelFolder.resolve("done-" + partitionIndex + ".bin");
+    }
+
+    private static java.nio.file.Path getExitedFile(java.nio.file.Path folder, int partitionIndex)
+    {
+        return folder.resolve("exited-" + partitionIndex);
+    }
+
+    private static java.nio.file.Path getTemporaryFile(java.nio.file.Path file)
+    {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Create an output stream to the temporary file of the provided file. The file appears once
+     * it is published with {@link #publish(java.nio.file.Path)}.
+     */
+    private static java.io.DataOutputStream createOutput(java.nio.file.Path file) throws java.io.IOException
+    {
+        return new java.io.DataOutputStream(new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(PartitionedBreadthFirstSearch.getTemporaryFile(file)), 1 << 16));
+    }
+
+    private static java.io.DataInputStream createInput(java.nio.file.Path file) throws java.io.IOException
+    {
+        return new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(file), 1 << 16));
+    }
+
+    /**
+     * Rename the temporary file of the provided file to the provided file, so that the file only
+     * ever appears complete.
+     */
+    private static void publish(java.nio.file.Path file) throws java.io.IOException
+    {
+        java.nio.file.Files.move(PartitionedBreadthFirstSearch.getTemporaryFile(file), file, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeKey(java.io.DataOutputStream output, long[] key) throws java.io.IOException
+    {
+        for (final long keyLong : key)
+        {
+            output.writeLong(keyLong);
+        }
+    }
+
+    private static void readKey(java.io.DataInputStream input, long[] key) throws java.io.IOException
+    {
+        for (int i = 0; i < key.length; ++i)
+        {
+            key[i] = input.readLong();
+        }
+    }
+
+    /**
+     * Wait until the provided file exists. The wait fails if the search is aborted or if one of
+     * the provided worker processes fails.
+     */
+    private void waitForFile(java.nio.file.Path file, java.util.List<Process> workers)
+    {
+        while (!java.nio.file.Files.exists(file))
+        {
+            if (java.nio.file.Files.exists(this.folder.resolve(PartitionedBreadthFirstSearch.abortFileName)))
+            {
+                throw new IllegalStateException("The partitioned search was aborted.");
+            }
+            if (workers != null)
+            {
+                for (int partitionIndex = 0; partitionIndex < workers.size(); ++partitionIndex)
+                {
+                    if (!workers.get(partitionIndex).isAlive() && workers.get(partitionIndex).exitValue() != 0)
+                    {
+                        throw new IllegalStateException("The worker for partition " + partitionIndex + " failed. See " + this.getWorkerLogFile(partitionIndex) + ".");
+                    }
+                }
+            }
+
+            try
+            {
+                Thread.sleep(PartitionedBreadthFirstSearch.pollMilliseconds);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new java.util.concurrent.CancellationException("The partitioned search was interrupted.");
+            }
+        }
+    }
+
+    private static int waitForExit(Process worker)
+    {
+        boolean interrupted = false;
+        Integer result = null;
+        while (result == null)
+        {
+            try
+            {
+                result = worker.waitFor();
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private void writeSearchFile() throws java.io.IOException
+    {
+        final java.nio.file.Path searchFile = this.folder.resolve(PartitionedBreadthFirstSearch.searchFileName);
+        try (final java.io.DataOutputStream output = PartitionedBreadthFirstSearch.createOutput(searchFile))
+        {
+            output.writeInt(PartitionedBreadthFirstSearch.searchFileSignature);
+            output.writeInt(this.partitionCount);
+            output.writeLong(this.visitedStateCapacity);
+            BreadthFirstSearch.writeStartState(output, this.layout, this.startOrbCells, this.startBrokenBlocks);
+        }
+        PartitionedBreadthFirstSearch.publish(searchFile);
+    }
+
+    private static PartitionedBreadthFirstSearch readSearchFile(java.nio.file.Path folder) throws java.io.IOException
+    {
+        try (final java.io.DataInputStream input = PartitionedBreadthFirstSearch.createInput(folder.resolve(PartitionedBreadthFirstSearch.searchFileName)))
+        {
+            if (input.readInt() != PartitionedBreadthFirstSearch.searchFileSignature)
+            {
+                throw new ParseException("The provided folder doesn't have a partitioned search.");
+            }
+            final int partitionCount = input.readInt();
+            final long visitedStateCapacity = input.readLong();
+            final int left = input.readInt();
+            final int top = input.readInt();
+            final int width = input.readInt();
+            final int height = input.readInt();
+            if (partitionCount < 1 || visitedStateCapacity < 0 || width < 0 || height < 0)
+            {
+                throw new ParseException("The partitioned search file is corrupt.");
+            }
+
+            final RoomObject[] roomObjects = RoomObject.values();
+            final RoomObject[] staticObjects = new RoomObject[width * height];
+            for (int cell = 0; cell < staticObjects.length; ++cell)
+            {
+                final int staticObjectByte = input.readUnsignedByte();
+                if (roomObjects.length < staticObjectByte || staticObjectByte == RoomObject.Orb.ordinal() + 1)
+                {
+                    throw new ParseException("The partitioned search layout is corrupt.");
+                }
+                staticObjects[cell] = staticObjectByte == 0 ? null : roomObjects[staticObjectByte - 1];
+            }
+
+            final int[] startOrbCells = new int[input.readInt()];
+            for (int orbIndex = 0; orbIndex < startOrbCells.length; ++orbIndex)
+            {
+                startOrbCells[orbIndex] = input.readInt();
+            }
+            final long startBrokenBlocks = input.readLong();
+
+            final PartitionedBreadthFirstSearch result = new PartitionedBreadthFirstSearch(RoomLayout.create(left, top, width, height, staticObjects), startOrbCells, startBrokenBlocks, folder);
+            result.partitionCount = partitionCount;
+            result.visitedStateCapacity = visitedStateCapacity;
+            return result;
+        }
+        catch (java.io.EOFException e)
+        {
+            throw new ParseException("The partitioned search file ended unexpectedly.");
+        }
+    }
+}
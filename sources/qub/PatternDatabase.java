@@ -0,0 +1,542 @@
+package qub;
+
+/**
+ * Precomputed lower bounds on the number of moves that the {@link RoomObject#Orb}s of a
+ * {@link RoomLayout} need to be solved. A pattern is a single {@link RoomObject#Orb} or a pair of
+ * {@link RoomObject#Orb}s. For every placement of a pattern's {@link RoomObject#Orb}s, the
+ * database stores the exact number of moves that the pattern needs in a relaxed version of the
+ * rules where every {@link RoomObject#BreakableBlock} might already be broken and every
+ * {@link RoomObject#Orb} that isn't part of the pattern might be in any cell that a move needs it
+ * to be in. Other {@link RoomObject#Orb}s are only assumed to exist when the maximum
+ * {@link RoomObject#Orb} count is larger than the pattern. Every real solution is also a relaxed
+ * solution of each pattern, so the stored distances never overestimate. Distances that are too
+ * large to store are stored as the largest distance that can be stored, which is still a lower
+ * bound. The pair distances are stored once for each unordered pair of cells, and only when the
+ * maximum {@link RoomObject#Orb} count allows pairs.
+ */
+public class PatternDatabase
+{
+    /**
+     * The distance that is returned for {@link RoomObject#Orb}s that can't be solved.
+     */
+    public static final int unsolvable = Integer.MAX_VALUE;
+    /**
+     * The largest number of cells that a {@link RoomLayout} can have and still have a
+     * {@link PatternDatabase}. There is a stored byte for every unordered pair of cells, so this
+     * keeps the pair table at about 128 MiB, which fits in a default heap.
+     */
+    public static final int maximumCellCount = 16384;
+
+    private static final int unsolvableByte = 0xFF;
+    private static final int maximumStoredDistance = PatternDatabase.unsolvableByte - 1;
+
+    private final RoomLayout layout;
+    private final int maxOrbCount;
+    private final int cellCount;
+    private final byte[] singleOrbDistances;
+    private final byte[] orbPairDistances;
+
+    private PatternDatabase(RoomLayout layout, int maxOrbCount)
+    {
+        this.layout = layout;
+        this.maxOrbCount = maxOrbCount;
+        this.cellCount = layout.getCellCount();
+        this.singleOrbDistances = new byte[this.cellCount];
+        java.util.Arrays.fill(this.singleOrbDistances, (byte)PatternDatabase.unsolvableByte);
+        final int[] startCells = new int[RoomLayout.directionCount * Math.max(layout.getWidth(), layout.getHeight())];
+        this.findSingleOrbDistances(startCells);
+
+        if (maxOrbCount < 2)
+        {
+            this.orbPairDistances = null;
+        }
+        else
+        {
+            this.orbPairDistances = new byte[this.getOrbPairIndex(this.cellCount - 2, this.cellCount - 1) + 1];
+            java.util.Arrays.fill(this.orbPairDistances, (byte)PatternDatabase.unsolvableByte);
+            this.findOrbPairDistances(startCells);
+        }
+    }
+
+    /**
+     * Create a new {@link PatternDatabase} for the provided {@link RoomLayout}.
+     * @param layout The {@link RoomLayout} to create the {@link PatternDatabase} for.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s that the states that will be
+     *                    scored can have.
+     */
+    public static PatternDatabase create(RoomLayout layout, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+        PreCondition.assertLessThanOrEqualTo(layout.getCellCount(), PatternDatabase.maximumCellCount, "layout.getCellCount()");
+        PreCondition.assertGreaterThanOrEqualTo(maxOrbCount, 0, "maxOrbCount");
+
+        return new PatternDatabase(layout, maxOrbCount);
+    }
+
+    /**
+     * Create a new {@link PatternDatabase} for the layout and {@link RoomObject#Orb} count of the
+     * provided {@link Room}.
+     * @param room The {@link Room} to create the {@link PatternDatabase} for.
+     */
+    public static PatternDatabase create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return PatternDatabase.create(RoomLayout.create(room), room.getRoomObjectCount(RoomObject.Orb));
+    }
+
+    /**
+     * Get the {@link RoomLayout} that this database was created for.
+     */
+    public RoomLayout getLayout()
+    {
+        return this.layout;
+    }
+
+    /**
+     * Get the maximum number of {@link RoomObject#Orb}s that the states that are scored can have.
+     */
+    public int getMaxOrbCount()
+    {
+        return this.maxOrbCount;
+    }
+
+    /**
+     * Get the number of bytes that this database's distance tables take up.
+     */
+    public long getByteCount()
+    {
+        return PatternDatabase.getByteCount(this.layout, this.maxOrbCount);
+    }
+
+    /**
+     * Get the number of bytes that the distance tables of a {@link PatternDatabase} with the
+     * provided arguments would take up, without creating it.
+     * @param layout The {@link RoomLayout} that the {@link PatternDatabase} would be created for.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s that the states that would
+     *                    be scored can have.
+     */
+    public static long getByteCount(RoomLayout layout, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+        PreCondition.assertGreaterThanOrEqualTo(maxOrbCount, 0, "maxOrbCount");
+
+        final long cellCount = layout.getCellCount();
+        return maxOrbCount < 2 ? cellCount : cellCount + cellCount * (cellCount - 1) / 2;
+    }
+
+    /**
+     * Get the fewest number of relaxed moves that a single {@link RoomObject#Orb} in the provided
+     * cell needs to reach a {@link RoomObject#Goal}, or {@link #unsolvable} if it can't.
+     * @param orbCell The cell of the {@link RoomObject#Orb}.
+     */
+    public int getSingleOrbDistance(int orbCell)
+    {
+        PreCondition.assertIndexAccess(orbCell, this.cellCount, "orbCell");
+
+        return this.getStoredSingleOrbDistance(orbCell);
+    }
+
+    /**
+     * Get the fewest number of relaxed moves that a pair of {@link RoomObject#Orb}s in the
+     * provided cells need to both reach a {@link RoomObject#Goal}, or {@link #unsolvable} if they
+     * can't. This database must have been created for at least two {@link RoomObject#Orb}s.
+     * @param orbCell1 The cell of the first {@link RoomObject#Orb}.
+     * @param orbCell2 The cell of the second {@link RoomObject#Orb}.
+     */
+    public int getOrbPairDistance(int orbCell1, int orbCell2)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(this.maxOrbCount, 2, "this.getMaxOrbCount()");
+        PreCondition.assertIndexAccess(orbCell1, this.cellCount, "orbCell1");
+        PreCondition.assertIndexAccess(orbCell2, this.cellCount, "orbCell2");
+        PreCondition.assertNotEqual(orbCell1, orbCell2, "orbCell1");
+
+        return this.getStoredOrbPairDistance(orbCell1, orbCell2);
+    }
+
+    /**
+     * Get a {@link RoomStateScorer} that adds up the distances of disjoint patterns. The pairs of
+     * {@link RoomObject#Orb}s that add the most to the sum of their single {@link RoomObject#Orb}
+     * distances are chosen greedily, and any {@link RoomObject#Orb}s that are left over add their
+     * single {@link RoomObject#Orb} distance. Since each move only moves one
+     * {@link RoomObject#Orb}, the sum never overestimates. The returned {@link RoomStateScorer}
+     * reuses its buffers between calls, so each thread needs its own.
+     */
+    public RoomStateScorer getAdditiveScorer()
+    {
+        final int[][] buffers = new int[][] { new int[this.maxOrbCount], new int[this.maxOrbCount * this.maxOrbCount] };
+        final boolean[][] pairedBuffer = new boolean[][] { new boolean[this.maxOrbCount] };
+        return (int[] orbCells, int orbCount, long brokenBlocks) ->
+        {
+            if (buffers[0].length < orbCount)
+            {
+                buffers[0] = new int[orbCount];
+                buffers[1] = new int[orbCount * orbCount];
+                pairedBuffer[0] = new boolean[orbCount];
+            }
+
+            int result = 0;
+            final int[] orbDistances = buffers[0];
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                orbDistances[orbIndex] = this.getStoredSingleOrbDistance(orbCells[orbIndex]);
+                if (orbDistances[orbIndex] == PatternDatabase.unsolvable)
+                {
+                    return PatternDatabase.unsolvable;
+                }
+                result += orbDistances[orbIndex];
+            }
+
+            if (this.orbPairDistances == null)
+            {
+                return result;
+            }
+
+            final int[] pairGains = buffers[1];
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                for (int partnerIndex = orbIndex + 1; partnerIndex < orbCount; ++partnerIndex)
+                {
+                    final int pairDistance = this.getStoredOrbPairDistance(orbCells[orbIndex], orbCells[partnerIndex]);
+                    if (pairDistance == PatternDatabase.unsolvable)
+                    {
+                        return PatternDatabase.unsolvable;
+                    }
+                    pairGains[orbIndex * orbCount + partnerIndex] = pairDistance - orbDistances[orbIndex] - orbDistances[partnerIndex];
+                }
+            }
+
+            final boolean[] paired = pairedBuffer[0];
+            java.util.Arrays.fill(paired, 0, orbCount, false);
+            while (true)
+            {
+                int bestOrbIndex = -1;
+                int bestPartnerIndex = -1;
+                int bestGain = 0;
+                for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                {
+                    for (int partnerIndex = orbIndex + 1; partnerIndex < orbCount && !paired[orbIndex]; ++partnerIndex)
+                    {
+                        if (!paired[partnerIndex] && pairGains[orbIndex * orbCount + partnerIndex] > bestGain)
+                        {
+                            bestOrbIndex = orbIndex;
+                            bestPartnerIndex = partnerIndex;
+                            bestGain = pairGains[orbIndex * orbCount + partnerIndex];
+                        }
+                    }
+                }
+
+                if (bestOrbIndex == -1)
+                {
+                    break;
+                }
+
+                paired[bestOrbIndex] = true;
+                paired[bestPartnerIndex] = true;
+                result += bestGain;
+            }
+
+            return result;
+        };
+    }
+
+    /**
+     * Get a {@link RoomStateScorer} that takes the largest distance of any single
+     * {@link RoomObject#Orb} or pair of {@link RoomObject#Orb}s.
+     */
+    public RoomStateScorer getMaxScorer()
+    {
+        return (int[] orbCells, int orbCount, long brokenBlocks) ->
+        {
+            int result = 0;
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                result = Math.max(result, this.getStoredSingleOrbDistance(orbCells[orbIndex]));
+                for (int partnerIndex = orbIndex + 1; partnerIndex < orbCount && this.orbPairDistances != null; ++partnerIndex)
+                {
+                    result = Math.max(result, this.getStoredOrbPairDistance(orbCells[orbIndex], orbCells[partnerIndex]));
+                }
+            }
+            return result;
+        };
+    }
+
+    private static int toDistance(byte storedDistance)
+    {
+        final int result = storedDistance & 0xFF;
+        return result == PatternDatabase.unsolvableByte ? PatternDatabase.unsolvable : result;
+    }
+
+    private int getStoredSingleOrbDistance(int orbCell)
+    {
+        return PatternDatabase.toDistance(this.singleOrbDistances[orbCell]);
+    }
+
+    private int getStoredOrbPairDistance(int orbCell1, int orbCell2)
+    {
+        return PatternDatabase.toDistance(this.orbPairDistances[this.getOrbPairIndex(orbCell1, orbCell2)]);
+    }
+
+    /**
+     * Get the index of the provided unordered pair of different cells in the triangular pair
+     * table. The pairs whose larger cell is c start at index c * (c - 1) / 2.
+     */
+    private int getOrbPairIndex(int orbCell1, int orbCell2)
+    {
+        return orbCell1 < orbCell2
+            ? (int)((long)orbCell2 * (orbCell2 - 1) / 2) + orbCell1
+            : (int)((long)orbCell1 * (orbCell1 - 1) / 2) + orbCell2;
+    }
+
+    /**
+     * Get the larger cell of the pair at the provided index in the triangular pair table.
+     */
+    private static int getLargerOrbPairCell(int orbPairIndex)
+    {
+        int result = (int)((1 + Math.sqrt(1 + 8.0 * orbPairIndex)) / 2);
+        while ((long)result * (result - 1) / 2 > orbPairIndex)
+        {
+            --result;
+        }
+        while ((long)(result + 1) * result / 2 <= orbPairIndex)
+        {
+            ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Run a breadth-first search backwards from the {@link RoomObject#Goal}s for a single
+     * {@link RoomObject#Orb}.
+     */
+    private void findSingleOrbDistances(int[] startCells)
+    {
+        for (int goalIndex = 0; goalIndex < this.layout.getGoalCount(); ++goalIndex)
+        {
+            final int startCellCount = this.getRelaxedMoveStartCells(this.layout.getGoalCell(goalIndex), -1, this.maxOrbCount > 1, startCells);
+            for (int i = 0; i < startCellCount; ++i)
+            {
+                this.singleOrbDistances[startCells[i]] = 1;
+            }
+        }
+
+        for (int distance = 1; distance < PatternDatabase.maximumStoredDistance; ++distance)
+        {
+            boolean foundDistance = false;
+            for (int orbCell = 0; orbCell < this.cellCount; ++orbCell)
+            {
+                if ((this.singleOrbDistances[orbCell] & 0xFF) == distance)
+                {
+                    foundDistance = true;
+                    final int startCellCount = this.getRelaxedMoveStartCells(orbCell, -1, this.maxOrbCount > 1, startCells);
+                    for (int i = 0; i < startCellCount; ++i)
+                    {
+                        if ((this.singleOrbDistances[startCells[i]] & 0xFF) > distance + 1)
+                        {
+                            this.singleOrbDistances[startCells[i]] = (byte)(distance + 1);
+                        }
+                    }
+                }
+            }
+
+            if (!foundDistance)
+            {
+                break;
+            }
+        }
+
+        // Every cell that is farther away than the largest distance that can be stored can reach a
+        // cell at that distance, so flood backward from those cells and clamp the distances.
+        final int[] clampedCells = new int[this.cellCount];
+        int clampedCellCount = 0;
+        for (int orbCell = 0; orbCell < this.cellCount; ++orbCell)
+        {
+            if ((this.singleOrbDistances[orbCell] & 0xFF) == PatternDatabase.maximumStoredDistance)
+            {
+                clampedCells[clampedCellCount++] = orbCell;
+            }
+        }
+        while (clampedCellCount > 0)
+        {
+            final int orbCell = clampedCells[--clampedCellCount];
+            final int startCellCount = this.getRelaxedMoveStartCells(orbCell, -1, this.maxOrbCount > 1, startCells);
+            for (int i = 0; i < startCellCount; ++i)
+            {
+                if ((this.singleOrbDistances[startCells[i]] & 0xFF) == PatternDatabase.unsolvableByte)
+                {
+                    this.singleOrbDistances[startCells[i]] = (byte)PatternDatabase.maximumStoredDistance;
+                    clampedCells[clampedCellCount++] = startCells[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a breadth-first search backwards for pairs of {@link RoomObject#Orb}s. A pair is one
+     * move away from a single {@link RoomObject#Orb} when one of its {@link RoomObject#Orb}s can
+     * enter a {@link RoomObject#Goal}, so those pairs join the search at the distance after their
+     * partner's single {@link RoomObject#Orb} distance. The cells are sorted by their single
+     * {@link RoomObject#Orb} distance first so that the pairs that join at each distance can be
+     * found without looking at every pair. Once the largest distance that can be stored is
+     * reached, the search keeps going at that distance to clamp the pairs that are farther away.
+     */
+    private void findOrbPairDistances(int[] startCells)
+    {
+        final int[] cellDistanceStarts = new int[PatternDatabase.unsolvableByte + 2];
+        for (int cell = 0; cell < this.cellCount; ++cell)
+        {
+            ++cellDistanceStarts[(this.singleOrbDistances[cell] & 0xFF) + 1];
+        }
+        for (int distance = 0; distance <= PatternDatabase.unsolvableByte; ++distance)
+        {
+            cellDistanceStarts[distance + 1] += cellDistanceStarts[distance];
+        }
+        final int[] cellsByDistance = new int[this.cellCount];
+        final int[] cellDistanceEnds = java.util.Arrays.copyOf(cellDistanceStarts, cellDistanceStarts.length);
+        int maximumPartnerDistance = 0;
+        for (int cell = 0; cell < this.cellCount; ++cell)
+        {
+            final int distance = this.singleOrbDistances[cell] & 0xFF;
+            cellsByDistance[cellDistanceEnds[distance]++] = cell;
+            if (distance != PatternDatabase.unsolvableByte)
+            {
+                maximumPartnerDistance = Math.max(maximumPartnerDistance, distance);
+            }
+        }
+        final int lastJoinDistance = Math.min(maximumPartnerDistance + 1, PatternDatabase.maximumStoredDistance);
+
+        int[] frontier = new int[1024];
+        int frontierCount = 0;
+        int[] nextFrontier = new int[1024];
+        for (int distance = 1; frontierCount > 0 || distance < lastJoinDistance; distance = Math.min(distance + 1, PatternDatabase.maximumStoredDistance))
+        {
+            final int nextDistance = Math.min(distance + 1, PatternDatabase.maximumStoredDistance);
+            int nextFrontierCount = 0;
+
+            // Join the pairs whose partner's single Orb distance is one less than the next
+            // distance. At the largest stored distance, the partners that are farther away join
+            // too, but only once.
+            if (distance < nextDistance)
+            {
+                final int firstPartnerDistance = nextDistance - 1;
+                final int lastPartnerDistance = nextDistance == PatternDatabase.maximumStoredDistance ? nextDistance : firstPartnerDistance;
+                for (int i = cellDistanceStarts[firstPartnerDistance]; i < cellDistanceStarts[lastPartnerDistance + 1]; ++i)
+                {
+                    final int partnerCell = cellsByDistance[i];
+                    for (int goalIndex = 0; goalIndex < this.layout.getGoalCount(); ++goalIndex)
+                    {
+                        final int startCellCount = this.getRelaxedMoveStartCells(this.layout.getGoalCell(goalIndex), partnerCell, this.maxOrbCount > 2, startCells);
+                        for (int j = 0; j < startCellCount; ++j)
+                        {
+                            final int orbPairIndex = this.getOrbPairIndex(startCells[j], partnerCell);
+                            if ((this.orbPairDistances[orbPairIndex] & 0xFF) > nextDistance)
+                            {
+                                this.orbPairDistances[orbPairIndex] = (byte)nextDistance;
+                                if (nextFrontierCount == nextFrontier.length)
+                                {
+                                    nextFrontier = java.util.Arrays.copyOf(nextFrontier, nextFrontier.length * 2);
+                                }
+                                nextFrontier[nextFrontierCount++] = orbPairIndex;
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < frontierCount; ++i)
+            {
+                final int orbPairIndex = frontier[i];
+                final int largerCell = PatternDatabase.getLargerOrbPairCell(orbPairIndex);
+                final int smallerCell = orbPairIndex - (int)((long)largerCell * (largerCell - 1) / 2);
+                for (int movedOrb = 0; movedOrb < 2; ++movedOrb)
+                {
+                    final int endCell = movedOrb == 0 ? smallerCell : largerCell;
+                    final int partnerCell = movedOrb == 0 ? largerCell : smallerCell;
+                    final int startCellCount = this.getRelaxedMoveStartCells(endCell, partnerCell, this.maxOrbCount > 2, startCells);
+                    for (int j = 0; j < startCellCount; ++j)
+                    {
+                        final int startPairIndex = this.getOrbPairIndex(startCells[j], partnerCell);
+                        if ((this.orbPairDistances[startPairIndex] & 0xFF) > nextDistance)
+                        {
+                            this.orbPairDistances[startPairIndex] = (byte)nextDistance;
+                            if (nextFrontierCount == nextFrontier.length)
+                            {
+                                nextFrontier = java.util.Arrays.copyOf(nextFrontier, nextFrontier.length * 2);
+                            }
+                            nextFrontier[nextFrontierCount++] = startPairIndex;
+                        }
+                    }
+                }
+            }
+
+            final int[] oldFrontier = frontier;
+            frontier = nextFrontier;
+            frontierCount = nextFrontierCount;
+            nextFrontier = oldFrontier;
+        }
+    }
+
+    /**
+     * Get whether an {@link RoomObject#Orb} might slide through or rest in the provided cell.
+     */
+    private boolean isRelaxedOpenCell(int cell)
+    {
+        final RoomObject staticObject = this.layout.getStaticObject(cell);
+        return staticObject == null || staticObject == RoomObject.BreakableBlock;
+    }
+
+    /**
+     * Get whether something might be in the provided cell to stop a relaxed move.
+     */
+    private boolean canStopMove(int stopperCell, int partnerCell, boolean otherOrbsExist)
+    {
+        final RoomObject staticObject = this.layout.getStaticObject(stopperCell);
+        return staticObject == RoomObject.Block ||
+            staticObject == RoomObject.BreakableBlock ||
+            stopperCell == partnerCell ||
+            (staticObject == null && otherOrbsExist);
+    }
+
+    /**
+     * Find every cell that an {@link RoomObject#Orb} could start a relaxed move from if the move
+     * ends in the provided cell.
+     * @param endCell The cell that the move ends in. If it is a {@link RoomObject#Goal}, then the
+     *                {@link RoomObject#Orb} enters it.
+     * @param partnerCell The cell of the other {@link RoomObject#Orb} in the pattern, or -1 if the
+     *                    pattern is a single {@link RoomObject#Orb}.
+     * @param otherOrbsExist Whether there might be {@link RoomObject#Orb}s that aren't part of the
+     *                       pattern to stop the move.
+     * @param startCells The array to write the start cells to.
+     * @return The number of start cells that were written.
+     */
+    private int getRelaxedMoveStartCells(int endCell, int partnerCell, boolean otherOrbsExist, int[] startCells)
+    {
+        final boolean endsInGoal = this.layout.getStaticObject(endCell) == RoomObject.Goal;
+
+        int result = 0;
+        for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+        {
+            if (!endsInGoal)
+            {
+                final int stopperCell = this.layout.getNeighborCell(endCell, direction);
+                if (stopperCell == -1 || !this.canStopMove(stopperCell, partnerCell, otherOrbsExist))
+                {
+                    continue;
+                }
+            }
+
+            final int oppositeDirection = RoomLayout.getOppositeDirection(direction);
+            int startCell = this.layout.getNeighborCell(endCell, oppositeDirection);
+            while (startCell != -1 && startCell != partnerCell && this.isRelaxedOpenCell(startCell))
+            {
+                final int pusherCell = this.layout.getNeighborCell(startCell, oppositeDirection);
+                if (pusherCell == -1 || (pusherCell != partnerCell && this.layout.getStaticObject(pusherCell) != RoomObject.Block))
+                {
+                    startCells[result++] = startCell;
+                }
+                startCell = pusherCell;
+            }
+        }
+        return result;
+    }
+}
@@ -5,11 +5,28 @@ package qub;
  */
 public class Room
 {
-    private final MutableMap<Point2Integer,RoomObject> locationToRoomObjectMap;
+    private final RoomObjectMap roomObjects;
+    /**
+     * The locations of each type of {@link RoomObject}, indexed by the {@link RoomObject}'s
+     * ordinal.
+     */
+    private final RoomObjectMap[] roomObjectLocations;
+    /**
+     * The number of times that a {@link RoomObject} has been added to or removed from this
+     * {@link Room}. The cached values below are only valid for the version they were computed at.
+     */
+    private long version;
+    private int hashCode;
+    private long hashCodeVersion;
+    private long[] sortedLocations;
+    private long sortedLocationsVersion;
 
-    private Room()
+    private Room(RoomObjectMap roomObjects, RoomObjectMap[] roomObjectLocations)
     {
-        this.locationToRoomObjectMap = Map.create();
+        this.roomObjects = roomObjects;
+        this.roomObjectLocations = roomObjectLocations;
+        this.hashCodeVersion = -1;
+        this.sortedLocationsVersion = -1;
     }
 
     /**
@@ -17,7 +34,32 @@ public class Room
      */
     public static Room create()
     {
-        return new Room();
+        return Room.create(RoomObjectMap.create());
+    }
+
+    /**
+     * Create a new {@link Room} that takes ownership of the provided {@link RoomObjectMap}. The
+     * map's locations must not be changed outside of the new {@link Room}.
+     * @param roomObjects The {@link RoomObject}s of the new {@link Room}.
+     */
+    static Room create(RoomObjectMap roomObjects)
+    {
+        PreCondition.assertNotNull(roomObjects, "roomObjects");
+
+        final RoomObjectMap[] roomObjectLocations = new RoomObjectMap[RoomObject.values().length];
+        for (int i = 0; i < roomObjectLocations.length; ++i)
+        {
+            roomObjectLocations[i] = RoomObjectMap.create();
+        }
+        for (int slot = 0; slot < roomObjects.getSlotCount(); ++slot)
+        {
+            final RoomObject roomObject = roomObjects.getSlotRoomObject(slot);
+            if (roomObject != null)
+            {
+                roomObjectLocations[roomObject.ordinal()].set(roomObjects.getSlotX(slot), roomObjects.getSlotY(slot), roomObject);
+            }
+        }
+        return new Room(roomObjects, roomObjectLocations);
     }
 
     /**
@@ -25,17 +67,18 @@ public class Room
      */
     public int getRoomObjectCount()
     {
-        return this.locationToRoomObjectMap.getCount();
+        return this.roomObjects.getCount();
     }
 
     /**
      * Get the number of the provided {@link RoomObject} that exist in this {@link Room}.
+     * @param roomObject The {@link RoomObject} to count.
      */
     public int getRoomObjectCount(RoomObject roomObject)
     {
-        return this.locationToRoomObjectMap.iterateValues()
-            .where((RoomObject existingObject) -> existingObject == roomObject)
-            .getCount();
+        PreCondition.assertNotNull(roomObject, "roomObject");
+
+        return this.roomObjectLocations[roomObject.ordinal()].getCount();
     }
 
     /**
@@ -46,7 +89,33 @@ public class Room
     {
         PreCondition.assertNotNull(location, "location");
 
-        return this.locationToRoomObjectMap.get(location);
+        final RoomObject roomObject = this.getRoomObjectOrNull(location.getXAsInt(), location.getYAsInt());
+        return roomObject != null
+            ? Result.success(roomObject)
+            : Result.error(new NotFoundException("Could not find the provided key (" + location + ") in this Map."));
+    }
+
+    /**
+     * Get the {@link RoomObject} at the provided location, or null if the location is empty. This
+     * doesn't allocate or throw when the location is empty.
+     * @param location The {@link Point2Integer} location to look up.
+     */
+    public RoomObject getRoomObjectOrNull(Point2Integer location)
+    {
+        PreCondition.assertNotNull(location, "location");
+
+        return this.getRoomObjectOrNull(location.getXAsInt(), location.getYAsInt());
+    }
+
+    /**
+     * Get the {@link RoomObject} at the provided location, or null if the location is empty. This
+     * doesn't allocate or throw when the location is empty.
+     * @param x The x-coordinate of the location to look up.
+     * @param y The y-coordinate of the location to look up.
+     */
+    public RoomObject getRoomObjectOrNull(int x, int y)
+    {
+        return this.roomObjects.get(x, y);
     }
 
     /**
@@ -55,10 +124,19 @@ public class Room
      */
     public boolean isLocationOccupied(Point2Integer location)
     {
-        return this.getRoomObject(location)
-            .then(() -> true)
-            .catchError(NotFoundException.class, () -> false)
-            .await();
+        PreCondition.assertNotNull(location, "location");
+
+        return this.isLocationOccupied(location.getXAsInt(), location.getYAsInt());
+    }
+
+    /**
+     * Get whether a {@link RoomObject} exists at the provided location.
+     * @param x The x-coordinate of the location to look at.
+     * @param y The y-coordinate of the location to look at.
+     */
+    public boolean isLocationOccupied(int x, int y)
+    {
+        return this.roomObjects.contains(x, y);
     }
 
     /**
@@ -69,9 +147,52 @@ public class Room
     {
         PreCondition.assertNotNull(roomObject, "roomObject");
 
-        return this.locationToRoomObjectMap.iterate()
-            .where((MapEntry<Point2Integer,RoomObject> entry) -> entry.getValue() == roomObject)
-            .map(MapEntry::getKey);
+        final RoomObjectMap locations = this.roomObjectLocations[roomObject.ordinal()];
+        final List<Point2Integer> result = List.create();
+        for (int slot = 0; slot < locations.getSlotCount(); ++slot)
+        {
+            if (locations.getSlotRoomObject(slot) != null)
+            {
+                result.add(Point2Integer.create(locations.getSlotX(slot), locations.getSlotY(slot)));
+            }
+        }
+        return result.iterate();
+    }
+
+    /**
+     * Get an {@link Iterator} that returns the locations of every {@link RoomObject} in this
+     * {@link Room}, sorted by y and then by x. The sorted order is cached until this {@link Room}
+     * changes.
+     */
+    public Iterator<Point2Integer> iterateSortedRoomObjectLocations()
+    {
+        final long[] sortedLocations = this.getSortedLocations();
+        final List<Point2Integer> result = List.create();
+        for (final long location : sortedLocations)
+        {
+            result.add(Point2Integer.create(RoomObjectMap.getPackedX(location), RoomObjectMap.getPackedY(location)));
+        }
+        return result.iterate();
+    }
+
+    /**
+     * Get the number of times that a {@link RoomObject} has been added to or removed from this
+     * {@link Room}. Values that are computed from this {@link Room} stay valid as long as its
+     * version doesn't change.
+     */
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    private long[] getSortedLocations()
+    {
+        if (this.sortedLocationsVersion != this.version)
+        {
+            this.sortedLocations = this.roomObjects.getSortedLocations();
+            this.sortedLocationsVersion = this.version;
+        }
+        return this.sortedLocations;
     }
 
     /**
@@ -86,7 +207,9 @@ public class Room
         PreCondition.assertNotNull(location, "location");
         PreCondition.assertFalse(this.isLocationOccupied(location), "this.isLocationOccupied(location)");
 
-        this.locationToRoomObjectMap.set(location, roomObject);
+        this.roomObjects.set(location.getXAsInt(), location.getYAsInt(), roomObject);
+        this.roomObjectLocations[roomObject.ordinal()].set(location.getXAsInt(), location.getYAsInt(), roomObject);
+        ++this.version;
 
         return this;
     }
@@ -101,7 +224,9 @@ public class Room
         PreCondition.assertNotNull(location, "location");
         PreCondition.assertTrue(this.isLocationOccupied(location), "this.isLocationOccupied(location)");
 
-        this.locationToRoomObjectMap.remove(location).await();
+        final RoomObject roomObject = this.roomObjects.remove(location.getXAsInt(), location.getYAsInt());
+        this.roomObjectLocations[roomObject.ordinal()].remove(location.getXAsInt(), location.getYAsInt());
+        ++this.version;
 
         return this;
     }
@@ -113,12 +238,17 @@ public class Room
     {
         final List<Move> result = List.create();
 
-        for (final Point2Integer orbLocation : this.iterateRoomObjectLocations(RoomObject.Orb))
+        final RoomObjectMap orbLocations = this.roomObjectLocations[RoomObject.Orb.ordinal()];
+        for (int slot = 0; slot < orbLocations.getSlotCount(); ++slot)
         {
-            this.addUpMove(orbLocation, result::add);
-            this.addRightMove(orbLocation, result::add);
-            this.addDownMove(orbLocation, result::add);
-            this.addLeftMove(orbLocation, result::add);
+            if (orbLocations.getSlotRoomObject(slot) != null)
+            {
+                final Point2Integer orbLocation = Point2Integer.create(orbLocations.getSlotX(slot), orbLocations.getSlotY(slot));
+                this.addUpMove(orbLocation, result::add);
+                this.addRightMove(orbLocation, result::add);
+                this.addDownMove(orbLocation, result::add);
+                this.addLeftMove(orbLocation, result::add);
+            }
         }
 
         PostCondition.assertNotNull(result, "result");
@@ -131,35 +261,32 @@ public class Room
         PreCondition.assertNotNull(orbLocation, "orbLocation");
         PreCondition.assertNotNull(addMove, "addMove");
 
-        MapEntry<Point2Integer,RoomObject> roomObjectResult = null;
+        int roomObjectResultSlot = -1;
 
         final int orbLocationX = orbLocation.getXAsInt();
         final int orbLocationY = orbLocation.getYAsInt();
-        final RoomObject blockingRoomObject = this.getRoomObject(Point2Integer.create(orbLocationX, orbLocationY + 1))
-            .catchError()
-            .await();
+        final RoomObject blockingRoomObject = this.getRoomObjectOrNull(orbLocationX, orbLocationY + 1);
         if (blockingRoomObject == null || blockingRoomObject == RoomObject.Goal)
         {
-            for (final MapEntry<Point2Integer, RoomObject> roomObjectEntry : this.locationToRoomObjectMap)
+            for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
             {
-                final Point2Integer roomObjectLocation = roomObjectEntry.getKey();
-                final int roomObjectX = roomObjectLocation.getXAsInt();
-                if (orbLocationX == roomObjectX)
+                if (this.roomObjects.getSlotRoomObject(slot) != null && orbLocationX == this.roomObjects.getSlotX(slot))
                 {
-                    final int roomObjectY = roomObjectLocation.getYAsInt();
+                    final int roomObjectY = this.roomObjects.getSlotY(slot);
                     if (roomObjectY < orbLocationY &&
-                        (roomObjectResult == null || roomObjectResult.getKey().getYAsInt() < roomObjectY))
+                        (roomObjectResultSlot == -1 || this.roomObjects.getSlotY(roomObjectResultSlot) < roomObjectY))
                     {
-                        roomObjectResult = roomObjectEntry;
+                        roomObjectResultSlot = slot;
                     }
                 }
             }
 
             Move move = null;
-            if (roomObjectResult != null)
+            if (roomObjectResultSlot != -1)
             {
-                final Point2Integer roomObjectResultLocation = roomObjectResult.getKey();
-                if (roomObjectResult.getValue() == RoomObject.Goal)
+                final RoomObject roomObjectResult = this.roomObjects.getSlotRoomObject(roomObjectResultSlot);
+                final Point2Integer roomObjectResultLocation = Point2Integer.create(this.roomObjects.getSlotX(roomObjectResultSlot), this.roomObjects.getSlotY(roomObjectResultSlot));
+                if (roomObjectResult == RoomObject.Goal)
                 {
                     move = Move.create()
                         .setStartLocation(orbLocation)
@@ -175,7 +302,7 @@ public class Room
                         move = Move.create()
                             .setStartLocation(orbLocation)
                             .setEndLocation(endLocation);
-                        if (roomObjectResult.getValue() == RoomObject.BreakableBlock)
+                        if (roomObjectResult == RoomObject.BreakableBlock)
                         {
                             move.setBlockBroken(true);
                         }
@@ -195,35 +322,32 @@ public class Room
         PreCondition.assertNotNull(orbLocation, "orbLocation");
         PreCondition.assertNotNull(addMove, "addMove");
 
-        MapEntry<Point2Integer,RoomObject> roomObjectResult = null;
+        int roomObjectResultSlot = -1;
 
         final int orbLocationX = orbLocation.getXAsInt();
         final int orbLocationY = orbLocation.getYAsInt();
-        final RoomObject blockingRoomObject = this.getRoomObject(Point2Integer.create(orbLocationX, orbLocationY - 1))
-            .catchError()
-            .await();
+        final RoomObject blockingRoomObject = this.getRoomObjectOrNull(orbLocationX, orbLocationY - 1);
         if (blockingRoomObject == null || blockingRoomObject == RoomObject.Goal)
         {
-            for (final MapEntry<Point2Integer, RoomObject> roomObjectEntry : this.locationToRoomObjectMap)
+            for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
             {
-                final Point2Integer roomObjectLocation = roomObjectEntry.getKey();
-                final int roomObjectX = roomObjectLocation.getXAsInt();
-                if (orbLocationX == roomObjectX)
+                if (this.roomObjects.getSlotRoomObject(slot) != null && orbLocationX == this.roomObjects.getSlotX(slot))
                 {
-                    final int roomObjectY = roomObjectLocation.getYAsInt();
+                    final int roomObjectY = this.roomObjects.getSlotY(slot);
                     if (roomObjectY > orbLocationY &&
-                        (roomObjectResult == null || roomObjectResult.getKey().getYAsInt() > roomObjectY))
+                        (roomObjectResultSlot == -1 || this.roomObjects.getSlotY(roomObjectResultSlot) > roomObjectY))
                     {
-                        roomObjectResult = roomObjectEntry;
+                        roomObjectResultSlot = slot;
                     }
                 }
             }
 
             Move move = null;
-            if (roomObjectResult != null)
+            if (roomObjectResultSlot != -1)
             {
-                final Point2Integer roomObjectResultLocation = roomObjectResult.getKey();
-                if (roomObjectResult.getValue() == RoomObject.Goal)
+                final RoomObject roomObjectResult = this.roomObjects.getSlotRoomObject(roomObjectResultSlot);
+                final Point2Integer roomObjectResultLocation = Point2Integer.create(this.roomObjects.getSlotX(roomObjectResultSlot), this.roomObjects.getSlotY(roomObjectResultSlot));
+                if (roomObjectResult == RoomObject.Goal)
                 {
                     move = Move.create()
                         .setStartLocation(orbLocation)
@@ -239,7 +363,7 @@ public class Room
                         move = Move.create()
                             .setStartLocation(orbLocation)
                             .setEndLocation(endLocation);
-                        if (roomObjectResult.getValue() == RoomObject.BreakableBlock)
+                        if (roomObjectResult == RoomObject.BreakableBlock)
                         {
                             move.setBlockBroken(true);
                         }
@@ -259,35 +383,32 @@ public class Room
         PreCondition.assertNotNull(orbLocation, "orbLocation");
         PreCondition.assertNotNull(addMove, "addMove");
 
-        MapEntry<Point2Integer,RoomObject> roomObjectResult = null;
+        int roomObjectResultSlot = -1;
 
         final int orbLocationX = orbLocation.getXAsInt();
         final int orbLocationY = orbLocation.getYAsInt();
-        final RoomObject blockingRoomObject = this.getRoomObject(Point2Integer.create(orbLocationX + 1, orbLocationY))
-            .catchError()
-            .await();
+        final RoomObject blockingRoomObject = this.getRoomObjectOrNull(orbLocationX + 1, orbLocationY);
         if (blockingRoomObject == null || blockingRoomObject == RoomObject.Goal)
         {
-            for (final MapEntry<Point2Integer, RoomObject> roomObjectEntry : this.locationToRoomObjectMap)
+            for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
             {
-                final Point2Integer roomObjectLocation = roomObjectEntry.getKey();
-                final int roomObjectY = roomObjectLocation.getYAsInt();
-                if (orbLocationY == roomObjectY)
+                if (this.roomObjects.getSlotRoomObject(slot) != null && orbLocationY == this.roomObjects.getSlotY(slot))
                 {
-                    final int roomObjectX = roomObjectLocation.getXAsInt();
+                    final int roomObjectX = this.roomObjects.getSlotX(slot);
                     if (roomObjectX < orbLocationX &&
-                        (roomObjectResult == null || roomObjectResult.getKey().getXAsInt() < roomObjectX))
+                        (roomObjectResultSlot == -1 || this.roomObjects.getSlotX(roomObjectResultSlot) < roomObjectX))
                     {
-                        roomObjectResult = roomObjectEntry;
+                        roomObjectResultSlot = slot;
                     }
                 }
             }
 
             Move move = null;
-            if (roomObjectResult != null)
+            if (roomObjectResultSlot != -1)
             {
-                final Point2Integer roomObjectResultLocation = roomObjectResult.getKey();
-                if (roomObjectResult.getValue() == RoomObject.Goal)
+                final RoomObject roomObjectResult = this.roomObjects.getSlotRoomObject(roomObjectResultSlot);
+                final Point2Integer roomObjectResultLocation = Point2Integer.create(this.roomObjects.getSlotX(roomObjectResultSlot), this.roomObjects.getSlotY(roomObjectResultSlot));
+                if (roomObjectResult == RoomObject.Goal)
                 {
                     move = Move.create()
                         .setStartLocation(orbLocation)
@@ -303,7 +424,7 @@ public class Room
                         move = Move.create()
                             .setStartLocation(orbLocation)
                             .setEndLocation(endLocation);
-                        if (roomObjectResult.getValue() == RoomObject.BreakableBlock)
+                        if (roomObjectResult == RoomObject.BreakableBlock)
                         {
                             move.setBlockBroken(true);
                         }
@@ -323,35 +444,32 @@ public class Room
         PreCondition.assertNotNull(orbLocation, "orbLocation");
         PreCondition.assertNotNull(addMove, "addMove");
 
-        MapEntry<Point2Integer,RoomObject> roomObjectResult = null;
+        int roomObjectResultSlot = -1;
 
         final int orbLocationX = orbLocation.getXAsInt();
         final int orbLocationY = orbLocation.getYAsInt();
-        final RoomObject blockingRoomObject = this.getRoomObject(Point2Integer.create(orbLocationX - 1, orbLocationY))
-            .catchError()
-            .await();
+        final RoomObject blockingRoomObject = this.getRoomObjectOrNull(orbLocationX - 1, orbLocationY);
         if (blockingRoomObject == null || blockingRoomObject == RoomObject.Goal)
         {
-            for (final MapEntry<Point2Integer, RoomObject> roomObjectEntry : this.locationToRoomObjectMap)
+            for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
             {
-                final Point2Integer roomObjectLocation = roomObjectEntry.getKey();
-                final int roomObjectY = roomObjectLocation.getYAsInt();
-                if (orbLocationY == roomObjectY)
+                if (this.roomObjects.getSlotRoomObject(slot) != null && orbLocationY == this.roomObjects.getSlotY(slot))
                 {
-                    final int roomObjectX = roomObjectLocation.getXAsInt();
+                    final int roomObjectX = this.roomObjects.getSlotX(slot);
                     if (roomObjectX > orbLocationX &&
-                        (roomObjectResult == null || roomObjectResult.getKey().getXAsInt() > roomObjectX))
+                        (roomObjectResultSlot == -1 || this.roomObjects.getSlotX(roomObjectResultSlot) > roomObjectX))
                     {
-                        roomObjectResult = roomObjectEntry;
+                        roomObjectResultSlot = slot;
                     }
                 }
             }
 
             Move move = null;
-            if (roomObjectResult != null)
+            if (roomObjectResultSlot != -1)
             {
-                final Point2Integer roomObjectResultLocation = roomObjectResult.getKey();
-                if (roomObjectResult.getValue() == RoomObject.Goal)
+                final RoomObject roomObjectResult = this.roomObjects.getSlotRoomObject(roomObjectResultSlot);
+                final Point2Integer roomObjectResultLocation = Point2Integer.create(this.roomObjects.getSlotX(roomObjectResultSlot), this.roomObjects.getSlotY(roomObjectResultSlot));
+                if (roomObjectResult == RoomObject.Goal)
                 {
                     move = Move.create()
                         .setStartLocation(orbLocation)
@@ -367,7 +485,7 @@ public class Room
                         move = Move.create()
                             .setStartLocation(orbLocation)
                             .setEndLocation(endLocation);
-                        if (roomObjectResult.getValue() == RoomObject.BreakableBlock)
+                        if (roomObjectResult == RoomObject.BreakableBlock)
                         {
                             move.setBlockBroken(true);
                         }
@@ -385,8 +503,8 @@ public class Room
     public void applyMove(Move move)
     {
         PreCondition.assertNotNull(move, "move");
-        PreCondition.assertEqual(RoomObject.Orb, this.getRoomObject(move.getStartLocation()).catchError().await(), "this.getRoomObject(move.getStartLocation()).catchError().await()");
-        PreCondition.assertTrue(!move.getBlockBroken() || this.getRoomObject(move.getBrokenBlockLocation()).await() == RoomObject.BreakableBlock, "!move.getBlockBroken() || this.getRoomObject(move.getBrokenBlockLocation()).await() == RoomObject.BreakableBlock");
+        PreCondition.assertEqual(RoomObject.Orb, this.getRoomObjectOrNull(move.getStartLocation()), "this.getRoomObjectOrNull(move.getStartLocation())");
+        PreCondition.assertTrue(!move.getBlockBroken() || this.getRoomObjectOrNull(move.getBrokenBlockLocation()) == RoomObject.BreakableBlock, "!move.getBlockBroken() || this.getRoomObjectOrNull(move.getBrokenBlockLocation()) == RoomObject.BreakableBlock");
 
         this.removeRoomObject(move.getStartLocation());
 
@@ -419,7 +537,31 @@ public class Room
         this.addRoomObject(RoomObject.Orb, move.getStartLocation());
     }
 
+    /**
+     * Find the shortest solution for this {@link Room}. If the {@link RoomObject#Orb}s split into
+     * {@link IndependentOrbGroups}, then each group is solved on its own and the solutions are
+     * joined together. {@link Room}s with one {@link RoomObject#Orb} or with more than
+     * {@link IndependentOrbGroups#maximumCellCount} layout cells aren't split.
+     */
     public Result<Iterable<Move>> findSolution()
+    {
+        Result<Iterable<Move>> result = null;
+        if (this.getRoomObjectCount(RoomObject.Orb) > 1 && RoomLayout.getCellCount(this) <= IndependentOrbGroups.maximumCellCount)
+        {
+            final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(this);
+            if (orbGroups.getGroupCount() > 1)
+            {
+                result = orbGroups.findSolution();
+            }
+        }
+        if (result == null)
+        {
+            result = this.searchForSolution();
+        }
+        return result;
+    }
+
+    private Result<Iterable<Move>> searchForSolution()
     {
         return Result.create(() ->
         {
@@ -467,74 +609,87 @@ public class Room
         });
     }
 
-    private Iterable<MapEntry<Point2Integer,RoomObject>> getSortedEntries()
+    /**
+     * Find the shortest solution for this {@link Room}. If the provided {@link EndgameTablebase}
+     * covers this {@link Room}, then the solution is looked up in the table instead of searched
+     * for.
+     * @param tablebase The {@link EndgameTablebase} to look the solution up in.
+     */
+    public Result<Iterable<Move>> findSolution(EndgameTablebase tablebase)
     {
-        final List<MapEntry<Point2Integer,RoomObject>> result = this.locationToRoomObjectMap.toList();
-        result.sort((MapEntry<Point2Integer,RoomObject> lhs, MapEntry<Point2Integer,RoomObject> rhs) ->
-        {
-            final Point2Integer lhsLocation = lhs.getKey();
-            final Point2Integer rhsLocation = rhs.getKey();
-            return lhsLocation.getYAsInt() < rhsLocation.getYAsInt() ||
-                (lhsLocation.getYAsInt() == rhsLocation.getYAsInt() && lhsLocation.getXAsInt() < rhsLocation.getXAsInt());
-        });
+        PreCondition.assertNotNull(tablebase, "tablebase");
 
-        PostCondition.assertNotNull(result, "result");
-
-        return result;
+        return tablebase.covers(this)
+            ? tablebase.findSolution(this)
+            : this.findSolution();
     }
 
-    @Override
-    public String toString()
+    /**
+     * Render this {@link Room} into a {@link RoomCharacterGrid}. The grid spans from (0, 0), or
+     * from the smallest coordinates if they are negative, to the largest coordinates in this
+     * {@link Room}.
+     */
+    public RoomCharacterGrid toCharacterGrid()
     {
-        final Iterable<MapEntry<Point2Integer,RoomObject>> sortedEntries = this.getSortedEntries();
-
-        final CharacterTable table = CharacterTable.create();
-        final List<String> currentRow = List.create();
-        for (final MapEntry<Point2Integer,RoomObject> entry : sortedEntries)
+        int minimumX = 0;
+        int minimumY = 0;
+        int maximumX = -1;
+        int maximumY = 0;
+        for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
         {
-            final Point2Integer entryLocation = entry.getKey();
-
-            final int entryY = entryLocation.getYAsInt();
-            while (table.getRows().getCount() < entryY)
+            if (this.roomObjects.getSlotRoomObject(slot) != null)
             {
-                table.addRow(currentRow);
-                currentRow.clear();
+                minimumX = Math.min(minimumX, this.roomObjects.getSlotX(slot));
+                minimumY = Math.min(minimumY, this.roomObjects.getSlotY(slot));
+                maximumX = Math.max(maximumX, this.roomObjects.getSlotX(slot));
+                maximumY = Math.max(maximumY, this.roomObjects.getSlotY(slot));
             }
+        }
 
-            final int entryX = entryLocation.getXAsInt();
-            while (currentRow.getCount() < entryX)
+        final RoomCharacterGrid result = RoomCharacterGrid.create(minimumX, minimumY, maximumX - minimumX + 1, maximumY - minimumY + 1);
+        for (int slot = 0; slot < this.roomObjects.getSlotCount(); ++slot)
+        {
+            final RoomObject roomObject = this.roomObjects.getSlotRoomObject(slot);
+            if (roomObject != null)
             {
-                currentRow.add(" ");
+                result.set(this.roomObjects.getSlotX(slot), this.roomObjects.getSlotY(slot), RoomCharacterGrid.getCharacter(roomObject));
             }
+        }
 
-            switch (entry.getValue())
-            {
-                case Orb:
-                    currentRow.add("o");
-                    break;
+        PostCondition.assertNotNull(result, "result");
 
-                case Goal:
-                    currentRow.add("G");
-                    break;
+        return result;
+    }
 
-                case Block:
-                    currentRow.add("B");
-                    break;
+    /**
+     * Append the text representation of this {@link Room} to the provided {@link StringBuilder}.
+     * @param builder The {@link StringBuilder} to append to.
+     * @return This object for method chaining.
+     */
+    public Room toString(StringBuilder builder)
+    {
+        PreCondition.assertNotNull(builder, "builder");
 
-                case BreakableBlock:
-                    currentRow.add("X");
-                    break;
-            }
-        }
+        this.toCharacterGrid().toString(builder);
+
+        return this;
+    }
+
+    /**
+     * Write the text representation of this {@link Room} to the provided {@link java.io.Writer}.
+     * @param writer The {@link java.io.Writer} to write to.
+     */
+    public Result<Void> toString(java.io.Writer writer)
+    {
+        PreCondition.assertNotNull(writer, "writer");
 
-        table.addRow(currentRow);
+        return this.toCharacterGrid().toString(writer);
+    }
 
-        final String result = table.toString(CharacterTableFormat.create()
-            .setLeftBorder('|')
-            .setRightBorder('|')
-            .setTopBorder('-')
-            .setBottomBorder('-')
-            .setNewLine('\n'));
+    @Override
+    public String toString()
+    {
+        final String result = this.toCharacterGrid().toString();
 
         PostCondition.assertNotNullAndNotEmpty(result, "result");
 
@@ -550,23 +705,34 @@ public class Room
     public boolean equals(Room rhs)
     {
         return rhs != null &&
-            this.locationToRoomObjectMap.equals(rhs.locationToRoomObjectMap);
+            (this == rhs || (this.hashCode() == rhs.hashCode() && this.roomObjects.equals(rhs.roomObjects)));
     }
 
     @Override
     public int hashCode()
     {
-        return Hash.getHashCode(this.getSortedEntries());
+        if (this.hashCodeVersion != this.version)
+        {
+            this.hashCode = this.roomObjects.hashCode();
+            this.hashCodeVersion = this.version;
+        }
+        return this.hashCode;
     }
 
     @Override
     public Room clone()
     {
-        final Room result = Room.create();
-        for (final MapEntry<Point2Integer,RoomObject> entry : this.locationToRoomObjectMap)
+        final RoomObjectMap[] roomObjectLocations = new RoomObjectMap[this.roomObjectLocations.length];
+        for (int i = 0; i < roomObjectLocations.length; ++i)
         {
-            result.addRoomObject(entry.getValue(), entry.getKey());
+            roomObjectLocations[i] = this.roomObjectLocations[i].clone();
         }
+        final Room result = new Room(this.roomObjects.clone(), roomObjectLocations);
+        result.version = this.version;
+        result.hashCode = this.hashCode;
+        result.hashCodeVersion = this.hashCodeVersion;
+        result.sortedLocations = this.sortedLocations;
+        result.sortedLocationsVersion = this.sortedLocationsVersion;
 
         PostCondition.assertNotNull(result, "result");
 
@@ -0,0 +1,255 @@
+package qub;
+
+/**
+ * A builder that collects many {@link RoomObject}s and creates a {@link Room} from them at once.
+ * Unlike {@link Room#addRoomObject(RoomObject, Point2Integer)}, adding a {@link RoomObject} here
+ * doesn't check whether its location is already occupied. Instead, every location is checked in
+ * a single pass when the {@link Room} is built.
+ */
+public class RoomBuilder
+{
+    private static final int minimumCapacity = 16;
+    /**
+     * The largest number of bits per {@link RoomObject} that the occupied locations bitset can
+     * use before the locations are sorted instead.
+     */
+    private static final long maximumBitsPerRoomObject = 64;
+
+    private long[] locations;
+    private byte[] roomObjectOrdinals;
+    private int count;
+
+    private RoomBuilder()
+    {
+        this.locations = new long[RoomBuilder.minimumCapacity];
+        this.roomObjectOrdinals = new byte[RoomBuilder.minimumCapacity];
+    }
+
+    /**
+     * Create a new empty {@link RoomBuilder}.
+     */
+    public static RoomBuilder create()
+    {
+        return new RoomBuilder();
+    }
+
+    /**
+     * Get the number of {@link RoomObject}s that have been added to this builder.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Add the provided {@link RoomObject} at the provided location.
+     * @param roomObject The {@link RoomObject} to add.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder add(RoomObject roomObject, int x, int y)
+    {
+        PreCondition.assertNotNull(roomObject, "roomObject");
+
+        this.ensureCapacity(this.count + 1);
+        this.locations[this.count] = RoomObjectMap.packLocation(x, y);
+        this.roomObjectOrdinals[this.count] = (byte)roomObject.ordinal();
+        ++this.count;
+
+        return this;
+    }
+
+    /**
+     * Add the provided {@link RoomObject} at the provided location.
+     * @param roomObject The {@link RoomObject} to add.
+     * @param location The location to add the {@link RoomObject} at.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder add(RoomObject roomObject, Point2Integer location)
+    {
+        PreCondition.assertNotNull(roomObject, "roomObject");
+        PreCondition.assertNotNull(location, "location");
+
+        return this.add(roomObject, location.getXAsInt(), location.getYAsInt());
+    }
+
+    /**
+     * Add the provided {@link RoomObject} at each of the provided locations.
+     * @param roomObject The {@link RoomObject} to add.
+     * @param xs The x-coordinates of the locations.
+     * @param ys The y-coordinates of the locations.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder add(RoomObject roomObject, int[] xs, int[] ys)
+    {
+        PreCondition.assertNotNull(roomObject, "roomObject");
+        PreCondition.assertNotNull(xs, "xs");
+        PreCondition.assertNotNull(ys, "ys");
+        PreCondition.assertEqual(xs.length, ys.length, "ys.length");
+
+        this.ensureCapacity(this.count + xs.length);
+        for (int i = 0; i < xs.length; ++i)
+        {
+            this.add(roomObject, xs[i], ys[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the provided {@link RoomObject} at every location in the provided rectangle, such as a
+     * region of {@link RoomObject#Goal}s.
+     * @param roomObject The {@link RoomObject} to add.
+     * @param left The x-coordinate of the left-most column of the rectangle.
+     * @param top The y-coordinate of the top-most row of the rectangle.
+     * @param width The number of columns in the rectangle.
+     * @param height The number of rows in the rectangle.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder addRectangle(RoomObject roomObject, int left, int top, int width, int height)
+    {
+        PreCondition.assertNotNull(roomObject, "roomObject");
+        PreCondition.assertGreaterThanOrEqualTo(width, 0, "width");
+        PreCondition.assertGreaterThanOrEqualTo(height, 0, "height");
+
+        this.ensureCapacity((int)Math.min(Integer.MAX_VALUE, this.count + (long)width * height));
+        for (int y = top; y < top + height; ++y)
+        {
+            for (int x = left; x < left + width; ++x)
+            {
+                this.add(roomObject, x, y);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the {@link RoomObject}s in the provided row of rendered characters, where each character
+     * is one location and spaces are empty locations.
+     * @param left The x-coordinate of the row's first character.
+     * @param y The y-coordinate of the row.
+     * @param row The rendered characters of the row.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder addRow(int left, int y, String row)
+    {
+        PreCondition.assertNotNull(row, "row");
+
+        for (int i = 0; i < row.length(); ++i)
+        {
+            final RoomObject roomObject = RoomCharacterGrid.getRoomObject(row.charAt(i));
+            if (roomObject != null)
+            {
+                this.add(roomObject, left + i, y);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the {@link RoomObject}s in the provided rows of rendered characters. The first row's
+     * first character is at (0, 0).
+     * @param rows The rendered characters of each row.
+     * @return This object for method chaining.
+     */
+    public RoomBuilder addRows(String... rows)
+    {
+        PreCondition.assertNotNull(rows, "rows");
+
+        for (int y = 0; y < rows.length; ++y)
+        {
+            this.addRow(0, y, rows[y]);
+        }
+
+        return this;
+    }
+
+    /**
+     * Get whether more than one {@link RoomObject} has been added at the same location. The
+     * occupied locations are marked in a bitset that covers the added locations, unless that
+     * bitset would be much larger than the number of added {@link RoomObject}s, in which case the
+     * locations are sorted instead.
+     */
+    public boolean hasOverlappingLocations()
+    {
+        boolean result = false;
+        if (this.count > 1)
+        {
+            int minimumX = Integer.MAX_VALUE;
+            int minimumY = Integer.MAX_VALUE;
+            int maximumX = Integer.MIN_VALUE;
+            int maximumY = Integer.MIN_VALUE;
+            for (int i = 0; i < this.count; ++i)
+            {
+                final int x = RoomObjectMap.getPackedX(this.locations[i]);
+                final int y = RoomObjectMap.getPackedY(this.locations[i]);
+                minimumX = Math.min(minimumX, x);
+                minimumY = Math.min(minimumY, y);
+                maximumX = Math.max(maximumX, x);
+                maximumY = Math.max(maximumY, y);
+            }
+
+            final long width = (long)maximumX - minimumX + 1;
+            final long height = (long)maximumY - minimumY + 1;
+            final long maximumArea = this.count * RoomBuilder.maximumBitsPerRoomObject;
+            if (height <= maximumArea / width)
+            {
+                final long[] occupiedLocations = new long[(int)((width * height + Long.SIZE - 1) / Long.SIZE)];
+                for (int i = 0; i < this.count && !result; ++i)
+                {
+                    final long bit = (RoomObjectMap.getPackedY(this.locations[i]) - (long)minimumY) * width +
+                        (RoomObjectMap.getPackedX(this.locations[i]) - (long)minimumX);
+                    final int wordIndex = (int)(bit / Long.SIZE);
+                    final long mask = 1L << (bit % Long.SIZE);
+                    result = (occupiedLocations[wordIndex] & mask) != 0;
+                    occupiedLocations[wordIndex] |= mask;
+                }
+            }
+            else
+            {
+                final long[] sortedLocations = java.util.Arrays.copyOf(this.locations, this.count);
+                java.util.Arrays.sort(sortedLocations);
+                for (int i = 1; i < sortedLocations.length && !result; ++i)
+                {
+                    result = sortedLocations[i - 1] == sortedLocations[i];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a new {@link Room} that contains the {@link RoomObject}s that have been added to this
+     * builder, in the order that they were added. The {@link Room}'s storage is sized for its
+     * {@link RoomObject}s up front.
+     */
+    public Room build()
+    {
+        PreCondition.assertFalse(this.hasOverlappingLocations(), "this.hasOverlappingLocations()");
+
+        final RoomObject[] roomObjects = RoomObject.values();
+        final RoomObjectMap roomObjectMap = RoomObjectMap.create(this.count);
+        for (int i = 0; i < this.count; ++i)
+        {
+            roomObjectMap.set(RoomObjectMap.getPackedX(this.locations[i]), RoomObjectMap.getPackedY(this.locations[i]), roomObjects[this.roomObjectOrdinals[i]]);
+        }
+        final Room result = Room.create(roomObjectMap);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (this.locations.length < capacity)
+        {
+            final int newCapacity = Math.max(capacity, this.locations.length * 2);
+            this.locations = java.util.Arrays.copyOf(this.locations, newCapacity);
+            this.roomObjectOrdinals = java.util.Arrays.copyOf(this.roomObjectOrdinals, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package qub;
+
+/**
+ * The rendered characters of a {@link Room}: a grid of cells surrounded by a border, stored in a
+ * single character buffer that can be patched in place.
+ */
+public class RoomCharacterGrid
+{
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final int lineLength;
+    private final char[] characters;
+
+    private RoomCharacterGrid(int left, int top, int width, int height)
+    {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+        this.lineLength = width + 3;
+        this.characters = new char[this.lineLength * (height + 2) - 1];
+
+        java.util.Arrays.fill(this.characters, 0, width + 2, '-');
+        for (int row = 1; row <= height; ++row)
+        {
+            final int lineStart = row * this.lineLength;
+            this.characters[lineStart - 1] = '\n';
+            this.characters[lineStart] = '|';
+            java.util.Arrays.fill(this.characters, lineStart + 1, lineStart + width + 1, ' ');
+            this.characters[lineStart + width + 1] = '|';
+        }
+        final int bottomLineStart = (height + 1) * this.lineLength;
+        this.characters[bottomLineStart - 1] = '\n';
+        java.util.Arrays.fill(this.characters, bottomLineStart, bottomLineStart + width + 2, '-');
+    }
+
+    /**
+     * Create a new empty {@link RoomCharacterGrid}.
+     * @param left The x-coordinate of the left-most column of cells.
+     * @param top The y-coordinate of the top-most row of cells.
+     * @param width The number of columns of cells.
+     * @param height The number of rows of cells.
+     */
+    public static RoomCharacterGrid create(int left, int top, int width, int height)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(width, 0, "width");
+        PreCondition.assertGreaterThanOrEqualTo(height, 0, "height");
+
+        return new RoomCharacterGrid(left, top, width, height);
+    }
+
+    /**
+     * Get the character that represents the provided {@link RoomObject} in a rendered
+     * {@link Room}.
+     * @param roomObject The {@link RoomObject} to get the character for, or null for an empty
+     *                   location.
+     */
+    public static char getCharacter(RoomObject roomObject)
+    {
+        char result = ' ';
+        if (roomObject != null)
+        {
+            switch (roomObject)
+            {
+                case Orb:
+                    result = 'o';
+                    break;
+
+                case Goal:
+                    result = 'G';
+                    break;
+
+                case Block:
+                    result = 'B';
+                    break;
+
+                case BreakableBlock:
+                    result = 'X';
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the {@link RoomObject} that the provided character represents in a rendered
+     * {@link Room}.
+     * @param character The character to get the {@link RoomObject} for.
+     * @return The {@link RoomObject}, or null if the character is an empty location.
+     */
+    public static RoomObject getRoomObject(char character)
+    {
+        RoomObject result = null;
+        if (character != ' ')
+        {
+            for (final RoomObject roomObject : RoomObject.values())
+            {
+                if (RoomCharacterGrid.getCharacter(roomObject) == character)
+                {
+                    result = roomObject;
+                    break;
+                }
+            }
+
+            if (result == null)
+            {
+                throw new ParseException("Unrecognized room character: '" + character + "'.");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the x-coordinate of the left-most column of cells in this grid.
+     */
+    public int getLeft()
+    {
+        return this.left;
+    }
+
+    /**
+     * Get the y-coordinate of the top-most row of cells in this grid.
+     */
+    public int getTop()
+    {
+        return this.top;
+    }
+
+    /**
+     * Get the number of columns of cells in this grid.
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * Get the number of rows of cells in this grid.
+     */
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Get whether the provided coordinates are inside of this grid.
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     */
+    public boolean contains(int x, int y)
+    {
+        return this.left <= x && x < this.left + this.width &&
+            this.top <= y && y < this.top + this.height;
+    }
+
+    private int getCharacterIndex(int x, int y)
+    {
+        PreCondition.assertTrue(this.contains(x, y), "this.contains(x, y)");
+
+        return (y - this.top + 1) * this.lineLength + (x - this.left + 1);
+    }
+
+    /**
+     * Get the character of the cell at the provided coordinates.
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public char get(int x, int y)
+    {
+        return this.characters[this.getCharacterIndex(x, y)];
+    }
+
+    /**
+     * Get the character of the cell at the provided location.
+     * @param location The location of the cell.
+     */
+    public char get(Point2Integer location)
+    {
+        PreCondition.assertNotNull(location, "location");
+
+        return this.get(location.getXAsInt(), location.getYAsInt());
+    }
+
+    /**
+     * Set the character of the cell at the provided coordinates.
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @param character The character to set.
+     * @return This object for method chaining.
+     */
+    public RoomCharacterGrid set(int x, int y, char character)
+    {
+        this.characters[this.getCharacterIndex(x, y)] = character;
+
+        return this;
+    }
+
+    /**
+     * Set the character of the cell at the provided location to the character of the provided
+     * {@link RoomObject}.
+     * @param location The location of the cell.
+     * @param roomObject The {@link RoomObject} to set, or null to clear the cell.
+     * @return This object for method chaining.
+     */
+    public RoomCharacterGrid set(Point2Integer location, RoomObject roomObject)
+    {
+        PreCondition.assertNotNull(location, "location");
+
+        return this.set(location.getXAsInt(), location.getYAsInt(), RoomCharacterGrid.getCharacter(roomObject));
+    }
+
+    /**
+     * Get the character buffer that backs this grid. Rows are separated by '\n' characters and
+     * the buffer is updated in place when cells are set.
+     */
+    public char[] getCharacters()
+    {
+        return this.characters;
+    }
+
+    /**
+     * Append the characters of this grid to the provided {@link StringBuilder}.
+     * @param builder The {@link StringBuilder} to append to.
+     * @return This object for method chaining.
+     */
+    public RoomCharacterGrid toString(StringBuilder builder)
+    {
+        PreCondition.assertNotNull(builder, "builder");
+
+        builder.append(this.characters);
+
+        return this;
+    }
+
+    /**
+     * Write the characters of this grid to the provided {@link java.io.Writer}.
+     * @param writer The {@link java.io.Writer} to write to.
+     */
+    public Result<Void> toString(java.io.Writer writer)
+    {
+        PreCondition.assertNotNull(writer, "writer");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                writer.write(this.characters);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(this.characters);
+    }
+}
@@ -0,0 +1,176 @@
+package qub;
+
+/**
+ * Statistics about how hard a {@link Room} is to solve, found by a {@link RoomDifficultyProfiler}.
+ * The statistics are either exact, when every state up to the shortest solution was searched, or
+ * estimated from samples.
+ */
+public class RoomDifficultyProfile
+{
+    private final boolean sampled;
+    private final int optimalLength;
+    private final boolean optimalLengthExact;
+    private final double[] branchingFactors;
+    private final long[] stateCounts;
+    private final double optimalSolutionCount;
+    private final long optimalPathStateCount;
+    private final long pathNeighborCount;
+    private final long deadStateCount;
+
+    private RoomDifficultyProfile(boolean sampled, int optimalLength, boolean optimalLengthExact, double[] branchingFactors, long[] stateCounts, double optimalSolutionCount, long optimalPathStateCount, long pathNeighborCount, long deadStateCount)
+    {
+        this.sampled = sampled;
+        this.optimalLength = optimalLength;
+        this.optimalLengthExact = optimalLengthExact;
+        this.branchingFactors = branchingFactors;
+        this.stateCounts = stateCounts;
+        this.optimalSolutionCount = optimalSolutionCount;
+        this.optimalPathStateCount = optimalPathStateCount;
+        this.pathNeighborCount = pathNeighborCount;
+        this.deadStateCount = deadStateCount;
+    }
+
+    /**
+     * Create a new {@link RoomDifficultyProfile}.
+     * @param sampled Whether the statistics were estimated from samples.
+     * @param optimalLength The number of moves in the shortest solution that was found.
+     * @param optimalLengthExact Whether the shortest solution that was found is proven to be a
+     *                           shortest solution.
+     * @param branchingFactors The average number of moves that can be made from a state at each
+     *                         depth before the shortest solution.
+     * @param stateCounts The number of distinct states at each depth before the shortest
+     *                    solution, or null if they weren't counted.
+     * @param optimalSolutionCount The number of distinct move sequences that solve the room in
+     *                             the fewest moves.
+     * @param optimalPathStateCount The number of states that the counted solutions pass through.
+     * @param pathNeighborCount The number of distinct states that are one move off of the counted
+     *                          solutions.
+     * @param deadStateCount The number of those neighbor states that can't be solved.
+     */
+    static RoomDifficultyProfile create(boolean sampled, int optimalLength, boolean optimalLengthExact, double[] branchingFactors, long[] stateCounts, double optimalSolutionCount, long optimalPathStateCount, long pathNeighborCount, long deadStateCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(optimalLength, 0, "optimalLength");
+        PreCondition.assertNotNull(branchingFactors, "branchingFactors");
+        PreCondition.assertEqual(optimalLength, branchingFactors.length, "branchingFactors.length");
+        PreCondition.assertTrue(stateCounts == null || stateCounts.length == optimalLength, "stateCounts == null || stateCounts.length == optimalLength");
+        PreCondition.assertGreaterThanOrEqualTo(optimalSolutionCount, 0, "optimalSolutionCount");
+        PreCondition.assertBetween(0, deadStateCount, pathNeighborCount, "deadStateCount");
+
+        return new RoomDifficultyProfile(sampled, optimalLength, optimalLengthExact, branchingFactors, stateCounts, optimalSolutionCount, optimalPathStateCount, pathNeighborCount, deadStateCount);
+    }
+
+    /**
+     * Get whether these statistics were estimated from samples instead of found by searching
+     * every state up to the shortest solution.
+     */
+    public boolean isSampled()
+    {
+        return this.sampled;
+    }
+
+    /**
+     * Get the number of moves in the shortest solution that was found.
+     */
+    public int getOptimalLength()
+    {
+        return this.optimalLength;
+    }
+
+    /**
+     * Get whether {@link #getOptimalLength()} is proven to be the number of moves in a shortest
+     * solution. If it isn't, the other statistics are for solutions with that many moves.
+     */
+    public boolean isOptimalLengthExact()
+    {
+        return this.optimalLengthExact;
+    }
+
+    /**
+     * Get the average number of moves that can be made from a state at the provided depth.
+     * @param depth The number of moves from the start of the {@link Room}. This must be less than
+     *              {@link #getOptimalLength()}.
+     */
+    public double getBranchingFactor(int depth)
+    {
+        PreCondition.assertBetween(0, depth, this.optimalLength - 1, "depth");
+
+        return this.branchingFactors[depth];
+    }
+
+    /**
+     * Get the average number of moves that can be made from a state at any depth before the
+     * shortest solution, weighted by how many states each depth has when they were counted.
+     */
+    public double getAverageBranchingFactor()
+    {
+        double moveCount = 0;
+        double stateCount = 0;
+        for (int depth = 0; depth < this.optimalLength; ++depth)
+        {
+            final double depthStateCount = this.stateCounts == null ? 1 : this.stateCounts[depth];
+            moveCount += this.branchingFactors[depth] * depthStateCount;
+            stateCount += depthStateCount;
+        }
+        return stateCount == 0 ? 0 : moveCount / stateCount;
+    }
+
+    /**
+     * Get whether the number of distinct states at each depth was counted. It is only counted
+     * when the statistics aren't sampled.
+     */
+    public boolean hasStateCounts()
+    {
+        return this.stateCounts != null;
+    }
+
+    /**
+     * Get the number of distinct states that are first reached at the provided depth.
+     * @param depth The number of moves from the start of the {@link Room}. This must be less than
+     *              {@link #getOptimalLength()}.
+     */
+    public long getStateCount(int depth)
+    {
+        PreCondition.assertTrue(this.hasStateCounts(), "this.hasStateCounts()");
+        PreCondition.assertBetween(0, depth, this.optimalLength - 1, "depth");
+
+        return this.stateCounts[depth];
+    }
+
+    /**
+     * Get the number of distinct move sequences that solve the {@link Room} in
+     * {@link #getOptimalLength()} moves. Sampled profiles estimate this number, and exact counts
+     * stop at {@link Long#MAX_VALUE}.
+     */
+    public double getOptimalSolutionCount()
+    {
+        return this.optimalSolutionCount;
+    }
+
+    /**
+     * Get the number of distinct states that the counted solutions pass through, including the
+     * start but not the solved state. Sampled profiles only count the states of one solution.
+     */
+    public long getOptimalPathStateCount()
+    {
+        return this.optimalPathStateCount;
+    }
+
+    /**
+     * Get the number of distinct states that are one move away from a state on a counted
+     * solution but aren't on a counted solution themselves.
+     */
+    public long getPathNeighborCount()
+    {
+        return this.pathNeighborCount;
+    }
+
+    /**
+     * Get the number of states one move off of a counted solution that can't be solved. A state
+     * is counted when it has no moves or when a {@link PatternDatabase} proves that it can't be
+     * solved, so this is a lower bound.
+     */
+    public long getDeadStateCount()
+    {
+        return this.deadStateCount;
+    }
+}
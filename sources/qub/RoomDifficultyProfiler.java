@@ -0,0 +1,618 @@
+package qub;
+
+/**
+ * Finds a {@link RoomDifficultyProfile} for a {@link Room}: the length of its shortest solution,
+ * how many moves can be made from the states at each depth, how many distinct shortest solutions
+ * it has, and how many of the states one move off of those solutions can't be solved.
+ * <p>
+ * {@link #profile()} runs one breadth-first search up to the depth of the shortest solution,
+ * keeping the packed keys of each depth in a {@link RoomStateList}. It then walks back through the
+ * depths once, counting the shortest solutions that each state starts. The solution counts are
+ * only kept for one depth at a time, but the packed keys of the states on a shortest solution are
+ * kept for every depth so that the states next to them can be counted afterward. Both are subsets
+ * of the searched states, so the memory that it needs is bounded by the number of states that it
+ * is allowed to search. If the {@link Room} has more states than that before its shortest
+ * solution, the profile is sampled instead with {@link #sample()}.
+ * <p>
+ * {@link #sample()} finds a short solution with a {@link BeamSearch}, estimates the branching at
+ * each depth from random walks, and estimates the number of solutions with random walks that
+ * only take moves that a {@link PatternDatabase} says could still finish in time (Knuth's
+ * estimator). Each walk's estimate is the product of the number of moves it could choose from at
+ * each step, or zero if it doesn't end solved. Layouts with more than
+ * {@link PatternDatabase#maximumCellCount} cells don't get a {@link PatternDatabase}, so their
+ * walks are only pruned by the number of {@link RoomObject#Orb}s that are left.
+ */
+public class RoomDifficultyProfiler
+{
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final RoomStateKeyFormat keyFormat;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+    private final Room room;
+    private RoomStateScorer lowerBound;
+    private long maxStateCount;
+    private int sampleCount;
+    private long seed;
+    private long timeLimitMilliseconds;
+
+    private RoomDifficultyProfiler(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.room = layout.createRoom(startOrbCells, startOrbCells.length, startBrokenBlocks);
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.keyFormat = RoomStateKeyFormat.create(layout, startOrbCells.length);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+        this.maxStateCount = 1 << 22;
+        this.sampleCount = 1000;
+        this.timeLimitMilliseconds = 1000;
+    }
+
+    /**
+     * Create a new {@link RoomDifficultyProfiler} for the provided {@link Room}. Later changes to
+     * the {@link Room} don't affect the profiler.
+     * @param room The {@link Room} to profile.
+     */
+    public static RoomDifficultyProfiler create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new RoomDifficultyProfiler(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Set the number of states that {@link #profile()} can search before it samples the profile
+     * instead.
+     * @param maxStateCount The number of states that {@link #profile()} can search.
+     * @return This object for method chaining.
+     */
+    public RoomDifficultyProfiler setMaxStateCount(long maxStateCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maxStateCount, 1, "maxStateCount");
+
+        this.maxStateCount = maxStateCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of states that {@link #profile()} can search before it samples the profile
+     * instead.
+     */
+    public long getMaxStateCount()
+    {
+        return this.maxStateCount;
+    }
+
+    /**
+     * Set the number of random walks that {@link #sample()} takes for each estimate.
+     * @param sampleCount The number of random walks that {@link #sample()} takes for each
+     *                    estimate.
+     * @return This object for method chaining.
+     */
+    public RoomDifficultyProfiler setSampleCount(int sampleCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(sampleCount, 1, "sampleCount");
+
+        this.sampleCount = sampleCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of random walks that {@link #sample()} takes for each estimate.
+     */
+    public int getSampleCount()
+    {
+        return this.sampleCount;
+    }
+
+    /**
+     * Set the seed that the random walks of {@link #sample()} are based on.
+     * @param seed The seed that the random walks of {@link #sample()} are based on.
+     * @return This object for method chaining.
+     */
+    public RoomDifficultyProfiler setSeed(long seed)
+    {
+        this.seed = seed;
+
+        return this;
+    }
+
+    /**
+     * Get the seed that the random walks of {@link #sample()} are based on.
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Set the number of milliseconds that {@link #sample()} can spend looking for a short
+     * solution.
+     * @param timeLimitMilliseconds The number of milliseconds that {@link #sample()} can spend
+     *                              looking for a short solution.
+     * @return This object for method chaining.
+     */
+    public RoomDifficultyProfiler setTimeLimit(long timeLimitMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(timeLimitMilliseconds, 0L, "timeLimitMilliseconds");
+
+        this.timeLimitMilliseconds = timeLimitMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that {@link #sample()} can spend looking for a short
+     * solution.
+     */
+    public long getTimeLimit()
+    {
+        return this.timeLimitMilliseconds;
+    }
+
+    /**
+     * Find the exact profile of the {@link Room}, or a sampled profile if the {@link Room} has more
+     * than {@link #getMaxStateCount()} states before its shortest solution.
+     */
+    public Result<RoomDifficultyProfile> profile()
+    {
+        return Result.create(() ->
+        {
+            RoomDifficultyProfile result = this.findExactProfile();
+            if (result == null)
+            {
+                result = this.sample().await();
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Estimate the profile of the {@link Room} from samples.
+     */
+    public Result<RoomDifficultyProfile> sample()
+    {
+        return Result.create(() ->
+        {
+            final BeamSearch beamSearch = BeamSearch.create(this.room)
+                .setTimeLimit(this.timeLimitMilliseconds);
+            final Iterable<Move> solution = beamSearch.findSolution().await();
+            final int optimalLength = solution.getCount();
+            final boolean optimalLengthExact = beamSearch.isSolutionProvenOptimal() ||
+                this.getLowerBound().score(this.startOrbCells, this.startOrbCells.length, this.startBrokenBlocks) == optimalLength;
+            final java.util.Random random = new java.util.Random(this.seed);
+
+            final int keyLongCount = this.keyFormat.getKeyLongCount();
+            final int maxOrbCount = this.keyFormat.getMaxOrbCount();
+            final int[] orbCells = new int[maxOrbCount];
+            final int[] nextOrbCells = new int[maxOrbCount];
+            final long[] key = new long[keyLongCount];
+            final int[] moveResults = new int[maxOrbCount * RoomLayout.directionCount];
+            final int[] moveOrbIndexes = new int[moveResults.length];
+            final int[] moveDirections = new int[moveResults.length];
+
+            // Estimate the branching at each depth from random walks.
+            final long[] walkMoveCounts = new long[optimalLength];
+            final long[] walkStateCounts = new long[optimalLength];
+            for (int sampleIndex = 0; sampleIndex < this.sampleCount; ++sampleIndex)
+            {
+                int orbCount = this.startOrbCells.length;
+                System.arraycopy(this.startOrbCells, 0, orbCells, 0, orbCount);
+                long brokenBlocks = this.startBrokenBlocks;
+                for (int depth = 0; depth < optimalLength && orbCount > 0; ++depth)
+                {
+                    final int moveCount = this.findMoves(orbCells, orbCount, brokenBlocks, moveResults, moveOrbIndexes, moveDirections);
+                    walkMoveCounts[depth] += moveCount;
+                    ++walkStateCounts[depth];
+                    if (moveCount == 0)
+                    {
+                        break;
+                    }
+
+                    final int moveIndex = random.nextInt(moveCount);
+                    brokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResults[moveIndex], moveDirections[moveIndex]);
+                    orbCount = RoomLayout.applyMoveResult(orbCells, orbCount, moveOrbIndexes[moveIndex], moveResults[moveIndex], nextOrbCells);
+                    System.arraycopy(nextOrbCells, 0, orbCells, 0, orbCount);
+                }
+            }
+            final double[] branchingFactors = new double[optimalLength];
+            for (int depth = 0; depth < optimalLength; ++depth)
+            {
+                branchingFactors[depth] = walkStateCounts[depth] == 0 ? 0 : (double)walkMoveCounts[depth] / walkStateCounts[depth];
+            }
+
+            // Estimate the number of solutions with walks that only take moves that could still
+            // solve the room in the remaining number of moves.
+            final RoomStateScorer lowerBound = this.getLowerBound();
+            double solutionCountSum = 0;
+            for (int sampleIndex = 0; sampleIndex < this.sampleCount && optimalLength > 0; ++sampleIndex)
+            {
+                int orbCount = this.startOrbCells.length;
+                System.arraycopy(this.startOrbCells, 0, orbCells, 0, orbCount);
+                long brokenBlocks = this.startBrokenBlocks;
+                double weight = 1;
+                for (int depth = 0; depth < optimalLength && weight > 0; ++depth)
+                {
+                    final int remainingMoveCount = optimalLength - depth - 1;
+                    final int moveCount = this.findMoves(orbCells, orbCount, brokenBlocks, moveResults, moveOrbIndexes, moveDirections);
+                    int candidateCount = 0;
+                    for (int moveIndex = 0; moveIndex < moveCount; ++moveIndex)
+                    {
+                        final long nextBrokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResults[moveIndex], moveDirections[moveIndex]);
+                        final int nextOrbCount = RoomLayout.applyMoveResult(orbCells, orbCount, moveOrbIndexes[moveIndex], moveResults[moveIndex], nextOrbCells);
+                        final boolean candidate = remainingMoveCount == 0
+                            ? nextOrbCount == 0
+                            : nextOrbCount > 0 && lowerBound.score(nextOrbCells, nextOrbCount, nextBrokenBlocks) <= remainingMoveCount;
+                        if (candidate)
+                        {
+                            moveResults[candidateCount] = moveResults[moveIndex];
+                            moveOrbIndexes[candidateCount] = moveOrbIndexes[moveIndex];
+                            moveDirections[candidateCount] = moveDirections[moveIndex];
+                            ++candidateCount;
+                        }
+                    }
+
+                    weight *= candidateCount;
+                    if (candidateCount > 0)
+                    {
+                        final int moveIndex = random.nextInt(candidateCount);
+                        brokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResults[moveIndex], moveDirections[moveIndex]);
+                        orbCount = RoomLayout.applyMoveResult(orbCells, orbCount, moveOrbIndexes[moveIndex], moveResults[moveIndex], nextOrbCells);
+                        System.arraycopy(nextOrbCells, 0, orbCells, 0, orbCount);
+                    }
+                }
+                solutionCountSum += weight;
+            }
+            // The solution that the beam search found is counted even if no walk found it.
+            final double optimalSolutionCount = Math.max(1, solutionCountSum / this.sampleCount);
+
+            // Look at the states around the solution that was found.
+            final HeapRoomStateSet pathStates = HeapRoomStateSet.create(keyLongCount);
+            int orbCount = this.startOrbCells.length;
+            System.arraycopy(this.startOrbCells, 0, orbCells, 0, orbCount);
+            long brokenBlocks = this.startBrokenBlocks;
+            final RoomStateList pathKeys = RoomStateList.create(keyLongCount);
+            for (final Move move : solution)
+            {
+                this.keyFormat.pack(orbCells, orbCount, brokenBlocks, key, 0);
+                pathStates.add(key, 0);
+                pathKeys.add(key, 0);
+
+                final int startCell = this.layout.getCellIndex(move.getStartLocation());
+                final int direction = RoomLayout.getDirection(move);
+                final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, startCell, direction);
+                brokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+                orbCount = RoomLayout.applyMoveResult(orbCells, orbCount, RoomDifficultyProfiler.indexOfOrb(orbCells, orbCount, startCell), moveResult, nextOrbCells);
+                System.arraycopy(nextOrbCells, 0, orbCells, 0, orbCount);
+            }
+            final NeighborCounter neighbors = this.countNeighbors(pathKeys, pathStates);
+
+            return RoomDifficultyProfile.create(true, optimalLength, optimalLengthExact, branchingFactors, null, optimalSolutionCount, optimalLength, neighbors.neighborCount, neighbors.deadStateCount);
+        });
+    }
+
+    /**
+     * Get the lower bound on the number of moves that a state needs to be solved. This is the
+     * largest pattern distance of a {@link PatternDatabase}, or the number of
+     * {@link RoomObject#Orb}s if the layout is too large for a {@link PatternDatabase}.
+     */
+    private RoomStateScorer getLowerBound()
+    {
+        if (this.lowerBound == null)
+        {
+            this.lowerBound = this.layout.getCellCount() <= PatternDatabase.maximumCellCount
+                ? PatternDatabase.create(this.layout, this.startOrbCells.length).getMaxScorer()
+                : AStarSearch.getOrbCountHeuristic();
+        }
+        return this.lowerBound;
+    }
+
+    /**
+     * Search every state up to the shortest solution and find the exact profile, or get null if
+     * there are more than {@link #getMaxStateCount()} states.
+     */
+    private RoomDifficultyProfile findExactProfile()
+    {
+        final int keyLongCount = this.keyFormat.getKeyLongCount();
+        final int maxOrbCount = this.keyFormat.getMaxOrbCount();
+        final HeapRoomStateSet visitedStates = HeapRoomStateSet.create(keyLongCount);
+        final RoomStateList states = RoomStateList.create(keyLongCount);
+        final long[] key = new long[keyLongCount];
+        final long[] nextKey = new long[keyLongCount];
+        final int[] orbCells = new int[maxOrbCount];
+        final int[] nextOrbCells = new int[maxOrbCount];
+
+        this.keyFormat.pack(this.startOrbCells, this.startOrbCells.length, this.startBrokenBlocks, key, 0);
+        visitedStates.add(key, 0);
+        states.add(key, 0);
+
+        // The states of depth d are the states from levelStarts[d] up to levelStarts[d + 1].
+        long[] levelStarts = new long[] { 0, 1, 0, 0 };
+        long[] moveCounts = new long[levelStarts.length];
+        int depth = 0;
+        boolean solved = this.startOrbCells.length == 0;
+        while (!solved)
+        {
+            if (levelStarts[depth] == levelStarts[depth + 1])
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+
+            for (long stateIndex = levelStarts[depth]; stateIndex < levelStarts[depth + 1]; ++stateIndex)
+            {
+                states.get(stateIndex, key, 0);
+                final int orbCount = this.keyFormat.unpackOrbCells(key, 0, orbCells);
+                final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(key, 0);
+                for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            ++moveCounts[depth];
+                            this.keyFormat.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+                            if (this.keyFormat.unpackOrbCount(nextKey, 0) == 0)
+                            {
+                                solved = true;
+                            }
+                            else if (!solved && visitedStates.add(nextKey, 0))
+                            {
+                                if (states.getCount() == this.maxStateCount)
+                                {
+                                    return null;
+                                }
+                                states.add(nextKey, 0);
+                            }
+                        }
+                    }
+                }
+            }
+
+            ++depth;
+            if (levelStarts.length == depth + 1)
+            {
+                levelStarts = java.util.Arrays.copyOf(levelStarts, levelStarts.length * 2);
+                moveCounts = java.util.Arrays.copyOf(moveCounts, moveCounts.length * 2);
+            }
+            levelStarts[depth + 1] = states.getCount();
+        }
+        final int optimalLength = depth;
+
+        final double[] branchingFactors = new double[optimalLength];
+        final long[] stateCounts = new long[optimalLength];
+        for (int levelIndex = 0; levelIndex < optimalLength; ++levelIndex)
+        {
+            stateCounts[levelIndex] = levelStarts[levelIndex + 1] - levelStarts[levelIndex];
+            branchingFactors[levelIndex] = (double)moveCounts[levelIndex] / stateCounts[levelIndex];
+        }
+
+        // Walk back through the depths. Each state on a shortest solution is kept with the number
+        // of shortest solutions that start from it for one depth at a time, and its packed key is
+        // kept until the states next to it are counted.
+        java.util.HashMap<RoomDifficultyProfilerState,Long> nextPathStates = null;
+        final RoomStateList pathKeys = RoomStateList.create(keyLongCount);
+        final HeapRoomStateSet pathStateSet = HeapRoomStateSet.create(keyLongCount);
+        long optimalPathStateCount = 0;
+        long solutionCount = optimalLength == 0 ? 1 : 0;
+        for (int levelIndex = optimalLength - 1; levelIndex >= 0; --levelIndex)
+        {
+            final java.util.HashMap<RoomDifficultyProfilerState,Long> pathStates = new java.util.HashMap<>();
+            for (long stateIndex = levelStarts[levelIndex]; stateIndex < levelStarts[levelIndex + 1]; ++stateIndex)
+            {
+                states.get(stateIndex, key, 0);
+                final int orbCount = this.keyFormat.unpackOrbCells(key, 0, orbCells);
+                final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(key, 0);
+                long stateSolutionCount = 0;
+                for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            this.keyFormat.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+                            final long nextSolutionCount;
+                            if (nextPathStates == null)
+                            {
+                                nextSolutionCount = this.keyFormat.unpackOrbCount(nextKey, 0) == 0 ? 1 : 0;
+                            }
+                            else
+                            {
+                                final Long pathSolutionCount = nextPathStates.get(new RoomDifficultyProfilerState(nextKey));
+                                nextSolutionCount = pathSolutionCount == null ? 0 : pathSolutionCount;
+                            }
+                            stateSolutionCount = RoomDifficultyProfiler.addSaturated(stateSolutionCount, nextSolutionCount);
+                        }
+                    }
+                }
+
+                if (stateSolutionCount > 0)
+                {
+                    pathStates.put(new RoomDifficultyProfilerState(key.clone()), stateSolutionCount);
+                    pathKeys.add(key, 0);
+                    pathStateSet.add(key, 0);
+                    if (levelIndex == 0)
+                    {
+                        solutionCount = stateSolutionCount;
+                    }
+                }
+            }
+
+            optimalPathStateCount += pathStates.size();
+            nextPathStates = pathStates;
+        }
+
+        // Count the states one move off of a shortest solution.
+        final NeighborCounter neighbors = this.countNeighbors(pathKeys, pathStateSet);
+
+        return RoomDifficultyProfile.create(false, optimalLength, true, branchingFactors, stateCounts, solutionCount, optimalPathStateCount, neighbors.neighborCount, neighbors.deadStateCount);
+    }
+
+    /**
+     * Count the distinct states that are one move from the states with the provided keys and
+     * aren't in the provided path states or solved.
+     */
+    private NeighborCounter countNeighbors(RoomStateList pathKeys, RoomStateSet pathStates)
+    {
+        final NeighborCounter result = new NeighborCounter(this.keyFormat);
+        final int[] orbCells = result.orbCells;
+        final int[] nextOrbCells = result.nextOrbCells;
+        for (long pathIndex = 0; pathIndex < pathKeys.getCount(); ++pathIndex)
+        {
+            pathKeys.get(pathIndex, result.key, 0);
+            final int orbCount = this.keyFormat.unpackOrbCells(result.key, 0, orbCells);
+            final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(result.key, 0);
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                {
+                    final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                    if (moveResult != RoomLayout.noMove)
+                    {
+                        this.keyFormat.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, result.nextKey, 0);
+                        if (this.keyFormat.unpackOrbCount(result.nextKey, 0) > 0 && !pathStates.contains(result.nextKey, 0) && result.states.add(result.nextKey, 0))
+                        {
+                            ++result.neighborCount;
+                            if (this.isDead(result.nextKey, result))
+                            {
+                                ++result.deadStateCount;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get whether the state with the provided key can't be solved because it has no moves or
+     * because the lower bound proves it. The provided {@link NeighborCounter}'s
+     * buffers are used so that nothing is allocated.
+     */
+    private boolean isDead(long[] key, NeighborCounter buffers)
+    {
+        final int[] orbCells = buffers.deadOrbCells;
+        final int orbCount = this.keyFormat.unpackOrbCells(key, 0, orbCells);
+        final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(key, 0);
+
+        boolean result = this.getLowerBound().score(orbCells, orbCount, brokenBlocks) == PatternDatabase.unsolvable;
+        if (!result)
+        {
+            result = this.findMoves(orbCells, orbCount, brokenBlocks, buffers.moveResults, buffers.moveOrbIndexes, buffers.moveDirections) == 0;
+        }
+        return result;
+    }
+
+    /**
+     * Find every move that can be made from the provided state, and get how many there are.
+     */
+    private int findMoves(int[] orbCells, int orbCount, long brokenBlocks, int[] moveResults, int[] moveOrbIndexes, int[] moveDirections)
+    {
+        int result = 0;
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+            {
+                final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                if (moveResult != RoomLayout.noMove)
+                {
+                    moveResults[result] = moveResult;
+                    moveOrbIndexes[result] = orbIndex;
+                    moveDirections[result] = direction;
+                    ++result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int indexOfOrb(int[] orbCells, int orbCount, int cell)
+    {
+        int result = -1;
+        for (int orbIndex = 0; orbIndex < orbCount && result == -1; ++orbIndex)
+        {
+            if (orbCells[orbIndex] == cell)
+            {
+                result = orbIndex;
+            }
+        }
+        return result;
+    }
+
+    private static long addSaturated(long lhs, long rhs)
+    {
+        final long result = lhs + rhs;
+        return result < lhs ? Long.MAX_VALUE : result;
+    }
+
+    /**
+     * The distinct states that were found next to a solution, how many of them are dead, and the
+     * buffers that are reused while they are counted.
+     */
+    private static class NeighborCounter
+    {
+        private final HeapRoomStateSet states;
+        private final long[] key;
+        private final long[] nextKey;
+        private final int[] orbCells;
+        private final int[] nextOrbCells;
+        private final int[] deadOrbCells;
+        private final int[] moveResults;
+        private final int[] moveOrbIndexes;
+        private final int[] moveDirections;
+        private long neighborCount;
+        private long deadStateCount;
+
+        private NeighborCounter(RoomStateKeyFormat keyFormat)
+        {
+            final int keyLongCount = keyFormat.getKeyLongCount();
+            final int maxOrbCount = keyFormat.getMaxOrbCount();
+            this.states = HeapRoomStateSet.create(keyLongCount);
+            this.key = new long[keyLongCount];
+            this.nextKey = new long[keyLongCount];
+            this.orbCells = new int[maxOrbCount];
+            this.nextOrbCells = new int[maxOrbCount];
+            this.deadOrbCells = new int[maxOrbCount];
+            this.moveResults = new int[maxOrbCount * RoomLayout.directionCount];
+            this.moveOrbIndexes = new int[maxOrbCount * RoomLayout.directionCount];
+            this.moveDirections = new int[maxOrbCount * RoomLayout.directionCount];
+        }
+    }
+
+    /**
+     * A packed state key that can be used as a {@link java.util.HashMap} key.
+     */
+    private static class RoomDifficultyProfilerState
+    {
+        private final long[] key;
+
+        private RoomDifficultyProfilerState(long[] key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object rhs)
+        {
+            return rhs instanceof RoomDifficultyProfilerState &&
+                java.util.Arrays.equals(this.key, ((RoomDifficultyProfilerState)rhs).key);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return java.util.Arrays.hashCode(this.key);
+        }
+    }
+}
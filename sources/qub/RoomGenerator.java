@@ -0,0 +1,519 @@
+package qub;
+
+/**
+ * A seeded generator of random {@link Room}s. The same parameters and seed always generate the
+ * same {@link Room}, which makes the generated {@link Room}s useful for reproducible stress and
+ * scaling benchmarks.
+ */
+public class RoomGenerator
+{
+    private static final int maximumAttempts = 100;
+
+    private long seed;
+    private int width;
+    private int height;
+    private int orbCount;
+    private double blockDensity;
+    private double breakableBlockDensity;
+    private int goalRegionSize;
+    private int scrambleMoveCount;
+
+    private RoomGenerator()
+    {
+        this.width = 20;
+        this.height = 16;
+        this.orbCount = 2;
+        this.blockDensity = 0.05;
+        this.breakableBlockDensity = 0.01;
+        this.goalRegionSize = 3;
+        this.scrambleMoveCount = 20;
+    }
+
+    /**
+     * Create a new {@link RoomGenerator}.
+     */
+    public static RoomGenerator create()
+    {
+        return new RoomGenerator();
+    }
+
+    /**
+     * Set the seed that generated {@link Room}s are based on.
+     * @param seed The seed that generated {@link Room}s are based on.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setSeed(long seed)
+    {
+        this.seed = seed;
+
+        return this;
+    }
+
+    /**
+     * Get the seed that generated {@link Room}s are based on.
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Set the number of columns in generated {@link Room}s.
+     * @param width The number of columns in generated {@link Room}s.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setWidth(int width)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(width, 1, "width");
+
+        this.width = width;
+
+        return this;
+    }
+
+    /**
+     * Get the number of columns in generated {@link Room}s.
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * Set the number of rows in generated {@link Room}s.
+     * @param height The number of rows in generated {@link Room}s.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setHeight(int height)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(height, 1, "height");
+
+        this.height = height;
+
+        return this;
+    }
+
+    /**
+     * Get the number of rows in generated {@link Room}s.
+     */
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Set the number of {@link RoomObject#Orb}s in generated {@link Room}s.
+     * @param orbCount The number of {@link RoomObject#Orb}s in generated {@link Room}s.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setOrbCount(int orbCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(orbCount, 0, "orbCount");
+
+        this.orbCount = orbCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of {@link RoomObject#Orb}s in generated {@link Room}s.
+     */
+    public int getOrbCount()
+    {
+        return this.orbCount;
+    }
+
+    /**
+     * Set the chance that a cell outside of the {@link RoomObject#Goal} region is a
+     * {@link RoomObject#Block}.
+     * @param blockDensity The chance that a cell is a {@link RoomObject#Block}.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setBlockDensity(double blockDensity)
+    {
+        PreCondition.assertBetween(0, blockDensity, 1, "blockDensity");
+
+        this.blockDensity = blockDensity;
+
+        return this;
+    }
+
+    /**
+     * Get the chance that a cell outside of the {@link RoomObject#Goal} region is a
+     * {@link RoomObject#Block}.
+     */
+    public double getBlockDensity()
+    {
+        return this.blockDensity;
+    }
+
+    /**
+     * Set the chance that a cell outside of the {@link RoomObject#Goal} region is a
+     * {@link RoomObject#BreakableBlock}.
+     * @param breakableBlockDensity The chance that a cell is a {@link RoomObject#BreakableBlock}.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setBreakableBlockDensity(double breakableBlockDensity)
+    {
+        PreCondition.assertBetween(0, breakableBlockDensity, 1, "breakableBlockDensity");
+
+        this.breakableBlockDensity = breakableBlockDensity;
+
+        return this;
+    }
+
+    /**
+     * Get the chance that a cell outside of the {@link RoomObject#Goal} region is a
+     * {@link RoomObject#BreakableBlock}.
+     */
+    public double getBreakableBlockDensity()
+    {
+        return this.breakableBlockDensity;
+    }
+
+    /**
+     * Set the width and height of the square {@link RoomObject#Goal} region in generated
+     * {@link Room}s.
+     * @param goalRegionSize The width and height of the {@link RoomObject#Goal} region.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setGoalRegionSize(int goalRegionSize)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(goalRegionSize, 0, "goalRegionSize");
+
+        this.goalRegionSize = goalRegionSize;
+
+        return this;
+    }
+
+    /**
+     * Get the width and height of the square {@link RoomObject#Goal} region in generated
+     * {@link Room}s.
+     */
+    public int getGoalRegionSize()
+    {
+        return this.goalRegionSize;
+    }
+
+    /**
+     * Set the number of moves that solvable {@link Room}s are scrambled backward from their
+     * solved state, when that many backward moves are possible. Larger values generally generate
+     * {@link Room}s with longer solutions.
+     * @param scrambleMoveCount The number of backward moves.
+     * @return This object for method chaining.
+     */
+    public RoomGenerator setScrambleMoveCount(int scrambleMoveCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(scrambleMoveCount, 0, "scrambleMoveCount");
+
+        this.scrambleMoveCount = scrambleMoveCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of moves that solvable {@link Room}s are scrambled backward from their
+     * solved state.
+     */
+    public int getScrambleMoveCount()
+    {
+        return this.scrambleMoveCount;
+    }
+
+    /**
+     * Generate a {@link Room} with {@link RoomObject#Orb}s in random open cells. The generated
+     * {@link Room} may or may not be solvable.
+     */
+    public Room generate()
+    {
+        PreCondition.assertLessThanOrEqualTo(this.goalRegionSize, Math.min(this.width, this.height), "this.getGoalRegionSize()");
+
+        final java.util.Random random = new java.util.Random(this.seed);
+        final Room result = this.generateStaticObjects(random);
+        this.addRandomOrbs(result, this.orbCount, random);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Generate a {@link Room} that is guaranteed to be solvable. The {@link RoomObject#Orb}s are
+     * placed by starting from the solved state and making random moves backward, so every
+     * generated {@link Room} has a solution that is at most as long as the number of backward
+     * moves.
+     */
+    public Result<Room> generateSolvable()
+    {
+        PreCondition.assertLessThanOrEqualTo(this.goalRegionSize, Math.min(this.width, this.height), "this.getGoalRegionSize()");
+
+        return Result.create(() ->
+        {
+            final java.util.Random random = new java.util.Random(this.seed);
+
+            Room result = null;
+            for (int attempt = 0; attempt < RoomGenerator.maximumAttempts && result == null; ++attempt)
+            {
+                final Room staticRoom = this.generateStaticObjects(random);
+                final RoomLayout layout = RoomLayout.create(staticRoom);
+
+                final int[] orbCells = new int[this.orbCount];
+                final RoomScrambler scrambler = new RoomScrambler(layout, this.orbCount, random);
+                if (scrambler.scramble(this.scrambleMoveCount, orbCells))
+                {
+                    result = layout.createRoom(orbCells, this.orbCount, scrambler.getBrokenBlocks());
+                }
+            }
+
+            if (result == null)
+            {
+                throw new NotFoundException("Could not generate a solvable room with the provided parameters.");
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Generate a {@link Room} that is guaranteed to be unsolvable. One of the
+     * {@link RoomObject#Orb}s is walled in by {@link RoomObject#Block}s so that it can never move,
+     * and the rest are placed in random open cells. Solving the generated {@link Room} requires
+     * exhausting every reachable state of the other {@link RoomObject#Orb}s.
+     */
+    public Result<Room> generateUnsolvable()
+    {
+        PreCondition.assertGreaterThanOrEqualTo(this.orbCount, 1, "this.getOrbCount()");
+        PreCondition.assertGreaterThanOrEqualTo(this.width, 3, "this.getWidth()");
+        PreCondition.assertGreaterThanOrEqualTo(this.height, 3, "this.getHeight()");
+        PreCondition.assertLessThanOrEqualTo(this.goalRegionSize, Math.min(this.width, this.height), "this.getGoalRegionSize()");
+
+        return Result.create(() ->
+        {
+            final java.util.Random random = new java.util.Random(this.seed);
+            final Room result = this.generateStaticObjects(random);
+
+            Point2Integer trappedOrbLocation = null;
+            for (int attempt = 0; attempt < RoomGenerator.maximumAttempts * this.width * this.height && trappedOrbLocation == null; ++attempt)
+            {
+                final int x = 1 + random.nextInt(this.width - 2);
+                final int y = 1 + random.nextInt(this.height - 2);
+                if (RoomGenerator.canTrapOrb(result, x, y))
+                {
+                    trappedOrbLocation = Point2Integer.create(x, y);
+                }
+            }
+
+            if (trappedOrbLocation == null)
+            {
+                throw new NotFoundException("Could not generate an unsolvable room with the provided parameters.");
+            }
+
+            final int trappedOrbX = trappedOrbLocation.getXAsInt();
+            final int trappedOrbY = trappedOrbLocation.getYAsInt();
+            RoomGenerator.setRoomObject(result, RoomObject.Orb, trappedOrbX, trappedOrbY);
+            RoomGenerator.setRoomObject(result, RoomObject.Block, trappedOrbX, trappedOrbY - 1);
+            RoomGenerator.setRoomObject(result, RoomObject.Block, trappedOrbX + 1, trappedOrbY);
+            RoomGenerator.setRoomObject(result, RoomObject.Block, trappedOrbX, trappedOrbY + 1);
+            RoomGenerator.setRoomObject(result, RoomObject.Block, trappedOrbX - 1, trappedOrbY);
+
+            this.addRandomOrbs(result, this.orbCount - 1, random);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    private static boolean canTrapOrb(Room room, int x, int y)
+    {
+        return RoomGenerator.canReplace(room, x, y) &&
+            RoomGenerator.canReplace(room, x, y - 1) &&
+            RoomGenerator.canReplace(room, x + 1, y) &&
+            RoomGenerator.canReplace(room, x, y + 1) &&
+            RoomGenerator.canReplace(room, x - 1, y);
+    }
+
+    private static boolean canReplace(Room room, int x, int y)
+    {
+        final RoomObject roomObject = room.getRoomObjectOrNull(x, y);
+        return roomObject != RoomObject.Goal && roomObject != RoomObject.Orb;
+    }
+
+    private static void setRoomObject(Room room, RoomObject roomObject, int x, int y)
+    {
+        final Point2Integer location = Point2Integer.create(x, y);
+        if (room.isLocationOccupied(location))
+        {
+            room.removeRoomObject(location);
+        }
+        room.addRoomObject(roomObject, location);
+    }
+
+    /**
+     * Generate the {@link RoomObject#Goal} region, {@link RoomObject#Block}s, and
+     * {@link RoomObject#BreakableBlock}s of a {@link Room}.
+     */
+    private Room generateStaticObjects(java.util.Random random)
+    {
+        final RoomBuilder builder = RoomBuilder.create();
+
+        final int goalRegionLeft = random.nextInt(this.width - this.goalRegionSize + 1);
+        final int goalRegionTop = random.nextInt(this.height - this.goalRegionSize + 1);
+        for (int y = 0; y < this.height; ++y)
+        {
+            for (int x = 0; x < this.width; ++x)
+            {
+                final double roll = random.nextDouble();
+                if (goalRegionLeft <= x && x < goalRegionLeft + this.goalRegionSize &&
+                    goalRegionTop <= y && y < goalRegionTop + this.goalRegionSize)
+                {
+                    builder.add(RoomObject.Goal, x, y);
+                }
+                else if (roll < this.blockDensity)
+                {
+                    builder.add(RoomObject.Block, x, y);
+                }
+                else if (roll < this.blockDensity + this.breakableBlockDensity)
+                {
+                    builder.add(RoomObject.BreakableBlock, x, y);
+                }
+            }
+        }
+        final Room result = builder.build();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Add the provided number of {@link RoomObject#Orb}s to random unoccupied cells.
+     */
+    private void addRandomOrbs(Room room, int orbCount, java.util.Random random)
+    {
+        final List<Point2Integer> openLocations = List.create();
+        for (int y = 0; y < this.height; ++y)
+        {
+            for (int x = 0; x < this.width; ++x)
+            {
+                final Point2Integer location = Point2Integer.create(x, y);
+                if (!room.isLocationOccupied(location))
+                {
+                    openLocations.add(location);
+                }
+            }
+        }
+        PreCondition.assertLessThanOrEqualTo(orbCount, openLocations.getCount(), "orbCount");
+
+        for (int i = 0; i < orbCount; ++i)
+        {
+            final int locationIndex = i + random.nextInt(openLocations.getCount() - i);
+            final Point2Integer location = openLocations.get(locationIndex);
+            openLocations.set(locationIndex, openLocations.get(i));
+            room.addRoomObject(RoomObject.Orb, location);
+        }
+    }
+
+    /**
+     * Walks backward from the solved state of a {@link RoomLayout} by picking random predecessor
+     * states.
+     */
+    private static class RoomScrambler
+    {
+        private final RoomLayout layout;
+        private final int maxOrbCount;
+        private final java.util.Random random;
+        private final int[] orbCells;
+        private int orbCount;
+        private long brokenBlocks;
+
+        private final List<int[]> predecessorOrbCells;
+        private final List<Long> predecessorBrokenBlocks;
+
+        RoomScrambler(RoomLayout layout, int maxOrbCount, java.util.Random random)
+        {
+            this.layout = layout;
+            this.maxOrbCount = maxOrbCount;
+            this.random = random;
+            this.orbCells = new int[maxOrbCount];
+
+            // Every BreakableBlock starts out broken in the solved state. The ones that are never
+            // needed to stop an Orb on the way backward stay broken, which just means that they
+            // aren't in the generated Room. Layouts with more BreakableBlocks than fit in a mask
+            // start with none of them broken instead, so no backward move ever needs to unbreak
+            // one.
+            final int breakableBlockCount = layout.getBreakableBlockCount();
+            this.brokenBlocks = breakableBlockCount == Long.SIZE ? -1L
+                : breakableBlockCount < Long.SIZE ? (1L << breakableBlockCount) - 1
+                : 0;
+
+            this.predecessorOrbCells = List.create();
+            this.predecessorBrokenBlocks = List.create();
+        }
+
+        long getBrokenBlocks()
+        {
+            return this.brokenBlocks;
+        }
+
+        /**
+         * Make random moves backward until the state has the maximum number of
+         * {@link RoomObject#Orb}s and the provided number of moves have been made, or until there
+         * are no more backward moves. Returns whether the state has the maximum number of
+         * {@link RoomObject#Orb}s.
+         */
+        boolean scramble(int scrambleMoveCount, int[] resultOrbCells)
+        {
+            final int[] predecessorOrbCells = new int[this.maxOrbCount];
+            final RoomStateAction addPredecessor = (int[] cells, int count, long brokenBlocks) ->
+            {
+                this.predecessorOrbCells.add(java.util.Arrays.copyOf(cells, count));
+                this.predecessorBrokenBlocks.add(brokenBlocks);
+            };
+
+            final int maximumMoveCount = Math.max(1, scrambleMoveCount) * (this.maxOrbCount + 1) * 4;
+            int moveCount = 0;
+            while ((this.orbCount < this.maxOrbCount || moveCount < scrambleMoveCount) && moveCount < maximumMoveCount)
+            {
+                this.predecessorOrbCells.clear();
+                this.predecessorBrokenBlocks.clear();
+                this.layout.visitPredecessors(this.orbCells, this.orbCount, this.brokenBlocks, this.maxOrbCount, predecessorOrbCells, addPredecessor);
+                if (!this.predecessorOrbCells.any())
+                {
+                    break;
+                }
+
+                int predecessorIndex = this.random.nextInt(this.predecessorOrbCells.getCount());
+                if (this.orbCount < this.maxOrbCount && this.random.nextBoolean())
+                {
+                    // Half of the time, prefer a backward move that brings another Orb out of a
+                    // Goal.
+                    for (int i = 0; i < this.predecessorOrbCells.getCount(); ++i)
+                    {
+                        final int candidateIndex = (predecessorIndex + i) % this.predecessorOrbCells.getCount();
+                        if (this.predecessorOrbCells.get(candidateIndex).length > this.orbCount)
+                        {
+                            predecessorIndex = candidateIndex;
+                            break;
+                        }
+                    }
+                }
+
+                final int[] nextOrbCells = this.predecessorOrbCells.get(predecessorIndex);
+                System.arraycopy(nextOrbCells, 0, this.orbCells, 0, nextOrbCells.length);
+                this.orbCount = nextOrbCells.length;
+                this.brokenBlocks = this.predecessorBrokenBlocks.get(predecessorIndex);
+                ++moveCount;
+            }
+
+            final boolean result = (this.orbCount == this.maxOrbCount);
+            if (result)
+            {
+                System.arraycopy(this.orbCells, 0, resultOrbCells, 0, this.orbCount);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,933 @@
+package qub;
+
+/**
+ * The static layout ({@link RoomObject#Block}s, {@link RoomObject#BreakableBlock}s, and
+ * {@link RoomObject#Goal}s) of a {@link Room}, compiled into a dense grid of cells that covers
+ * every location that an {@link RoomObject#Orb} can reach.
+ */
+public class RoomLayout
+{
+    public static final int upDirection = 0;
+    public static final int rightDirection = 1;
+    public static final int downDirection = 2;
+    public static final int leftDirection = 3;
+    public static final int directionCount = 4;
+
+    /**
+     * The flag that is set in a move result when the moved {@link RoomObject#Orb} ends in a
+     * {@link RoomObject#Goal}.
+     */
+    public static final int moveEndsInGoalFlag = 1 << 30;
+    /**
+     * The flag that is set in a move result when the moved {@link RoomObject#Orb} breaks the
+     * {@link RoomObject#BreakableBlock} that stopped it.
+     */
+    public static final int moveBreaksBlockFlag = 1 << 29;
+    /**
+     * The value that is returned as a move result when there is no move.
+     */
+    public static final int noMove = -1;
+    private static final int moveEndCellMask = moveBreaksBlockFlag - 1;
+
+    private static final int[] directionXOffsets = new int[] { 0, 1, 0, -1 };
+    private static final int[] directionYOffsets = new int[] { -1, 0, 1, 0 };
+
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final RoomObject[] staticObjects;
+    private final int[] breakableBlockIndexes;
+    private final int[] breakableBlockCells;
+    private final int[] goalCells;
+    private final int blockCount;
+
+    private RoomLayout(int left, int top, int width, int height, RoomObject[] staticObjects)
+    {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+        this.staticObjects = staticObjects;
+
+        int breakableBlockCount = 0;
+        int goalCount = 0;
+        int blockCount = 0;
+        for (final RoomObject staticObject : staticObjects)
+        {
+            if (staticObject == RoomObject.BreakableBlock)
+            {
+                ++breakableBlockCount;
+            }
+            else if (staticObject == RoomObject.Goal)
+            {
+                ++goalCount;
+            }
+            else if (staticObject == RoomObject.Block)
+            {
+                ++blockCount;
+            }
+        }
+        this.blockCount = blockCount;
+
+        this.breakableBlockIndexes = new int[staticObjects.length];
+        this.breakableBlockCells = new int[breakableBlockCount];
+        this.goalCells = new int[goalCount];
+        int breakableBlockIndex = 0;
+        int goalIndex = 0;
+        for (int cell = 0; cell < staticObjects.length; ++cell)
+        {
+            this.breakableBlockIndexes[cell] = -1;
+            if (staticObjects[cell] == RoomObject.BreakableBlock)
+            {
+                this.breakableBlockIndexes[cell] = breakableBlockIndex;
+                this.breakableBlockCells[breakableBlockIndex] = cell;
+                ++breakableBlockIndex;
+            }
+            else if (staticObjects[cell] == RoomObject.Goal)
+            {
+                this.goalCells[goalIndex] = cell;
+                ++goalIndex;
+            }
+        }
+    }
+
+    /**
+     * Compile the static layout of the provided {@link Room}. The layout's bounds cover every
+     * {@link RoomObject} in the {@link Room} plus a one cell border, which is every location that
+     * an {@link RoomObject#Orb} can slide to.
+     * @param room The {@link Room} to compile the static layout of.
+     */
+    public static RoomLayout create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertLessThanOrEqualTo(RoomLayout.getCellCount(room), Integer.MAX_VALUE, "RoomLayout.getCellCount(room)");
+
+        int minimumX = Integer.MAX_VALUE;
+        int minimumY = Integer.MAX_VALUE;
+        int maximumX = Integer.MIN_VALUE;
+        int maximumY = Integer.MIN_VALUE;
+        for (final RoomObject roomObject : RoomObject.values())
+        {
+            for (final Point2Integer location : room.iterateRoomObjectLocations(roomObject))
+            {
+                minimumX = Math.min(minimumX, location.getXAsInt());
+                minimumY = Math.min(minimumY, location.getYAsInt());
+                maximumX = Math.max(maximumX, location.getXAsInt());
+                maximumY = Math.max(maximumY, location.getYAsInt());
+            }
+        }
+
+        final RoomLayout result;
+        if (minimumX > maximumX)
+        {
+            result = new RoomLayout(0, 0, 0, 0, new RoomObject[0]);
+        }
+        else
+        {
+            final int left = minimumX - 1;
+            final int top = minimumY - 1;
+            final int width = maximumX - minimumX + 3;
+            final int height = maximumY - minimumY + 3;
+            final RoomObject[] staticObjects = new RoomObject[width * height];
+            for (final RoomObject roomObject : RoomObject.values())
+            {
+                if (roomObject != RoomObject.Orb)
+                {
+                    for (final Point2Integer location : room.iterateRoomObjectLocations(roomObject))
+                    {
+                        staticObjects[(location.getYAsInt() - top) * width + (location.getXAsInt() - left)] = roomObject;
+                    }
+                }
+            }
+            result = new RoomLayout(left, top, width, height, staticObjects);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the number of cells that {@link #create(Room)} would create for the provided
+     * {@link Room}, without creating them, or {@link Long#MAX_VALUE} if that number doesn't fit in a
+     * long. This can be more than a {@link RoomLayout} can hold when the {@link Room}'s
+     * {@link RoomObject}s are far apart.
+     * @param room The {@link Room} to count the layout cells of.
+     */
+    public static long getCellCount(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        long minimumX = Long.MAX_VALUE;
+        long minimumY = Long.MAX_VALUE;
+        long maximumX = Long.MIN_VALUE;
+        long maximumY = Long.MIN_VALUE;
+        for (final RoomObject roomObject : RoomObject.values())
+        {
+            for (final Point2Integer location : room.iterateRoomObjectLocations(roomObject))
+            {
+                minimumX = Math.min(minimumX, location.getXAsInt());
+                minimumY = Math.min(minimumY, location.getYAsInt());
+                maximumX = Math.max(maximumX, location.getXAsInt());
+                maximumY = Math.max(maximumY, location.getYAsInt());
+            }
+        }
+
+        long result = 0;
+        if (minimumX <= maximumX)
+        {
+            final long width = maximumX - minimumX + 3;
+            final long height = maximumY - minimumY + 3;
+            result = width <= Long.MAX_VALUE / height ? width * height : Long.MAX_VALUE;
+        }
+
+        PostCondition.assertGreaterThanOrEqualTo(result, 0, "result");
+
+        return result;
+    }
+
+    /**
+     * Create a {@link RoomLayout} from its raw cells.
+     * @param left The x-coordinate of the left-most column of cells.
+     * @param top The y-coordinate of the top-most row of cells.
+     * @param width The number of columns of cells.
+     * @param height The number of rows of cells.
+     * @param staticObjects The static {@link RoomObject} in each cell, in row-major order, or null
+     *                      for empty cells.
+     */
+    public static RoomLayout create(int left, int top, int width, int height, RoomObject[] staticObjects)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(width, 0, "width");
+        PreCondition.assertGreaterThanOrEqualTo(height, 0, "height");
+        PreCondition.assertNotNull(staticObjects, "staticObjects");
+        PreCondition.assertEqual(width * height, staticObjects.length, "staticObjects.length");
+
+        for (final RoomObject staticObject : staticObjects)
+        {
+            PreCondition.assertNotEqual(RoomObject.Orb, staticObject, "staticObject");
+        }
+
+        return new RoomLayout(left, top, width, height, staticObjects.clone());
+    }
+
+    /**
+     * Get the x-coordinate of the left-most column of cells in this layout.
+     */
+    public int getLeft()
+    {
+        return this.left;
+    }
+
+    /**
+     * Get the y-coordinate of the top-most row of cells in this layout.
+     */
+    public int getTop()
+    {
+        return this.top;
+    }
+
+    /**
+     * Get the number of columns of cells in this layout.
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * Get the number of rows of cells in this layout.
+     */
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Get the number of cells in this layout.
+     */
+    public int getCellCount()
+    {
+        return this.staticObjects.length;
+    }
+
+    /**
+     * Get the index of the cell at the provided coordinates, or -1 if the coordinates are outside
+     * of this layout.
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public int getCellIndex(int x, int y)
+    {
+        final int column = x - this.left;
+        final int row = y - this.top;
+        return (0 <= column && column < this.width && 0 <= row && row < this.height)
+            ? row * this.width + column
+            : -1;
+    }
+
+    /**
+     * Get the index of the cell at the provided location, or -1 if the location is outside of this
+     * layout.
+     * @param location The location of the cell.
+     */
+    public int getCellIndex(Point2Integer location)
+    {
+        PreCondition.assertNotNull(location, "location");
+
+        return this.getCellIndex(location.getXAsInt(), location.getYAsInt());
+    }
+
+    /**
+     * Get the x-coordinate of the provided cell.
+     * @param cell The index of the cell.
+     */
+    public int getCellX(int cell)
+    {
+        return this.left + (cell % this.width);
+    }
+
+    /**
+     * Get the y-coordinate of the provided cell.
+     * @param cell The index of the cell.
+     */
+    public int getCellY(int cell)
+    {
+        return this.top + (cell / this.width);
+    }
+
+    /**
+     * Get the location of the provided cell.
+     * @param cell The index of the cell.
+     */
+    public Point2Integer getCellLocation(int cell)
+    {
+        PreCondition.assertIndexAccess(cell, this.getCellCount(), "cell");
+
+        return Point2Integer.create(this.getCellX(cell), this.getCellY(cell));
+    }
+
+    /**
+     * Get the index of the cell next to the provided cell in the provided direction, or -1 if that
+     * cell is outside of this layout.
+     * @param cell The index of the cell to start from.
+     * @param direction The direction to look in.
+     */
+    public int getNeighborCell(int cell, int direction)
+    {
+        final int column = (cell % this.width) + RoomLayout.directionXOffsets[direction];
+        final int row = (cell / this.width) + RoomLayout.directionYOffsets[direction];
+        return (0 <= column && column < this.width && 0 <= row && row < this.height)
+            ? row * this.width + column
+            : -1;
+    }
+
+    /**
+     * Get the direction that is opposite of the provided direction.
+     * @param direction The direction to get the opposite of.
+     */
+    public static int getOppositeDirection(int direction)
+    {
+        return (direction + 2) % RoomLayout.directionCount;
+    }
+
+    /**
+     * Get the static {@link RoomObject} in the provided cell, or null if the cell has no static
+     * {@link RoomObject}.
+     * @param cell The index of the cell.
+     */
+    public RoomObject getStaticObject(int cell)
+    {
+        return this.staticObjects[cell];
+    }
+
+    /**
+     * Get the number of {@link RoomObject#BreakableBlock}s in this layout.
+     */
+    public int getBreakableBlockCount()
+    {
+        return this.breakableBlockCells.length;
+    }
+
+    /**
+     * Get the index of the {@link RoomObject#BreakableBlock} in the provided cell, or -1 if the
+     * cell doesn't contain a {@link RoomObject#BreakableBlock}. The index is the bit that
+     * represents the {@link RoomObject#BreakableBlock} in a broken blocks mask.
+     * @param cell The index of the cell.
+     */
+    public int getBreakableBlockIndex(int cell)
+    {
+        return this.breakableBlockIndexes[cell];
+    }
+
+    /**
+     * Get the index of the cell that contains the {@link RoomObject#BreakableBlock} with the
+     * provided index.
+     * @param breakableBlockIndex The index of the {@link RoomObject#BreakableBlock}.
+     */
+    public int getBreakableBlockCell(int breakableBlockIndex)
+    {
+        return this.breakableBlockCells[breakableBlockIndex];
+    }
+
+    /**
+     * Get the number of {@link RoomObject#Goal} cells in this layout.
+     */
+    public int getGoalCount()
+    {
+        return this.goalCells.length;
+    }
+
+    /**
+     * Get the index of the cell that contains the {@link RoomObject#Goal} with the provided index.
+     * @param goalIndex The index of the {@link RoomObject#Goal}.
+     */
+    public int getGoalCell(int goalIndex)
+    {
+        return this.goalCells[goalIndex];
+    }
+
+    /**
+     * Get whether an {@link RoomObject#Orb} can rest in the provided cell when the provided
+     * {@link RoomObject#BreakableBlock}s are broken.
+     * @param cell The index of the cell.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     */
+    public boolean isOpenCell(int cell, long brokenBlocks)
+    {
+        final RoomObject staticObject = this.staticObjects[cell];
+        return staticObject == null ||
+            (staticObject == RoomObject.BreakableBlock && RoomLayout.isBlockBroken(brokenBlocks, this.breakableBlockIndexes[cell]));
+    }
+
+    /**
+     * Get whether the {@link RoomObject#BreakableBlock} with the provided index is set in the
+     * provided broken blocks mask.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param breakableBlockIndex The index of the {@link RoomObject#BreakableBlock}.
+     */
+    public static boolean isBlockBroken(long brokenBlocks, int breakableBlockIndex)
+    {
+        return (brokenBlocks & (1L << breakableBlockIndex)) != 0;
+    }
+
+    /**
+     * Get whether the provided cell contains one of the provided {@link RoomObject#Orb}s.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells to look at.
+     * @param cell The cell to look for.
+     */
+    public static boolean containsOrb(int[] orbCells, int orbCount, int cell)
+    {
+        for (int i = 0; i < orbCount; ++i)
+        {
+            if (orbCells[i] == cell)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get whether the provided cell contains something that stops a sliding
+     * {@link RoomObject#Orb} and that blocks an {@link RoomObject#Orb} from being pushed.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param cell The cell to check.
+     */
+    public boolean isSolid(int[] orbCells, int orbCount, long brokenBlocks, int cell)
+    {
+        final RoomObject staticObject = this.staticObjects[cell];
+        return staticObject == RoomObject.Block ||
+            (staticObject == RoomObject.BreakableBlock && !RoomLayout.isBlockBroken(brokenBlocks, this.breakableBlockIndexes[cell])) ||
+            RoomLayout.containsOrb(orbCells, orbCount, cell);
+    }
+
+    /**
+     * Get the result of pushing the {@link RoomObject#Orb} in the provided start cell in the
+     * provided direction. This follows the same rules as {@link Room#getMoves()}, but without
+     * allocating anything.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param startCell The cell of the {@link RoomObject#Orb} to push.
+     * @param direction The direction to push the {@link RoomObject#Orb}.
+     * @return {@link #noMove} if the {@link RoomObject#Orb} can't be pushed in the provided
+     * direction, or the end cell of the move combined with {@link #moveEndsInGoalFlag} and
+     * {@link #moveBreaksBlockFlag}.
+     */
+    public int getMoveResult(int[] orbCells, int orbCount, long brokenBlocks, int startCell, int direction)
+    {
+        int result = RoomLayout.noMove;
+
+        final int pusherCell = this.getNeighborCell(startCell, RoomLayout.getOppositeDirection(direction));
+        if (pusherCell == -1 || !this.isSolid(orbCells, orbCount, brokenBlocks, pusherCell))
+        {
+            int currentCell = startCell;
+            while (true)
+            {
+                final int nextCell = this.getNeighborCell(currentCell, direction);
+                if (nextCell == -1)
+                {
+                    break;
+                }
+
+                final RoomObject staticObject = this.staticObjects[nextCell];
+                if (staticObject == RoomObject.Goal)
+                {
+                    result = nextCell | RoomLayout.moveEndsInGoalFlag;
+                    break;
+                }
+                else if (this.isSolid(orbCells, orbCount, brokenBlocks, nextCell))
+                {
+                    if (currentCell != startCell)
+                    {
+                        result = currentCell;
+                        if (staticObject == RoomObject.BreakableBlock &&
+                            !RoomLayout.isBlockBroken(brokenBlocks, this.breakableBlockIndexes[nextCell]))
+                        {
+                            result |= RoomLayout.moveBreaksBlockFlag;
+                        }
+                    }
+                    break;
+                }
+                currentCell = nextCell;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Visit every state that reaches the provided state in one move.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s that a visited state can
+     *                    have.
+     * @param predecessorOrbCells The array that each visited state's sorted
+     *                            {@link RoomObject#Orb} cells are written to. It must have room
+     *                            for maxOrbCount cells.
+     * @param visitor The action that is run for each visited state.
+     */
+    public void visitPredecessors(int[] orbCells, int orbCount, long brokenBlocks, int maxOrbCount, int[] predecessorOrbCells, RoomStateAction visitor)
+    {
+        PreCondition.assertNotNull(orbCells, "orbCells");
+        PreCondition.assertNotNull(predecessorOrbCells, "predecessorOrbCells");
+        PreCondition.assertNotNull(visitor, "visitor");
+
+        // Orbs that slid until they were stopped by a Block, a BreakableBlock, or another Orb.
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            final int endCell = orbCells[orbIndex];
+            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+            {
+                final int stopperCell = this.getNeighborCell(endCell, direction);
+                if (stopperCell != -1)
+                {
+                    long predecessorBrokenBlocks = brokenBlocks;
+                    final RoomObject stopper = this.staticObjects[stopperCell];
+                    boolean stopped;
+                    if (RoomLayout.containsOrb(orbCells, orbCount, stopperCell))
+                    {
+                        // An Orb stopper can rest on a broken BreakableBlock's cell, and then the
+                        // BreakableBlock stays broken.
+                        stopped = true;
+                    }
+                    else if (stopper == RoomObject.BreakableBlock)
+                    {
+                        // A BreakableBlock always breaks when it stops an Orb, so it must be
+                        // broken now and unbroken before the move.
+                        final int breakableBlockIndex = this.breakableBlockIndexes[stopperCell];
+                        stopped = RoomLayout.isBlockBroken(brokenBlocks, breakableBlockIndex);
+                        predecessorBrokenBlocks &= ~(1L << breakableBlockIndex);
+                    }
+                    else
+                    {
+                        stopped = (stopper == RoomObject.Block);
+                    }
+
+                    if (stopped)
+                    {
+                        final int backwardDirection = RoomLayout.getOppositeDirection(direction);
+                        int startCell = this.getNeighborCell(endCell, backwardDirection);
+                        while (startCell != -1 &&
+                            this.isOpenCell(startCell, brokenBlocks) &&
+                            !RoomLayout.containsOrb(orbCells, orbCount, startCell))
+                        {
+                            final int pusherCell = this.getNeighborCell(startCell, backwardDirection);
+                            if (pusherCell == -1 || !this.isSolid(orbCells, orbCount, predecessorBrokenBlocks, pusherCell))
+                            {
+                                System.arraycopy(orbCells, 0, predecessorOrbCells, 0, orbCount);
+                                RoomLayout.replaceOrbCell(predecessorOrbCells, orbCount, orbIndex, startCell);
+                                visitor.run(predecessorOrbCells, orbCount, predecessorBrokenBlocks);
+                            }
+                            startCell = pusherCell;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Orbs that slid into a Goal.
+        if (orbCount < maxOrbCount)
+        {
+            for (final int goalCell : this.goalCells)
+            {
+                for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                {
+                    final int backwardDirection = RoomLayout.getOppositeDirection(direction);
+                    int startCell = this.getNeighborCell(goalCell, backwardDirection);
+                    while (startCell != -1 &&
+                        this.isOpenCell(startCell, brokenBlocks) &&
+                        !RoomLayout.containsOrb(orbCells, orbCount, startCell))
+                    {
+                        final int pusherCell = this.getNeighborCell(startCell, backwardDirection);
+                        if (pusherCell == -1 || !this.isSolid(orbCells, orbCount, brokenBlocks, pusherCell))
+                        {
+                            System.arraycopy(orbCells, 0, predecessorOrbCells, 0, orbCount);
+                            final int predecessorOrbCount = RoomLayout.insertOrbCell(predecessorOrbCells, orbCount, startCell);
+                            visitor.run(predecessorOrbCells, predecessorOrbCount, brokenBlocks);
+                        }
+                        startCell = pusherCell;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the end cell of the provided move result.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     */
+    public static int getMoveResultEndCell(int moveResult)
+    {
+        return moveResult & RoomLayout.moveEndCellMask;
+    }
+
+    /**
+     * Get whether the provided move result ends in a {@link RoomObject#Goal}.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     */
+    public static boolean getMoveResultEndsInGoal(int moveResult)
+    {
+        return (moveResult & RoomLayout.moveEndsInGoalFlag) != 0;
+    }
+
+    /**
+     * Get whether the provided move result breaks a {@link RoomObject#BreakableBlock}.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     */
+    public static boolean getMoveResultBreaksBlock(int moveResult)
+    {
+        return (moveResult & RoomLayout.moveBreaksBlockFlag) != 0;
+    }
+
+    /**
+     * Apply the provided move result to the provided {@link RoomObject#Orb} cells. The resulting
+     * {@link RoomObject#Orb} cells stay sorted in ascending order.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param orbIndex The index in orbCells of the {@link RoomObject#Orb} that was pushed.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     * @param resultOrbCells The array to write the resulting {@link RoomObject#Orb} cells to. This
+     *                       can be the same array as orbCells.
+     * @return The number of resulting {@link RoomObject#Orb} cells.
+     */
+    public static int applyMoveResult(int[] orbCells, int orbCount, int orbIndex, int moveResult, int[] resultOrbCells)
+    {
+        int result;
+        if (RoomLayout.getMoveResultEndsInGoal(moveResult))
+        {
+            System.arraycopy(orbCells, 0, resultOrbCells, 0, orbIndex);
+            System.arraycopy(orbCells, orbIndex + 1, resultOrbCells, orbIndex, orbCount - orbIndex - 1);
+            result = orbCount - 1;
+        }
+        else
+        {
+            if (orbCells != resultOrbCells)
+            {
+                System.arraycopy(orbCells, 0, resultOrbCells, 0, orbCount);
+            }
+            RoomLayout.replaceOrbCell(resultOrbCells, orbCount, orbIndex, RoomLayout.getMoveResultEndCell(moveResult));
+            result = orbCount;
+        }
+        return result;
+    }
+
+    /**
+     * Replace the {@link RoomObject#Orb} cell at the provided index with the provided cell, and
+     * keep the {@link RoomObject#Orb} cells sorted in ascending order.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param orbIndex The index in orbCells of the {@link RoomObject#Orb} cell to replace.
+     * @param cell The new cell.
+     */
+    public static void replaceOrbCell(int[] orbCells, int orbCount, int orbIndex, int cell)
+    {
+        int index = orbIndex;
+        while (index > 0 && orbCells[index - 1] > cell)
+        {
+            orbCells[index] = orbCells[index - 1];
+            --index;
+        }
+        while (index < orbCount - 1 && orbCells[index + 1] < cell)
+        {
+            orbCells[index] = orbCells[index + 1];
+            ++index;
+        }
+        orbCells[index] = cell;
+    }
+
+    /**
+     * Insert the provided cell into the provided sorted {@link RoomObject#Orb} cells.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s. This array must have
+     *                 room for one more cell.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param cell The cell to insert.
+     * @return The new number of {@link RoomObject#Orb} cells.
+     */
+    public static int insertOrbCell(int[] orbCells, int orbCount, int cell)
+    {
+        int index = orbCount;
+        while (index > 0 && orbCells[index - 1] > cell)
+        {
+            orbCells[index] = orbCells[index - 1];
+            --index;
+        }
+        orbCells[index] = cell;
+        return orbCount + 1;
+    }
+
+    /**
+     * Get the index of the {@link RoomObject#BreakableBlock} that is broken by the provided move
+     * result.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)} that breaks a block.
+     * @param direction The direction of the move.
+     */
+    public int getMoveResultBrokenBlockIndex(int moveResult, int direction)
+    {
+        PreCondition.assertTrue(RoomLayout.getMoveResultBreaksBlock(moveResult), "RoomLayout.getMoveResultBreaksBlock(moveResult)");
+
+        return this.breakableBlockIndexes[this.getNeighborCell(RoomLayout.getMoveResultEndCell(moveResult), direction)];
+    }
+
+    /**
+     * Get the mask of broken {@link RoomObject#BreakableBlock}s after the provided move result.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s before the move.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     * @param direction The direction of the move.
+     */
+    public long getNextBrokenBlocks(long brokenBlocks, int moveResult, int direction)
+    {
+        PreCondition.assertNotEqual(RoomLayout.noMove, moveResult, "moveResult");
+
+        return RoomLayout.getMoveResultBreaksBlock(moveResult)
+            ? brokenBlocks | (1L << this.getMoveResultBrokenBlockIndex(moveResult, direction))
+            : brokenBlocks;
+    }
+
+    /**
+     * Create the {@link Move} that is described by the provided start cell, direction, and move
+     * result.
+     * @param startCell The cell of the {@link RoomObject#Orb} that was pushed.
+     * @param moveResult A move result from
+     * {@link #getMoveResult(int[], int, long, int, int)}.
+     */
+    public Move createMove(int startCell, int moveResult)
+    {
+        PreCondition.assertNotEqual(RoomLayout.noMove, moveResult, "moveResult");
+
+        final Move result = Move.create()
+            .setStartLocation(this.getCellLocation(startCell))
+            .setEndLocation(this.getCellLocation(RoomLayout.getMoveResultEndCell(moveResult)));
+        if (RoomLayout.getMoveResultEndsInGoal(moveResult))
+        {
+            result.setEndLocationIsGoal(true);
+        }
+        if (RoomLayout.getMoveResultBreaksBlock(moveResult))
+        {
+            result.setBlockBroken(true);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the direction of the provided {@link Move}.
+     * @param move The {@link Move} to get the direction of.
+     */
+    public static int getDirection(Move move)
+    {
+        PreCondition.assertNotNull(move, "move");
+
+        final Point2Integer startLocation = move.getStartLocation();
+        final Point2Integer endLocation = move.getEndLocation();
+        final int xDifference = endLocation.getXAsInt() - startLocation.getXAsInt();
+        final int yDifference = endLocation.getYAsInt() - startLocation.getYAsInt();
+        return xDifference > 0 ? RoomLayout.rightDirection
+            : xDifference < 0 ? RoomLayout.leftDirection
+            : yDifference < 0 ? RoomLayout.upDirection
+            : RoomLayout.downDirection;
+    }
+
+    /**
+     * Get whether the provided {@link Room} has this static layout and all of its
+     * {@link RoomObject#Orb}s are in open cells of this layout. {@link RoomObject#BreakableBlock}s
+     * from this layout that are missing from the {@link Room} are treated as broken.
+     * @param room The {@link Room} to check.
+     */
+    public boolean isLayoutOf(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        boolean result = (room.getRoomObjectCount(RoomObject.Block) == this.blockCount &&
+            room.getRoomObjectCount(RoomObject.Goal) == this.goalCells.length);
+        if (result)
+        {
+            for (final RoomObject roomObject : RoomObject.values())
+            {
+                for (final Point2Integer location : room.iterateRoomObjectLocations(roomObject))
+                {
+                    final int cell = this.getCellIndex(location);
+                    if (cell == -1 ||
+                        (roomObject == RoomObject.Orb
+                            ? this.staticObjects[cell] == RoomObject.Block || this.staticObjects[cell] == RoomObject.Goal
+                            : this.staticObjects[cell] != roomObject))
+                    {
+                        result = false;
+                        break;
+                    }
+                }
+
+                if (!result)
+                {
+                    break;
+                }
+            }
+        }
+
+        if (result)
+        {
+            final long brokenBlocks = this.getBrokenBlocks(room);
+            for (final Point2Integer orbLocation : room.iterateRoomObjectLocations(RoomObject.Orb))
+            {
+                if (!this.isOpenCell(this.getCellIndex(orbLocation), brokenBlocks))
+                {
+                    result = false;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the mask of this layout's {@link RoomObject#BreakableBlock}s that are missing from the
+     * provided {@link Room}.
+     * @param room A {@link Room} that has this layout.
+     */
+    public long getBrokenBlocks(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertLessThanOrEqualTo(this.getBreakableBlockCount(), Long.SIZE, "this.getBreakableBlockCount()");
+
+        long result = this.getBreakableBlockCount() == Long.SIZE ? -1L : (1L << this.getBreakableBlockCount()) - 1;
+        for (final Point2Integer location : room.iterateRoomObjectLocations(RoomObject.BreakableBlock))
+        {
+            final int breakableBlockIndex = this.breakableBlockIndexes[this.getCellIndex(location)];
+            result &= ~(1L << breakableBlockIndex);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the cells of the provided {@link Room}'s {@link RoomObject#Orb}s, sorted in ascending
+     * order.
+     * @param room A {@link Room} that has this layout.
+     */
+    public int[] getOrbCells(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final int[] result = new int[room.getRoomObjectCount(RoomObject.Orb)];
+        int orbIndex = 0;
+        for (final Point2Integer orbLocation : room.iterateRoomObjectLocations(RoomObject.Orb))
+        {
+            result[orbIndex] = this.getCellIndex(orbLocation);
+            ++orbIndex;
+        }
+        java.util.Arrays.sort(result);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Create a {@link Room} with this layout, the provided {@link RoomObject#Orb}s, and the
+     * provided broken {@link RoomObject#BreakableBlock}s.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     */
+    public Room createRoom(int[] orbCells, int orbCount, long brokenBlocks)
+    {
+        PreCondition.assertNotNull(orbCells, "orbCells");
+        PreCondition.assertBetween(0, orbCount, orbCells.length, "orbCount");
+
+        final RoomBuilder builder = RoomBuilder.create();
+        for (int cell = 0; cell < this.staticObjects.length; ++cell)
+        {
+            final RoomObject staticObject = this.staticObjects[cell];
+            if (staticObject != null &&
+                (staticObject != RoomObject.BreakableBlock || !RoomLayout.isBlockBroken(brokenBlocks, this.breakableBlockIndexes[cell])))
+            {
+                builder.add(staticObject, this.getCellLocation(cell));
+            }
+        }
+        for (int i = 0; i < orbCount; ++i)
+        {
+            builder.add(RoomObject.Orb, this.getCellLocation(orbCells[i]));
+        }
+        final Room result = builder.build();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object rhs)
+    {
+        return rhs instanceof RoomLayout && this.equals((RoomLayout)rhs);
+    }
+
+    public boolean equals(RoomLayout rhs)
+    {
+        return rhs != null &&
+            this.left == rhs.left &&
+            this.top == rhs.top &&
+            this.width == rhs.width &&
+            this.height == rhs.height &&
+            java.util.Arrays.equals(this.staticObjects, rhs.staticObjects);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return java.util.Arrays.hashCode(this.staticObjects) * 31 + this.width;
+    }
+}
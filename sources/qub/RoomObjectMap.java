@@ -0,0 +1,351 @@
+package qub;
+
+/**
+ * A map from (x, y) locations to {@link RoomObject}s that doesn't allocate when it is queried.
+ * Each location is packed into a long key, and the keys and the {@link RoomObject}s are stored in
+ * parallel primitive arrays in the order that they were added. An index of those entries is
+ * searched with linear probing. Since a location can have any coordinates, this works for rooms
+ * that have no bounds.
+ */
+public class RoomObjectMap
+{
+    private static final RoomObject[] roomObjects = RoomObject.values();
+    private static final int minimumSlotCount = 8;
+
+    private long[] keys;
+    /**
+     * The ordinal plus one of the {@link RoomObject} in each slot, or zero for a slot whose entry
+     * was removed.
+     */
+    private byte[] values;
+    /**
+     * The slot plus one of each entry in the probe sequences of the keys, or zero for an empty
+     * index.
+     */
+    private int[] slotIndex;
+    private int slotCount;
+    private int count;
+
+    private RoomObjectMap(int capacity)
+    {
+        this.keys = new long[capacity];
+        this.values = new byte[capacity];
+        this.slotIndex = new int[capacity * 2];
+    }
+
+    /**
+     * Create a new empty {@link RoomObjectMap}.
+     */
+    public static RoomObjectMap create()
+    {
+        return new RoomObjectMap(RoomObjectMap.minimumSlotCount);
+    }
+
+    /**
+     * Create a new empty {@link RoomObjectMap} that can hold the provided number of entries
+     * without being resized.
+     * @param capacity The number of entries to make room for.
+     */
+    public static RoomObjectMap create(int capacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(capacity, 0, "capacity");
+
+        int slotCount = RoomObjectMap.minimumSlotCount;
+        while (slotCount < capacity)
+        {
+            slotCount *= 2;
+        }
+        return new RoomObjectMap(slotCount);
+    }
+
+    /**
+     * Pack the provided location into a single long. Packed locations sort in the same order as
+     * their locations do when the locations are sorted by y and then by x.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     */
+    public static long packLocation(int x, int y)
+    {
+        return ((long)y << 32) | ((x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the x-coordinate of the provided packed location.
+     * @param packedLocation The location that was packed by {@link #packLocation(int, int)}.
+     */
+    public static int getPackedX(long packedLocation)
+    {
+        return ((int)packedLocation) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Get the y-coordinate of the provided packed location.
+     * @param packedLocation The location that was packed by {@link #packLocation(int, int)}.
+     */
+    public static int getPackedY(long packedLocation)
+    {
+        return (int)(packedLocation >> 32);
+    }
+
+    /**
+     * Get the number of locations that have a {@link RoomObject} in this map.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the {@link RoomObject} at the provided location, or null if the location is empty.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     */
+    public RoomObject get(int x, int y)
+    {
+        final int slot = this.slotIndex[this.findIndex(RoomObjectMap.packLocation(x, y))] - 1;
+        return slot == -1 ? null : RoomObjectMap.roomObjects[this.values[slot] - 1];
+    }
+
+    /**
+     * Get whether the provided location has a {@link RoomObject}.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     */
+    public boolean contains(int x, int y)
+    {
+        return this.slotIndex[this.findIndex(RoomObjectMap.packLocation(x, y))] != 0;
+    }
+
+    /**
+     * Set the {@link RoomObject} at the provided location. A location that was empty is added
+     * after every other entry.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     * @param roomObject The {@link RoomObject} to put at the location.
+     * @return The {@link RoomObject} that was at the location before, or null if it was empty.
+     */
+    public RoomObject set(int x, int y, RoomObject roomObject)
+    {
+        PreCondition.assertNotNull(roomObject, "roomObject");
+
+        final long key = RoomObjectMap.packLocation(x, y);
+        int index = this.findIndex(key);
+        RoomObject result = null;
+        if (this.slotIndex[index] != 0)
+        {
+            final int slot = this.slotIndex[index] - 1;
+            result = RoomObjectMap.roomObjects[this.values[slot] - 1];
+            this.values[slot] = (byte)(roomObject.ordinal() + 1);
+        }
+        else
+        {
+            if (this.slotCount == this.keys.length)
+            {
+                this.resize(this.count < this.keys.length / 2 ? this.keys.length : this.keys.length * 2);
+                index = this.findIndex(key);
+            }
+            this.keys[this.slotCount] = key;
+            this.values[this.slotCount] = (byte)(roomObject.ordinal() + 1);
+            this.slotIndex[index] = ++this.slotCount;
+            ++this.count;
+        }
+
+        return result;
+    }
+
+    /**
+     * Remove the {@link RoomObject} at the provided location.
+     * @param x The x-coordinate of the location.
+     * @param y The y-coordinate of the location.
+     * @return The {@link RoomObject} that was removed, or null if the location was empty.
+     */
+    public RoomObject remove(int x, int y)
+    {
+        int index = this.findIndex(RoomObjectMap.packLocation(x, y));
+        RoomObject result = null;
+        if (this.slotIndex[index] != 0)
+        {
+            final int slot = this.slotIndex[index] - 1;
+            result = RoomObjectMap.roomObjects[this.values[slot] - 1];
+            this.values[slot] = 0;
+            --this.count;
+
+            // Shift the following entries in the probe sequence back so that no empty index is
+            // left between an entry and the index that its key hashes to.
+            final int mask = this.slotIndex.length - 1;
+            int nextIndex = index;
+            while (true)
+            {
+                nextIndex = (nextIndex + 1) & mask;
+                if (this.slotIndex[nextIndex] == 0)
+                {
+                    break;
+                }
+
+                final int homeIndex = RoomObjectMap.getHomeIndex(this.keys[this.slotIndex[nextIndex] - 1], mask);
+                if (((nextIndex - homeIndex) & mask) >= ((nextIndex - index) & mask))
+                {
+                    this.slotIndex[index] = this.slotIndex[nextIndex];
+                    index = nextIndex;
+                }
+            }
+            this.slotIndex[index] = 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the number of slots in this map. Slots are used with {@link #getSlotRoomObject(int)},
+     * {@link #getSlotX(int)}, and {@link #getSlotY(int)} to visit every entry in the order that
+     * they were added without allocating. Any change to this map can move its entries to
+     * different slots.
+     */
+    public int getSlotCount()
+    {
+        return this.slotCount;
+    }
+
+    /**
+     * Get the {@link RoomObject} in the provided slot, or null if the slot's entry was removed.
+     * @param slot The index of the slot.
+     */
+    public RoomObject getSlotRoomObject(int slot)
+    {
+        return this.values[slot] == 0 ? null : RoomObjectMap.roomObjects[this.values[slot] - 1];
+    }
+
+    /**
+     * Get the x-coordinate of the location in the provided slot.
+     * @param slot The index of a slot that has a {@link RoomObject}.
+     */
+    public int getSlotX(int slot)
+    {
+        return RoomObjectMap.getPackedX(this.keys[slot]);
+    }
+
+    /**
+     * Get the y-coordinate of the location in the provided slot.
+     * @param slot The index of a slot that has a {@link RoomObject}.
+     */
+    public int getSlotY(int slot)
+    {
+        return RoomObjectMap.getPackedY(this.keys[slot]);
+    }
+
+    /**
+     * Get the packed locations of every entry in this map, sorted by y and then by x.
+     */
+    public long[] getSortedLocations()
+    {
+        final long[] result = new long[this.count];
+        int resultIndex = 0;
+        for (int slot = 0; slot < this.slotCount; ++slot)
+        {
+            if (this.values[slot] != 0)
+            {
+                result[resultIndex++] = this.keys[slot];
+            }
+        }
+        java.util.Arrays.sort(result);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private static int getHomeIndex(long key, int mask)
+    {
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * Get the index that refers to the slot with the provided key, or the empty index where the
+     * key would go.
+     */
+    private int findIndex(long key)
+    {
+        final int mask = this.slotIndex.length - 1;
+        int index = RoomObjectMap.getHomeIndex(key, mask);
+        while (this.slotIndex[index] != 0 && this.keys[this.slotIndex[index] - 1] != key)
+        {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Move the entries into the first slots of new arrays with the provided capacity, which drops
+     * the slots of removed entries.
+     */
+    private void resize(int capacity)
+    {
+        final long[] oldKeys = this.keys;
+        final byte[] oldValues = this.values;
+        final int oldSlotCount = this.slotCount;
+        this.keys = new long[capacity];
+        this.values = new byte[capacity];
+        this.slotIndex = new int[capacity * 2];
+        this.slotCount = 0;
+
+        for (int oldSlot = 0; oldSlot < oldSlotCount; ++oldSlot)
+        {
+            if (oldValues[oldSlot] != 0)
+            {
+                this.keys[this.slotCount] = oldKeys[oldSlot];
+                this.values[this.slotCount] = oldValues[oldSlot];
+                this.slotIndex[this.findIndex(oldKeys[oldSlot])] = ++this.slotCount;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object rhs)
+    {
+        return rhs instanceof RoomObjectMap && this.equals((RoomObjectMap)rhs);
+    }
+
+    public boolean equals(RoomObjectMap rhs)
+    {
+        boolean result = rhs != null && this.count == rhs.count;
+        for (int slot = 0; result && slot < this.slotCount; ++slot)
+        {
+            if (this.values[slot] != 0)
+            {
+                final int rhsSlot = rhs.slotIndex[rhs.findIndex(this.keys[slot])] - 1;
+                result = rhsSlot != -1 && rhs.values[rhsSlot] == this.values[slot];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        // The entries are summed so that the hash doesn't depend on the order they were added in.
+        int result = 0;
+        for (int slot = 0; slot < this.slotCount; ++slot)
+        {
+            if (this.values[slot] != 0)
+            {
+                result += Long.hashCode(this.keys[slot] * 0x9E3779B97F4A7C15L) ^ this.values[slot];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public RoomObjectMap clone()
+    {
+        final RoomObjectMap result = new RoomObjectMap(this.keys.length);
+        System.arraycopy(this.keys, 0, result.keys, 0, this.slotCount);
+        System.arraycopy(this.values, 0, result.values, 0, this.slotCount);
+        System.arraycopy(this.slotIndex, 0, result.slotIndex, 0, this.slotIndex.length);
+        result.slotCount = this.slotCount;
+        result.count = this.count;
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package qub;
+
+/**
+ * Plays a sequence of {@link Move}s back on the rendered characters of a {@link Room}. The
+ * {@link Room} is rendered once, and then each {@link Move} only patches the cells that it changes,
+ * so playing back a solution costs time proportional to the number of {@link Move}s instead of the
+ * number of {@link Move}s times the size of the {@link Room}. Every frame keeps the bounds of the
+ * starting {@link Room}.
+ */
+public class RoomPlayback
+{
+    private final RoomCharacterGrid grid;
+    private int moveCount;
+
+    private RoomPlayback(RoomCharacterGrid grid)
+    {
+        this.grid = grid;
+    }
+
+    /**
+     * Create a new {@link RoomPlayback} that starts from the provided {@link Room}.
+     * @param room The {@link Room} to start from.
+     */
+    public static RoomPlayback create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return new RoomPlayback(room.toCharacterGrid());
+    }
+
+    /**
+     * Get the {@link RoomCharacterGrid} that is patched in place as {@link Move}s are applied.
+     */
+    public RoomCharacterGrid getGrid()
+    {
+        return this.grid;
+    }
+
+    /**
+     * Get the number of {@link Move}s that have been applied.
+     */
+    public int getMoveCount()
+    {
+        return this.moveCount;
+    }
+
+    /**
+     * Apply the provided {@link Move} to the rendered characters.
+     * @param move The {@link Move} to apply.
+     * @return This object for method chaining.
+     */
+    public RoomPlayback applyMove(Move move)
+    {
+        return this.applyMove(move, (Point2Integer location, Character character) -> {});
+    }
+
+    /**
+     * Apply the provided {@link Move} to the rendered characters.
+     * @param move The {@link Move} to apply.
+     * @param onCellChanged The action that is run with the location and new character of each cell
+     *                      that the {@link Move} changes.
+     * @return This object for method chaining.
+     */
+    public RoomPlayback applyMove(Move move, Action2<Point2Integer,Character> onCellChanged)
+    {
+        PreCondition.assertNotNull(move, "move");
+        PreCondition.assertNotNull(onCellChanged, "onCellChanged");
+        PreCondition.assertEqual('o', this.grid.get(move.getStartLocation()), "this.getGrid().get(move.getStartLocation())");
+
+        final Point2Integer startLocation = move.getStartLocation();
+        this.grid.set(startLocation, null);
+        onCellChanged.run(startLocation, ' ');
+
+        if (!move.getEndLocationIsGoal())
+        {
+            final Point2Integer endLocation = move.getEndLocation();
+            this.grid.set(endLocation, RoomObject.Orb);
+            onCellChanged.run(endLocation, 'o');
+
+            if (move.getBlockBroken())
+            {
+                final Point2Integer brokenBlockLocation = move.getBrokenBlockLocation();
+                PreCondition.assertEqual('X', this.grid.get(brokenBlockLocation), "this.getGrid().get(move.getBrokenBlockLocation())");
+
+                this.grid.set(brokenBlockLocation, null);
+                onCellChanged.run(brokenBlockLocation, ' ');
+            }
+        }
+
+        ++this.moveCount;
+
+        return this;
+    }
+
+    /**
+     * Apply each of the provided {@link Move}s in order.
+     * @param moves The {@link Move}s to apply.
+     * @param onMoveApplied The action that is run after each {@link Move} is applied. The
+     *                      {@link RoomCharacterGrid} has already been patched when it runs.
+     * @return This object for method chaining.
+     */
+    public RoomPlayback applyMoves(Iterable<Move> moves, Action1<Move> onMoveApplied)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+        PreCondition.assertNotNull(onMoveApplied, "onMoveApplied");
+
+        for (final Move move : moves)
+        {
+            this.applyMove(move);
+            onMoveApplied.run(move);
+        }
+
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.grid.toString();
+    }
+}
@@ -0,0 +1,534 @@
+package qub;
+
+/**
+ * A long-running solver that reads {@link Room}s one per line and writes each solution as soon as
+ * it is found. Requests are solved concurrently, and the {@link StopPositionGraph} and
+ * {@link PatternDatabase} of each layout are cached between requests, so a request that reuses a
+ * layout only pays for its own search. {@link Room}s that are too large for a
+ * {@link PatternDatabase} or that have too many {@link RoomObject#BreakableBlock}s for the packed
+ * states are solved with {@link Room#findSolution()} instead, without caching.
+ *
+ * Each request line is one of these forms:
+ * <ul>
+ *     <li>A text grid: the rendered cells of the {@link Room} without the border, with rows
+ *     separated by '/' characters. For example, "o  G/ B  ".</li>
+ *     <li>A binary grid: "b64:" followed by the Base64 encoding of the width and the height as
+ *     unsigned variable-length integers, and then one byte for each cell in row-major order. The
+ *     byte is 0 for an empty cell, and otherwise the {@link RoomObject}'s ordinal plus one.</li>
+ * </ul>
+ * The top-left cell of a request is at (0, 0).
+ *
+ * Each response line starts with the number of the request line that it answers, counting from 1,
+ * followed by a space and either the solution in the JSON format of {@link MoveSequenceCodec} or
+ * "error" and a message. Responses are written in the order that they finish. Blank request lines
+ * are counted but don't get a response.
+ */
+public class RoomSolverServer
+{
+    private static final String binaryRequestPrefix = "b64:";
+    private static final String errorResponsePrefix = "error ";
+
+    private final java.util.LinkedHashMap<RoomLayout,RoomSolverTables> layoutCache;
+    private int threadCount;
+    private long layoutCacheByteCapacity;
+
+    private RoomSolverServer()
+    {
+        this.layoutCache = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        this.threadCount = Runtime.getRuntime().availableProcessors();
+        this.layoutCacheByteCapacity = 256L * 1024 * 1024;
+    }
+
+    /**
+     * Create a new {@link RoomSolverServer}.
+     */
+    public static RoomSolverServer create()
+    {
+        return new RoomSolverServer();
+    }
+
+    /**
+     * Solve the {@link Room}s that are read from the standard input stream and write their
+     * solutions to the standard output stream until the standard input stream ends.
+     * @param args The command line arguments, which are ignored.
+     */
+    public static void main(String[] args)
+    {
+        RoomSolverServer.create().serve(System.in, System.out).await();
+    }
+
+    /**
+     * Set the number of requests that can be solved at the same time.
+     * @param threadCount The number of requests that can be solved at the same time.
+     * @return This object for method chaining.
+     */
+    public RoomSolverServer setThreadCount(int threadCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(threadCount, 1, "threadCount");
+
+        this.threadCount = threadCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of requests that can be solved at the same time.
+     */
+    public int getThreadCount()
+    {
+        return this.threadCount;
+    }
+
+    /**
+     * Set the number of table bytes that can be kept between requests. The tables of a layout are
+     * its {@link StopPositionGraph} and {@link PatternDatabase}s. A {@link PatternDatabase} takes
+     * up about half of the square of its layout's cell count in bytes, so a few large layouts can
+     * take up as much memory as many small ones. When the cached tables take up more than this,
+     * the layouts that were used least recently are dropped, and a {@link PatternDatabase} that
+     * wouldn't fit by itself isn't kept at all.
+     * @param layoutCacheByteCapacity The number of table bytes that can be kept between requests.
+     * @return This object for method chaining.
+     */
+    public RoomSolverServer setLayoutCacheByteCapacity(long layoutCacheByteCapacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(layoutCacheByteCapacity, 0, "layoutCacheByteCapacity");
+
+        synchronized (this.layoutCache)
+        {
+            this.layoutCacheByteCapacity = layoutCacheByteCapacity;
+            this.trimLayoutCache();
+        }
+
+        return this;
+    }
+
+    /**
+     * Get the number of table bytes that can be kept between requests.
+     */
+    public long getLayoutCacheByteCapacity()
+    {
+        return this.layoutCacheByteCapacity;
+    }
+
+    /**
+     * Get the number of bytes that the cached tables take up.
+     */
+    public long getCachedByteCount()
+    {
+        synchronized (this.layoutCache)
+        {
+            return this.getCachedByteCountLocked();
+        }
+    }
+
+    /**
+     * Get the number of layouts whose tables are currently cached.
+     */
+    public int getCachedLayoutCount()
+    {
+        synchronized (this.layoutCache)
+        {
+            return this.layoutCache.size();
+        }
+    }
+
+    /**
+     * Get the text grid request line of the provided {@link Room}.
+     * @param room The {@link Room} to get the request line of.
+     */
+    public static String toTextRequest(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomCharacterGrid grid = room.toCharacterGrid();
+        final StringBuilder builder = new StringBuilder();
+        for (int y = grid.getTop(); y < grid.getTop() + grid.getHeight(); ++y)
+        {
+            if (y != grid.getTop())
+            {
+                builder.append('/');
+            }
+            for (int x = grid.getLeft(); x < grid.getLeft() + grid.getWidth(); ++x)
+            {
+                builder.append(grid.get(x, y));
+            }
+        }
+        final String result = builder.toString();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the binary grid request line of the provided {@link Room}.
+     * @param room The {@link Room} to get the request line of.
+     */
+    public static String toBinaryRequest(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomCharacterGrid grid = room.toCharacterGrid();
+        final java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        RoomSolverServer.writeVariableLengthInteger(grid.getWidth(), bytes);
+        RoomSolverServer.writeVariableLengthInteger(grid.getHeight(), bytes);
+        for (int y = grid.getTop(); y < grid.getTop() + grid.getHeight(); ++y)
+        {
+            for (int x = grid.getLeft(); x < grid.getLeft() + grid.getWidth(); ++x)
+            {
+                final RoomObject roomObject = room.getRoomObjectOrNull(x, y);
+                bytes.write(roomObject == null ? 0 : roomObject.ordinal() + 1);
+            }
+        }
+        final String result = RoomSolverServer.binaryRequestPrefix + java.util.Base64.getEncoder().encodeToString(bytes.toByteArray());
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Parse the {@link Room} from the provided request line.
+     * @param line The text grid or binary grid request line to parse.
+     */
+    public static Result<Room> parseRequest(String line)
+    {
+        PreCondition.assertNotNull(line, "line");
+
+        return Result.create(() ->
+        {
+            final RoomBuilder builder = RoomBuilder.create();
+            if (line.startsWith(RoomSolverServer.binaryRequestPrefix))
+            {
+                final byte[] bytes;
+                try
+                {
+                    bytes = java.util.Base64.getDecoder().decode(line.substring(RoomSolverServer.binaryRequestPrefix.length()).trim());
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ParseException("The binary room request is not valid Base64.");
+                }
+
+                final java.io.ByteArrayInputStream stream = new java.io.ByteArrayInputStream(bytes);
+                final int width = RoomSolverServer.readVariableLengthInteger(stream);
+                final int height = RoomSolverServer.readVariableLengthInteger(stream);
+                if ((long)width * height != stream.available())
+                {
+                    throw new ParseException("The binary room request has " + stream.available() + " cell bytes, but its " + width + "x" + height + " size needs " + ((long)width * height) + ".");
+                }
+
+                final RoomObject[] roomObjects = RoomObject.values();
+                for (int y = 0; y < height; ++y)
+                {
+                    for (int x = 0; x < width; ++x)
+                    {
+                        final int cellByte = stream.read();
+                        if (roomObjects.length < cellByte)
+                        {
+                            throw new ParseException("Unrecognized room object byte: " + cellByte + ".");
+                        }
+                        else if (cellByte != 0)
+                        {
+                            builder.add(roomObjects[cellByte - 1], x, y);
+                        }
+                    }
+                }
+            }
+            else
+            {
+                builder.addRows(line.split("/", -1));
+            }
+            final Room result = builder.build();
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Find a shortest solution to the provided {@link Room} with the cached tables of its layout.
+     * @param room The {@link Room} to solve.
+     */
+    public Result<Iterable<Move>> solve(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return Result.create(() ->
+        {
+            if (room.getRoomObjectCount(RoomObject.BreakableBlock) > Long.SIZE || RoomLayout.getCellCount(room) > PatternDatabase.maximumCellCount)
+            {
+                return room.clone().findSolution().await();
+            }
+
+            final RoomSolverTables tables = this.getTables(RoomLayout.create(room));
+            final int orbCount = room.getRoomObjectCount(RoomObject.Orb);
+            final PatternDatabase patternDatabase = tables.getPatternDatabase(orbCount, this.layoutCacheByteCapacity);
+            synchronized (this.layoutCache)
+            {
+                // The PatternDatabase may have just been created, so the cache may be too big now.
+                this.trimLayoutCache();
+            }
+            return AStarSearch.create(room, tables.getGraph())
+                .setHeuristic(patternDatabase.getAdditiveScorer())
+                .findSolution()
+                .await();
+        });
+    }
+
+    /**
+     * Solve the {@link Room}s that are read from the provided {@link java.io.InputStream} and
+     * write their solutions to the provided {@link java.io.OutputStream} until the
+     * {@link java.io.InputStream} ends. All of the requests are answered before this returns.
+     * @param input The {@link java.io.InputStream} to read request lines from.
+     * @param output The {@link java.io.OutputStream} to write response lines to.
+     */
+    public Result<Void> serve(java.io.InputStream input, java.io.OutputStream output)
+    {
+        PreCondition.assertNotNull(input, "input");
+        PreCondition.assertNotNull(output, "output");
+
+        return Result.create(() ->
+        {
+            final java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(input, java.nio.charset.StandardCharsets.UTF_8));
+            final java.io.Writer writer = new java.io.BufferedWriter(new java.io.OutputStreamWriter(output, java.nio.charset.StandardCharsets.UTF_8));
+            final java.util.concurrent.atomic.AtomicReference<java.io.IOException> writeException = new java.util.concurrent.atomic.AtomicReference<>();
+            final java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(this.threadCount);
+            try
+            {
+                int requestNumber = 0;
+                String line = reader.readLine();
+                while (line != null)
+                {
+                    ++requestNumber;
+                    if (!line.trim().isEmpty())
+                    {
+                        final String requestLine = line;
+                        final int responseNumber = requestNumber;
+                        executor.execute(() ->
+                        {
+                            final String response = responseNumber + " " + this.getResponse(requestLine);
+                            synchronized (writer)
+                            {
+                                try
+                                {
+                                    writer.write(response);
+                                    writer.write('\n');
+                                    writer.flush();
+                                }
+                                catch (java.io.IOException e)
+                                {
+                                    writeException.compareAndSet(null, e);
+                                }
+                            }
+                        });
+                    }
+                    line = reader.readLine();
+                }
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+            finally
+            {
+                executor.shutdown();
+                boolean interrupted = false;
+                while (!executor.isTerminated())
+                {
+                    try
+                    {
+                        executor.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (writeException.get() != null)
+            {
+                throw new java.io.UncheckedIOException(writeException.get());
+            }
+        });
+    }
+
+    /**
+     * Get the response to the provided request line, without its request number.
+     */
+    private String getResponse(String requestLine)
+    {
+        String result;
+        try
+        {
+            final Room room = RoomSolverServer.parseRequest(requestLine).await();
+            result = MoveSequenceCodec.toJson(this.solve(room).await());
+        }
+        catch (RuntimeException e)
+        {
+            result = RoomSolverServer.errorResponsePrefix + RoomSolverServer.getErrorMessage(e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the message of the provided error as a single line, or the name of the error's class if
+     * it doesn't have a message.
+     */
+    static String getErrorMessage(Throwable error)
+    {
+        final String message = error.getMessage();
+        return message == null || message.isEmpty()
+            ? error.getClass().getSimpleName()
+            : message.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private RoomSolverTables getTables(RoomLayout layout)
+    {
+        RoomSolverTables result;
+        synchronized (this.layoutCache)
+        {
+            result = this.layoutCache.get(layout);
+        }
+
+        if (result == null)
+        {
+            final RoomSolverTables tables = new RoomSolverTables(StopPositionGraph.create(layout));
+            synchronized (this.layoutCache)
+            {
+                result = this.layoutCache.get(layout);
+                if (result == null)
+                {
+                    result = tables;
+                    this.layoutCache.put(layout, tables);
+                    this.trimLayoutCache();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private long getCachedByteCountLocked()
+    {
+        long result = 0;
+        for (final RoomSolverTables tables : this.layoutCache.values())
+        {
+            result += tables.getByteCount();
+        }
+        return result;
+    }
+
+    /**
+     * Drop the least recently used layouts until the cached tables fit in the byte capacity.
+     */
+    private void trimLayoutCache()
+    {
+        long byteCount = this.getCachedByteCountLocked();
+        final java.util.Iterator<RoomSolverTables> layoutTables = this.layoutCache.values().iterator();
+        while (layoutTables.hasNext() && byteCount > this.layoutCacheByteCapacity)
+        {
+            byteCount -= layoutTables.next().getByteCount();
+            layoutTables.remove();
+        }
+    }
+
+    private static void writeVariableLengthInteger(int value, java.io.ByteArrayOutputStream stream)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            stream.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.write(value);
+    }
+
+    private static int readVariableLengthInteger(java.io.ByteArrayInputStream stream)
+    {
+        int result = 0;
+        int shift = 0;
+        while (true)
+        {
+            final int nextByte = stream.read();
+            if (nextByte == -1)
+            {
+                throw new ParseException("The binary room request ended unexpectedly.");
+            }
+            else if (shift > 28)
+            {
+                throw new ParseException("The binary room request contains an integer that is too large.");
+            }
+
+            result |= (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0)
+            {
+                break;
+            }
+            shift += 7;
+        }
+        return result;
+    }
+
+    /**
+     * The tables of a layout that are kept between requests.
+     */
+    private static class RoomSolverTables
+    {
+        private final StopPositionGraph graph;
+        private final PatternDatabase[] patternDatabases;
+        private volatile long byteCount;
+
+        private RoomSolverTables(StopPositionGraph graph)
+        {
+            this.graph = graph;
+            this.patternDatabases = new PatternDatabase[4];
+            this.byteCount = graph.getByteCount();
+        }
+
+        private StopPositionGraph getGraph()
+        {
+            return this.graph;
+        }
+
+        /**
+         * Get the number of bytes that the {@link StopPositionGraph} and the kept
+         * {@link PatternDatabase}s take up. This doesn't wait for a {@link PatternDatabase} that
+         * is being created.
+         */
+        private long getByteCount()
+        {
+            return this.byteCount;
+        }
+
+        /**
+         * Get the {@link PatternDatabase} for {@link Room}s with the provided number of
+         * {@link RoomObject#Orb}s. A {@link PatternDatabase} only depends on whether there are more
+         * {@link RoomObject#Orb}s than its patterns have, so every count from 3 up shares one. A
+         * {@link PatternDatabase} that doesn't fit in the provided byte capacity along with the
+         * {@link StopPositionGraph} isn't kept, since it would be dropped from the cache as soon as
+         * it was added.
+         */
+        private synchronized PatternDatabase getPatternDatabase(int orbCount, long byteCapacity)
+        {
+            final int index = Math.min(orbCount, this.patternDatabases.length - 1);
+            PatternDatabase result = this.patternDatabases[index];
+            if (result == null)
+            {
+                final RoomLayout layout = this.graph.getLayout();
+                result = PatternDatabase.create(layout, index);
+                if (this.graph.getByteCount() + PatternDatabase.getByteCount(layout, index) <= byteCapacity)
+                {
+                    this.patternDatabases[index] = result;
+                    this.byteCount += result.getByteCount();
+                }
+            }
+            return result;
+        }
+    }
+}
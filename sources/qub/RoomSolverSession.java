@@ -0,0 +1,636 @@
+package qub;
+
+/**
+ * A solver that is tied to a {@link Room} and keeps its search data between calls to
+ * {@link #findSolution()}, so that the {@link Room} can be edited and solved again without
+ * starting over.
+ *
+ * For each static layout, the session keeps every state that it has reached along with the exact
+ * number of moves that the state needs to be solved. Every next state of a kept state is also kept,
+ * so a kept distance never depends on a state that hasn't been reached. When only
+ * {@link RoomObject#Orb}s are moved, the layout is unchanged: if the new start state is already
+ * kept its solution is read from the kept distances, and otherwise only the states that haven't
+ * been reached yet are searched. When a static {@link RoomObject} is moved, the layout changes
+ * and the session switches to the kept states of the new layout. Edits to static
+ * {@link RoomObject}s are not incremental: a layout that hasn't been kept before starts with a new
+ * {@link StopPositionGraph} and no kept states, even if the edit only touched one row and one
+ * column. Recently used layouts stay cached, so undoing an edit is cheap. A
+ * {@link RoomObject#BreakableBlock} that is missing from the {@link Room} is treated as broken, so
+ * breaking one doesn't change the layout.
+ *
+ * Keeping states is only worth it while a layout's reachable states fit in
+ * {@link #getMaxStateCount()}. When they don't, the layout remembers that it overflowed and later
+ * solves go straight to an {@link AStarSearch} with the layout's cached heuristic, until the
+ * maximum state count is raised.
+ */
+public class RoomSolverSession
+{
+    /**
+     * The distance to solve a state that can't be solved.
+     */
+    public static final int unsolvable = -1;
+
+    private final Room room;
+    private final java.util.ArrayList<RoomSolverSessionSpace> spaces;
+    private int maxStateCount;
+    private int layoutCacheCapacity;
+    private long lastExpandedStateCount;
+
+    private RoomSolverSession(Room room)
+    {
+        this.room = room;
+        this.spaces = new java.util.ArrayList<>();
+        this.maxStateCount = 1 << 20;
+        this.layoutCacheCapacity = 4;
+    }
+
+    /**
+     * Create a new {@link RoomSolverSession} that solves the provided {@link Room}. Edits to the
+     * {@link Room} are picked up by the next call to {@link #findSolution()}.
+     * @param room The {@link Room} to solve.
+     */
+    public static RoomSolverSession create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return new RoomSolverSession(room);
+    }
+
+    /**
+     * Get the {@link Room} that this session solves.
+     */
+    public Room getRoom()
+    {
+        return this.room;
+    }
+
+    /**
+     * Set the number of states that can be kept for a layout. When a search would need more
+     * states than this, its states are dropped and the {@link Room} is solved with an
+     * {@link AStarSearch} instead. Layouts that overflowed with a smaller maximum are searched
+     * again.
+     * @param maxStateCount The number of states that can be kept for a layout.
+     * @return This object for method chaining.
+     */
+    public RoomSolverSession setMaxStateCount(int maxStateCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maxStateCount, 1, "maxStateCount");
+
+        this.maxStateCount = maxStateCount;
+
+        return this;
+    }
+
+    /**
+     * Get the number of states that can be kept for a layout.
+     */
+    public int getMaxStateCount()
+    {
+        return this.maxStateCount;
+    }
+
+    /**
+     * Set the number of layouts whose states are kept. When the cache is full, the layout that
+     * was used least recently is dropped.
+     * @param layoutCacheCapacity The number of layouts whose states are kept.
+     * @return This object for method chaining.
+     */
+    public RoomSolverSession setLayoutCacheCapacity(int layoutCacheCapacity)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(layoutCacheCapacity, 1, "layoutCacheCapacity");
+
+        this.layoutCacheCapacity = layoutCacheCapacity;
+        this.trimSpaces();
+
+        return this;
+    }
+
+    /**
+     * Get the number of layouts whose states are kept.
+     */
+    public int getLayoutCacheCapacity()
+    {
+        return this.layoutCacheCapacity;
+    }
+
+    /**
+     * Get the number of states that are kept for the current layout of the {@link Room}.
+     */
+    public int getKnownStateCount()
+    {
+        final RoomSolverSessionSpace space = this.findSpace();
+        return space == null ? 0 : space.getStateCount();
+    }
+
+    /**
+     * Get the number of states that the last call to {@link #findSolution()} had to expand.
+     */
+    public long getLastExpandedStateCount()
+    {
+        return this.lastExpandedStateCount;
+    }
+
+    /**
+     * Find a shortest solution to the current contents of the {@link Room}.
+     */
+    public Result<Iterable<Move>> findSolution()
+    {
+        return Result.create(() ->
+        {
+            RoomSolverSessionSpace space = this.findSpace();
+            if (space == null)
+            {
+                final RoomLayout layout = RoomLayout.create(this.room);
+                PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+                space = new RoomSolverSessionSpace(StopPositionGraph.create(layout));
+                this.spaces.add(space);
+                this.trimSpaces();
+            }
+            final RoomLayout layout = space.getGraph().getLayout();
+
+            final int stateCountBefore = space.getStateCount();
+            final int startStateIndex = space.reach(layout.getOrbCells(this.room), layout.getBrokenBlocks(this.room), this.maxStateCount);
+            this.lastExpandedStateCount = space.getStateCount() - stateCountBefore;
+
+            final Iterable<Move> result;
+            if (startStateIndex == -1)
+            {
+                this.lastExpandedStateCount = 0;
+                result = AStarSearch.create(this.room, space.getGraph())
+                    .setHeuristic(space.getHeuristic(this.room.getRoomObjectCount(RoomObject.Orb)))
+                    .findSolution()
+                    .await();
+            }
+            else if (space.getDistanceToSolve(startStateIndex) == RoomSolverSession.unsolvable)
+            {
+                throw new NotFoundException("No solution exists for the provided room.");
+            }
+            else
+            {
+                result = space.getSolution(startStateIndex);
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Get the most recently used kept layout that the {@link Room} currently has, and mark it as
+     * the most recently used layout. Return null if no kept layout matches.
+     */
+    private RoomSolverSessionSpace findSpace()
+    {
+        RoomSolverSessionSpace result = null;
+        for (int i = this.spaces.size() - 1; 0 <= i; --i)
+        {
+            final RoomSolverSessionSpace space = this.spaces.get(i);
+            if (space.getGraph().getLayout().isLayoutOf(this.room))
+            {
+                result = space;
+                this.spaces.remove(i);
+                this.spaces.add(space);
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void trimSpaces()
+    {
+        while (this.spaces.size() > this.layoutCacheCapacity)
+        {
+            this.spaces.remove(0);
+        }
+    }
+
+    /**
+     * The states that have been reached in one {@link RoomLayout}. Every next state of a kept
+     * state is also kept, and every kept state has its exact distance to solve. The states are
+     * kept as packed {@link RoomStateKeyFormat} keys in one long array, ordered by state index,
+     * and an open-addressing table that is searched with linear probing maps each key back to
+     * its state index. The next states of each state are kept in one int array, with the next
+     * states of state i between nextStateStarts[i] and nextStateStarts[i + 1].
+     */
+    private static class RoomSolverSessionSpace
+    {
+        private static final int maximumArrayLength = Integer.MAX_VALUE - 8;
+        private static final int maximumTableCapacityBits = 30;
+        private static final int minimumCapacity = 16;
+
+        private final StopPositionGraph graph;
+        private final PatternDatabase[] patternDatabases;
+        private RoomStateKeyFormat keyFormat;
+        private int keyLongCount;
+        private long[] keys;
+        private int stateCount;
+        private int[] stateIndexTable;
+        private int tableCapacityBits;
+        private int[] nextStateStarts;
+        private int[] nextStateIndexes;
+        private int[] distancesToSolve;
+        private int overflowedMaxStateCount;
+        private long[] key;
+        private int[] orbCells;
+        private int[] nextOrbCells;
+
+        private RoomSolverSessionSpace(StopPositionGraph graph)
+        {
+            this.graph = graph;
+            this.nextStateStarts = new int[RoomSolverSessionSpace.minimumCapacity];
+            this.nextStateIndexes = new int[RoomSolverSessionSpace.minimumCapacity];
+            this.distancesToSolve = new int[RoomSolverSessionSpace.minimumCapacity];
+            this.patternDatabases = new PatternDatabase[4];
+            this.setMaxOrbCount(0);
+        }
+
+        private StopPositionGraph getGraph()
+        {
+            return this.graph;
+        }
+
+        private int getStateCount()
+        {
+            return this.stateCount;
+        }
+
+        private int getDistanceToSolve(int stateIndex)
+        {
+            return this.distancesToSolve[stateIndex];
+        }
+
+        /**
+         * Get the heuristic for an {@link AStarSearch} of a {@link Room} with this layout and the
+         * provided number of {@link RoomObject#Orb}s. The {@link PatternDatabase}s are kept, and
+         * like in {@link RoomSolverServer}, every count from 3 up shares one. Layouts that are too
+         * large for a {@link PatternDatabase} use the {@link RoomObject#Orb} count heuristic.
+         */
+        private RoomStateScorer getHeuristic(int orbCount)
+        {
+            final RoomStateScorer result;
+            if (this.graph.getLayout().getCellCount() > PatternDatabase.maximumCellCount)
+            {
+                result = AStarSearch.getOrbCountHeuristic();
+            }
+            else
+            {
+                final int index = Math.min(orbCount, this.patternDatabases.length - 1);
+                if (this.patternDatabases[index] == null)
+                {
+                    this.patternDatabases[index] = PatternDatabase.create(this.graph.getLayout(), index);
+                }
+                result = this.patternDatabases[index].getAdditiveScorer();
+            }
+            return result;
+        }
+
+        /**
+         * Make sure that the state with the provided {@link RoomObject#Orb} cells and broken
+         * {@link RoomObject#BreakableBlock}s and every state that can be reached from it are
+         * kept.
+         * @return The index of the provided state, or -1 if more than the provided maximum number
+         * of states would have to be kept. In that case none of the new states are kept, and
+         * states that aren't kept yet aren't searched for again until the maximum is raised.
+         */
+        private int reach(int[] startOrbCells, long startBrokenBlocks, int maxStateCount)
+        {
+            if (this.keyFormat.getMaxOrbCount() < startOrbCells.length)
+            {
+                this.setMaxOrbCount(startOrbCells.length);
+            }
+
+            this.keyFormat.pack(startOrbCells, startOrbCells.length, startBrokenBlocks, this.key, 0);
+            final int existingStateIndex = this.findStateIndex(this.key, 0);
+            if (existingStateIndex != -1)
+            {
+                return existingStateIndex;
+            }
+            else if (maxStateCount <= this.overflowedMaxStateCount)
+            {
+                return -1;
+            }
+
+            final RoomLayout layout = this.graph.getLayout();
+            final int[] orbCells = this.orbCells;
+            final int[] nextOrbCells = this.nextOrbCells;
+            final long[] nextKey = this.key;
+            final int firstNewStateIndex = this.stateCount;
+            this.addState(this.key);
+
+            // Breadth-first search from the start state. Kept states already have all of their
+            // next states, so the search doesn't go past them.
+            for (int stateIndex = firstNewStateIndex; stateIndex < this.stateCount; ++stateIndex)
+            {
+                final int orbCount = this.keyFormat.unpackOrbCells(this.keys, stateIndex * this.keyLongCount, orbCells);
+                final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(this.keys, stateIndex * this.keyLongCount);
+                final int maxNextStateCount = orbCount * RoomLayout.directionCount;
+                if (this.stateCount > maxStateCount || !this.hasRoomFor(maxNextStateCount, this.nextStateStarts[stateIndex] + (long)maxNextStateCount))
+                {
+                    this.removeStatesFrom(firstNewStateIndex);
+                    this.overflowedMaxStateCount = maxStateCount;
+                    return -1;
+                }
+
+                if (this.nextStateIndexes.length < this.nextStateStarts[stateIndex] + maxNextStateCount)
+                {
+                    this.nextStateIndexes = RoomSolverSessionSpace.grow(this.nextStateIndexes, this.nextStateStarts[stateIndex] + maxNextStateCount);
+                }
+                int nextStateEnd = this.nextStateStarts[stateIndex];
+                for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            final int nextOrbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                            final long nextBrokenBlocks = layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+                            this.keyFormat.pack(nextOrbCells, nextOrbCount, nextBrokenBlocks, nextKey, 0);
+
+                            int nextStateIndex = this.findStateIndex(nextKey, 0);
+                            if (nextStateIndex == -1)
+                            {
+                                nextStateIndex = this.stateCount;
+                                this.addState(nextKey);
+                            }
+                            this.nextStateIndexes[nextStateEnd] = nextStateIndex;
+                            ++nextStateEnd;
+                        }
+                    }
+                }
+                this.nextStateStarts[stateIndex + 1] = nextStateEnd;
+            }
+
+            this.findDistancesToSolve(firstNewStateIndex);
+
+            return firstNewStateIndex;
+        }
+
+        /**
+         * Get whether the provided number of states can be added to this space and whether the
+         * provided number of next state indexes fit in an array.
+         */
+        private boolean hasRoomFor(int newStateCount, long nextStateIndexCount)
+        {
+            final long stateCount = (long)this.stateCount + newStateCount;
+            return stateCount * this.keyLongCount <= RoomSolverSessionSpace.maximumArrayLength &&
+                !OffHeapRoomStateSet.isFull(stateCount, RoomSolverSessionSpace.maximumTableCapacityBits) &&
+                nextStateIndexCount <= RoomSolverSessionSpace.maximumArrayLength;
+        }
+
+        /**
+         * Switch to a {@link RoomStateKeyFormat} that can hold the provided number of
+         * {@link RoomObject#Orb}s and repack the kept states with it. This is needed when an
+         * {@link RoomObject#Orb} is added to the {@link Room} without changing its layout.
+         */
+        private void setMaxOrbCount(int maxOrbCount)
+        {
+            final RoomStateKeyFormat oldKeyFormat = this.keyFormat;
+            final int oldKeyLongCount = this.keyLongCount;
+            final long[] oldKeys = this.keys;
+
+            this.keyFormat = RoomStateKeyFormat.create(this.graph.getLayout(), maxOrbCount);
+            this.keyLongCount = this.keyFormat.getKeyLongCount();
+            this.keys = new long[Math.max(RoomSolverSessionSpace.minimumCapacity, this.stateCount) * this.keyLongCount];
+            this.key = new long[this.keyLongCount];
+            this.orbCells = new int[maxOrbCount];
+            this.nextOrbCells = new int[maxOrbCount];
+            for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+            {
+                final int orbCount = oldKeyFormat.unpackOrbCells(oldKeys, stateIndex * oldKeyLongCount, this.orbCells);
+                final long brokenBlocks = oldKeyFormat.unpackBrokenBlocks(oldKeys, stateIndex * oldKeyLongCount);
+                this.keyFormat.pack(this.orbCells, orbCount, brokenBlocks, this.keys, stateIndex * this.keyLongCount);
+            }
+            this.rebuildStateIndexTable();
+        }
+
+        /**
+         * Get the index of the state with the provided key, or -1 if it isn't kept.
+         */
+        private int findStateIndex(long[] key, int keyStart)
+        {
+            return this.stateIndexTable[this.findSlot(key, keyStart)] - 1;
+        }
+
+        /**
+         * Get the slot of the state index table that refers to the provided key, or the empty
+         * slot where the key would go. Used slots hold the state index plus one.
+         */
+        private int findSlot(long[] key, int keyStart)
+        {
+            final int mask = (1 << this.tableCapacityBits) - 1;
+            int slot = (int)(RoomStateKeyFormat.getKeyHash(key, keyStart, this.keyLongCount) >>> (Long.SIZE - this.tableCapacityBits));
+            while (this.stateIndexTable[slot] != 0 && !RoomStateKeyFormat.keysEqual(this.keys, (this.stateIndexTable[slot] - 1) * this.keyLongCount, key, keyStart, this.keyLongCount))
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rebuildStateIndexTable()
+        {
+            this.tableCapacityBits = OffHeapRoomStateSet.getCapacityBits(this.stateCount);
+            this.stateIndexTable = new int[1 << this.tableCapacityBits];
+            for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+            {
+                this.stateIndexTable[this.findSlot(this.keys, stateIndex * this.keyLongCount)] = stateIndex + 1;
+            }
+        }
+
+        private void addState(long[] key)
+        {
+            final int stateIndex = this.stateCount;
+            if (this.keys.length < (stateIndex + 1) * this.keyLongCount)
+            {
+                this.keys = RoomSolverSessionSpace.grow(this.keys, (stateIndex + 1) * this.keyLongCount);
+            }
+            if (this.distancesToSolve.length <= stateIndex)
+            {
+                this.distancesToSolve = RoomSolverSessionSpace.grow(this.distancesToSolve, stateIndex + 1);
+            }
+            if (this.nextStateStarts.length <= stateIndex + 1)
+            {
+                this.nextStateStarts = RoomSolverSessionSpace.grow(this.nextStateStarts, stateIndex + 2);
+            }
+
+            System.arraycopy(key, 0, this.keys, stateIndex * this.keyLongCount, this.keyLongCount);
+            this.distancesToSolve[stateIndex] = RoomSolverSession.unsolvable;
+            ++this.stateCount;
+            if (OffHeapRoomStateSet.isFull(this.stateCount, this.tableCapacityBits))
+            {
+                this.rebuildStateIndexTable();
+            }
+            else
+            {
+                this.stateIndexTable[this.findSlot(key, 0)] = stateIndex + 1;
+            }
+        }
+
+        private void removeStatesFrom(int firstRemovedStateIndex)
+        {
+            this.stateCount = firstRemovedStateIndex;
+            this.rebuildStateIndexTable();
+        }
+
+        private static int[] grow(int[] values, int minimumLength)
+        {
+            return java.util.Arrays.copyOf(values, (int)Math.min(RoomSolverSessionSpace.maximumArrayLength, Math.max(minimumLength, values.length * 2L)));
+        }
+
+        private static long[] grow(long[] values, int minimumLength)
+        {
+            return java.util.Arrays.copyOf(values, (int)Math.min(RoomSolverSessionSpace.maximumArrayLength, Math.max(minimumLength, values.length * 2L)));
+        }
+
+        /**
+         * Find the distances to solve the states that were just added. Kept states never lead to
+         * new states, so their distances are already final. The new states start with the
+         * distances that they can get from kept next states, and then a breadth-first search
+         * spreads the distances backwards through the new states. The search takes the sorted
+         * starting distances in order along with its own queue, so the states are always
+         * finished in order of distance.
+         */
+        private void findDistancesToSolve(int firstNewStateIndex)
+        {
+            final int newStateCount = this.stateCount - firstNewStateIndex;
+            final int[] previousStateStarts = new int[newStateCount + 1];
+            final long[] startDistances = new long[newStateCount];
+            int startDistanceCount = 0;
+            for (int stateIndex = firstNewStateIndex; stateIndex < this.stateCount; ++stateIndex)
+            {
+                int distance = this.keyFormat.unpackOrbCount(this.keys, stateIndex * this.keyLongCount) == 0 ? 0 : RoomSolverSession.unsolvable;
+                for (int i = this.nextStateStarts[stateIndex]; i < this.nextStateStarts[stateIndex + 1]; ++i)
+                {
+                    final int nextStateIndex = this.nextStateIndexes[i];
+                    if (nextStateIndex >= firstNewStateIndex)
+                    {
+                        ++previousStateStarts[nextStateIndex - firstNewStateIndex + 1];
+                    }
+                    else
+                    {
+                        final int nextDistance = this.distancesToSolve[nextStateIndex];
+                        if (nextDistance != RoomSolverSession.unsolvable && (distance == RoomSolverSession.unsolvable || nextDistance + 1 < distance))
+                        {
+                            distance = nextDistance + 1;
+                        }
+                    }
+                }
+
+                if (distance != RoomSolverSession.unsolvable)
+                {
+                    this.distancesToSolve[stateIndex] = distance;
+                    startDistances[startDistanceCount] = ((long)distance << Integer.SIZE) | stateIndex;
+                    ++startDistanceCount;
+                }
+            }
+            java.util.Arrays.sort(startDistances, 0, startDistanceCount);
+
+            // Index the new previous states of each new state.
+            for (int i = 0; i < newStateCount; ++i)
+            {
+                previousStateStarts[i + 1] += previousStateStarts[i];
+            }
+            final int[] previousStateIndexes = new int[previousStateStarts[newStateCount]];
+            final int[] previousStateEnds = java.util.Arrays.copyOf(previousStateStarts, newStateCount);
+            for (int stateIndex = firstNewStateIndex; stateIndex < this.stateCount; ++stateIndex)
+            {
+                for (int i = this.nextStateStarts[stateIndex]; i < this.nextStateStarts[stateIndex + 1]; ++i)
+                {
+                    final int nextStateIndex = this.nextStateIndexes[i];
+                    if (nextStateIndex >= firstNewStateIndex)
+                    {
+                        previousStateIndexes[previousStateEnds[nextStateIndex - firstNewStateIndex]] = stateIndex;
+                        ++previousStateEnds[nextStateIndex - firstNewStateIndex];
+                    }
+                }
+            }
+
+            // A state only enters the queue when its distance is lowered, and the queue is taken in
+            // order of distance, so each state enters the queue at most once.
+            final int[] queue = new int[newStateCount];
+            int queueStart = 0;
+            int queueEnd = 0;
+            int startDistanceIndex = 0;
+            while (startDistanceIndex < startDistanceCount || queueStart < queueEnd)
+            {
+                final int stateIndex;
+                if (queueStart < queueEnd && (startDistanceIndex == startDistanceCount || this.distancesToSolve[queue[queueStart]] <= (int)(startDistances[startDistanceIndex] >>> Integer.SIZE)))
+                {
+                    stateIndex = queue[queueStart];
+                    ++queueStart;
+                }
+                else
+                {
+                    final long startDistance = startDistances[startDistanceIndex];
+                    ++startDistanceIndex;
+                    stateIndex = (int)startDistance;
+                    if (this.distancesToSolve[stateIndex] != (int)(startDistance >>> Integer.SIZE))
+                    {
+                        continue;
+                    }
+                }
+
+                final int distance = this.distancesToSolve[stateIndex];
+                final int newStateIndex = stateIndex - firstNewStateIndex;
+                for (int i = previousStateStarts[newStateIndex]; i < previousStateStarts[newStateIndex + 1]; ++i)
+                {
+                    final int previousStateIndex = previousStateIndexes[i];
+                    final int previousDistance = this.distancesToSolve[previousStateIndex];
+                    if (previousDistance == RoomSolverSession.unsolvable || distance + 1 < previousDistance)
+                    {
+                        this.distancesToSolve[previousStateIndex] = distance + 1;
+                        queue[queueEnd] = previousStateIndex;
+                        ++queueEnd;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Get a shortest solution from the provided solvable state by following next states that
+         * are one move closer to being solved. The next states of a state were kept in the same
+         * order as its moves are found here, so no state has to be looked up.
+         */
+        private Iterable<Move> getSolution(int startStateIndex)
+        {
+            final RoomLayout layout = this.graph.getLayout();
+            final int[] orbCells = this.orbCells;
+            final Move[] moves = new Move[this.distancesToSolve[startStateIndex]];
+            int stateIndex = startStateIndex;
+            for (int moveIndex = 0; moveIndex < moves.length; ++moveIndex)
+            {
+                final int orbCount = this.keyFormat.unpackOrbCells(this.keys, stateIndex * this.keyLongCount, orbCells);
+                final long brokenBlocks = this.keyFormat.unpackBrokenBlocks(this.keys, stateIndex * this.keyLongCount);
+                final int nextDistance = moves.length - moveIndex - 1;
+                int nextStateIndex = -1;
+                int i = this.nextStateStarts[stateIndex];
+                for (int orbIndex = 0; orbIndex < orbCount && nextStateIndex == -1; ++orbIndex)
+                {
+                    for (int direction = 0; direction < RoomLayout.directionCount && nextStateIndex == -1; ++direction)
+                    {
+                        final int moveResult = this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                        if (moveResult != RoomLayout.noMove)
+                        {
+                            final int candidateStateIndex = this.nextStateIndexes[i];
+                            ++i;
+                            if (this.distancesToSolve[candidateStateIndex] == nextDistance)
+                            {
+                                nextStateIndex = candidateStateIndex;
+                                moves[moveIndex] = layout.createMove(orbCells[orbIndex], moveResult);
+                            }
+                        }
+                    }
+                }
+                stateIndex = nextStateIndex;
+            }
+
+            final Iterable<Move> result = Iterable.create(moves);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        }
+    }
+}
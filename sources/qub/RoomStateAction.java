@@ -0,0 +1,11 @@
+package qub;
+
+/**
+ * An action that is run for a state of a {@link RoomLayout}: the sorted cells that contain
+ * {@link RoomObject#Orb}s, the number of {@link RoomObject#Orb} cells, and the mask of broken
+ * {@link RoomObject#BreakableBlock}s.
+ */
+public interface RoomStateAction
+{
+    void run(int[] orbCells, int orbCount, long brokenBlocks);
+}
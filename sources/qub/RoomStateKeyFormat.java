@@ -0,0 +1,265 @@
+package qub;
+
+/**
+ * The format of the packed keys that states of a {@link RoomLayout} are stored as. A key is the
+ * number of {@link RoomObject#Orb}s, the sorted {@link RoomObject#Orb} cells, and one bit for each
+ * {@link RoomObject#BreakableBlock}, all bit-packed into a fixed number of longs. Two states are
+ * equal if and only if their keys are equal.
+ */
+public class RoomStateKeyFormat
+{
+    private final RoomLayout layout;
+    private final int maxOrbCount;
+    private final int orbCountBits;
+    private final int cellBits;
+    private final int keyLongCount;
+
+    private RoomStateKeyFormat(RoomLayout layout, int maxOrbCount)
+    {
+        this.layout = layout;
+        this.maxOrbCount = maxOrbCount;
+        this.orbCountBits = RoomStateKeyFormat.getBitCount(maxOrbCount + 1);
+        this.cellBits = RoomStateKeyFormat.getBitCount(layout.getCellCount());
+        this.keyLongCount = Math.max(1, (this.orbCountBits + maxOrbCount * this.cellBits + layout.getBreakableBlockCount() + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Create a new {@link RoomStateKeyFormat} for the states of the provided {@link RoomLayout}.
+     * @param layout The {@link RoomLayout} that the states are in.
+     * @param maxOrbCount The maximum number of {@link RoomObject#Orb}s that a state can have.
+     */
+    public static RoomStateKeyFormat create(RoomLayout layout, int maxOrbCount)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "layout.getBreakableBlockCount()");
+        PreCondition.assertGreaterThanOrEqualTo(maxOrbCount, 0, "maxOrbCount");
+
+        return new RoomStateKeyFormat(layout, maxOrbCount);
+    }
+
+    private static int getBitCount(int valueCount)
+    {
+        return valueCount <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(valueCount - 1);
+    }
+
+    /**
+     * Get the {@link RoomLayout} that the states are in.
+     */
+    public RoomLayout getLayout()
+    {
+        return this.layout;
+    }
+
+    /**
+     * Get the maximum number of {@link RoomObject#Orb}s that a state can have.
+     */
+    public int getMaxOrbCount()
+    {
+        return this.maxOrbCount;
+    }
+
+    /**
+     * Get the number of longs in each key.
+     */
+    public int getKeyLongCount()
+    {
+        return this.keyLongCount;
+    }
+
+    /**
+     * Pack the provided state into the key that starts at the provided index.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param key The array to write the key to.
+     * @param keyStart The index in the array where the key starts.
+     */
+    public void pack(int[] orbCells, int orbCount, long brokenBlocks, long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(orbCells, "orbCells");
+        PreCondition.assertBetween(0, orbCount, this.maxOrbCount, "orbCount");
+        PreCondition.assertNotNull(key, "key");
+
+        java.util.Arrays.fill(key, keyStart, keyStart + this.keyLongCount, 0L);
+        int bitIndex = 0;
+        bitIndex = RoomStateKeyFormat.packBits(key, keyStart, bitIndex, orbCount, this.orbCountBits);
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            bitIndex = RoomStateKeyFormat.packBits(key, keyStart, bitIndex, orbCells[orbIndex], this.cellBits);
+        }
+        RoomStateKeyFormat.packBits(key, keyStart, bitIndex, brokenBlocks, this.layout.getBreakableBlockCount());
+    }
+
+    /**
+     * Pack the state that the provided move result leads to into the key that starts at the
+     * provided index.
+     * @param orbCells The sorted cells that contain {@link RoomObject#Orb}s before the move.
+     * @param orbCount The number of {@link RoomObject#Orb} cells before the move.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s before the move.
+     * @param orbIndex The index of the {@link RoomObject#Orb} that is pushed.
+     * @param direction The direction of the move.
+     * @param moveResult A move result from
+     * {@link RoomLayout#getMoveResult(int[], int, long, int, int)}.
+     * @param nextOrbCells The array to write the {@link RoomObject#Orb} cells after the move to.
+     * @param nextKey The array to write the key to.
+     * @param nextKeyStart The index in the array where the key starts.
+     */
+    public void packNextState(int[] orbCells, int orbCount, long brokenBlocks, int orbIndex, int direction, int moveResult, int[] nextOrbCells, long[] nextKey, int nextKeyStart)
+    {
+        final int nextOrbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+        this.pack(nextOrbCells, nextOrbCount, this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction), nextKey, nextKeyStart);
+    }
+
+    /**
+     * Get the move that takes the state of the provided key to the state of the provided target
+     * key, or null if the target can't be reached in one move.
+     * @param graph The {@link StopPositionGraph} of this format's {@link RoomLayout}.
+     * @param key The array that contains the key of the state to move from.
+     * @param keyStart The index in the array where the key starts.
+     * @param targetKey The array that contains the key of the state to move to.
+     * @param targetKeyStart The index in the array where the target key starts.
+     * @param orbCells An array with room for {@link #getMaxOrbCount()} cells to unpack into.
+     * @param nextOrbCells An array with room for {@link #getMaxOrbCount()} cells to move into.
+     * @param nextKey An array with room for one key to pack the moved states into.
+     */
+    public Move findMove(StopPositionGraph graph, long[] key, int keyStart, long[] targetKey, int targetKeyStart, int[] orbCells, int[] nextOrbCells, long[] nextKey)
+    {
+        PreCondition.assertNotNull(graph, "graph");
+        PreCondition.assertNotNull(targetKey, "targetKey");
+
+        final int orbCount = this.unpackOrbCells(key, keyStart, orbCells);
+        final long brokenBlocks = this.unpackBrokenBlocks(key, keyStart);
+        Move result = null;
+        for (int orbIndex = 0; orbIndex < orbCount && result == null; ++orbIndex)
+        {
+            for (int direction = 0; direction < RoomLayout.directionCount && result == null; ++direction)
+            {
+                final int moveResult = graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                if (moveResult != RoomLayout.noMove)
+                {
+                    this.packNextState(orbCells, orbCount, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+                    if (RoomStateKeyFormat.keysEqual(nextKey, 0, targetKey, targetKeyStart, this.keyLongCount))
+                    {
+                        result = this.layout.createMove(orbCells[orbIndex], moveResult);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of {@link RoomObject#Orb}s in the state of the provided key.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     */
+    public int unpackOrbCount(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        return (int)RoomStateKeyFormat.unpackBits(key, keyStart, 0, this.orbCountBits);
+    }
+
+    /**
+     * Write the sorted {@link RoomObject#Orb} cells of the state of the provided key to the
+     * provided array.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     * @param orbCells The array to write the {@link RoomObject#Orb} cells to. It must have room
+     *                 for {@link #getMaxOrbCount()} cells.
+     * @return The number of {@link RoomObject#Orb} cells.
+     */
+    public int unpackOrbCells(long[] key, int keyStart, int[] orbCells)
+    {
+        PreCondition.assertNotNull(orbCells, "orbCells");
+
+        final int orbCount = this.unpackOrbCount(key, keyStart);
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            orbCells[orbIndex] = (int)RoomStateKeyFormat.unpackBits(key, keyStart, this.orbCountBits + orbIndex * this.cellBits, this.cellBits);
+        }
+        return orbCount;
+    }
+
+    /**
+     * Get the mask of broken {@link RoomObject#BreakableBlock}s in the state of the provided key.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     */
+    public long unpackBrokenBlocks(long[] key, int keyStart)
+    {
+        final int bitIndex = this.orbCountBits + this.unpackOrbCount(key, keyStart) * this.cellBits;
+        return RoomStateKeyFormat.unpackBits(key, keyStart, bitIndex, this.layout.getBreakableBlockCount());
+    }
+
+    /**
+     * Get a well-mixed 64-bit hash of the provided key. The high bits are the best mixed, so they
+     * should be used when only some of the bits are needed.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     * @param keyLongCount The number of longs in the key.
+     */
+    public static long getKeyHash(long[] key, int keyStart, int keyLongCount)
+    {
+        long result = 0;
+        for (int i = 0; i < keyLongCount; ++i)
+        {
+            result = (result ^ key[keyStart + i]) * 0x9E3779B97F4A7C15L;
+            result ^= result >>> 29;
+        }
+        return result * 0xBF58476D1CE4E5B9L;
+    }
+
+    /**
+     * Get whether the keys that start at the provided indexes are equal.
+     * @param lhs The array that contains the first key.
+     * @param lhsStart The index in the first array where the first key starts.
+     * @param rhs The array that contains the second key.
+     * @param rhsStart The index in the second array where the second key starts.
+     * @param keyLongCount The number of longs in each key.
+     */
+    public static boolean keysEqual(long[] lhs, int lhsStart, long[] rhs, int rhsStart, int keyLongCount)
+    {
+        boolean result = true;
+        for (int i = 0; i < keyLongCount && result; ++i)
+        {
+            result = lhs[lhsStart + i] == rhs[rhsStart + i];
+        }
+        return result;
+    }
+
+    private static int packBits(long[] key, int keyStart, int bitIndex, long value, int bitCount)
+    {
+        if (bitCount > 0)
+        {
+            final int longIndex = keyStart + bitIndex / Long.SIZE;
+            final int shift = bitIndex % Long.SIZE;
+            key[longIndex] |= value << shift;
+            if (shift + bitCount > Long.SIZE)
+            {
+                key[longIndex + 1] |= value >>> (Long.SIZE - shift);
+            }
+        }
+        return bitIndex + bitCount;
+    }
+
+    private static long unpackBits(long[] key, int keyStart, int bitIndex, int bitCount)
+    {
+        long result = 0;
+        if (bitCount > 0)
+        {
+            final int longIndex = keyStart + bitIndex / Long.SIZE;
+            final int shift = bitIndex % Long.SIZE;
+            result = key[longIndex] >>> shift;
+            if (shift + bitCount > Long.SIZE)
+            {
+                result |= key[longIndex + 1] << (Long.SIZE - shift);
+            }
+            if (bitCount < Long.SIZE)
+            {
+                result &= (1L << bitCount) - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package qub;
+
+/**
+ * A list of packed state keys that can only be added to. The keys are kept outside of the heap in
+ * direct {@link java.nio.ByteBuffer} chunks that are allocated as the list grows, so a list of
+ * many states neither has to be copied when it grows nor has to be looked at by the garbage
+ * collector.
+ */
+public class RoomStateList
+{
+    private static final int chunkStateCountBits = 16;
+
+    private final int keyLongCount;
+    private final boolean isSnapshot;
+    private java.nio.LongBuffer[] chunks;
+    private long count;
+
+    private RoomStateList(int keyLongCount, boolean isSnapshot, java.nio.LongBuffer[] chunks, long count)
+    {
+        this.keyLongCount = keyLongCount;
+        this.isSnapshot = isSnapshot;
+        this.chunks = chunks;
+        this.count = count;
+    }
+
+    /**
+     * Create a new empty {@link RoomStateList}.
+     * @param keyLongCount The number of longs in each key.
+     */
+    public static RoomStateList create(int keyLongCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(keyLongCount, 1, "keyLongCount");
+
+        return new RoomStateList(keyLongCount, false, new java.nio.LongBuffer[4], 0);
+    }
+
+    /**
+     * Get a list of the keys that are in this list now. The keys aren't copied, so the snapshot
+     * can't be added to, but keys that are added to this list later don't show up in it. That
+     * lets another thread read the snapshot while this list is added to.
+     */
+    public RoomStateList getSnapshot()
+    {
+        return new RoomStateList(this.keyLongCount, true, this.chunks.clone(), this.count);
+    }
+
+    /**
+     * Get the number of longs in each key.
+     */
+    public int getKeyLongCount()
+    {
+        return this.keyLongCount;
+    }
+
+    /**
+     * Get whether this list is a snapshot from {@link #getSnapshot()} that can't be added to.
+     */
+    public boolean isSnapshot()
+    {
+        return this.isSnapshot;
+    }
+
+    /**
+     * Get the number of keys in this list.
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Add the provided key to the end of this list.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     */
+    public void add(long[] key, int keyStart)
+    {
+        PreCondition.assertNotNull(key, "key");
+        PreCondition.assertFalse(this.isSnapshot, "this.isSnapshot()");
+
+        final int chunkIndex = (int)(this.count >>> RoomStateList.chunkStateCountBits);
+        if (chunkIndex == this.chunks.length)
+        {
+            this.chunks = java.util.Arrays.copyOf(this.chunks, this.chunks.length * 2);
+        }
+        if (this.chunks[chunkIndex] == null)
+        {
+            this.chunks[chunkIndex] = java.nio.ByteBuffer.allocateDirect((this.keyLongCount << RoomStateList.chunkStateCountBits) * Long.BYTES)
+                .order(java.nio.ByteOrder.nativeOrder())
+                .asLongBuffer();
+        }
+
+        final java.nio.LongBuffer chunk = this.chunks[chunkIndex];
+        final int chunkStart = (int)(this.count & ((1 << RoomStateList.chunkStateCountBits) - 1)) * this.keyLongCount;
+        for (int i = 0; i < this.keyLongCount; ++i)
+        {
+            chunk.put(chunkStart + i, key[keyStart + i]);
+        }
+        ++this.count;
+    }
+
+    /**
+     * Copy the key at the provided index in this list to the provided array.
+     * @param index The index of the key in this list.
+     * @param key The array to copy the key to.
+     * @param keyStart The index in the array where the key should start.
+     */
+    public void get(long index, long[] key, int keyStart)
+    {
+        PreCondition.assertBetween(0, index, this.count - 1, "index");
+        PreCondition.assertNotNull(key, "key");
+
+        final java.nio.LongBuffer chunk = this.chunks[(int)(index >>> RoomStateList.chunkStateCountBits)];
+        final int chunkStart = (int)(index & ((1 << RoomStateList.chunkStateCountBits) - 1)) * this.keyLongCount;
+        for (int i = 0; i < this.keyLongCount; ++i)
+        {
+            key[keyStart + i] = chunk.get(chunkStart + i);
+        }
+    }
+}
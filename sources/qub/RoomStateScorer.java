@@ -0,0 +1,11 @@
+package qub;
+
+/**
+ * A function that scores a state of a {@link RoomLayout}: the sorted cells that contain
+ * {@link RoomObject#Orb}s, the number of {@link RoomObject#Orb} cells, and the mask of broken
+ * {@link RoomObject#BreakableBlock}s. Lower scores are closer to being solved.
+ */
+public interface RoomStateScorer
+{
+    int score(int[] orbCells, int orbCount, long brokenBlocks);
+}
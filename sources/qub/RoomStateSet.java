@@ -0,0 +1,40 @@
+package qub;
+
+/**
+ * A set of the states that a search has visited. Each state is a packed key with a fixed number
+ * of longs, such as a key from {@link RoomStateKeyFormat}.
+ */
+public interface RoomStateSet
+{
+    /**
+     * Get the number of longs in each key.
+     */
+    int getKeyLongCount();
+
+    /**
+     * Get the number of keys that have been added to this set.
+     */
+    long getCount();
+
+    /**
+     * Get whether the provided key has been added to this set.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     */
+    boolean contains(long[] key, int keyStart);
+
+    /**
+     * Add the provided key to this set.
+     * @param key The array that contains the key.
+     * @param keyStart The index in the array where the key starts.
+     * @return Whether the key was added, or false if it was already in this set.
+     */
+    boolean add(long[] key, int keyStart);
+
+    /**
+     * Get the estimated probability that this set has wrongly said that at least one key was
+     * already added, which makes a search skip a state that it hasn't visited. This is zero for
+     * sets that store their keys exactly.
+     */
+    double getOmissionProbability();
+}
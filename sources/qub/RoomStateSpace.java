@@ -0,0 +1,750 @@
+package qub;
+
+/**
+ * Every state that can be reached from a {@link Room}, along with how many moves each state needs
+ * to be solved.
+ *
+ * States are numbered in the order that a breadth-first search from the {@link Room} finds them,
+ * so state 0 is the {@link Room} itself. Each state is kept in memory as a packed key: the number
+ * of {@link RoomObject#Orb}s, the sorted {@link RoomObject#Orb} cells, and the broken
+ * {@link RoomObject#BreakableBlock} mask, all bit-packed into a few longs. The edges between
+ * states are streamed to a file as the states are expanded instead of being kept in memory.
+ *
+ * The file has these sections:
+ * <ul>
+ *     <li>A header with a signature, the maximum {@link RoomObject#Orb} count, the layout bounds,
+ *     and one byte for the static {@link RoomObject} in each layout cell.</li>
+ *     <li>The edges: for each state, the number of distinct next states followed by their sorted
+ *     indexes, each written as the difference from the previous index in an unsigned
+ *     variable-length integer.</li>
+ *     <li>The packed keys of the states.</li>
+ *     <li>The distance to solve each state plus one as an unsigned variable-length integer, or zero
+ *     for dead ends.</li>
+ *     <li>A footer with the state count, the edge count, the offset of each section, and the
+ *     signature again.</li>
+ * </ul>
+ */
+public class RoomStateSpace
+{
+    /**
+     * The distance to solve a state that can't be solved.
+     */
+    public static final int unsolvable = -1;
+
+    private static final int fileSignature = 0x51534731;
+    private static final int fileFooterByteCount = 5 * Long.BYTES + Integer.BYTES;
+
+    private final RoomLayout layout;
+    private final int maxOrbCount;
+    private final int orbCountBits;
+    private final int cellBits;
+    private final int keyLongCount;
+    private long[] keys;
+    private int stateCount;
+    private long edgeCount;
+    private int[] distancesToSolve;
+
+    private RoomStateSpace(RoomLayout layout, int maxOrbCount)
+    {
+        this.layout = layout;
+        this.maxOrbCount = maxOrbCount;
+        this.orbCountBits = RoomStateSpace.getBitCount(maxOrbCount + 1);
+        this.cellBits = RoomStateSpace.getBitCount(layout.getCellCount());
+        this.keyLongCount = Math.max(1, (this.orbCountBits + maxOrbCount * this.cellBits + layout.getBreakableBlockCount() + Long.SIZE - 1) / Long.SIZE);
+        this.keys = new long[this.keyLongCount * 16];
+    }
+
+    private static int getBitCount(int valueCount)
+    {
+        return valueCount <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(valueCount - 1);
+    }
+
+    /**
+     * Find every state that can be reached from the provided {@link Room}, and write the states
+     * and the edges between them to the file at the provided path.
+     * @param room The {@link Room} to start from.
+     * @param filePath The path to the file to write the states and edges to.
+     */
+    public static Result<RoomStateSpace> enumerate(Room room, Path filePath)
+    {
+        PreCondition.assertNotNull(room, "room");
+        PreCondition.assertNotNull(filePath, "filePath");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return Result.create(() ->
+        {
+            final int[] startOrbCells = layout.getOrbCells(room);
+            final RoomStateSpace result = new RoomStateSpace(layout, startOrbCells.length);
+            final java.io.File file = new java.io.File(filePath.toString());
+            try (final RoomStateSpaceOutput output = new RoomStateSpaceOutput(new java.io.FileOutputStream(file)))
+            {
+                result.writeHeader(output);
+
+                final long adjacencyOffset = output.getPosition();
+                result.writeAdjacency(startOrbCells, layout.getBrokenBlocks(room), output);
+                output.flush();
+
+                result.distancesToSolve = result.findDistancesToSolve(file, adjacencyOffset);
+
+                final long keysOffset = output.getPosition();
+                for (int i = 0; i < result.stateCount * result.keyLongCount; ++i)
+                {
+                    output.writeLong(result.keys[i]);
+                }
+
+                final long distancesOffset = output.getPosition();
+                for (int stateIndex = 0; stateIndex < result.stateCount; ++stateIndex)
+                {
+                    output.writeVariableLengthInteger(result.distancesToSolve[stateIndex] + 1);
+                }
+
+                output.writeLong(result.stateCount);
+                output.writeLong(result.edgeCount);
+                output.writeLong(adjacencyOffset);
+                output.writeLong(keysOffset);
+                output.writeLong(distancesOffset);
+                output.writeInt(RoomStateSpace.fileSignature);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Load the states that were written to the file at the provided path by
+     * {@link #enumerate(Room, Path)}. The edges stay in the file.
+     * @param filePath The path to the file to load.
+     */
+    public static Result<RoomStateSpace> load(Path filePath)
+    {
+        PreCondition.assertNotNull(filePath, "filePath");
+
+        return Result.create(() ->
+        {
+            try (final java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(filePath.toString())))
+            {
+                final long fileByteCount = channel.size();
+                if (fileByteCount < RoomStateSpace.fileFooterByteCount)
+                {
+                    throw new ParseException("The provided file is not a room state space.");
+                }
+
+                final java.nio.ByteBuffer footer = java.nio.ByteBuffer.allocate(RoomStateSpace.fileFooterByteCount);
+                RoomStateSpace.readFully(channel, fileByteCount - RoomStateSpace.fileFooterByteCount, footer);
+                final long stateCount = footer.getLong();
+                final long edgeCount = footer.getLong();
+                final long adjacencyOffset = footer.getLong();
+                final long keysOffset = footer.getLong();
+                final long distancesOffset = footer.getLong();
+                if (footer.getInt() != RoomStateSpace.fileSignature)
+                {
+                    throw new ParseException("The provided file is not a room state space.");
+                }
+                if (stateCount < 0 || Integer.MAX_VALUE < stateCount || edgeCount < 0 ||
+                    adjacencyOffset < 0 || keysOffset < adjacencyOffset || distancesOffset < keysOffset || fileByteCount < distancesOffset)
+                {
+                    throw new ParseException("The room state space footer is corrupt.");
+                }
+
+                final java.io.DataInputStream input = new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.channels.Channels.newInputStream(channel.position(0))));
+                if (input.readInt() != RoomStateSpace.fileSignature)
+                {
+                    throw new ParseException("The provided file is not a room state space.");
+                }
+                final int maxOrbCount = input.readInt();
+                final int left = input.readInt();
+                final int top = input.readInt();
+                final int width = input.readInt();
+                final int height = input.readInt();
+                if (maxOrbCount < 0 || width < 0 || height < 0 || adjacencyOffset < 6L * Integer.BYTES + (long)width * height)
+                {
+                    throw new ParseException("The room state space header is corrupt.");
+                }
+
+                final RoomObject[] roomObjects = RoomObject.values();
+                final RoomObject[] staticObjects = new RoomObject[width * height];
+                for (int cell = 0; cell < staticObjects.length; ++cell)
+                {
+                    final int staticObjectByte = input.readUnsignedByte();
+                    if (roomObjects.length < staticObjectByte || staticObjectByte == RoomObject.Orb.ordinal() + 1)
+                    {
+                        throw new ParseException("The room state space layout is corrupt.");
+                    }
+                    staticObjects[cell] = staticObjectByte == 0 ? null : roomObjects[staticObjectByte - 1];
+                }
+
+                final RoomStateSpace result = new RoomStateSpace(RoomLayout.create(left, top, width, height, staticObjects), maxOrbCount);
+                if (distancesOffset - keysOffset != stateCount * result.keyLongCount * Long.BYTES)
+                {
+                    throw new ParseException("The room state space has the wrong number of keys.");
+                }
+                result.stateCount = (int)stateCount;
+                result.edgeCount = edgeCount;
+
+                final java.io.DataInputStream keyInput = new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.channels.Channels.newInputStream(channel.position(keysOffset))));
+                result.keys = new long[Math.max(1, result.stateCount * result.keyLongCount)];
+                for (int i = 0; i < result.stateCount * result.keyLongCount; ++i)
+                {
+                    result.keys[i] = keyInput.readLong();
+                }
+
+                final java.io.InputStream distanceInput = new java.io.BufferedInputStream(java.nio.channels.Channels.newInputStream(channel.position(distancesOffset)));
+                result.distancesToSolve = new int[result.stateCount];
+                for (int stateIndex = 0; stateIndex < result.stateCount; ++stateIndex)
+                {
+                    result.distancesToSolve[stateIndex] = (int)RoomStateSpace.readVariableLengthInteger(distanceInput) - 1;
+                }
+
+                return result;
+            }
+            catch (java.io.EOFException e)
+            {
+                throw new ParseException("The room state space ended unexpectedly.");
+            }
+            catch (java.io.IOException e)
+            {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Get the {@link RoomLayout} that the states are in.
+     */
+    public RoomLayout getLayout()
+    {
+        return this.layout;
+    }
+
+    /**
+     * Get the number of states that can be reached.
+     */
+    public int getStateCount()
+    {
+        return this.stateCount;
+    }
+
+    /**
+     * Get the number of edges between distinct states.
+     */
+    public long getEdgeCount()
+    {
+        return this.edgeCount;
+    }
+
+    /**
+     * Get the number of states that can't be solved.
+     */
+    public int getDeadEndCount()
+    {
+        int result = 0;
+        for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+        {
+            if (this.distancesToSolve[stateIndex] == RoomStateSpace.unsolvable)
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the largest number of moves that a solvable state needs to be solved, or
+     * {@link #unsolvable} if no state can be solved.
+     */
+    public int getMaximumDistanceToSolve()
+    {
+        int result = RoomStateSpace.unsolvable;
+        for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+        {
+            result = Math.max(result, this.distancesToSolve[stateIndex]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the fewest number of moves that the state with the provided index needs to be solved, or
+     * {@link #unsolvable} if it can't be solved.
+     * @param stateIndex The index of the state.
+     */
+    public int getDistanceToSolve(int stateIndex)
+    {
+        PreCondition.assertIndexAccess(stateIndex, this.stateCount, "stateIndex");
+
+        return this.distancesToSolve[stateIndex];
+    }
+
+    /**
+     * Get the {@link Room} that the state with the provided index represents.
+     * @param stateIndex The index of the state.
+     */
+    public Room getRoom(int stateIndex)
+    {
+        PreCondition.assertIndexAccess(stateIndex, this.stateCount, "stateIndex");
+
+        final int[] orbCells = new int[this.maxOrbCount];
+        final int orbCount = this.unpackOrbCells(stateIndex, orbCells);
+        final Room result = this.layout.createRoom(orbCells, orbCount, this.unpackBrokenBlocks(stateIndex));
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private void writeHeader(RoomStateSpaceOutput output) throws java.io.IOException
+    {
+        output.writeInt(RoomStateSpace.fileSignature);
+        output.writeInt(this.maxOrbCount);
+        output.writeInt(this.layout.getLeft());
+        output.writeInt(this.layout.getTop());
+        output.writeInt(this.layout.getWidth());
+        output.writeInt(this.layout.getHeight());
+        for (int cell = 0; cell < this.layout.getCellCount(); ++cell)
+        {
+            final RoomObject staticObject = this.layout.getStaticObject(cell);
+            output.write(staticObject == null ? 0 : staticObject.ordinal() + 1);
+        }
+    }
+
+    /**
+     * Run a breadth-first search from the provided start state, and write the edges of each state
+     * as it is expanded. The states that are found are added to the keys in the order that they
+     * are found, so the keys also serve as the search's queue.
+     */
+    private void writeAdjacency(int[] startOrbCells, long startBrokenBlocks, RoomStateSpaceOutput output) throws java.io.IOException
+    {
+        final StopPositionGraph graph = StopPositionGraph.create(this.layout);
+        int[] stateIndexTable = new int[64];
+        this.packKey(startOrbCells, startOrbCells.length, startBrokenBlocks);
+        stateIndexTable = this.addPackedState(stateIndexTable);
+
+        final int[] orbCells = new int[this.maxOrbCount];
+        final int[] nextOrbCells = new int[this.maxOrbCount];
+        final int[] nextStateIndexes = new int[this.maxOrbCount * RoomLayout.directionCount];
+        for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+        {
+            final int orbCount = this.unpackOrbCells(stateIndex, orbCells);
+            final long brokenBlocks = this.unpackBrokenBlocks(stateIndex);
+
+            int nextStateCount = 0;
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                {
+                    final int moveResult = graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                    if (moveResult != RoomLayout.noMove)
+                    {
+                        final int nextOrbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, nextOrbCells);
+                        final long nextBrokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+
+                        this.packKey(nextOrbCells, nextOrbCount, nextBrokenBlocks);
+                        int nextStateIndex = this.findPackedState(stateIndexTable);
+                        if (nextStateIndex == -1)
+                        {
+                            nextStateIndex = this.stateCount;
+                            stateIndexTable = this.addPackedState(stateIndexTable);
+                        }
+                        nextStateIndexes[nextStateCount++] = nextStateIndex;
+                    }
+                }
+            }
+
+            java.util.Arrays.sort(nextStateIndexes, 0, nextStateCount);
+            int distinctNextStateCount = 0;
+            for (int i = 0; i < nextStateCount; ++i)
+            {
+                if (i == 0 || nextStateIndexes[i] != nextStateIndexes[i - 1])
+                {
+                    nextStateIndexes[distinctNextStateCount++] = nextStateIndexes[i];
+                }
+            }
+
+            output.writeVariableLengthInteger(distinctNextStateCount);
+            int previousStateIndex = 0;
+            for (int i = 0; i < distinctNextStateCount; ++i)
+            {
+                output.writeVariableLengthInteger(nextStateIndexes[i] - previousStateIndex);
+                previousStateIndex = nextStateIndexes[i];
+            }
+            this.edgeCount += distinctNextStateCount;
+        }
+    }
+
+    /**
+     * Find the distance to solve every state with one breadth-first search backward from the
+     * solved states. The edges are streamed from the file twice to build an index of each state's
+     * previous states, which takes one int per edge. If the edges don't fit in one array, then the
+     * edges in the file are relaxed until no distance changes instead.
+     */
+    private int[] findDistancesToSolve(java.io.File file, long adjacencyOffset) throws java.io.IOException
+    {
+        final int[] result = new int[this.stateCount];
+        for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+        {
+            result[stateIndex] = this.unpackOrbCount(stateIndex) == 0 ? 0 : RoomStateSpace.unsolvable;
+        }
+
+        if (this.edgeCount > Integer.MAX_VALUE - 8)
+        {
+            this.relaxDistancesToSolve(file, adjacencyOffset, result);
+        }
+        else
+        {
+            // Count the previous states of each state, and then fill them in after the offsets of
+            // the states before them.
+            final int[] previousStateOffsets = new int[this.stateCount + 1];
+            try (final java.io.FileInputStream fileInput = new java.io.FileInputStream(file))
+            {
+                fileInput.getChannel().position(adjacencyOffset);
+                final java.io.InputStream input = new java.io.BufferedInputStream(fileInput);
+                for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+                {
+                    final int nextStateCount = (int)RoomStateSpace.readVariableLengthInteger(input);
+                    int nextStateIndex = 0;
+                    for (int i = 0; i < nextStateCount; ++i)
+                    {
+                        nextStateIndex += (int)RoomStateSpace.readVariableLengthInteger(input);
+                        ++previousStateOffsets[nextStateIndex + 1];
+                    }
+                }
+            }
+            for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+            {
+                previousStateOffsets[stateIndex + 1] += previousStateOffsets[stateIndex];
+            }
+
+            final int[] previousStates = new int[(int)this.edgeCount];
+            final int[] previousStateCounts = new int[this.stateCount];
+            try (final java.io.FileInputStream fileInput = new java.io.FileInputStream(file))
+            {
+                fileInput.getChannel().position(adjacencyOffset);
+                final java.io.InputStream input = new java.io.BufferedInputStream(fileInput);
+                for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+                {
+                    final int nextStateCount = (int)RoomStateSpace.readVariableLengthInteger(input);
+                    int nextStateIndex = 0;
+                    for (int i = 0; i < nextStateCount; ++i)
+                    {
+                        nextStateIndex += (int)RoomStateSpace.readVariableLengthInteger(input);
+                        previousStates[previousStateOffsets[nextStateIndex] + previousStateCounts[nextStateIndex]++] = stateIndex;
+                    }
+                }
+            }
+
+            final int[] queue = new int[this.stateCount];
+            int queueEnd = 0;
+            for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+            {
+                if (result[stateIndex] == 0)
+                {
+                    queue[queueEnd++] = stateIndex;
+                }
+            }
+            for (int queueStart = 0; queueStart < queueEnd; ++queueStart)
+            {
+                final int stateIndex = queue[queueStart];
+                for (int i = previousStateOffsets[stateIndex]; i < previousStateOffsets[stateIndex + 1]; ++i)
+                {
+                    final int previousStateIndex = previousStates[i];
+                    if (result[previousStateIndex] == RoomStateSpace.unsolvable)
+                    {
+                        result[previousStateIndex] = result[stateIndex] + 1;
+                        queue[queueEnd++] = previousStateIndex;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the distance to solve every state by relaxing the edges in the file until no distance
+     * changes. Each pass streams the edges from the file, so only the distances are kept in
+     * memory.
+     */
+    private void relaxDistancesToSolve(java.io.File file, long adjacencyOffset, int[] distances) throws java.io.IOException
+    {
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            try (final java.io.FileInputStream fileInput = new java.io.FileInputStream(file))
+            {
+                fileInput.getChannel().position(adjacencyOffset);
+                final java.io.InputStream input = new java.io.BufferedInputStream(fileInput);
+                for (int stateIndex = 0; stateIndex < this.stateCount; ++stateIndex)
+                {
+                    final int nextStateCount = (int)RoomStateSpace.readVariableLengthInteger(input);
+                    int nextStateIndex = 0;
+                    int distance = distances[stateIndex];
+                    for (int i = 0; i < nextStateCount; ++i)
+                    {
+                        nextStateIndex += (int)RoomStateSpace.readVariableLengthInteger(input);
+                        final int nextDistance = distances[nextStateIndex];
+                        if (nextDistance != RoomStateSpace.unsolvable && (distance == RoomStateSpace.unsolvable || nextDistance + 1 < distance))
+                        {
+                            distance = nextDistance + 1;
+                        }
+                    }
+                    if (distance != distances[stateIndex])
+                    {
+                        distances[stateIndex] = distance;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack the provided state into the key slot just past the last state.
+     */
+    private void packKey(int[] orbCells, int orbCount, long brokenBlocks)
+    {
+        final int keyStart = this.stateCount * this.keyLongCount;
+        if (this.keys.length < keyStart + this.keyLongCount)
+        {
+            this.keys = java.util.Arrays.copyOf(this.keys, Math.max(this.keys.length * 2, keyStart + this.keyLongCount));
+        }
+        java.util.Arrays.fill(this.keys, keyStart, keyStart + this.keyLongCount, 0L);
+
+        int bitIndex = 0;
+        bitIndex = this.packBits(keyStart, bitIndex, orbCount, this.orbCountBits);
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            bitIndex = this.packBits(keyStart, bitIndex, orbCells[orbIndex], this.cellBits);
+        }
+        final int breakableBlockCount = this.layout.getBreakableBlockCount();
+        for (int breakableBlockIndex = 0; breakableBlockIndex < breakableBlockCount; ++breakableBlockIndex)
+        {
+            bitIndex = this.packBits(keyStart, bitIndex, RoomLayout.isBlockBroken(brokenBlocks, breakableBlockIndex) ? 1 : 0, 1);
+        }
+    }
+
+    /**
+     * Add the state that was packed by {@link #packKey(int[], int, long)} to the provided state
+     * index table, and return the table that should be used from now on.
+     */
+    private int[] addPackedState(int[] stateIndexTable)
+    {
+        final int stateIndex = this.stateCount++;
+
+        int[] result = stateIndexTable;
+        if (result.length < this.stateCount * 2)
+        {
+            result = new int[result.length * 2];
+            for (int existingStateIndex = 0; existingStateIndex < this.stateCount; ++existingStateIndex)
+            {
+                this.insertStateIndex(existingStateIndex, result);
+            }
+        }
+        else
+        {
+            this.insertStateIndex(stateIndex, result);
+        }
+        return result;
+    }
+
+    private int packBits(int keyStart, int bitIndex, int value, int bitCount)
+    {
+        for (int bit = 0; bit < bitCount; ++bit)
+        {
+            if ((value & (1 << bit)) != 0)
+            {
+                this.keys[keyStart + (bitIndex + bit) / Long.SIZE] |= 1L << ((bitIndex + bit) % Long.SIZE);
+            }
+        }
+        return bitIndex + bitCount;
+    }
+
+    private int unpackBits(int keyStart, int bitIndex, int bitCount)
+    {
+        int result = 0;
+        for (int bit = 0; bit < bitCount; ++bit)
+        {
+            if ((this.keys[keyStart + (bitIndex + bit) / Long.SIZE] & (1L << ((bitIndex + bit) % Long.SIZE))) != 0)
+            {
+                result |= 1 << bit;
+            }
+        }
+        return result;
+    }
+
+    private int unpackOrbCount(int stateIndex)
+    {
+        return this.unpackBits(stateIndex * this.keyLongCount, 0, this.orbCountBits);
+    }
+
+    private int unpackOrbCells(int stateIndex, int[] orbCells)
+    {
+        final int keyStart = stateIndex * this.keyLongCount;
+        final int orbCount = this.unpackOrbCount(stateIndex);
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            orbCells[orbIndex] = this.unpackBits(keyStart, this.orbCountBits + orbIndex * this.cellBits, this.cellBits);
+        }
+        return orbCount;
+    }
+
+    private long unpackBrokenBlocks(int stateIndex)
+    {
+        final int keyStart = stateIndex * this.keyLongCount;
+        final int bitIndex = this.orbCountBits + this.unpackOrbCount(stateIndex) * this.cellBits;
+        long result = 0;
+        final int breakableBlockCount = this.layout.getBreakableBlockCount();
+        for (int breakableBlockIndex = 0; breakableBlockIndex < breakableBlockCount; ++breakableBlockIndex)
+        {
+            if (this.unpackBits(keyStart, bitIndex + breakableBlockIndex, 1) != 0)
+            {
+                result |= 1L << breakableBlockIndex;
+            }
+        }
+        return result;
+    }
+
+    private int getKeyHash(int keyStart)
+    {
+        long hash = 0;
+        for (int i = 0; i < this.keyLongCount; ++i)
+        {
+            hash = (hash ^ this.keys[keyStart + i]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    private void insertStateIndex(int stateIndex, int[] stateIndexTable)
+    {
+        final int mask = stateIndexTable.length - 1;
+        int slot = this.getKeyHash(stateIndex * this.keyLongCount) & mask;
+        while (stateIndexTable[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        stateIndexTable[slot] = stateIndex + 1;
+    }
+
+    /**
+     * Get the index of the state that was packed by {@link #packKey(int[], int, long)}, or -1 if
+     * it hasn't been found yet.
+     */
+    private int findPackedState(int[] stateIndexTable)
+    {
+        final int keyStart = this.stateCount * this.keyLongCount;
+        final int mask = stateIndexTable.length - 1;
+        int result = -1;
+        int slot = this.getKeyHash(keyStart) & mask;
+        while (stateIndexTable[slot] != 0)
+        {
+            final int stateIndex = stateIndexTable[slot] - 1;
+            boolean equal = true;
+            for (int i = 0; i < this.keyLongCount && equal; ++i)
+            {
+                equal = this.keys[stateIndex * this.keyLongCount + i] == this.keys[keyStart + i];
+            }
+            if (equal)
+            {
+                result = stateIndex;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result;
+    }
+
+    private static void readFully(java.nio.channels.FileChannel channel, long position, java.nio.ByteBuffer buffer) throws java.io.IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new java.io.EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    private static long readVariableLengthInteger(java.io.InputStream input) throws java.io.IOException
+    {
+        long result = 0;
+        int shift = 0;
+        while (true)
+        {
+            final int nextByte = input.read();
+            if (nextByte == -1)
+            {
+                throw new java.io.EOFException();
+            }
+            else if (shift > 56)
+            {
+                throw new ParseException("The room state space contains an integer that is too large.");
+            }
+
+            result |= (long)(nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0)
+            {
+                break;
+            }
+            shift += 7;
+        }
+        return result;
+    }
+
+    /**
+     * A buffered {@link java.io.OutputStream} that keeps track of how many bytes have been written.
+     */
+    private static class RoomStateSpaceOutput extends java.io.BufferedOutputStream
+    {
+        private long position;
+
+        private RoomStateSpaceOutput(java.io.OutputStream output)
+        {
+            super(output, 1 << 16);
+        }
+
+        private long getPosition()
+        {
+            return this.position;
+        }
+
+        @Override
+        public void write(int b) throws java.io.IOException
+        {
+            super.write(b);
+            ++this.position;
+        }
+
+        private void writeInt(int value) throws java.io.IOException
+        {
+            for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+            {
+                this.write(value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) throws java.io.IOException
+        {
+            for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+            {
+                this.write((int)(value >>> shift));
+            }
+        }
+
+        private void writeVariableLengthInteger(long value) throws java.io.IOException
+        {
+            while ((value & ~0x7FL) != 0)
+            {
+                this.write((int)((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.write((int)value);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package qub;
+
+/**
+ * Checks sequences of {@link Move}s against a {@link Room} that has been compiled into a
+ * {@link RoomLayout} and a packed starting state. Validating a sequence never clones the
+ * {@link Room}, never throws for an illegal {@link Move}, and never allocates per {@link Move},
+ * so many sequences can be validated cheaply and in parallel.
+ */
+public class SolutionValidator
+{
+    /**
+     * The value that is returned when every {@link Move} is legal and the {@link Room} is solved
+     * after the last {@link Move}.
+     */
+    public static final int validSolution = -1;
+
+    private final RoomLayout layout;
+    private final StopPositionGraph graph;
+    private final int[] startOrbCells;
+    private final long startBrokenBlocks;
+
+    private SolutionValidator(RoomLayout layout, int[] startOrbCells, long startBrokenBlocks)
+    {
+        this.layout = layout;
+        this.graph = StopPositionGraph.create(layout);
+        this.startOrbCells = startOrbCells;
+        this.startBrokenBlocks = startBrokenBlocks;
+    }
+
+    /**
+     * Create a new {@link SolutionValidator} that validates {@link Move}s against the provided
+     * {@link Room}. Later changes to the {@link Room} don't affect the validator.
+     * @param room The {@link Room} that {@link Move}s will be validated against.
+     */
+    public static SolutionValidator create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        final RoomLayout layout = RoomLayout.create(room);
+        PreCondition.assertLessThanOrEqualTo(layout.getBreakableBlockCount(), Long.SIZE, "room.getRoomObjectCount(RoomObject.BreakableBlock)");
+
+        return new SolutionValidator(layout, layout.getOrbCells(room), layout.getBrokenBlocks(room));
+    }
+
+    /**
+     * Validate the provided {@link Move}s.
+     * @param moves The {@link Move}s to validate.
+     * @return {@link #validSolution} if every {@link Move} is legal and the {@link Room} is solved
+     * after the last {@link Move}, the index of the first illegal {@link Move} if there is one, or
+     * the number of {@link Move}s if every {@link Move} is legal but the {@link Room} isn't solved
+     * afterward.
+     */
+    public int validate(Iterable<Move> moves)
+    {
+        PreCondition.assertNotNull(moves, "moves");
+
+        final int[] orbCells = this.startOrbCells.clone();
+        int orbCount = orbCells.length;
+        long brokenBlocks = this.startBrokenBlocks;
+
+        int moveIndex = 0;
+        for (final Move move : moves)
+        {
+            final int orbIndex = move == null || !move.hasStartLocation() || !move.hasEndLocation()
+                ? -1
+                : this.getOrbIndex(orbCells, orbCount, move.getStartLocation());
+            final int direction = orbIndex == -1 ? -1 : SolutionValidator.getDirection(move);
+            final int moveResult = direction == -1
+                ? RoomLayout.noMove
+                : this.graph.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+            if (!this.matches(move, moveResult))
+            {
+                return moveIndex;
+            }
+
+            brokenBlocks = this.layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction);
+            orbCount = RoomLayout.applyMoveResult(orbCells, orbCount, orbIndex, moveResult, orbCells);
+            ++moveIndex;
+        }
+
+        return orbCount == 0 ? SolutionValidator.validSolution : moveIndex;
+    }
+
+    /**
+     * Validate each of the provided sequences of {@link Move}s in parallel.
+     * @param solutions The sequences of {@link Move}s to validate.
+     * @return The result of {@link #validate(Iterable)} for each sequence, in the same order as the
+     * sequences.
+     */
+    public int[] validateAll(Iterable<Iterable<Move>> solutions)
+    {
+        PreCondition.assertNotNull(solutions, "solutions");
+
+        final List<Iterable<Move>> solutionList = List.create(solutions);
+        final int[] result = new int[solutionList.getCount()];
+        java.util.stream.IntStream.range(0, result.length)
+            .parallel()
+            .forEach((int solutionIndex) -> result[solutionIndex] = this.validate(solutionList.get(solutionIndex)));
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the index of the {@link RoomObject#Orb} at the provided location, or -1 if there is no
+     * {@link RoomObject#Orb} at the location.
+     */
+    private int getOrbIndex(int[] orbCells, int orbCount, Point2Integer location)
+    {
+        final int cell = this.layout.getCellIndex(location.getXAsInt(), location.getYAsInt());
+        int result = -1;
+        if (cell != -1)
+        {
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                if (orbCells[orbIndex] == cell)
+                {
+                    result = orbIndex;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the direction of the provided {@link Move}, or -1 if the {@link Move} isn't a straight
+     * line.
+     */
+    private static int getDirection(Move move)
+    {
+        final Point2Integer startLocation = move.getStartLocation();
+        final Point2Integer endLocation = move.getEndLocation();
+        final boolean sameX = startLocation.getXAsInt() == endLocation.getXAsInt();
+        final boolean sameY = startLocation.getYAsInt() == endLocation.getYAsInt();
+        return sameX == sameY ? -1 : RoomLayout.getDirection(move);
+    }
+
+    /**
+     * Get whether the provided {@link Move} describes the provided move result exactly.
+     */
+    private boolean matches(Move move, int moveResult)
+    {
+        boolean result = false;
+        if (moveResult != RoomLayout.noMove)
+        {
+            final Point2Integer endLocation = move.getEndLocation();
+            result = this.layout.getCellIndex(endLocation.getXAsInt(), endLocation.getYAsInt()) == RoomLayout.getMoveResultEndCell(moveResult) &&
+                move.getEndLocationIsGoal() == RoomLayout.getMoveResultEndsInGoal(moveResult) &&
+                move.getBlockBroken() == RoomLayout.getMoveResultBreaksBlock(moveResult);
+        }
+        return result;
+    }
+}
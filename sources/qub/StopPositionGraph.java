@@ -0,0 +1,421 @@
+package qub;
+
+/**
+ * The places that a single {@link RoomObject#Orb} can slide to in a {@link RoomLayout}, compiled
+ * once so that moves can be looked up instead of scanned for.
+ *
+ * Each cell and direction has a ray of edges. Every edge except the last one ends at a
+ * {@link RoomObject#BreakableBlock}: the {@link RoomObject#Orb} follows that edge when the
+ * {@link RoomObject#BreakableBlock} isn't broken yet and every earlier edge's
+ * {@link RoomObject#BreakableBlock} is. The last edge ends at a {@link RoomObject#Goal}, stops
+ * before a {@link RoomObject#Block}, or leaves the layout. The graph doesn't depend on where the
+ * {@link RoomObject#Orb}s are or on which {@link RoomObject#BreakableBlock}s are broken, so one
+ * graph can be shared by every state of every {@link Room} with the same layout.
+ */
+public class StopPositionGraph
+{
+    /**
+     * The value that is returned as the pusher {@link RoomObject#BreakableBlock} index of a ray
+     * when the pusher cell never blocks the push.
+     */
+    public static final int pusherAlwaysOpen = -1;
+    /**
+     * The value that is returned as the pusher {@link RoomObject#BreakableBlock} index of a ray
+     * when the pusher cell always blocks the push.
+     */
+    public static final int pusherAlwaysBlocked = -2;
+    /**
+     * The goal distance of a cell that a lone {@link RoomObject#Orb} can't reach a
+     * {@link RoomObject#Goal} from.
+     */
+    public static final int unreachableGoalDistance = Integer.MAX_VALUE;
+
+    private final RoomLayout layout;
+    private final int[] cellSteps;
+    private final int[] pushers;
+    private final int[] pusherRequirements;
+    private final int[] rayEdgeStarts;
+    private final int[] edgeMoveResults;
+    private final int[] edgeBreakableBlockIndexes;
+    private final int[] edgeReachCells;
+
+    private StopPositionGraph(RoomLayout layout)
+    {
+        this.layout = layout;
+
+        final int width = layout.getWidth();
+        this.cellSteps = new int[] { -width, 1, width, -1 };
+
+        final int cellCount = layout.getCellCount();
+        final int rayCount = cellCount * RoomLayout.directionCount;
+        this.pushers = new int[rayCount];
+        this.pusherRequirements = new int[rayCount];
+        this.rayEdgeStarts = new int[rayCount + 1];
+
+        final List<Integer> edgeMoveResults = List.create();
+        final List<Integer> edgeBreakableBlockIndexes = List.create();
+        final List<Integer> edgeReachCells = List.create();
+        for (int cell = 0; cell < cellCount; ++cell)
+        {
+            final RoomObject startObject = layout.getStaticObject(cell);
+            final boolean orbCanStart = startObject != RoomObject.Block && startObject != RoomObject.Goal;
+            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+            {
+                final int ray = cell * RoomLayout.directionCount + direction;
+                this.rayEdgeStarts[ray] = edgeMoveResults.getCount();
+
+                final int pusherCell = layout.getNeighborCell(cell, RoomLayout.getOppositeDirection(direction));
+                this.pushers[ray] = pusherCell;
+                final RoomObject pusherObject = pusherCell == -1 ? null : layout.getStaticObject(pusherCell);
+                this.pusherRequirements[ray] = !orbCanStart || pusherObject == RoomObject.Block
+                    ? StopPositionGraph.pusherAlwaysBlocked
+                    : pusherObject == RoomObject.BreakableBlock
+                        ? layout.getBreakableBlockIndex(pusherCell)
+                        : StopPositionGraph.pusherAlwaysOpen;
+
+                if (orbCanStart)
+                {
+                    int currentCell = cell;
+                    while (true)
+                    {
+                        final int nextCell = layout.getNeighborCell(currentCell, direction);
+                        final RoomObject nextObject = nextCell == -1 ? null : layout.getStaticObject(nextCell);
+                        if (nextCell == -1)
+                        {
+                            edgeMoveResults.add(RoomLayout.noMove);
+                            edgeBreakableBlockIndexes.add(-1);
+                            edgeReachCells.add(currentCell);
+                            break;
+                        }
+                        else if (nextObject == RoomObject.Goal)
+                        {
+                            edgeMoveResults.add(nextCell | RoomLayout.moveEndsInGoalFlag);
+                            edgeBreakableBlockIndexes.add(-1);
+                            edgeReachCells.add(currentCell);
+                            break;
+                        }
+                        else if (nextObject == RoomObject.Block || nextObject == RoomObject.BreakableBlock)
+                        {
+                            final int moveResult = currentCell == cell
+                                ? RoomLayout.noMove
+                                : nextObject == RoomObject.BreakableBlock
+                                    ? currentCell | RoomLayout.moveBreaksBlockFlag
+                                    : currentCell;
+                            edgeMoveResults.add(moveResult);
+                            edgeReachCells.add(currentCell);
+                            if (nextObject == RoomObject.Block)
+                            {
+                                edgeBreakableBlockIndexes.add(-1);
+                                break;
+                            }
+                            edgeBreakableBlockIndexes.add(layout.getBreakableBlockIndex(nextCell));
+                        }
+                        currentCell = nextCell;
+                    }
+                }
+            }
+        }
+        this.rayEdgeStarts[rayCount] = edgeMoveResults.getCount();
+
+        this.edgeMoveResults = StopPositionGraph.toArray(edgeMoveResults);
+        this.edgeBreakableBlockIndexes = StopPositionGraph.toArray(edgeBreakableBlockIndexes);
+        this.edgeReachCells = StopPositionGraph.toArray(edgeReachCells);
+    }
+
+    private static int[] toArray(List<Integer> values)
+    {
+        final int[] result = new int[values.getCount()];
+        for (int i = 0; i < result.length; ++i)
+        {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Compile the {@link StopPositionGraph} of the provided {@link RoomLayout}.
+     * @param layout The {@link RoomLayout} to compile.
+     */
+    public static StopPositionGraph create(RoomLayout layout)
+    {
+        PreCondition.assertNotNull(layout, "layout");
+
+        return new StopPositionGraph(layout);
+    }
+
+    /**
+     * Compile the {@link StopPositionGraph} of the static layout of the provided {@link Room}.
+     * @param room The {@link Room} to compile.
+     */
+    public static StopPositionGraph create(Room room)
+    {
+        PreCondition.assertNotNull(room, "room");
+
+        return StopPositionGraph.create(RoomLayout.create(room));
+    }
+
+    /**
+     * Get the {@link RoomLayout} that this graph was compiled from.
+     */
+    public RoomLayout getLayout()
+    {
+        return this.layout;
+    }
+
+    /**
+     * Get the number of bytes that this graph's tables take up.
+     */
+    public long getByteCount()
+    {
+        return ((long)this.cellSteps.length +
+            this.pushers.length +
+            this.pusherRequirements.length +
+            this.rayEdgeStarts.length +
+            this.edgeMoveResults.length +
+            this.edgeBreakableBlockIndexes.length +
+            this.edgeReachCells.length) * Integer.BYTES;
+    }
+
+    /**
+     * Get the total number of edges in this graph.
+     */
+    public int getEdgeCount()
+    {
+        return this.edgeMoveResults.length;
+    }
+
+    /**
+     * Get the number of edges in the ray that starts at the provided cell and goes in the provided
+     * direction. Cells that an {@link RoomObject#Orb} can't be in have no edges.
+     * @param cell The cell that the ray starts at.
+     * @param direction The direction of the ray.
+     */
+    public int getEdgeCount(int cell, int direction)
+    {
+        final int ray = cell * RoomLayout.directionCount + direction;
+        return this.rayEdgeStarts[ray + 1] - this.rayEdgeStarts[ray];
+    }
+
+    /**
+     * Get the move result of the provided edge when no other {@link RoomObject#Orb}s are in the
+     * way.
+     * @param cell The cell that the ray starts at.
+     * @param direction The direction of the ray.
+     * @param edgeIndex The index of the edge within the ray.
+     */
+    public int getEdgeMoveResult(int cell, int direction, int edgeIndex)
+    {
+        PreCondition.assertIndexAccess(edgeIndex, this.getEdgeCount(cell, direction), "edgeIndex");
+
+        return this.edgeMoveResults[this.rayEdgeStarts[cell * RoomLayout.directionCount + direction] + edgeIndex];
+    }
+
+    /**
+     * Get the index of the {@link RoomObject#BreakableBlock} that ends the provided edge, or -1 if
+     * the edge is the last edge of its ray.
+     * @param cell The cell that the ray starts at.
+     * @param direction The direction of the ray.
+     * @param edgeIndex The index of the edge within the ray.
+     */
+    public int getEdgeBreakableBlockIndex(int cell, int direction, int edgeIndex)
+    {
+        PreCondition.assertIndexAccess(edgeIndex, this.getEdgeCount(cell, direction), "edgeIndex");
+
+        return this.edgeBreakableBlockIndexes[this.rayEdgeStarts[cell * RoomLayout.directionCount + direction] + edgeIndex];
+    }
+
+    /**
+     * Get the index of the {@link RoomObject#BreakableBlock} that must be broken before an
+     * {@link RoomObject#Orb} in the provided cell can be pushed in the provided direction,
+     * {@link #pusherAlwaysOpen}, or {@link #pusherAlwaysBlocked}.
+     * @param cell The cell that the ray starts at.
+     * @param direction The direction of the ray.
+     */
+    public int getPusherRequirement(int cell, int direction)
+    {
+        return this.pusherRequirements[cell * RoomLayout.directionCount + direction];
+    }
+
+    /**
+     * Get the fewest number of moves that a lone {@link RoomObject#Orb} in each cell needs to
+     * reach a {@link RoomObject#Goal}, if every edge of this graph could be followed. Cells that
+     * can't reach a {@link RoomObject#Goal} get {@link #unreachableGoalDistance}.
+     */
+    public int[] getGoalDistances()
+    {
+        final int cellCount = this.layout.getCellCount();
+        final int rayCount = cellCount * RoomLayout.directionCount;
+        final int[] result = new int[cellCount];
+        java.util.Arrays.fill(result, StopPositionGraph.unreachableGoalDistance);
+
+        final int[] predecessorStarts = new int[cellCount + 1];
+        for (int ray = 0; ray < rayCount; ++ray)
+        {
+            if (this.pusherRequirements[ray] == StopPositionGraph.pusherAlwaysBlocked)
+            {
+                continue;
+            }
+
+            for (int edge = this.rayEdgeStarts[ray]; edge < this.rayEdgeStarts[ray + 1]; ++edge)
+            {
+                final int moveResult = this.edgeMoveResults[edge];
+                if (moveResult != RoomLayout.noMove && !RoomLayout.getMoveResultEndsInGoal(moveResult))
+                {
+                    ++predecessorStarts[RoomLayout.getMoveResultEndCell(moveResult) + 1];
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount; ++cell)
+        {
+            predecessorStarts[cell + 1] += predecessorStarts[cell];
+        }
+        final int[] predecessors = new int[predecessorStarts[cellCount]];
+        final int[] predecessorCounts = new int[cellCount];
+
+        final int[] cellsToVisit = new int[cellCount];
+        int cellsToVisitStart = 0;
+        int cellsToVisitEnd = 0;
+        for (int ray = 0; ray < rayCount; ++ray)
+        {
+            if (this.pusherRequirements[ray] == StopPositionGraph.pusherAlwaysBlocked)
+            {
+                continue;
+            }
+
+            final int cell = ray / RoomLayout.directionCount;
+            for (int edge = this.rayEdgeStarts[ray]; edge < this.rayEdgeStarts[ray + 1]; ++edge)
+            {
+                final int moveResult = this.edgeMoveResults[edge];
+                if (moveResult != RoomLayout.noMove)
+                {
+                    if (RoomLayout.getMoveResultEndsInGoal(moveResult))
+                    {
+                        if (result[cell] != 1)
+                        {
+                            result[cell] = 1;
+                            cellsToVisit[cellsToVisitEnd++] = cell;
+                        }
+                    }
+                    else
+                    {
+                        final int endCell = RoomLayout.getMoveResultEndCell(moveResult);
+                        predecessors[predecessorStarts[endCell] + predecessorCounts[endCell]++] = cell;
+                    }
+                }
+            }
+        }
+
+        while (cellsToVisitStart < cellsToVisitEnd)
+        {
+            final int cell = cellsToVisit[cellsToVisitStart++];
+            for (int i = predecessorStarts[cell]; i < predecessorStarts[cell + 1]; ++i)
+            {
+                final int predecessor = predecessors[i];
+                if (result[predecessor] == StopPositionGraph.unreachableGoalDistance)
+                {
+                    result[predecessor] = result[cell] + 1;
+                    cellsToVisit[cellsToVisitEnd++] = predecessor;
+                }
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the result of pushing a lone {@link RoomObject#Orb} in the provided start cell in the
+     * provided direction, ignoring every other {@link RoomObject#Orb}.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param startCell The cell of the {@link RoomObject#Orb} to push.
+     * @param direction The direction to push the {@link RoomObject#Orb}.
+     */
+    public int getStaticMoveResult(long brokenBlocks, int startCell, int direction)
+    {
+        final int edge = this.getStaticEdge(brokenBlocks, startCell, direction);
+        return edge == -1 ? RoomLayout.noMove : this.edgeMoveResults[edge];
+    }
+
+    /**
+     * Get the index of the edge that a lone {@link RoomObject#Orb} follows, or -1 if it can't be
+     * pushed.
+     */
+    private int getStaticEdge(long brokenBlocks, int startCell, int direction)
+    {
+        int result = -1;
+
+        final int ray = startCell * RoomLayout.directionCount + direction;
+        final int pusherRequirement = this.pusherRequirements[ray];
+        if (pusherRequirement == StopPositionGraph.pusherAlwaysOpen ||
+            (pusherRequirement >= 0 && RoomLayout.isBlockBroken(brokenBlocks, pusherRequirement)))
+        {
+            final int lastEdge = this.rayEdgeStarts[ray + 1] - 1;
+            for (int edge = this.rayEdgeStarts[ray]; edge <= lastEdge; ++edge)
+            {
+                final int breakableBlockIndex = this.edgeBreakableBlockIndexes[edge];
+                if (edge == lastEdge || !RoomLayout.isBlockBroken(brokenBlocks, breakableBlockIndex))
+                {
+                    result = edge;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the result of pushing the {@link RoomObject#Orb} in the provided start cell in the
+     * provided direction. This returns the same result as
+     * {@link RoomLayout#getMoveResult(int[], int, long, int, int)}. When no other
+     * {@link RoomObject#Orb} is in the pusher cell or along the path, which is the common case,
+     * the result is read from the graph. Otherwise the path is scanned.
+     * @param orbCells The cells that contain {@link RoomObject#Orb}s.
+     * @param orbCount The number of {@link RoomObject#Orb} cells.
+     * @param brokenBlocks The mask of broken {@link RoomObject#BreakableBlock}s.
+     * @param startCell The cell of the {@link RoomObject#Orb} to push.
+     * @param direction The direction to push the {@link RoomObject#Orb}.
+     */
+    public int getMoveResult(int[] orbCells, int orbCount, long brokenBlocks, int startCell, int direction)
+    {
+        int result = RoomLayout.noMove;
+
+        final int edge = this.getStaticEdge(brokenBlocks, startCell, direction);
+        if (edge != -1)
+        {
+            final int ray = startCell * RoomLayout.directionCount + direction;
+            final int pusherCell = this.pushers[ray];
+            final int step = this.cellSteps[direction];
+            final int reachDistance = (this.edgeReachCells[edge] - startCell) / step;
+
+            boolean orbsInteract = false;
+            for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+            {
+                final int orbCell = orbCells[orbIndex];
+                if (orbCell == pusherCell)
+                {
+                    orbsInteract = true;
+                    break;
+                }
+
+                final int offset = orbCell - startCell;
+                if (offset != 0 && offset % step == 0)
+                {
+                    final int distance = offset / step;
+                    if (0 < distance && distance <= reachDistance)
+                    {
+                        orbsInteract = true;
+                        break;
+                    }
+                }
+            }
+
+            result = orbsInteract
+                ? this.layout.getMoveResult(orbCells, orbCount, brokenBlocks, startCell, direction)
+                : this.edgeMoveResults[edge];
+        }
+
+        return result;
+    }
+}
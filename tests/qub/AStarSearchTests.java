@@ -0,0 +1,92 @@
+package qub;
+
+public interface AStarSearchTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(AStarSearch.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> AStarSearch.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("setHeuristic(RoomStateScorer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final AStarSearch search = AStarSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> search.setHeuristic(null),
+                        new PreConditionFailure("heuristic cannot be null."));
+                });
+
+                runner.test("with orb count heuristic", (Test test) ->
+                {
+                    final AStarSearch search = AStarSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    final RoomStateScorer heuristic = AStarSearch.getOrbCountHeuristic();
+                    test.assertSame(search, search.setHeuristic(heuristic));
+                    test.assertSame(heuristic, search.getHeuristic());
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with too many cells for a PatternDatabase", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(200, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(199, 199));
+                    final Iterable<Move> solution = AStarSearch.create(room).findSolution().await();
+                    test.assertEqual(2, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                });
+
+                runner.test("with solved room", (Test test) ->
+                {
+                    final AStarSearch search = AStarSearch.create(Room.create());
+                    test.assertEqual(0, search.findSolution().await().getCount());
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final AStarSearch search = AStarSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)));
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                    test.assertEqual(0L, search.getExpandedStateCount());
+                });
+
+                final Action1<Room> shortestSolutionTest = (Room room) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final int expectedSolutionLength = room.findSolution().await().getCount();
+                        final SolutionValidator validator = SolutionValidator.create(room);
+
+                        final AStarSearch orbCountSearch = AStarSearch.create(room)
+                            .setHeuristic(AStarSearch.getOrbCountHeuristic());
+                        final Iterable<Move> orbCountSolution = orbCountSearch.findSolution().await();
+                        test.assertEqual(expectedSolutionLength, orbCountSolution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, validator.validate(orbCountSolution));
+
+                        final AStarSearch patternDatabaseSearch = AStarSearch.create(room);
+                        final Iterable<Move> patternDatabaseSolution = patternDatabaseSearch.findSolution().await();
+                        test.assertEqual(expectedSolutionLength, patternDatabaseSolution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, validator.validate(patternDatabaseSolution));
+                        test.assertTrue(patternDatabaseSearch.getExpandedStateCount() <= orbCountSearch.getExpandedStateCount());
+                    });
+                };
+
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                shortestSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                shortestSolutionTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package qub;
+
+public interface BeamSearchTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(BeamSearch.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> BeamSearch.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with 1st Puzzle with Orbs", (Test test) ->
+                {
+                    final BeamSearch search = BeamSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertEqual(64, search.getBeamWidth());
+                    test.assertEqual(50L, search.getTimeLimit());
+                    test.assertNotNull(search.getScorer(), "search.getScorer()");
+                    test.assertFalse(search.isSolutionProvenOptimal());
+                });
+            });
+
+            runner.testGroup("setBeamWidth(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final BeamSearch search = BeamSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> search.setBeamWidth(0),
+                        new PreConditionFailure("beamWidth (0) must be greater than or equal to 1."));
+                    test.assertEqual(64, search.getBeamWidth());
+                });
+
+                runner.test("with 2", (Test test) ->
+                {
+                    final BeamSearch search = BeamSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertSame(search, search.setBeamWidth(2));
+                    test.assertEqual(2, search.getBeamWidth());
+                });
+            });
+
+            runner.testGroup("findSolution(Action1<Iterable<Move>>)", () ->
+            {
+                runner.test("with null onImprovedSolution", (Test test) ->
+                {
+                    final BeamSearch search = BeamSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> search.findSolution(null),
+                        new PreConditionFailure("onImprovedSolution cannot be null."));
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final BeamSearch search = BeamSearch.create(Room.create()
+                            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                            .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)))
+                        .setTimeLimit(10000);
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                    test.assertTrue(search.isSolutionProvenOptimal());
+                });
+
+                final Action2<Room,Integer> findSolutionTest = (Room room, Integer expectedMoveCount) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final BeamSearch search = BeamSearch.create(room)
+                            .setBeamWidth(1)
+                            .setTimeLimit(10000);
+                        final List<Integer> improvedSolutionMoveCounts = List.create();
+                        final Iterable<Move> solution = search.findSolution((Iterable<Move> improvedSolution) ->
+                        {
+                            final int improvedSolutionMoveCount = improvedSolution.getCount();
+                            if (improvedSolutionMoveCounts.any())
+                            {
+                                test.assertTrue(improvedSolutionMoveCount < improvedSolutionMoveCounts.last());
+                            }
+                            improvedSolutionMoveCounts.add(improvedSolutionMoveCount);
+                        }).await();
+
+                        test.assertTrue(search.isSolutionProvenOptimal());
+                        test.assertEqual(expectedMoveCount, solution.getCount());
+                        test.assertEqual(expectedMoveCount, improvedSolutionMoveCounts.last());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    });
+                };
+
+                runner.test("with no time", (Test test) ->
+                {
+                    final Room room = RoomTests.get4thPuzzleWithOrbsRoom();
+                    final BeamSearch search = BeamSearch.create(room)
+                        .setTimeLimit(0);
+                    final Iterable<Move> solution = search.findSolution().await();
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                });
+
+                findSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), 6);
+                findSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom(), 9);
+                findSolutionTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), 8);
+            });
+        });
+    }
+}
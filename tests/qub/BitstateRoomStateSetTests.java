@@ -0,0 +1,86 @@
+package qub;
+
+public interface BitstateRoomStateSetTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(BitstateRoomStateSet.class, () ->
+        {
+            runner.testGroup("create(int,long,int,int)", () ->
+            {
+                runner.test("with 0 hashCount", (Test test) ->
+                {
+                    test.assertThrows(() -> BitstateRoomStateSet.create(1, 100, 8, 0),
+                        new PreConditionFailure("hashCount (0) must be between 1 and 64."));
+                });
+
+                runner.test("with 1000 expected keys", (Test test) ->
+                {
+                    final BitstateRoomStateSet set = BitstateRoomStateSet.create(2, 1000, 12, 4);
+                    test.assertEqual(2, set.getKeyLongCount());
+                    test.assertEqual(12, set.getBitsPerState());
+                    test.assertEqual(4, set.getHashCount());
+                    test.assertEqual(12000L, set.getBitCount());
+                    test.assertEqual(0L, set.getSetBitCount());
+                    test.assertEqual(0L, set.getCount());
+                    test.assertEqual(0.0, set.getOmissionProbability());
+                });
+            });
+
+            runner.testGroup("getOptimalHashCount(int)", () ->
+            {
+                runner.test("with 1", (Test test) ->
+                {
+                    test.assertEqual(1, BitstateRoomStateSet.getOptimalHashCount(1));
+                });
+
+                runner.test("with 16", (Test test) ->
+                {
+                    test.assertEqual(11, BitstateRoomStateSet.getOptimalHashCount(16));
+                });
+            });
+
+            runner.testGroup("add(long[],int)", () ->
+            {
+                runner.test("with same key twice", (Test test) ->
+                {
+                    final BitstateRoomStateSet set = BitstateRoomStateSet.create(1, 100, 16, 3);
+                    final long[] key = new long[] { 12345 };
+                    test.assertFalse(set.contains(key, 0));
+                    test.assertTrue(set.add(key, 0));
+                    test.assertTrue(set.contains(key, 0));
+                    test.assertFalse(set.add(key, 0));
+                    test.assertEqual(1L, set.getCount());
+                    test.assertTrue(set.getSetBitCount() >= 1 && set.getSetBitCount() <= 3);
+                });
+
+                runner.test("with expected number of keys", (Test test) ->
+                {
+                    final BitstateRoomStateSet set = BitstateRoomStateSet.create(1, 10000, 10, BitstateRoomStateSet.getOptimalHashCount(10));
+                    final long[] key = new long[1];
+                    for (int i = 0; i < 10000; ++i)
+                    {
+                        key[0] = i;
+                        set.add(key, 0);
+                    }
+                    final long omittedCount = 10000 - set.getCount();
+                    test.assertTrue(omittedCount > 0);
+                    test.assertTrue(Math.abs(omittedCount - set.getExpectedOmittedCount()) < 10, omittedCount + " vs " + set.getExpectedOmittedCount());
+                    test.assertTrue(set.getOmissionProbability() > 0.99);
+                });
+
+                runner.test("with few keys", (Test test) ->
+                {
+                    final BitstateRoomStateSet set = BitstateRoomStateSet.create(1, 10000, 32, 8);
+                    final long[] key = new long[1];
+                    for (int i = 0; i < 100; ++i)
+                    {
+                        key[0] = i;
+                        test.assertTrue(set.add(key, 0));
+                    }
+                    test.assertTrue(set.getOmissionProbability() < 1e-10);
+                });
+            });
+        });
+    }
+}
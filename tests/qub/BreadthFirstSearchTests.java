@@ -0,0 +1,207 @@
+package qub;
+
+public interface BreadthFirstSearchTests
+{
+    public static Path createTemporaryFilePath()
+    {
+        try
+        {
+            final java.nio.file.Path file = java.nio.file.Files.createTempFile("breadth-first-search", ".checkpoint");
+            java.nio.file.Files.delete(file);
+            file.toFile().deleteOnExit();
+            return Path.parse(file.toString());
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(BreadthFirstSearch.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> BreadthFirstSearch.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("setVisitedStatesCreator(Function1<Integer,RoomStateSet>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create());
+                    test.assertThrows(() -> search.setVisitedStatesCreator(null),
+                        new PreConditionFailure("visitedStatesCreator cannot be null."));
+                });
+
+                runner.test("with off-heap creator", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create());
+                    final Function1<Integer,RoomStateSet> creator = BreadthFirstSearch.getOffHeapVisitedStatesCreator(100);
+                    test.assertSame(search, search.setVisitedStatesCreator(creator));
+                    test.assertSame(creator, search.getVisitedStatesCreator());
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with solved room", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create());
+                    test.assertEqual(0, search.findSolution().await().getCount());
+                    test.assertEqual(1L, search.getVisitedStateCount());
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(5, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5)));
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                    test.assertEqual(search.getVisitedStateCount(), search.getExpandedStateCount());
+                });
+
+                runner.test("with visited states creator with wrong key size", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(RoomTests.get1stPuzzleWithOrbsRoom())
+                        .setVisitedStatesCreator((Integer keyLongCount) -> HeapRoomStateSet.create(keyLongCount + 1));
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new IllegalArgumentException("The visited states creator must create a set for keys with 1 longs."));
+                });
+
+                final Action2<Room,Boolean> shortestSolutionTest = (Room room, Boolean offHeap) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects and " + (offHeap ? "off-heap" : "heap") + " visited states", (Test test) ->
+                    {
+                        final int expectedSolutionLength = room.findSolution().await().getCount();
+                        final BreadthFirstSearch search = BreadthFirstSearch.create(room);
+                        if (offHeap)
+                        {
+                            search.setVisitedStatesCreator(BreadthFirstSearch.getOffHeapVisitedStatesCreator(10));
+                        }
+                        final Iterable<Move> solution = search.findSolution().await();
+                        test.assertEqual(expectedSolutionLength, solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                        test.assertTrue(search.getExpandedStateCount() > 0);
+                        test.assertTrue(search.getVisitedStateCount() >= search.getExpandedStateCount());
+                    });
+                };
+
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), false);
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), true);
+                shortestSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom(), true);
+                shortestSolutionTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), false);
+                shortestSolutionTest.run(RoomTests.get4thPuzzleWithOrbsRoom(), true);
+
+                runner.test("with bitstate visited states", (Test test) ->
+                {
+                    final Room room = RoomTests.get3rdPuzzleWithOrbsRoom();
+                    final BreadthFirstSearch exactSearch = BreadthFirstSearch.create(room);
+                    final int expectedSolutionLength = exactSearch.findSolution().await().getCount();
+                    test.assertEqual(0.0, exactSearch.getOmissionProbability());
+
+                    final BreadthFirstSearch bitstateSearch = BreadthFirstSearch.create(room)
+                        .setVisitedStatesCreator(BreadthFirstSearch.getBitstateVisitedStatesCreator(exactSearch.getVisitedStateCount(), 32, 8));
+                    final Iterable<Move> solution = bitstateSearch.findSolution().await();
+                    test.assertEqual(expectedSolutionLength, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    test.assertTrue(bitstateSearch.getOmissionProbability() > 0);
+                    test.assertTrue(bitstateSearch.getOmissionProbability() < 0.001);
+                });
+
+                runner.test("with overfull bitstate visited states", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(5, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(room)
+                        .setVisitedStatesCreator(BreadthFirstSearch.getBitstateVisitedStatesCreator(2, 1, 1));
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new NotFoundException("No solution was found for the provided room, but states may have been skipped."));
+                    test.assertTrue(search.getVisitedStateCount() <= 2);
+                    test.assertTrue(search.getOmissionProbability() > 0);
+                });
+            });
+
+            runner.testGroup("resumeSolution()", () ->
+            {
+                runner.test("with no checkpoint file path", (Test test) ->
+                {
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create());
+                    test.assertThrows(() -> search.resumeSolution(),
+                        new PreConditionFailure("this.getCheckpointFilePath() cannot be null."));
+                });
+
+                runner.test("with checkpoint file that doesn't exist", (Test test) ->
+                {
+                    final Path checkpointFilePath = BreadthFirstSearchTests.createTemporaryFilePath();
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(Room.create())
+                        .setCheckpointFilePath(checkpointFilePath);
+                    test.assertThrows(() -> search.resumeSolution().await(),
+                        new NotFoundException("The checkpoint file " + checkpointFilePath + " doesn't exist."));
+                });
+
+                runner.test("with checkpoint file from a different room", (Test test) ->
+                {
+                    final Path checkpointFilePath = BreadthFirstSearchTests.createTemporaryFilePath();
+                    BreadthFirstSearch.create(RoomTests.get1stPuzzleWithOrbsRoom())
+                        .setCheckpointFilePath(checkpointFilePath)
+                        .findSolution().await();
+                    final BreadthFirstSearch search = BreadthFirstSearch.create(RoomTests.get2ndPuzzleWithOrbsRoom())
+                        .setCheckpointFilePath(checkpointFilePath);
+                    test.assertThrows(() -> search.resumeSolution().await(),
+                        new IllegalArgumentException("The checkpoint file was written by a search of a different room."));
+                });
+
+                final Action2<Room,Double> resumeTest = (Room room, Double keptFraction) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects and " + keptFraction + " of the checkpoint file", (Test test) ->
+                    {
+                        final Path checkpointFilePath = BreadthFirstSearchTests.createTemporaryFilePath();
+                        final BreadthFirstSearch search = BreadthFirstSearch.create(room)
+                            .setCheckpointFilePath(checkpointFilePath);
+                        final Iterable<Move> expectedSolution = search.findSolution().await();
+                        final long expectedExpandedStateCount = search.getExpandedStateCount();
+                        final long expectedVisitedStateCount = search.getVisitedStateCount();
+
+                        // Cut the checkpoint off as if the search had stopped while writing it.
+                        try (final java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(java.nio.file.Paths.get(checkpointFilePath.toString()), java.nio.file.StandardOpenOption.WRITE))
+                        {
+                            channel.truncate((long)(channel.size() * keptFraction));
+                        }
+                        catch (java.io.IOException e)
+                        {
+                            throw new java.io.UncheckedIOException(e);
+                        }
+
+                        final Iterable<Move> solution = search.resumeSolution().await();
+                        test.assertEqual(expectedSolution, solution);
+                        test.assertEqual(expectedExpandedStateCount, search.getExpandedStateCount());
+                        test.assertEqual(expectedVisitedStateCount, search.getVisitedStateCount());
+
+                        // The checkpoint was repaired, so resuming it again gives the same result.
+                        test.assertEqual(expectedSolution, search.resumeSolution().await());
+                        test.assertEqual(expectedExpandedStateCount, search.getExpandedStateCount());
+                    });
+                };
+
+                resumeTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), 1.0);
+                resumeTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), 0.5);
+                resumeTest.run(RoomTests.get4thPuzzleWithOrbsRoom(), 0.3);
+                resumeTest.run(RoomTests.get4thPuzzleWithOrbsRoom(), 0.01);
+            });
+        });
+    }
+}
@@ -0,0 +1,200 @@
+package qub;
+
+public interface EndgameTablebaseTests
+{
+    /**
+     * Get a {@link Room} with one {@link RoomObject#Orb} that has to climb a staircase of the
+     * provided number of steps, two moves per step, before it can move into the
+     * {@link RoomObject#Goal}.
+     */
+    public static Room getStaircaseRoom(int stepCount)
+    {
+        final Room result = Room.create()
+            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0));
+        for (int step = 0; step < stepCount; ++step)
+        {
+            result.addRoomObject(RoomObject.Block, Point2Integer.create(2 * step, 2 * step + 3));
+            result.addRoomObject(RoomObject.Block, Point2Integer.create(2 * step + 3, 2 * step + 2));
+        }
+        result.addRoomObject(RoomObject.Goal, Point2Integer.create(2 * stepCount, 2 * stepCount + 1));
+        return result;
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(EndgameTablebase.class, () ->
+        {
+            runner.testGroup("create(Room,int)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> EndgameTablebase.create((Room)null, 1),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with negative maxOrbCount", (Test test) ->
+                {
+                    test.assertThrows(() -> EndgameTablebase.create(Room.create(), -1),
+                        new PreConditionFailure("maxOrbCount (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with empty room", (Test test) ->
+                {
+                    final EndgameTablebase tablebase = EndgameTablebase.create(Room.create(), 2).await();
+                    test.assertEqual(2, tablebase.getMaxOrbCount());
+                    test.assertEqual(1L, tablebase.getStateCount());
+                    test.assertEqual(0, tablebase.getDistanceToSolve(Room.create()).await());
+                });
+
+                runner.test("with arrangement just under the maximum distance", (Test test) ->
+                {
+                    final Room room = EndgameTablebaseTests.getStaircaseRoom(126);
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 1).await();
+                    test.assertEqual(253, tablebase.getDistanceToSolve(room).await());
+                });
+
+                runner.test("with arrangement past the maximum distance", (Test test) ->
+                {
+                    test.assertThrows(() -> EndgameTablebase.create(EndgameTablebaseTests.getStaircaseRoom(127), 1).await(),
+                        new PreConditionFailure("The provided layout has arrangements that take more than 254 moves to solve, which is more than an EndgameTablebase can store."));
+                });
+            });
+
+            runner.testGroup("covers(Room)", () ->
+            {
+                final Room room = Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                    .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2));
+
+                final Action2<Room,Boolean> coversTest = (Room roomToCheck, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(roomToCheck.toString()), (Test test) ->
+                    {
+                        final EndgameTablebase tablebase = EndgameTablebase.create(room, 1).await();
+                        test.assertEqual(expected, tablebase.covers(roomToCheck));
+                    });
+                };
+
+                coversTest.run(room, true);
+                coversTest.run(Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2)),
+                    true);
+                coversTest.run(Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 0))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2)),
+                    true);
+                coversTest.run(Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 0))
+                    .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2)),
+                    false);
+                coversTest.run(Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                    .addRoomObject(RoomObject.Block, Point2Integer.create(3, 0))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2)),
+                    false);
+                coversTest.run(Room.create()
+                    .addRoomObject(RoomObject.Orb, Point2Integer.create(10, 0))
+                    .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                    .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2)),
+                    false);
+            });
+
+            runner.testGroup("getDistanceToSolve(Room)", () ->
+            {
+                runner.test("with room that isn't covered", (Test test) ->
+                {
+                    final EndgameTablebase tablebase = EndgameTablebase.create(Room.create(), 1).await();
+                    test.assertThrows(() -> tablebase.getDistanceToSolve(Room.create()
+                            .addRoomObject(RoomObject.Block, Point2Integer.create(0, 0))),
+                        new PreConditionFailure("this.covers(room) cannot be false."));
+                });
+
+                runner.test("with no solution", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1));
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 1).await();
+                    test.assertThrows(() -> tablebase.getDistanceToSolve(room).await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+
+                runner.test("with two move solution", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2));
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 1).await();
+                    test.assertEqual(2, tablebase.getDistanceToSolve(room).await());
+                });
+
+                runner.test("with 2nd Puzzle with Orbs", (Test test) ->
+                {
+                    final Room room = RoomTests.get2ndPuzzleWithOrbsRoom();
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 2).await();
+                    test.assertEqual(9, tablebase.getDistanceToSolve(room).await());
+                });
+            });
+
+            runner.testGroup("findSolution(Room)", () ->
+            {
+                final Action2<String,Room> findSolutionTest = (String testName, Room room) ->
+                {
+                    runner.test(testName, (Test test) ->
+                    {
+                        final EndgameTablebase tablebase = EndgameTablebase.create(room, room.getRoomObjectCount(RoomObject.Orb)).await();
+
+                        final Iterable<Move> solution = tablebase.findSolution(room).await();
+                        test.assertEqual(room.findSolution().await().getCount(), solution.getCount());
+
+                        final Room solvedRoom = room.clone();
+                        for (final Move move : solution)
+                        {
+                            solvedRoom.applyMove(move);
+                        }
+                        test.assertEqual(0, solvedRoom.getRoomObjectCount(RoomObject.Orb));
+                    });
+                };
+
+                findSolutionTest.run("with one move solution",
+                    Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 0)));
+                findSolutionTest.run("1st Puzzle with Orbs", RoomTests.get1stPuzzleWithOrbsRoom());
+                findSolutionTest.run("2nd Puzzle with Orbs", RoomTests.get2ndPuzzleWithOrbsRoom());
+                findSolutionTest.run("3rd Puzzle with Orbs", RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+
+            runner.testGroup("parse(java.nio.ByteBuffer)", () ->
+            {
+                runner.test("with null bytes", (Test test) ->
+                {
+                    test.assertThrows(() -> EndgameTablebase.parse(null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with bytes that aren't a tablebase", (Test test) ->
+                {
+                    test.assertThrows(() -> EndgameTablebase.parse(java.nio.ByteBuffer.wrap(new byte[] { 1, 2, 3 })).await(),
+                        new ParseException("The provided bytes are not an endgame tablebase."));
+                });
+
+                runner.test("with the bytes from toByteBuffer()", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 2).await();
+
+                    final EndgameTablebase parsedTablebase = EndgameTablebase.parse(tablebase.toByteBuffer()).await();
+                    test.assertEqual(tablebase.getLayout(), parsedTablebase.getLayout());
+                    test.assertEqual(tablebase.getStateCount(), parsedTablebase.getStateCount());
+                    test.assertEqual(6, parsedTablebase.getDistanceToSolve(room).await());
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package qub;
+
+public interface HeapRoomStateSetTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(HeapRoomStateSet.class, () ->
+        {
+            runner.testGroup("create(int,long)", () ->
+            {
+                runner.test("with 0 keyLongCount", (Test test) ->
+                {
+                    test.assertThrows(() -> HeapRoomStateSet.create(0, 10),
+                        new PreConditionFailure("keyLongCount (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with 100", (Test test) ->
+                {
+                    final HeapRoomStateSet set = HeapRoomStateSet.create(1, 100);
+                    test.assertEqual(1, set.getKeyLongCount());
+                    test.assertEqual(0L, set.getCount());
+                    test.assertEqual(256L, set.getSlotCount());
+                });
+            });
+
+            runner.testGroup("add(long[],int)", () ->
+            {
+                runner.test("with many keys", (Test test) ->
+                {
+                    final HeapRoomStateSet heapSet = HeapRoomStateSet.create(3);
+                    final OffHeapRoomStateSet offHeapSet = OffHeapRoomStateSet.create(3);
+                    final java.util.Random random = new java.util.Random(10);
+                    final long[] key = new long[3];
+                    for (int i = 0; i < 5000; ++i)
+                    {
+                        key[0] = random.nextInt(40);
+                        key[1] = random.nextInt(40);
+                        key[2] = random.nextInt(3);
+                        test.assertEqual(offHeapSet.add(key, 0), heapSet.add(key, 0));
+                    }
+                    test.assertEqual(offHeapSet.getCount(), heapSet.getCount());
+                    test.assertEqual(offHeapSet.getSlotCount(), heapSet.getSlotCount());
+
+                    for (int i = 0; i < 5000; ++i)
+                    {
+                        key[0] = random.nextInt(40);
+                        key[1] = random.nextInt(40);
+                        key[2] = random.nextInt(4);
+                        test.assertEqual(offHeapSet.contains(key, 0), heapSet.contains(key, 0));
+                    }
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package qub;
+
+public interface IndependentOrbGroupsTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(IndependentOrbGroups.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> IndependentOrbGroups.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with too many layout cells", (Test test) ->
+                {
+                    test.assertThrows(() -> IndependentOrbGroups.create(Room.create()
+                            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                            .addRoomObject(RoomObject.Goal, Point2Integer.create(1000, 1000))),
+                        new PreConditionFailure("RoomLayout.getCellCount(room) (1006009) must be less than or equal to 65536."));
+                });
+
+                runner.test("with no orbs", (Test test) ->
+                {
+                    final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 0)));
+                    test.assertEqual(0, orbGroups.getGroupCount());
+                    test.assertEqual(Iterable.create(), orbGroups.findSolution().await());
+                });
+
+                runner.test("with orbs that share a column", (Test test) ->
+                {
+                    final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 3))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 6))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 6)));
+                    test.assertEqual(1, orbGroups.getGroupCount());
+                });
+
+                runner.test("with orbs that depend on the same breakable block", (Test test) ->
+                {
+                    final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 4))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, -3)));
+                    test.assertEqual(1, orbGroups.getGroupCount());
+                });
+
+                runner.test("with isolated orbs", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 3))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(5, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(8, 5));
+                    final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(room);
+                    test.assertEqual(2, orbGroups.getGroupCount());
+                    test.assertEqual(Iterable.create(Point2Integer.create(0, 0)), orbGroups.getGroupOrbLocations(0));
+                    test.assertEqual(Iterable.create(Point2Integer.create(5, 5)), orbGroups.getGroupOrbLocations(1));
+                    test.assertEqual(1, orbGroups.getGroupRoom(1).getRoomObjectCount(RoomObject.Orb));
+                    test.assertEqual(2, orbGroups.getGroupRoom(1).getRoomObjectCount(RoomObject.Goal));
+
+                    final Iterable<Move> solution = orbGroups.findSolution().await();
+                    test.assertEqual(
+                        Iterable.create(
+                            Move.create()
+                                .setStartLocation(Point2Integer.create(0, 0))
+                                .setEndLocation(Point2Integer.create(0, 3))
+                                .setEndLocationIsGoal(true),
+                            Move.create()
+                                .setStartLocation(Point2Integer.create(5, 5))
+                                .setEndLocation(Point2Integer.create(8, 5))
+                                .setEndLocationIsGoal(true)),
+                        solution);
+                    test.assertEqual(solution, room.findSolution().await());
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with unsolvable group", (Test test) ->
+                {
+                    final IndependentOrbGroups orbGroups = IndependentOrbGroups.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 3))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(5, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(8, 6)));
+                    test.assertEqual(2, orbGroups.getGroupCount());
+                    test.assertThrows(() -> orbGroups.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package qub;
+
+public interface MinimumCostSearchTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(MinimumCostSearch.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> MinimumCostSearch.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("setMoveCostFunction(MoveCostFunction)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> search.setMoveCostFunction(null),
+                        new PreConditionFailure("moveCostFunction cannot be null."));
+                });
+
+                runner.test("with move count cost function", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    final MoveCostFunction moveCostFunction = MinimumCostSearch.getMoveCountCostFunction();
+                    test.assertSame(search, search.setMoveCostFunction(moveCostFunction));
+                    test.assertSame(moveCostFunction, search.getMoveCostFunction());
+                });
+            });
+
+            runner.testGroup("getCost(Iterable<Move>)", () ->
+            {
+                runner.test("with slide distance and block break penalty", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(4, 0)));
+                    final Iterable<Move> moves = Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(3, 0))
+                            .setBlockBroken(true));
+                    test.assertEqual(3, search.getCost(moves));
+
+                    search.setMoveCostFunction(MinimumCostSearch.getBlockBreakPenaltyCostFunction(MinimumCostSearch.getSlideDistanceCostFunction(), 10));
+                    test.assertEqual(13, search.getCost(moves));
+                });
+
+                runner.test("with move that ends outside of the room", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(4, 0)));
+                    final Iterable<Move> moves = Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(7, 0)));
+                    test.assertThrows(() -> search.getCost(moves),
+                        new PreConditionFailure("this.layout.getCellIndex(move.getEndLocation()) (-1) must not be -1."));
+                });
+
+                runner.test("with move that starts outside of the room", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(4, 0)));
+                    final Iterable<Move> moves = Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(-2, 0))
+                            .setEndLocation(Point2Integer.create(3, 0)));
+                    test.assertThrows(() -> search.getCost(moves),
+                        new PreConditionFailure("this.layout.getCellIndex(move.getStartLocation()) (-1) must not be -1."));
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final MinimumCostSearch search = MinimumCostSearch.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)));
+                    test.assertThrows(() -> search.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+
+                runner.test("with shorter slide distance over more moves", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(0, 3))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(9, 0));
+                    final MinimumCostSearch search = MinimumCostSearch.create(room);
+                    final Iterable<Move> solution = search.findSolution().await();
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    test.assertEqual(4, search.getCost(solution));
+                    test.assertEqual(2, solution.getCount());
+
+                    search.setMoveCostFunction(MinimumCostSearch.getMoveCountCostFunction());
+                    test.assertEqual(1, search.findSolution().await().getCount());
+                });
+
+                final Action1<Room> moveCountTest = (Room room) ->
+                {
+                    runner.test("with move count cost for room with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final MinimumCostSearch search = MinimumCostSearch.create(room)
+                            .setMoveCostFunction(MinimumCostSearch.getMoveCountCostFunction());
+                        final Iterable<Move> solution = search.findSolution().await();
+                        test.assertEqual(room.findSolution().await().getCount(), solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    });
+                };
+
+                moveCountTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                moveCountTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                moveCountTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package qub;
+
+public interface MoveSequenceCodecTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(MoveSequenceCodec.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> MoveSequenceCodec.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("toBinary(Iterable<Move>)", () ->
+            {
+                runner.test("with no moves", (Test test) ->
+                {
+                    final MoveSequenceCodec codec = MoveSequenceCodec.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    final byte[] bytes = codec.toBinary(Iterable.create());
+                    test.assertEqual(1, bytes.length);
+                    test.assertEqual((byte)0, bytes[0]);
+                    test.assertEqual(Iterable.create(), codec.parseBinary(bytes).await());
+                });
+
+                final Action1<Room> roundTripTest = (Room room) ->
+                {
+                    runner.test("with solution for room with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final MoveSequenceCodec codec = MoveSequenceCodec.create(room);
+                        final Iterable<Move> solution = room.findSolution().await();
+                        final byte[] bytes = codec.toBinary(solution);
+                        test.assertTrue(bytes.length <= solution.getCount() * 2 + 1);
+                        test.assertEqual(solution, codec.parseBinary(bytes).await());
+                    });
+                };
+
+                roundTripTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                roundTripTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                roundTripTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+
+            runner.testGroup("parseBinary(byte[])", () ->
+            {
+                runner.test("with no terminating zero", (Test test) ->
+                {
+                    final MoveSequenceCodec codec = MoveSequenceCodec.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> codec.parseBinary(new byte[0]).await(),
+                        new ParseException("The move sequence ended before its terminating zero."));
+                });
+
+                runner.test("with illegal move", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final MoveSequenceCodec codec = MoveSequenceCodec.create(room);
+                    final Move firstMove = room.findSolution().await().first();
+                    test.assertThrows(() -> codec.parseBinary(codec.toBinary(Iterable.create(firstMove, firstMove))).await(),
+                        new ParseException("Move 1 is not a legal move."));
+                });
+            });
+
+            runner.testGroup("toJson(Iterable<Move>)", () ->
+            {
+                runner.test("with no moves", (Test test) ->
+                {
+                    test.assertEqual("[]", MoveSequenceCodec.toJson(Iterable.create()));
+                });
+
+                runner.test("with moves", (Test test) ->
+                {
+                    final Iterable<Move> moves = Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(3, 0))
+                            .setBlockBroken(true),
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(3, 0))
+                            .setEndLocation(Point2Integer.create(3, -2))
+                            .setEndLocationIsGoal(true));
+                    final String json = MoveSequenceCodec.toJson(moves);
+                    test.assertEqual(
+                        "[{\"startLocation\":[0,0],\"endLocation\":[3,0],\"blockBroken\":true},{\"startLocation\":[3,0],\"endLocation\":[3,-2],\"endLocationIsGoal\":true}]",
+                        json);
+                    test.assertEqual(moves, MoveSequenceCodec.parseJson(json).await());
+                });
+            });
+
+            runner.testGroup("parseJson(String)", () ->
+            {
+                runner.test("with whitespace", (Test test) ->
+                {
+                    test.assertEqual(
+                        Iterable.create(
+                            Move.create()
+                                .setStartLocation(Point2Integer.create(1, 2))
+                                .setEndLocation(Point2Integer.create(1, 5))
+                                .setBlockBroken(false)),
+                        MoveSequenceCodec.parseJson(" [ { \"startLocation\" : [ 1 , 2 ] , \"endLocation\" : [1,5], \"blockBroken\": false } ] ").await());
+                });
+
+                runner.test("with unrecognized property", (Test test) ->
+                {
+                    test.assertThrows(() -> MoveSequenceCodec.parseJson("[{\"speed\":[1,2]}]").await(),
+                        new ParseException("Unrecognized move property: \"speed\"."));
+                });
+
+                runner.test("with missing closing bracket", (Test test) ->
+                {
+                    test.assertThrows(() -> MoveSequenceCodec.parseJson("[{}").await(),
+                        new ParseException("Expected ']' but found the end of the input."));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package qub;
+
+public interface OffHeapRoomStateSetTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(OffHeapRoomStateSet.class, () ->
+        {
+            runner.testGroup("create(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    test.assertThrows(() -> OffHeapRoomStateSet.create(0),
+                        new PreConditionFailure("keyLongCount (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with 2", (Test test) ->
+                {
+                    final OffHeapRoomStateSet set = OffHeapRoomStateSet.create(2);
+                    test.assertEqual(2, set.getKeyLongCount());
+                    test.assertEqual(0L, set.getCount());
+                    test.assertFalse(set.contains(new long[2], 0));
+                });
+            });
+
+            runner.testGroup("create(int,long)", () ->
+            {
+                runner.test("with negative capacity", (Test test) ->
+                {
+                    test.assertThrows(() -> OffHeapRoomStateSet.create(1, -1),
+                        new PreConditionFailure("capacity (-1) must be between 0 and 549755813888."));
+                });
+
+                runner.test("with 1000", (Test test) ->
+                {
+                    final OffHeapRoomStateSet set = OffHeapRoomStateSet.create(3, 1000);
+                    test.assertEqual(2048L, set.getSlotCount());
+                    test.assertEqual((2048L * 3 + 32) * 8, set.getByteCount());
+                });
+            });
+
+            runner.testGroup("add(long[],int)", () ->
+            {
+                runner.test("with null key", (Test test) ->
+                {
+                    final OffHeapRoomStateSet set = OffHeapRoomStateSet.create(1);
+                    test.assertThrows(() -> set.add(null, 0),
+                        new PreConditionFailure("key cannot be null."));
+                });
+
+                runner.test("with zero key", (Test test) ->
+                {
+                    final OffHeapRoomStateSet set = OffHeapRoomStateSet.create(2);
+                    final long[] key = new long[] { 5, 0, 0 };
+                    test.assertTrue(set.add(key, 1));
+                    test.assertFalse(set.add(key, 1));
+                    test.assertEqual(1L, set.getCount());
+                    test.assertTrue(set.contains(new long[2], 0));
+                    test.assertFalse(set.contains(key, 0));
+                });
+
+                runner.test("with many keys", (Test test) ->
+                {
+                    final OffHeapRoomStateSet set = OffHeapRoomStateSet.create(2);
+                    final long[] key = new long[2];
+                    for (int i = 0; i < 10000; ++i)
+                    {
+                        key[0] = i;
+                        key[1] = i % 7;
+                        test.assertTrue(set.add(key, 0));
+                    }
+                    test.assertEqual(10000L, set.getCount());
+                    test.assertEqual(16384L, set.getSlotCount());
+
+                    for (int i = 0; i < 10000; ++i)
+                    {
+                        key[0] = i;
+                        key[1] = i % 7;
+                        test.assertTrue(set.contains(key, 0));
+                        test.assertFalse(set.add(key, 0));
+                        key[1] = i % 7 + 1;
+                        test.assertFalse(set.contains(key, 0));
+                    }
+                    test.assertEqual(10000L, set.getCount());
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package qub;
+
+public interface ParallelIdaStarSearchTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(ParallelIdaStarSearch.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> ParallelIdaStarSearch.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("setThreadCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertThrows(() -> search.setThreadCount(0),
+                        new PreConditionFailure("threadCount (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with 3", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertSame(search, search.setThreadCount(3));
+                    test.assertEqual(3, search.getThreadCount());
+                });
+            });
+
+            runner.testGroup("setSplitDepth(int)", () ->
+            {
+                runner.test("with -1", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertThrows(() -> search.setSplitDepth(-1),
+                        new PreConditionFailure("splitDepth (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with 0", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertSame(search, search.setSplitDepth(0));
+                    test.assertEqual(0, search.getSplitDepth());
+                });
+            });
+
+            runner.testGroup("setHeuristic(Function1<Room,Integer>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertThrows(() -> search.setHeuristic(null),
+                        new PreConditionFailure("heuristic cannot be null."));
+                });
+
+                runner.test("with orb count heuristic", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    final Function1<Room,Integer> heuristic = ParallelIdaStarSearch.getOrbCountHeuristic();
+                    test.assertSame(search, search.setHeuristic(heuristic));
+                    test.assertSame(heuristic, search.getHeuristic());
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with too many cells for a PatternDatabase", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(200, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(199, 199));
+                    final Iterable<Move> solution = ParallelIdaStarSearch.create(room).findSolution().await();
+                    test.assertEqual(2, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                });
+
+                runner.test("with solved room", (Test test) ->
+                {
+                    final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(Room.create());
+                    test.assertEqual(0, search.findSolution().await().getCount());
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(5, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+
+                    final ParallelIdaStarSearch orbCountSearch = ParallelIdaStarSearch.create(room)
+                        .setHeuristic(ParallelIdaStarSearch.getOrbCountHeuristic());
+                    test.assertThrows(() -> orbCountSearch.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                    test.assertTrue(orbCountSearch.getExpandedStateCount() > 0);
+
+                    final ParallelIdaStarSearch patternDatabaseSearch = ParallelIdaStarSearch.create(room);
+                    test.assertThrows(() -> patternDatabaseSearch.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                    test.assertEqual(0L, patternDatabaseSearch.getExpandedStateCount());
+                });
+
+                final Action3<Room,Integer,Integer> shortestSolutionTest = (Room room, Integer threadCount, Integer splitDepth) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects, " + threadCount + " threads, and split depth " + splitDepth, (Test test) ->
+                    {
+                        final int expectedSolutionLength = room.findSolution().await().getCount();
+                        final ParallelIdaStarSearch search = ParallelIdaStarSearch.create(room)
+                            .setThreadCount(threadCount)
+                            .setSplitDepth(splitDepth);
+                        final Iterable<Move> solution = search.findSolution().await();
+                        test.assertEqual(expectedSolutionLength, solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                        test.assertTrue(search.getExpandedStateCount() > 0);
+                    });
+                };
+
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), 1, 0);
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), 4, 2);
+                shortestSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom(), 4, 3);
+                shortestSolutionTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), 2, 3);
+            });
+        });
+    }
+}
@@ -0,0 +1,231 @@
+package qub;
+
+public interface PartitionedBreadthFirstSearchTests
+{
+    public static Path createTemporaryFolder()
+    {
+        try
+        {
+            return Path.parse(java.nio.file.Files.createTempDirectory("partitioned-search").toString());
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the names of the files and folders that are left in the provided folder.
+     */
+    public static java.util.Set<String> getFolderEntries(Path folderPath)
+    {
+        final java.util.Set<String> result = new java.util.TreeSet<>();
+        try (final java.nio.file.DirectoryStream<java.nio.file.Path> entries = java.nio.file.Files.newDirectoryStream(java.nio.file.Paths.get(folderPath.toString())))
+        {
+            for (final java.nio.file.Path entry : entries)
+            {
+                result.add(entry.getFileName().toString());
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Delete the provided folder and everything in it.
+     */
+    public static void deleteTemporaryFolder(Path folderPath)
+    {
+        final java.nio.file.Path folder = java.nio.file.Paths.get(folderPath.toString());
+        try (final java.util.stream.Stream<java.nio.file.Path> entries = java.nio.file.Files.walk(folder))
+        {
+            final java.util.List<java.nio.file.Path> entryList = new java.util.ArrayList<>();
+            entries.forEach(entryList::add);
+            java.util.Collections.sort(entryList, java.util.Collections.reverseOrder());
+            for (final java.nio.file.Path entry : entryList)
+            {
+                java.nio.file.Files.delete(entry);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(PartitionedBreadthFirstSearch.class, () ->
+        {
+            runner.testGroup("create(Room,Path)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> PartitionedBreadthFirstSearch.create(null, Path.parse("/search")),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with null folderPath", (Test test) ->
+                {
+                    test.assertThrows(() -> PartitionedBreadthFirstSearch.create(Room.create(), null),
+                        new PreConditionFailure("folderPath cannot be null."));
+                });
+
+                runner.test("with valid arguments", (Test test) ->
+                {
+                    final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(Room.create(), Path.parse("/search"));
+                    test.assertEqual(2, search.getPartitionCount());
+                    test.assertTrue(search.getLaunchLocalWorkers());
+                    test.assertEqual(0L, search.getVisitedStateCapacity());
+                });
+            });
+
+            runner.testGroup("setPartitionCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(Room.create(), Path.parse("/search"));
+                    test.assertThrows(() -> search.setPartitionCount(0),
+                        new PreConditionFailure("partitionCount (0) must be between 1 and 1024."));
+                });
+
+                runner.test("with 4", (Test test) ->
+                {
+                    final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(Room.create(), Path.parse("/search"));
+                    test.assertSame(search, search.setPartitionCount(4));
+                    test.assertEqual(4, search.getPartitionCount());
+                });
+            });
+
+            runner.testGroup("getPartition(long[],int,int,int)", () ->
+            {
+                runner.test("spreads keys across partitions", (Test test) ->
+                {
+                    final int[] counts = new int[3];
+                    final long[] key = new long[1];
+                    for (int i = 0; i < 3000; ++i)
+                    {
+                        key[0] = i;
+                        ++counts[PartitionedBreadthFirstSearch.getPartition(key, 0, 1, counts.length)];
+                    }
+                    for (final int count : counts)
+                    {
+                        test.assertTrue(800 < count && count < 1200, "count: " + count);
+                    }
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with solved room", (Test test) ->
+                {
+                    final Path folderPath = PartitionedBreadthFirstSearchTests.createTemporaryFolder();
+                    try
+                    {
+                        final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(Room.create(), folderPath);
+                        test.assertEqual(0, search.findSolution().await().getCount());
+                        test.assertEqual(0L, search.getExpandedStateCount());
+                    }
+                    finally
+                    {
+                        PartitionedBreadthFirstSearchTests.deleteTemporaryFolder(folderPath);
+                    }
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(5, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+                    final BreadthFirstSearch expectedSearch = BreadthFirstSearch.create(room);
+                    test.assertThrows(() -> expectedSearch.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+
+                    final Path folderPath = PartitionedBreadthFirstSearchTests.createTemporaryFolder();
+                    try
+                    {
+                        final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(room, folderPath);
+                        test.assertThrows(() -> search.findSolution().await(),
+                            new NotFoundException("No solution exists for the provided room."));
+                        test.assertEqual(expectedSearch.getExpandedStateCount(), search.getExpandedStateCount());
+                        test.assertEqual(new java.util.TreeSet<String>(), PartitionedBreadthFirstSearchTests.getFolderEntries(folderPath));
+                    }
+                    finally
+                    {
+                        PartitionedBreadthFirstSearchTests.deleteTemporaryFolder(folderPath);
+                    }
+                });
+
+                final Action2<Room,Integer> shortestSolutionTest = (Room room, Integer partitionCount) ->
+                {
+                    runner.test("with room with " + room.getRoomObjectCount() + " room objects and " + partitionCount + " partitions", (Test test) ->
+                    {
+                        final int expectedSolutionLength = room.findSolution().await().getCount();
+                        final Path folderPath = PartitionedBreadthFirstSearchTests.createTemporaryFolder();
+                        try
+                        {
+                            final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(room, folderPath)
+                                .setPartitionCount(partitionCount);
+                            final Iterable<Move> solution = search.findSolution().await();
+                            test.assertEqual(expectedSolutionLength, solution.getCount());
+                            test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                            test.assertTrue(search.getExpandedStateCount() > 0);
+                            test.assertEqual(new java.util.TreeSet<String>(), PartitionedBreadthFirstSearchTests.getFolderEntries(folderPath));
+                        }
+                        finally
+                        {
+                            PartitionedBreadthFirstSearchTests.deleteTemporaryFolder(folderPath);
+                        }
+                    });
+                };
+
+                shortestSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), 1);
+                shortestSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom(), 2);
+                shortestSolutionTest.run(RoomTests.get4thPuzzleWithOrbsRoom(), 3);
+
+                runner.test("with workers run in this process", (Test test) ->
+                {
+                    final Room room = RoomTests.get3rdPuzzleWithOrbsRoom();
+                    final int expectedSolutionLength = room.findSolution().await().getCount();
+                    final Path folderPath = PartitionedBreadthFirstSearchTests.createTemporaryFolder();
+                    final PartitionedBreadthFirstSearch search = PartitionedBreadthFirstSearch.create(room, folderPath)
+                        .setPartitionCount(2)
+                        .setLaunchLocalWorkers(false);
+
+                    final java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+                    try
+                    {
+                        final java.util.concurrent.Future<Iterable<Move>> solutionFuture = executor.submit(() -> search.findSolution().await());
+                        while (!java.nio.file.Files.exists(java.nio.file.Paths.get(folderPath.toString(), "search.bin")))
+                        {
+                            Thread.sleep(1);
+                        }
+                        final java.util.concurrent.Future<?> workerFuture = executor.submit(() -> PartitionedBreadthFirstSearch.runWorker(folderPath, 1).await());
+                        PartitionedBreadthFirstSearch.runWorker(folderPath, 0).await();
+                        workerFuture.get();
+
+                        final Iterable<Move> solution = solutionFuture.get();
+                        test.assertEqual(expectedSolutionLength, solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                        test.assertEqual(new java.util.TreeSet<String>(), PartitionedBreadthFirstSearchTests.getFolderEntries(folderPath));
+                    }
+                    catch (InterruptedException | java.util.concurrent.ExecutionException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                    finally
+                    {
+                        executor.shutdown();
+                        PartitionedBreadthFirstSearchTests.deleteTemporaryFolder(folderPath);
+                    }
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package qub;
+
+public interface PatternDatabaseTests
+{
+    /**
+     * Get a {@link Room} with one {@link RoomObject#Orb} that has to zigzag down the provided
+     * number of two step staircases, two moves per step, before it can move into the
+     * {@link RoomObject#Goal}.
+     */
+    public static Room getZigzagRoom(int staircaseCount)
+    {
+        final Room result = Room.create()
+            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0));
+        int x = 0;
+        int y = 0;
+        for (int staircase = 0; staircase < staircaseCount; ++staircase)
+        {
+            final int xDirection = staircase % 2 == 0 ? 1 : -1;
+            for (int step = 0; step < 2; ++step)
+            {
+                // The first step of each later staircase is one cell longer so that it doesn't
+                // land in the columns of the staircase above it.
+                final int stepWidth = staircase > 0 && step == 0 ? 3 : 2;
+                result.addRoomObject(RoomObject.Block, Point2Integer.create(x, y + 3));
+                result.addRoomObject(RoomObject.Block, Point2Integer.create(x + (stepWidth + 1) * xDirection, y + 2));
+                x += stepWidth * xDirection;
+                y += 2;
+            }
+        }
+        result.addRoomObject(RoomObject.Goal, Point2Integer.create(x, y + 1));
+        return result;
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(PatternDatabase.class, () ->
+        {
+            runner.testGroup("create(RoomLayout,int)", () ->
+            {
+                runner.test("with null layout", (Test test) ->
+                {
+                    test.assertThrows(() -> PatternDatabase.create((RoomLayout)null, 1),
+                        new PreConditionFailure("layout cannot be null."));
+                });
+
+                runner.test("with negative maxOrbCount", (Test test) ->
+                {
+                    test.assertThrows(() -> PatternDatabase.create(RoomLayout.create(Room.create()), -1),
+                        new PreConditionFailure("maxOrbCount (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with too many cells", (Test test) ->
+                {
+                    final RoomLayout layout = RoomLayout.create(Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(300, 300)));
+                    test.assertThrows(() -> PatternDatabase.create(layout, 1),
+                        new PreConditionFailure("layout.getCellCount() (91809) must be less than or equal to 16384."));
+                });
+            });
+
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> PatternDatabase.create((Room)null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("getByteCount()", () ->
+            {
+                runner.test("with 1st puzzle with orbs", (Test test) ->
+                {
+                    final RoomLayout layout = RoomLayout.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    final long cellCount = layout.getCellCount();
+                    test.assertEqual(cellCount + cellCount * (cellCount - 1) / 2, PatternDatabase.create(layout, 2).getByteCount());
+                });
+
+                runner.test("with one orb", (Test test) ->
+                {
+                    final RoomLayout layout = RoomLayout.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertEqual((long)layout.getCellCount(), PatternDatabase.create(layout, 1).getByteCount());
+                });
+            });
+
+            runner.testGroup("getSingleOrbDistance(int)", () ->
+            {
+                runner.test("with orb that can enter a goal", (Test test) ->
+                {
+                    final PatternDatabase database = PatternDatabase.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0)));
+                    final RoomLayout layout = database.getLayout();
+                    test.assertEqual(1, database.getSingleOrbDistance(layout.getCellIndex(0, 0)));
+                    test.assertEqual(1, database.getSingleOrbDistance(layout.getCellIndex(2, 0)));
+                });
+
+                runner.test("with orb that needs another orb to stop against", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 2));
+                    final RoomLayout layout = RoomLayout.create(room);
+                    final int orbCell = layout.getCellIndex(0, 0);
+                    test.assertEqual(PatternDatabase.unsolvable, PatternDatabase.create(room).getSingleOrbDistance(orbCell));
+                    test.assertEqual(2, PatternDatabase.create(layout, 2).getSingleOrbDistance(orbCell));
+                });
+
+                runner.test("with orb that can't move", (Test test) ->
+                {
+                    final PatternDatabase database = PatternDatabase.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)));
+                    final RoomLayout layout = database.getLayout();
+                    test.assertEqual(PatternDatabase.unsolvable, database.getSingleOrbDistance(layout.getCellIndex(0, 0)));
+                });
+
+                runner.test("with orb that is farther away than the largest stored distance", (Test test) ->
+                {
+                    final Room room = PatternDatabaseTests.getZigzagRoom(64);
+                    final PatternDatabase database = PatternDatabase.create(room);
+                    final RoomLayout layout = database.getLayout();
+                    test.assertEqual(254, database.getSingleOrbDistance(layout.getCellIndex(0, 0)));
+                });
+            });
+
+            runner.testGroup("getOrbPairDistance(int,int)", () ->
+            {
+                runner.test("with database for one orb", (Test test) ->
+                {
+                    final PatternDatabase database = PatternDatabase.create(RoomLayout.create(RoomTests.get1stPuzzleWithOrbsRoom()), 1);
+                    test.assertThrows(() -> database.getOrbPairDistance(0, 1),
+                        new PreConditionFailure("this.getMaxOrbCount() (1) must be greater than or equal to 2."));
+                });
+
+                runner.test("with same cells", (Test test) ->
+                {
+                    final PatternDatabase database = PatternDatabase.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> database.getOrbPairDistance(0, 0),
+                        new PreConditionFailure("orbCell1 (0) must not be 0."));
+                });
+
+                runner.test("with orb that blocks the other orb's pusher", (Test test) ->
+                {
+                    final PatternDatabase database = PatternDatabase.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0)));
+                    final RoomLayout layout = database.getLayout();
+                    final int orbCell1 = layout.getCellIndex(0, 0);
+                    final int orbCell2 = layout.getCellIndex(1, 0);
+                    test.assertEqual(1, database.getSingleOrbDistance(orbCell1));
+                    test.assertEqual(1, database.getSingleOrbDistance(orbCell2));
+                    test.assertEqual(PatternDatabase.unsolvable, database.getOrbPairDistance(orbCell1, orbCell2));
+                    test.assertEqual(PatternDatabase.unsolvable, database.getOrbPairDistance(orbCell2, orbCell1));
+                });
+
+                runner.test("with orbs that are farther away than the largest stored distance", (Test test) ->
+                {
+                    // With a second Orb, any empty cell might stop a move, so it takes a longer
+                    // zigzag to get past the largest stored distance.
+                    final Room room = PatternDatabaseTests.getZigzagRoom(160);
+                    final PatternDatabase database = PatternDatabase.create(RoomLayout.create(room), 2);
+                    final RoomLayout layout = database.getLayout();
+                    final Point2Integer goalLocation = room.iterateRoomObjectLocations(RoomObject.Goal).first();
+                    final int nextToGoalCell = layout.getCellIndex(goalLocation.getXAsInt(), goalLocation.getYAsInt() - 1);
+                    test.assertEqual(1, database.getSingleOrbDistance(nextToGoalCell));
+                    test.assertEqual(254, database.getOrbPairDistance(layout.getCellIndex(0, 0), nextToGoalCell));
+                });
+            });
+
+            runner.testGroup("getAdditiveScorer()", () ->
+            {
+                final Action1<Room> admissibleTest = (Room room) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(room.toString()), (Test test) ->
+                    {
+                        final PatternDatabase database = PatternDatabase.create(room);
+                        final RoomLayout layout = database.getLayout();
+                        final int[] orbCells = layout.getOrbCells(room);
+                        final int solutionLength = room.findSolution().await().getCount();
+                        final int additiveScore = database.getAdditiveScorer().score(orbCells, orbCells.length, 0L);
+                        final int maxScore = database.getMaxScorer().score(orbCells, orbCells.length, 0L);
+                        test.assertTrue(additiveScore <= solutionLength);
+                        test.assertTrue(maxScore <= additiveScore);
+                        test.assertTrue(orbCells.length <= additiveScore);
+                    });
+                };
+
+                admissibleTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                admissibleTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                admissibleTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+
+                runner.test("with one scorer for states with different orb counts", (Test test) ->
+                {
+                    final Room room = RoomTests.get3rdPuzzleWithOrbsRoom();
+                    final PatternDatabase database = PatternDatabase.create(room);
+                    final RoomLayout layout = database.getLayout();
+                    final int[] orbCells = layout.getOrbCells(room);
+                    final RoomStateScorer scorer = database.getAdditiveScorer();
+                    for (int orbCount = orbCells.length; orbCount >= 1; --orbCount)
+                    {
+                        test.assertEqual(database.getAdditiveScorer().score(orbCells, orbCount, 0L), scorer.score(orbCells, orbCount, 0L));
+                    }
+                    test.assertEqual(database.getAdditiveScorer().score(orbCells, orbCells.length, 0L), scorer.score(orbCells, orbCells.length, 0L));
+                });
+
+                runner.test("with unsolvable orb", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1));
+                    final RoomLayout layout = RoomLayout.create(room);
+                    final int[] orbCells = layout.getOrbCells(room);
+                    test.assertEqual(PatternDatabase.unsolvable, PatternDatabase.create(room).getAdditiveScorer().score(orbCells, orbCells.length, 0L));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package qub;
+
+public interface RoomBuilderTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomBuilder.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final RoomBuilder builder = RoomBuilder.create();
+                test.assertEqual(0, builder.getCount());
+                test.assertFalse(builder.hasOverlappingLocations());
+                test.assertEqual(Room.create(), builder.build());
+            });
+
+            runner.testGroup("add(RoomObject,int,int)", () ->
+            {
+                runner.test("with null roomObject", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create();
+                    test.assertThrows(() -> builder.add(null, 0, 0),
+                        new PreConditionFailure("roomObject cannot be null."));
+                    test.assertEqual(0, builder.getCount());
+                });
+
+                runner.test("with many room objects", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create();
+                    final Room expected = Room.create();
+                    for (int i = 0; i < 100; ++i)
+                    {
+                        final RoomObject roomObject = RoomObject.values()[i % 4];
+                        builder.add(roomObject, i - 50, i % 7);
+                        expected.addRoomObject(roomObject, Point2Integer.create(i - 50, i % 7));
+                    }
+                    test.assertEqual(100, builder.getCount());
+
+                    final Room room = builder.build();
+                    test.assertEqual(expected, room);
+                    test.assertEqual(25, room.getRoomObjectCount(RoomObject.Orb));
+                    test.assertEqual(expected.iterateRoomObjectLocations(RoomObject.Orb).toList(), room.iterateRoomObjectLocations(RoomObject.Orb).toList());
+                });
+            });
+
+            runner.testGroup("add(RoomObject,int[],int[])", () ->
+            {
+                runner.test("with different lengths", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create();
+                    test.assertThrows(() -> builder.add(RoomObject.Block, new int[] { 0, 1 }, new int[] { 0 }),
+                        new PreConditionFailure("ys.length (1) must be 2."));
+                });
+
+                runner.test("with locations", (Test test) ->
+                {
+                    final Room room = RoomBuilder.create()
+                        .add(RoomObject.Block, new int[] { 0, 1, 2 }, new int[] { 3, 4, 5 })
+                        .build();
+                    test.assertEqual(3, room.getRoomObjectCount(RoomObject.Block));
+                    test.assertEqual(RoomObject.Block, room.getRoomObjectOrNull(2, 5));
+                });
+            });
+
+            runner.testGroup("addRectangle(RoomObject,int,int,int,int)", () ->
+            {
+                runner.test("with negative width", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create();
+                    test.assertThrows(() -> builder.addRectangle(RoomObject.Goal, 0, 0, -1, 3),
+                        new PreConditionFailure("width (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with 3x3 goal region", (Test test) ->
+                {
+                    final Room room = RoomBuilder.create()
+                        .addRectangle(RoomObject.Goal, 2, 1, 3, 3)
+                        .add(RoomObject.Orb, 0, 0)
+                        .build();
+                    test.assertEqual(9, room.getRoomObjectCount(RoomObject.Goal));
+                    test.assertEqual(RoomObject.Goal, room.getRoomObjectOrNull(4, 3));
+                    test.assertNull(room.getRoomObjectOrNull(5, 3));
+                });
+            });
+
+            runner.testGroup("addRows(String...)", () ->
+            {
+                runner.test("with unrecognized character", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create();
+                    test.assertThrows(() -> builder.addRows("oQ"),
+                        new ParseException("Unrecognized room character: 'Q'."));
+                });
+
+                runner.test("with rows", (Test test) ->
+                {
+                    final Room room = RoomBuilder.create()
+                        .addRows(
+                            "o  X",
+                            "",
+                            " B G")
+                        .build();
+                    test.assertEqual(
+                        Room.create()
+                            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                            .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                            .addRoomObject(RoomObject.Block, Point2Integer.create(1, 2))
+                            .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 2)),
+                        room);
+                });
+            });
+
+            runner.testGroup("build()", () ->
+            {
+                runner.test("with overlapping locations", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create()
+                        .addRectangle(RoomObject.Goal, 0, 0, 3, 3)
+                        .add(RoomObject.Orb, 1, 1);
+                    test.assertTrue(builder.hasOverlappingLocations());
+                    test.assertThrows(() -> builder.build(),
+                        new PreConditionFailure("this.hasOverlappingLocations() cannot be true."));
+                });
+
+                runner.test("with overlapping locations far apart", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create()
+                        .add(RoomObject.Block, Integer.MIN_VALUE, Integer.MIN_VALUE)
+                        .add(RoomObject.Block, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                    test.assertFalse(builder.hasOverlappingLocations());
+                    builder.add(RoomObject.Orb, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                    test.assertTrue(builder.hasOverlappingLocations());
+                });
+
+                runner.test("with built room changed", (Test test) ->
+                {
+                    final Room room = RoomBuilder.create()
+                        .add(RoomObject.Orb, 0, 0)
+                        .add(RoomObject.Goal, 3, 0)
+                        .build();
+                    room.applyMove(room.getMoves().first());
+                    test.assertEqual(0, room.getRoomObjectCount(RoomObject.Orb));
+                    test.assertEqual(1, room.getRoomObjectCount());
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package qub;
+
+public interface RoomDifficultyProfilerTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomDifficultyProfiler.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomDifficultyProfiler.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with valid room", (Test test) ->
+                {
+                    final RoomDifficultyProfiler profiler = RoomDifficultyProfiler.create(Room.create());
+                    test.assertEqual(1L << 22, profiler.getMaxStateCount());
+                    test.assertEqual(1000, profiler.getSampleCount());
+                    test.assertEqual(0L, profiler.getSeed());
+                    test.assertEqual(1000L, profiler.getTimeLimit());
+                });
+            });
+
+            runner.testGroup("setSampleCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final RoomDifficultyProfiler profiler = RoomDifficultyProfiler.create(Room.create());
+                    test.assertThrows(() -> profiler.setSampleCount(0),
+                        new PreConditionFailure("sampleCount (0) must be greater than or equal to 1."));
+                });
+            });
+
+            runner.testGroup("profile()", () ->
+            {
+                runner.test("with solved room", (Test test) ->
+                {
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(Room.create()).profile().await();
+                    test.assertFalse(profile.isSampled());
+                    test.assertEqual(0, profile.getOptimalLength());
+                    test.assertEqual(1.0, profile.getOptimalSolutionCount());
+                    test.assertEqual(0L, profile.getPathNeighborCount());
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(5, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(3, 5))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+                    test.assertThrows(() -> RoomDifficultyProfiler.create(room).profile().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+
+                runner.test("with 1st puzzle with orbs", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(room).profile().await();
+                    test.assertFalse(profile.isSampled());
+                    test.assertTrue(profile.isOptimalLengthExact());
+                    test.assertEqual(room.findSolution().await().getCount(), profile.getOptimalLength());
+                    test.assertEqual(1L, profile.getStateCount(0));
+                    test.assertEqual(10.0, profile.getOptimalSolutionCount());
+                    test.assertEqual(12L, profile.getOptimalPathStateCount());
+                });
+
+                runner.test("with 2nd puzzle with orbs", (Test test) ->
+                {
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(RoomTests.get2ndPuzzleWithOrbsRoom()).profile().await();
+                    test.assertEqual(9, profile.getOptimalLength());
+                    test.assertEqual(2.0, profile.getOptimalSolutionCount());
+                    test.assertEqual(12L, profile.getPathNeighborCount());
+                    test.assertEqual(9L, profile.getDeadStateCount());
+                });
+
+                runner.test("with 4th puzzle with orbs", (Test test) ->
+                {
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(RoomTests.get4thPuzzleWithOrbsRoom()).profile().await();
+                    test.assertEqual(19, profile.getOptimalLength());
+                    test.assertEqual(625.0, profile.getOptimalSolutionCount());
+                    for (int depth = 0; depth < profile.getOptimalLength(); ++depth)
+                    {
+                        test.assertTrue(profile.getStateCount(depth) > 0);
+                        test.assertTrue(profile.getBranchingFactor(depth) > 0);
+                    }
+                });
+
+                runner.test("with too many states", (Test test) ->
+                {
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(RoomTests.get3rdPuzzleWithOrbsRoom())
+                        .setMaxStateCount(5)
+                        .profile().await();
+                    test.assertTrue(profile.isSampled());
+                    test.assertFalse(profile.hasStateCounts());
+                    test.assertEqual(8, profile.getOptimalLength());
+                });
+            });
+
+            runner.testGroup("sample()", () ->
+            {
+                runner.test("with 3rd puzzle with orbs", (Test test) ->
+                {
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(RoomTests.get3rdPuzzleWithOrbsRoom())
+                        .setSampleCount(10000)
+                        .setSeed(5)
+                        .sample().await();
+                    test.assertTrue(profile.isSampled());
+                    test.assertTrue(profile.isOptimalLengthExact());
+                    test.assertEqual(8, profile.getOptimalLength());
+                    test.assertEqual(16.0, profile.getOptimalSolutionCount(), 2.0);
+                    test.assertEqual(8L, profile.getOptimalPathStateCount());
+                    test.assertTrue(profile.getAverageBranchingFactor() > 1);
+                });
+
+                runner.test("with too many cells for a PatternDatabase", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(200, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(199, 199));
+                    final RoomDifficultyProfile profile = RoomDifficultyProfiler.create(room)
+                        .setSampleCount(100)
+                        .setTimeLimit(0)
+                        .sample().await();
+                    test.assertTrue(profile.isSampled());
+                    test.assertEqual(2, profile.getOptimalLength());
+                    test.assertTrue(profile.getOptimalSolutionCount() > 0);
+                });
+
+                runner.test("with same seed", (Test test) ->
+                {
+                    final RoomDifficultyProfiler profiler = RoomDifficultyProfiler.create(RoomTests.get1stPuzzleWithOrbsRoom())
+                        .setSeed(12);
+                    test.assertEqual(profiler.sample().await().getOptimalSolutionCount(), profiler.sample().await().getOptimalSolutionCount());
+                });
+            });
+        });
+    }
+}
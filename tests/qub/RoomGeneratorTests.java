@@ -0,0 +1,161 @@
+package qub;
+
+public interface RoomGeneratorTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomGenerator.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final RoomGenerator generator = RoomGenerator.create();
+                test.assertNotNull(generator, "generator");
+                test.assertEqual(0L, generator.getSeed());
+                test.assertEqual(20, generator.getWidth());
+                test.assertEqual(16, generator.getHeight());
+                test.assertEqual(2, generator.getOrbCount());
+                test.assertEqual(3, generator.getGoalRegionSize());
+            });
+
+            runner.testGroup("setWidth(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create();
+                    test.assertThrows(() -> generator.setWidth(0),
+                        new PreConditionFailure("width (0) must be greater than or equal to 1."));
+                    test.assertEqual(20, generator.getWidth());
+                });
+
+                runner.test("with 500", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create();
+                    test.assertSame(generator, generator.setWidth(500));
+                    test.assertEqual(500, generator.getWidth());
+                });
+            });
+
+            runner.testGroup("setBlockDensity(double)", () ->
+            {
+                runner.test("with -0.5", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create();
+                    test.assertThrows(() -> generator.setBlockDensity(-0.5),
+                        new PreConditionFailure("blockDensity (-0.5) must be between 0.0 and 1.0."));
+                });
+
+                runner.test("with 0.25", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create();
+                    test.assertSame(generator, generator.setBlockDensity(0.25));
+                    test.assertEqual(0.25, generator.getBlockDensity());
+                });
+            });
+
+            runner.testGroup("generate()", () ->
+            {
+                runner.test("with goal region larger than the room", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create()
+                        .setWidth(2)
+                        .setHeight(2);
+                    test.assertThrows(() -> generator.generate(),
+                        new PreConditionFailure("this.getGoalRegionSize() (3) must be less than or equal to 2."));
+                });
+
+                runner.test("with the same seed twice", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create()
+                        .setSeed(7)
+                        .setBlockDensity(0.2)
+                        .setBreakableBlockDensity(0.1);
+                    final Room room = generator.generate();
+                    test.assertEqual(room, generator.generate());
+                    test.assertEqual(2, room.getRoomObjectCount(RoomObject.Orb));
+                    test.assertEqual(9, room.getRoomObjectCount(RoomObject.Goal));
+                });
+            });
+
+            runner.testGroup("generateSolvable()", () ->
+            {
+                final Action1<Long> generateSolvableTest = (Long seed) ->
+                {
+                    runner.test("with seed " + seed, (Test test) ->
+                    {
+                        final RoomGenerator generator = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(10)
+                            .setHeight(8)
+                            .setOrbCount(2)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.05)
+                            .setGoalRegionSize(2)
+                            .setScrambleMoveCount(8);
+                        final Room room = generator.generateSolvable().await();
+                        test.assertEqual(room, generator.generateSolvable().await());
+                        test.assertEqual(2, room.getRoomObjectCount(RoomObject.Orb));
+
+                        final Room solvedRoom = room.clone();
+                        for (final Move move : room.findSolution().await())
+                        {
+                            solvedRoom.applyMove(move);
+                        }
+                        test.assertEqual(0, solvedRoom.getRoomObjectCount(RoomObject.Orb));
+                    });
+                };
+
+                generateSolvableTest.run(0L);
+                generateSolvableTest.run(1L);
+                generateSolvableTest.run(12345L);
+
+                runner.test("with many seeds and breakable blocks", (Test test) ->
+                {
+                    for (long seed = 0; seed < 300; ++seed)
+                    {
+                        final RoomGenerator generator = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount((int)(seed % 3) + 1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.4)
+                            .setGoalRegionSize(1)
+                            .setScrambleMoveCount(10);
+                        final Room room = generator.generateSolvable().await();
+
+                        final Room solvedRoom = room.clone();
+                        for (final Move move : room.findSolution().await())
+                        {
+                            solvedRoom.applyMove(move);
+                        }
+                        test.assertEqual(0, solvedRoom.getRoomObjectCount(RoomObject.Orb), room.toString());
+                    }
+                });
+            });
+
+            runner.testGroup("generateUnsolvable()", () ->
+            {
+                runner.test("with no orbs", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create()
+                        .setOrbCount(0);
+                    test.assertThrows(() -> generator.generateUnsolvable(),
+                        new PreConditionFailure("this.getOrbCount() (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with two orbs", (Test test) ->
+                {
+                    final RoomGenerator generator = RoomGenerator.create()
+                        .setSeed(3)
+                        .setWidth(8)
+                        .setHeight(6)
+                        .setGoalRegionSize(2);
+                    final Room room = generator.generateUnsolvable().await();
+                    test.assertEqual(2, room.getRoomObjectCount(RoomObject.Orb));
+                    test.assertThrows(() -> room.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+            });
+        });
+    }
+}
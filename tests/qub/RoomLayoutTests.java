@@ -0,0 +1,248 @@
+package qub;
+
+public interface RoomLayoutTests
+{
+    /**
+     * Get the {@link Move}s that the provided {@link RoomLayout} finds for the provided state, as
+     * strings so that they can be compared with the {@link Move}s of a {@link Room}.
+     */
+    public static java.util.Set<String> getLayoutMoves(RoomLayout layout, int[] orbCells, int orbCount, long brokenBlocks)
+    {
+        final java.util.Set<String> result = new java.util.TreeSet<>();
+        for (int orbIndex = 0; orbIndex < orbCount; ++orbIndex)
+        {
+            for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+            {
+                final int moveResult = layout.getMoveResult(orbCells, orbCount, brokenBlocks, orbCells[orbIndex], direction);
+                if (moveResult != RoomLayout.noMove)
+                {
+                    result.add(layout.createMove(orbCells[orbIndex], moveResult).toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    public static java.util.Set<String> getRoomMoves(Room room)
+    {
+        final java.util.Set<String> result = new java.util.TreeSet<>();
+        for (final Move move : room.getMoves())
+        {
+            result.add(move.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Get whether one of the provided {@link Room}'s {@link Move}s turns it into the provided
+     * next {@link Room}.
+     */
+    public static boolean reaches(Room room, Room nextRoom)
+    {
+        boolean result = false;
+        for (final Move move : room.getMoves())
+        {
+            final Room movedRoom = room.clone();
+            movedRoom.applyMove(move);
+            if (movedRoom.equals(nextRoom))
+            {
+                result = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomLayout.class, () ->
+        {
+            // The orb at (3,0) rests on the cell of the BreakableBlock that it broke, so it stops
+            // the orb below it like any other orb.
+            final Room orbOnBrokenBlockRoom = Room.create()
+                .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 0))
+                .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 3))
+                .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0))
+                .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+            final RoomLayout orbOnBrokenBlockLayout = RoomLayout.create(Room.create()
+                .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0))
+                .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5)));
+
+            runner.testGroup("getCellCount(Room)", () ->
+            {
+                runner.test("with no room objects", (Test test) ->
+                {
+                    test.assertEqual(0L, RoomLayout.getCellCount(Room.create()));
+                });
+
+                runner.test("with room objects", (Test test) ->
+                {
+                    test.assertEqual((long)RoomLayout.create(orbOnBrokenBlockRoom).getCellCount(), RoomLayout.getCellCount(orbOnBrokenBlockRoom));
+                });
+
+                runner.test("with room objects that are far apart", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(Integer.MIN_VALUE + 1, Integer.MIN_VALUE + 1))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1));
+                    test.assertEqual(Long.MAX_VALUE, RoomLayout.getCellCount(room));
+                    test.assertThrows(() -> RoomLayout.create(room),
+                        new PreConditionFailure("RoomLayout.getCellCount(room) (9223372036854775807) must be less than or equal to 2147483647."));
+                });
+            });
+
+            runner.testGroup("getMoveResult(int[],int,long,int,int)", () ->
+            {
+                runner.test("with orb stopped by an orb on a broken breakable block", (Test test) ->
+                {
+                    final RoomLayout layout = orbOnBrokenBlockLayout;
+                    final int[] orbCells = layout.getOrbCells(orbOnBrokenBlockRoom);
+                    final int moveResult = layout.getMoveResult(orbCells, orbCells.length, 1L, layout.getCellIndex(3, 3), RoomLayout.upDirection);
+                    test.assertEqual(layout.getCellIndex(3, 1), moveResult);
+                    test.assertEqual(RoomLayoutTests.getRoomMoves(orbOnBrokenBlockRoom), RoomLayoutTests.getLayoutMoves(layout, orbCells, orbCells.length, 1L));
+                });
+
+                runner.test("with the same moves as Room.getMoves()", (Test test) ->
+                {
+                    for (long seed = 0; seed < 20; ++seed)
+                    {
+                        final Room room = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount(3)
+                            .setGoalRegionSize(1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.3)
+                            .generate();
+                        final RoomLayout layout = RoomLayout.create(room);
+                        final java.util.Random random = new java.util.Random(seed);
+                        for (int step = 0; step < 40; ++step)
+                        {
+                            final int[] orbCells = layout.getOrbCells(room);
+                            final long brokenBlocks = layout.getBrokenBlocks(room);
+                            test.assertEqual(RoomLayoutTests.getRoomMoves(room), RoomLayoutTests.getLayoutMoves(layout, orbCells, orbCells.length, brokenBlocks), room.toString());
+
+                            final java.util.List<Move> moves = new java.util.ArrayList<>();
+                            for (final Move move : room.getMoves())
+                            {
+                                moves.add(move);
+                            }
+                            if (moves.isEmpty())
+                            {
+                                break;
+                            }
+                            room.applyMove(moves.get(random.nextInt(moves.size())));
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("getNextBrokenBlocks(long,int,int)", () ->
+            {
+                runner.test("with no move", (Test test) ->
+                {
+                    final RoomLayout layout = orbOnBrokenBlockLayout;
+                    test.assertThrows(() -> layout.getNextBrokenBlocks(0L, RoomLayout.noMove, RoomLayout.upDirection),
+                        new PreConditionFailure("moveResult (" + RoomLayout.noMove + ") must not be " + RoomLayout.noMove + "."));
+                });
+
+                runner.test("with the same broken blocks as Room.applyMove()", (Test test) ->
+                {
+                    for (long seed = 0; seed < 20; ++seed)
+                    {
+                        final Room room = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount(3)
+                            .setGoalRegionSize(1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.3)
+                            .generate();
+                        final RoomLayout layout = RoomLayout.create(room);
+                        final int[] orbCells = layout.getOrbCells(room);
+                        final long brokenBlocks = layout.getBrokenBlocks(room);
+                        for (final Move move : room.getMoves())
+                        {
+                            final int direction = RoomLayout.getDirection(move);
+                            final int moveResult = layout.getMoveResult(orbCells, orbCells.length, brokenBlocks, layout.getCellIndex(move.getStartLocation()), direction);
+                            final Room nextRoom = room.clone();
+                            nextRoom.applyMove(move);
+                            test.assertEqual(layout.getBrokenBlocks(nextRoom), layout.getNextBrokenBlocks(brokenBlocks, moveResult, direction), room.toString());
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("visitPredecessors(int[],int,long,int,int[],RoomStateAction)", () ->
+            {
+                runner.test("with orb stopped by an orb on a broken breakable block", (Test test) ->
+                {
+                    final RoomLayout layout = orbOnBrokenBlockLayout;
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 1))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 5));
+                    final int[] orbCells = layout.getOrbCells(room);
+                    final java.util.List<Room> predecessors = new java.util.ArrayList<>();
+                    layout.visitPredecessors(orbCells, orbCells.length, 1L, 2, new int[2], (int[] cells, int count, long brokenBlocks) ->
+                    {
+                        predecessors.add(layout.createRoom(cells, count, brokenBlocks));
+                    });
+                    test.assertTrue(predecessors.contains(orbOnBrokenBlockRoom));
+                    for (final Room predecessor : predecessors)
+                    {
+                        test.assertTrue(RoomLayoutTests.reaches(predecessor, room), predecessor.toString());
+                    }
+                });
+
+                runner.test("with every predecessor of a random walk", (Test test) ->
+                {
+                    for (long seed = 0; seed < 20; ++seed)
+                    {
+                        final Room room = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount(3)
+                            .setGoalRegionSize(1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.3)
+                            .generate();
+                        final RoomLayout layout = RoomLayout.create(room);
+                        final java.util.Random random = new java.util.Random(seed);
+                        for (int step = 0; step < 40; ++step)
+                        {
+                            final java.util.List<Move> moves = new java.util.ArrayList<>();
+                            for (final Move move : room.getMoves())
+                            {
+                                moves.add(move);
+                            }
+                            if (moves.isEmpty())
+                            {
+                                break;
+                            }
+                            final Room previousRoom = room.clone();
+                            room.applyMove(moves.get(random.nextInt(moves.size())));
+
+                            final int[] orbCells = layout.getOrbCells(room);
+                            final java.util.List<Room> predecessors = new java.util.ArrayList<>();
+                            layout.visitPredecessors(orbCells, orbCells.length, layout.getBrokenBlocks(room), 3, new int[3], (int[] cells, int count, long brokenBlocks) ->
+                            {
+                                predecessors.add(layout.createRoom(cells, count, brokenBlocks));
+                            });
+                            test.assertTrue(predecessors.contains(previousRoom), previousRoom.toString());
+                            for (final Room predecessor : predecessors)
+                            {
+                                test.assertTrue(RoomLayoutTests.reaches(predecessor, room), predecessor.toString());
+                            }
+                        }
+                    }
+                });
+            });
+        });
+    }
+}
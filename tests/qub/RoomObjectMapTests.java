@@ -0,0 +1,179 @@
+package qub;
+
+public interface RoomObjectMapTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomObjectMap.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final RoomObjectMap map = RoomObjectMap.create();
+                test.assertEqual(0, map.getCount());
+                test.assertNull(map.get(0, 0));
+                test.assertFalse(map.contains(0, 0));
+            });
+
+            runner.testGroup("packLocation(int,int)", () ->
+            {
+                final Action2<Integer,Integer> packLocationTest = (Integer x, Integer y) ->
+                {
+                    runner.test("with " + x + " and " + y, (Test test) ->
+                    {
+                        final long packedLocation = RoomObjectMap.packLocation(x, y);
+                        test.assertEqual(x, RoomObjectMap.getPackedX(packedLocation));
+                        test.assertEqual(y, RoomObjectMap.getPackedY(packedLocation));
+                    });
+                };
+
+                packLocationTest.run(0, 0);
+                packLocationTest.run(-1, 1);
+                packLocationTest.run(1, -1);
+                packLocationTest.run(Integer.MIN_VALUE, Integer.MAX_VALUE);
+                packLocationTest.run(Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+                runner.test("sorts by y and then by x", (Test test) ->
+                {
+                    test.assertTrue(RoomObjectMap.packLocation(5, -1) < RoomObjectMap.packLocation(-5, 0));
+                    test.assertTrue(RoomObjectMap.packLocation(-5, 0) < RoomObjectMap.packLocation(-4, 0));
+                    test.assertTrue(RoomObjectMap.packLocation(-1, 0) < RoomObjectMap.packLocation(0, 0));
+                });
+            });
+
+            runner.testGroup("set(int,int,RoomObject)", () ->
+            {
+                runner.test("with null roomObject", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    test.assertThrows(() -> map.set(0, 0, null),
+                        new PreConditionFailure("roomObject cannot be null."));
+                    test.assertEqual(0, map.getCount());
+                });
+
+                runner.test("with empty location", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    test.assertNull(map.set(-3, 7, RoomObject.Goal));
+                    test.assertEqual(1, map.getCount());
+                    test.assertEqual(RoomObject.Goal, map.get(-3, 7));
+                    test.assertTrue(map.contains(-3, 7));
+                    test.assertFalse(map.contains(7, -3));
+                });
+
+                runner.test("with occupied location", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    map.set(1, 2, RoomObject.Orb);
+                    test.assertEqual(RoomObject.Orb, map.set(1, 2, RoomObject.Block));
+                    test.assertEqual(1, map.getCount());
+                    test.assertEqual(RoomObject.Block, map.get(1, 2));
+                });
+
+                runner.test("with many locations", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    for (int x = -20; x < 20; ++x)
+                    {
+                        for (int y = -20; y < 20; ++y)
+                        {
+                            map.set(x * 1000, y, RoomObject.values()[(x + y + 40) % 4]);
+                        }
+                    }
+                    test.assertEqual(1600, map.getCount());
+                    for (int x = -20; x < 20; ++x)
+                    {
+                        for (int y = -20; y < 20; ++y)
+                        {
+                            test.assertEqual(RoomObject.values()[(x + y + 40) % 4], map.get(x * 1000, y));
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("remove(int,int)", () ->
+            {
+                runner.test("with empty location", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    map.set(0, 0, RoomObject.Orb);
+                    test.assertNull(map.remove(1, 0));
+                    test.assertEqual(1, map.getCount());
+                });
+
+                runner.test("with every other location", (Test test) ->
+                {
+                    final RoomObjectMap map = RoomObjectMap.create();
+                    for (int x = 0; x < 100; ++x)
+                    {
+                        map.set(x, -x, RoomObject.Block);
+                    }
+                    for (int x = 0; x < 100; x += 2)
+                    {
+                        test.assertEqual(RoomObject.Block, map.remove(x, -x));
+                    }
+                    test.assertEqual(50, map.getCount());
+                    for (int x = 0; x < 100; ++x)
+                    {
+                        test.assertEqual(x % 2 == 1, map.contains(x, -x));
+                    }
+                });
+            });
+
+            runner.test("getSlotRoomObject(int)", (Test test) ->
+            {
+                final RoomObjectMap map = RoomObjectMap.create();
+                map.set(5, 5, RoomObject.Orb);
+                map.set(-2, 3, RoomObject.Goal);
+                map.set(0, 9, RoomObject.Block);
+                map.remove(5, 5);
+                map.set(5, 5, RoomObject.BreakableBlock);
+
+                final List<String> entries = List.create();
+                for (int slot = 0; slot < map.getSlotCount(); ++slot)
+                {
+                    final RoomObject roomObject = map.getSlotRoomObject(slot);
+                    if (roomObject != null)
+                    {
+                        entries.add(roomObject + "@" + map.getSlotX(slot) + "," + map.getSlotY(slot));
+                    }
+                }
+                test.assertEqual(List.create("Goal@-2,3", "Block@0,9", "BreakableBlock@5,5"), entries);
+            });
+
+            runner.test("getSortedLocations()", (Test test) ->
+            {
+                final RoomObjectMap map = RoomObjectMap.create();
+                map.set(2, 1, RoomObject.Orb);
+                map.set(-1, 1, RoomObject.Goal);
+                map.set(3, -2, RoomObject.Block);
+                final long[] sortedLocations = map.getSortedLocations();
+                test.assertEqual(3, sortedLocations.length);
+                test.assertEqual(RoomObjectMap.packLocation(3, -2), sortedLocations[0]);
+                test.assertEqual(RoomObjectMap.packLocation(-1, 1), sortedLocations[1]);
+                test.assertEqual(RoomObjectMap.packLocation(2, 1), sortedLocations[2]);
+            });
+
+            runner.test("equals(RoomObjectMap) and hashCode()", (Test test) ->
+            {
+                final RoomObjectMap lhs = RoomObjectMap.create();
+                final RoomObjectMap rhs = RoomObjectMap.create();
+                for (int i = 0; i < 20; ++i)
+                {
+                    lhs.set(i, i, RoomObject.Orb);
+                    rhs.set(19 - i, 19 - i, RoomObject.Orb);
+                }
+                rhs.set(100, 100, RoomObject.Goal);
+                test.assertFalse(lhs.equals(rhs));
+                rhs.remove(100, 100);
+                test.assertTrue(lhs.equals(rhs));
+                test.assertEqual(lhs.hashCode(), rhs.hashCode());
+
+                final RoomObjectMap clone = lhs.clone();
+                test.assertEqual(lhs, clone);
+                clone.set(0, 0, RoomObject.Block);
+                test.assertNotEqual(lhs, clone);
+                test.assertEqual(RoomObject.Orb, lhs.get(0, 0));
+            });
+        });
+    }
+}
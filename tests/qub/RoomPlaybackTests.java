@@ -0,0 +1,126 @@
+package qub;
+
+public interface RoomPlaybackTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomPlayback.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomPlayback.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with 3rd Puzzle with Orbs", (Test test) ->
+                {
+                    final Room room = RoomTests.get3rdPuzzleWithOrbsRoom();
+                    final RoomPlayback playback = RoomPlayback.create(room);
+                    test.assertEqual(0, playback.getMoveCount());
+                    test.assertEqual(room.toString(), playback.toString());
+                });
+            });
+
+            runner.testGroup("applyMove(Move,Action2<Point2Integer,Character>)", () ->
+            {
+                runner.test("with no orb at start location", (Test test) ->
+                {
+                    final RoomPlayback playback = RoomPlayback.create(Room.create()
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0)));
+                    final Move move = Move.create()
+                        .setStartLocation(Point2Integer.create(0, 0))
+                        .setEndLocation(Point2Integer.create(3, 0));
+                    test.assertThrows(() -> playback.applyMove(move),
+                        new PreConditionFailure("this.getGrid().get(move.getStartLocation()) ( ) must be o."));
+                    test.assertEqual(0, playback.getMoveCount());
+                });
+
+                runner.test("with valid move into a breakable block", (Test test) ->
+                {
+                    final RoomPlayback playback = RoomPlayback.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(4, 0)));
+                    final Move move = Move.create()
+                        .setStartLocation(Point2Integer.create(0, 0))
+                        .setEndLocation(Point2Integer.create(3, 0))
+                        .setBlockBroken(true);
+                    final List<String> changedCells = List.create();
+
+                    test.assertSame(playback, playback.applyMove(move, (Point2Integer location, Character character) ->
+                    {
+                        changedCells.add(location.getXAsInt() + "," + location.getYAsInt() + ":" + character);
+                    }));
+
+                    test.assertEqual(Iterable.create("0,0: ", "3,0:o", "4,0: "), changedCells);
+                    test.assertEqual(1, playback.getMoveCount());
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "-------",
+                            "|   o |",
+                            "-------"),
+                        playback.toString());
+                });
+
+                runner.test("with valid move into a goal", (Test test) ->
+                {
+                    final RoomPlayback playback = RoomPlayback.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0)));
+                    final Move move = Move.create()
+                        .setStartLocation(Point2Integer.create(0, 0))
+                        .setEndLocation(Point2Integer.create(3, 0))
+                        .setEndLocationIsGoal(true);
+                    final List<String> changedCells = List.create();
+
+                    playback.applyMove(move, (Point2Integer location, Character character) ->
+                    {
+                        changedCells.add(location.getXAsInt() + "," + location.getYAsInt() + ":" + character);
+                    });
+
+                    test.assertEqual(Iterable.create("0,0: "), changedCells);
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "------",
+                            "|   G|",
+                            "------"),
+                        playback.toString());
+                });
+            });
+
+            runner.testGroup("applyMoves(Iterable<Move>,Action1<Move>)", () ->
+            {
+                final Action1<Room> applyMovesTest = (Room room) ->
+                {
+                    runner.test("with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final Iterable<Move> solution = room.findSolution().await();
+                        final Room expectedRoom = room.clone();
+                        final RoomPlayback playback = RoomPlayback.create(room);
+
+                        playback.applyMoves(solution, (Move move) ->
+                        {
+                            expectedRoom.applyMove(move);
+
+                            final RoomCharacterGrid grid = playback.getGrid();
+                            for (int y = grid.getTop(); y < grid.getTop() + grid.getHeight(); ++y)
+                            {
+                                for (int x = grid.getLeft(); x < grid.getLeft() + grid.getWidth(); ++x)
+                                {
+                                    final RoomObject expectedRoomObject = expectedRoom.getRoomObject(Point2Integer.create(x, y)).catchError().await();
+                                    test.assertEqual(RoomCharacterGrid.getCharacter(expectedRoomObject), grid.get(x, y));
+                                }
+                            }
+                        });
+
+                        test.assertEqual(solution.getCount(), playback.getMoveCount());
+                    });
+                };
+
+                applyMovesTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                applyMovesTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+            });
+        });
+    }
+}
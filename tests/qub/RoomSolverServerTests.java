@@ -0,0 +1,237 @@
+package qub;
+
+public interface RoomSolverServerTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomSolverServer.class, () ->
+        {
+            runner.testGroup("setThreadCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    test.assertThrows(() -> server.setThreadCount(0),
+                        new PreConditionFailure("threadCount (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with 2", (Test test) ->
+                {
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    test.assertSame(server, server.setThreadCount(2));
+                    test.assertEqual(2, server.getThreadCount());
+                });
+            });
+
+            runner.testGroup("setLayoutCacheByteCapacity(long)", () ->
+            {
+                runner.test("with -1", (Test test) ->
+                {
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    test.assertThrows(() -> server.setLayoutCacheByteCapacity(-1),
+                        new PreConditionFailure("layoutCacheByteCapacity (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with room for one layout", (Test test) ->
+                {
+                    final Room room1 = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final Room room2 = RoomTests.get2ndPuzzleWithOrbsRoom();
+                    final RoomLayout layout1 = RoomLayout.create(room1);
+                    final RoomLayout layout2 = RoomLayout.create(room2);
+                    final long byteCount1 = StopPositionGraph.create(layout1).getByteCount() + PatternDatabase.getByteCount(layout1, Math.min(3, room1.getRoomObjectCount(RoomObject.Orb)));
+                    final long byteCount2 = StopPositionGraph.create(layout2).getByteCount() + PatternDatabase.getByteCount(layout2, Math.min(3, room2.getRoomObjectCount(RoomObject.Orb)));
+                    final long byteCapacity = Math.max(byteCount1, byteCount2);
+
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    test.assertSame(server, server.setLayoutCacheByteCapacity(byteCapacity));
+                    test.assertEqual(byteCapacity, server.getLayoutCacheByteCapacity());
+
+                    server.solve(room1).await();
+                    server.solve(room1).await();
+                    test.assertEqual(1, server.getCachedLayoutCount());
+                    test.assertEqual(byteCount1, server.getCachedByteCount());
+
+                    server.solve(room2).await();
+                    test.assertEqual(1, server.getCachedLayoutCount());
+                    test.assertEqual(byteCount2, server.getCachedByteCount());
+
+                    server.setLayoutCacheByteCapacity(byteCount1 + byteCount2);
+                    server.solve(room1).await();
+                    test.assertEqual(2, server.getCachedLayoutCount());
+                    test.assertEqual(byteCount1 + byteCount2, server.getCachedByteCount());
+
+                    server.setLayoutCacheByteCapacity(0);
+                    test.assertEqual(0, server.getCachedLayoutCount());
+                    test.assertEqual(0L, server.getCachedByteCount());
+                });
+
+                runner.test("with a layout that is too big for the cache", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final RoomSolverServer server = RoomSolverServer.create()
+                        .setLayoutCacheByteCapacity(1);
+                    test.assertEqual(room.clone().findSolution().await().getCount(), server.solve(room).await().getCount());
+                    test.assertEqual(0, server.getCachedLayoutCount());
+                    test.assertEqual(0L, server.getCachedByteCount());
+                });
+
+                runner.test("with a PatternDatabase that is bigger than the cache", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final RoomLayout layout = RoomLayout.create(room);
+                    final long graphByteCount = StopPositionGraph.create(layout).getByteCount();
+                    final RoomSolverServer server = RoomSolverServer.create()
+                        .setLayoutCacheByteCapacity(graphByteCount + PatternDatabase.getByteCount(layout, 1));
+                    test.assertEqual(room.clone().findSolution().await().getCount(), server.solve(room).await().getCount());
+                    test.assertEqual(room.clone().findSolution().await().getCount(), server.solve(room).await().getCount());
+                    test.assertEqual(1, server.getCachedLayoutCount());
+                    test.assertEqual(graphByteCount, server.getCachedByteCount());
+                });
+            });
+
+            runner.testGroup("solve(Room)", () ->
+            {
+                runner.test("with too many cells for a PatternDatabase", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(200, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(199, 199));
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    final Iterable<Move> solution = server.solve(room).await();
+                    test.assertEqual(2, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    test.assertEqual(0, server.getCachedLayoutCount());
+                });
+
+                runner.test("with too many breakable blocks for the packed states", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 2));
+                    for (int x = 0; x <= Long.SIZE; ++x)
+                    {
+                        room.addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(x + 2, 5));
+                    }
+                    final RoomSolverServer server = RoomSolverServer.create();
+                    test.assertEqual(1, server.solve(room).await().getCount());
+                    test.assertEqual(0, server.getCachedLayoutCount());
+                });
+            });
+
+            runner.testGroup("getErrorMessage(Throwable)", () ->
+            {
+                runner.test("with message with line breaks", (Test test) ->
+                {
+                    test.assertEqual("a b c d", RoomSolverServer.getErrorMessage(new RuntimeException("a\nb\r\nc\rd")));
+                });
+
+                runner.test("with no message", (Test test) ->
+                {
+                    test.assertEqual("NullPointerException", RoomSolverServer.getErrorMessage(new NullPointerException()));
+                });
+            });
+
+            runner.testGroup("parseRequest(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverServer.parseRequest(null),
+                        new PreConditionFailure("line cannot be null."));
+                });
+
+                runner.test("with text grid", (Test test) ->
+                {
+                    test.assertEqual(
+                        Room.create()
+                            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                            .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0))
+                            .addRoomObject(RoomObject.Block, Point2Integer.create(1, 1))
+                            .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(0, 2)),
+                        RoomSolverServer.parseRequest("o  G/ B/X").await());
+                });
+
+                runner.test("with unrecognized character", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverServer.parseRequest("o  G/ Q").await(),
+                        new ParseException("Unrecognized room character: 'Q'."));
+                });
+
+                runner.test("with invalid Base64", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverServer.parseRequest("b64:!!!").await(),
+                        new ParseException("The binary room request is not valid Base64."));
+                });
+
+                runner.test("with missing binary cells", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverServer.parseRequest("b64:" + java.util.Base64.getEncoder().encodeToString(new byte[] { 2, 2, 0 })).await(),
+                        new ParseException("The binary room request has 1 cell bytes, but its 2x2 size needs 4."));
+                });
+
+                final Action1<Room> roundTripTest = (Room room) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(room.toString()), (Test test) ->
+                    {
+                        test.assertEqual(room, RoomSolverServer.parseRequest(RoomSolverServer.toTextRequest(room)).await());
+                        test.assertEqual(room, RoomSolverServer.parseRequest(RoomSolverServer.toBinaryRequest(room)).await());
+                    });
+                };
+
+                roundTripTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                roundTripTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                roundTripTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+
+            runner.testGroup("serve(java.io.InputStream,java.io.OutputStream)", () ->
+            {
+                runner.test("with null input", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverServer.create().serve(null, new java.io.ByteArrayOutputStream()),
+                        new PreConditionFailure("input cannot be null."));
+                });
+
+                runner.test("with mixed requests", (Test test) ->
+                {
+                    final Room[] rooms = new Room[]
+                    {
+                        RoomTests.get1stPuzzleWithOrbsRoom(),
+                        RoomTests.get2ndPuzzleWithOrbsRoom(),
+                        RoomTests.get3rdPuzzleWithOrbsRoom(),
+                    };
+                    final String requests =
+                        RoomSolverServer.toTextRequest(rooms[0]) + "\n" +
+                        RoomSolverServer.toBinaryRequest(rooms[1]) + "\n" +
+                        "\n" +
+                        RoomSolverServer.toTextRequest(rooms[2]) + "\n" +
+                        "o/ G\n" +
+                        "o Q\n";
+                    final java.io.ByteArrayOutputStream output = new java.io.ByteArrayOutputStream();
+                    RoomSolverServer.create()
+                        .setThreadCount(3)
+                        .serve(new java.io.ByteArrayInputStream(requests.getBytes(java.nio.charset.StandardCharsets.UTF_8)), output)
+                        .await();
+
+                    final java.util.TreeMap<Integer,String> responses = new java.util.TreeMap<>();
+                    for (final String responseLine : new String(output.toByteArray(), java.nio.charset.StandardCharsets.UTF_8).split("\n"))
+                    {
+                        final int separatorIndex = responseLine.indexOf(' ');
+                        responses.put(Integer.parseInt(responseLine.substring(0, separatorIndex)), responseLine.substring(separatorIndex + 1));
+                    }
+                    test.assertEqual(5, responses.size());
+
+                    final int[] requestNumbers = new int[] { 1, 2, 4 };
+                    final int[] expectedSolutionLengths = new int[] { 6, 9, 8 };
+                    for (int i = 0; i < rooms.length; ++i)
+                    {
+                        final Iterable<Move> solution = MoveSequenceCodec.parseJson(responses.get(requestNumbers[i])).await();
+                        test.assertEqual(expectedSolutionLengths[i], solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(rooms[i]).validate(solution));
+                    }
+                    test.assertEqual("error No solution exists for the provided room.", responses.get(5));
+                    test.assertEqual("error Unrecognized room character: 'Q'.", responses.get(6));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package qub;
+
+public interface RoomSolverSessionTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomSolverSession.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomSolverSession.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with empty room", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    final RoomSolverSession session = RoomSolverSession.create(room);
+                    test.assertSame(room, session.getRoom());
+                    test.assertEqual(0, session.getKnownStateCount());
+                    test.assertEqual(0L, session.getLastExpandedStateCount());
+                });
+            });
+
+            runner.testGroup("setMaxStateCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final RoomSolverSession session = RoomSolverSession.create(Room.create());
+                    test.assertThrows(() -> session.setMaxStateCount(0),
+                        new PreConditionFailure("maxStateCount (0) must be greater than or equal to 1."));
+                });
+            });
+
+            runner.testGroup("setLayoutCacheCapacity(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final RoomSolverSession session = RoomSolverSession.create(Room.create());
+                    test.assertThrows(() -> session.setLayoutCacheCapacity(0),
+                        new PreConditionFailure("layoutCacheCapacity (0) must be greater than or equal to 1."));
+                });
+            });
+
+            runner.testGroup("findSolution()", () ->
+            {
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final RoomSolverSession session = RoomSolverSession.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)));
+                    test.assertThrows(() -> session.findSolution().await(),
+                        new NotFoundException("No solution exists for the provided room."));
+                });
+
+                final Action1<Room> editTest = (Room room) ->
+                {
+                    runner.test("with edits to " + Strings.escapeAndQuote(room.toString()), (Test test) ->
+                    {
+                        final RoomSolverSession session = RoomSolverSession.create(room);
+                        final Iterable<Move> solution = session.findSolution().await();
+                        test.assertEqual(room.clone().findSolution().await().getCount(), solution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                        test.assertTrue(session.getLastExpandedStateCount() > 0);
+                        final int knownStateCount = session.getKnownStateCount();
+
+                        // Moving an Orb to a state that was already reached doesn't search.
+                        room.applyMove(solution.first());
+                        final Iterable<Move> shorterSolution = session.findSolution().await();
+                        test.assertEqual(solution.getCount() - 1, shorterSolution.getCount());
+                        test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(shorterSolution));
+                        test.assertEqual(0L, session.getLastExpandedStateCount());
+                        test.assertEqual(knownStateCount, session.getKnownStateCount());
+
+                        // Adding a Block changes the layout, and removing it again goes back to
+                        // the kept states.
+                        final Point2Integer blockLocation = Point2Integer.create(-5, -5);
+                        room.addRoomObject(RoomObject.Block, blockLocation);
+                        test.assertEqual(room.clone().findSolution().await().getCount(), session.findSolution().await().getCount());
+                        test.assertTrue(session.getLastExpandedStateCount() > 0);
+
+                        room.removeRoomObject(blockLocation);
+                        test.assertEqual(shorterSolution.getCount(), session.findSolution().await().getCount());
+                        test.assertEqual(0L, session.getLastExpandedStateCount());
+                    });
+                };
+
+                editTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                editTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                editTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+
+                runner.test("with an orb added to a kept layout", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final int solutionLength = room.clone().findSolution().await().getCount();
+                    final Point2Integer orbLocation = room.iterateRoomObjectLocations(RoomObject.Orb).first();
+                    room.removeRoomObject(orbLocation);
+                    final RoomSolverSession session = RoomSolverSession.create(room);
+                    final Iterable<Move> fewerOrbsSolution = session.findSolution().await();
+                    final int knownStateCount = session.getKnownStateCount();
+
+                    // The kept states are repacked to make room for the added Orb.
+                    room.addRoomObject(RoomObject.Orb, orbLocation);
+                    final Iterable<Move> solution = session.findSolution().await();
+                    test.assertEqual(solutionLength, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    test.assertEqual(knownStateCount + session.getLastExpandedStateCount(), (long)session.getKnownStateCount());
+
+                    room.removeRoomObject(orbLocation);
+                    test.assertEqual(fewerOrbsSolution.getCount(), session.findSolution().await().getCount());
+                    test.assertEqual(0L, session.getLastExpandedStateCount());
+                });
+
+                runner.test("with too many states", (Test test) ->
+                {
+                    final Room room = RoomTests.get2ndPuzzleWithOrbsRoom();
+                    final RoomSolverSession session = RoomSolverSession.create(room)
+                        .setMaxStateCount(1);
+                    final Iterable<Move> solution = session.findSolution().await();
+                    test.assertEqual(9, solution.getCount());
+                    test.assertEqual(SolutionValidator.validSolution, SolutionValidator.create(room).validate(solution));
+                    test.assertEqual(0, session.getKnownStateCount());
+
+                    // The layout remembers that it overflowed until the maximum is raised.
+                    test.assertEqual(9, session.findSolution().await().getCount());
+                    test.assertEqual(0, session.getKnownStateCount());
+                    session.setMaxStateCount(1 << 20);
+                    test.assertEqual(9, session.findSolution().await().getCount());
+                    test.assertTrue(session.getKnownStateCount() > 0);
+                    test.assertEqual((long)session.getKnownStateCount(), session.getLastExpandedStateCount());
+                });
+
+                runner.test("with a layout that is too big for a PatternDatabase", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(200, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(199, 199));
+                    final RoomSolverSession session = RoomSolverSession.create(room)
+                        .setMaxStateCount(1);
+                    test.assertEqual(room.clone().findSolution().await().getCount(), session.findSolution().await().getCount());
+                });
+            });
+        });
+    }
+}
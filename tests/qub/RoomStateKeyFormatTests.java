@@ -0,0 +1,143 @@
+package qub;
+
+public interface RoomStateKeyFormatTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomStateKeyFormat.class, () ->
+        {
+            runner.testGroup("create(RoomLayout,int)", () ->
+            {
+                runner.test("with null layout", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomStateKeyFormat.create(null, 1),
+                        new PreConditionFailure("layout cannot be null."));
+                });
+
+                runner.test("with negative maxOrbCount", (Test test) ->
+                {
+                    final RoomLayout layout = RoomLayout.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> RoomStateKeyFormat.create(layout, -1),
+                        new PreConditionFailure("maxOrbCount (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with solved room", (Test test) ->
+                {
+                    final RoomStateKeyFormat keyFormat = RoomStateKeyFormat.create(RoomLayout.create(Room.create()), 0);
+                    test.assertEqual(1, keyFormat.getKeyLongCount());
+                    test.assertEqual(0, keyFormat.getMaxOrbCount());
+                });
+            });
+
+            runner.testGroup("pack(int[],int,long,long[],int)", () ->
+            {
+                runner.test("with states that span longs", (Test test) ->
+                {
+                    final RoomBuilder builder = RoomBuilder.create()
+                        .addRectangle(RoomObject.BreakableBlock, 0, 0, 50, 1)
+                        .add(RoomObject.Goal, 0, 1)
+                        .add(RoomObject.Block, 29, 29);
+                    final RoomLayout layout = RoomLayout.create(builder.build());
+                    final RoomStateKeyFormat keyFormat = RoomStateKeyFormat.create(layout, 6);
+                    test.assertEqual(2, keyFormat.getKeyLongCount());
+
+                    final long[] key = new long[] { -1, -1, -1, -1 };
+                    final int[] orbCells = new int[] { 60, 61, 400, 899, 0, 0 };
+                    final long brokenBlocks = 0x2AAAAAAAAAAAAL;
+                    keyFormat.pack(orbCells, 4, brokenBlocks, key, 1);
+                    test.assertEqual(-1L, key[0]);
+                    test.assertEqual(-1L, key[3]);
+
+                    final int[] unpackedOrbCells = new int[6];
+                    test.assertEqual(4, keyFormat.unpackOrbCount(key, 1));
+                    test.assertEqual(4, keyFormat.unpackOrbCells(key, 1, unpackedOrbCells));
+                    test.assertEqual(java.util.Arrays.toString(orbCells), java.util.Arrays.toString(unpackedOrbCells));
+                    test.assertEqual(brokenBlocks, keyFormat.unpackBrokenBlocks(key, 1));
+
+                    final long[] otherKey = new long[2];
+                    keyFormat.pack(orbCells, 3, brokenBlocks, otherKey, 0);
+                    test.assertFalse(RoomStateKeyFormat.keysEqual(key, 1, otherKey, 0, 2));
+                    keyFormat.pack(orbCells, 4, brokenBlocks, otherKey, 0);
+                    test.assertTrue(RoomStateKeyFormat.keysEqual(key, 1, otherKey, 0, 2));
+                    test.assertEqual(RoomStateKeyFormat.getKeyHash(key, 1, 2), RoomStateKeyFormat.getKeyHash(otherKey, 0, 2));
+                });
+            });
+
+            runner.testGroup("packNextState(int[],int,long,int,int,int,int[],long[],int)", () ->
+            {
+                runner.test("with the same states as Room.applyMove()", (Test test) ->
+                {
+                    for (long seed = 0; seed < 20; ++seed)
+                    {
+                        final Room room = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount(3)
+                            .setGoalRegionSize(1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.3)
+                            .generate();
+                        final RoomLayout layout = RoomLayout.create(room);
+                        final RoomStateKeyFormat keyFormat = RoomStateKeyFormat.create(layout, 3);
+                        final int[] orbCells = layout.getOrbCells(room);
+                        final long brokenBlocks = layout.getBrokenBlocks(room);
+                        final int[] nextOrbCells = new int[3];
+                        final long[] nextKey = new long[keyFormat.getKeyLongCount()];
+                        final long[] expectedKey = new long[keyFormat.getKeyLongCount()];
+                        for (final Move move : room.getMoves())
+                        {
+                            final int direction = RoomLayout.getDirection(move);
+                            final int orbIndex = java.util.Arrays.binarySearch(orbCells, layout.getCellIndex(move.getStartLocation()));
+                            final int moveResult = layout.getMoveResult(orbCells, orbCells.length, brokenBlocks, orbCells[orbIndex], direction);
+                            keyFormat.packNextState(orbCells, orbCells.length, brokenBlocks, orbIndex, direction, moveResult, nextOrbCells, nextKey, 0);
+
+                            final Room nextRoom = room.clone();
+                            nextRoom.applyMove(move);
+                            final int[] expectedOrbCells = layout.getOrbCells(nextRoom);
+                            keyFormat.pack(expectedOrbCells, expectedOrbCells.length, layout.getBrokenBlocks(nextRoom), expectedKey, 0);
+                            test.assertTrue(RoomStateKeyFormat.keysEqual(expectedKey, 0, nextKey, 0, nextKey.length), room.toString());
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("findMove(StopPositionGraph,long[],int,long[],int,int[],int[],long[])", () ->
+            {
+                runner.test("with null graph", (Test test) ->
+                {
+                    final RoomLayout layout = RoomLayout.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    final RoomStateKeyFormat keyFormat = RoomStateKeyFormat.create(layout, 1);
+                    final long[] key = new long[keyFormat.getKeyLongCount()];
+                    test.assertThrows(() -> keyFormat.findMove(null, key, 0, key, 0, new int[1], new int[1], new long[key.length]),
+                        new PreConditionFailure("graph cannot be null."));
+                });
+
+                runner.test("with each move of a room", (Test test) ->
+                {
+                    final Room room = RoomTests.get4thPuzzleWithOrbsRoom();
+                    final RoomLayout layout = RoomLayout.create(room);
+                    final StopPositionGraph graph = StopPositionGraph.create(layout);
+                    final int[] orbCells = layout.getOrbCells(room);
+                    final RoomStateKeyFormat keyFormat = RoomStateKeyFormat.create(layout, orbCells.length);
+                    final long[] key = new long[keyFormat.getKeyLongCount()];
+                    keyFormat.pack(orbCells, orbCells.length, layout.getBrokenBlocks(room), key, 0);
+                    final long[] targetKey = new long[key.length];
+                    final int[] scratchOrbCells = new int[orbCells.length];
+                    final int[] scratchNextOrbCells = new int[orbCells.length];
+                    final long[] scratchKey = new long[key.length];
+                    for (final Move move : room.getMoves())
+                    {
+                        final Room nextRoom = room.clone();
+                        nextRoom.applyMove(move);
+                        final int[] nextOrbCells = layout.getOrbCells(nextRoom);
+                        keyFormat.pack(nextOrbCells, nextOrbCells.length, layout.getBrokenBlocks(nextRoom), targetKey, 0);
+                        test.assertEqual(move, keyFormat.findMove(graph, key, 0, targetKey, 0, scratchOrbCells, scratchNextOrbCells, scratchKey));
+                    }
+
+                    test.assertNull(keyFormat.findMove(graph, key, 0, key, 0, scratchOrbCells, scratchNextOrbCells, scratchKey));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package qub;
+
+public interface RoomStateSpaceTests
+{
+    static Path createTemporaryFilePath()
+    {
+        try
+        {
+            final java.nio.file.Path filePath = java.nio.file.Files.createTempFile("RoomStateSpaceTests", ".bin");
+            filePath.toFile().deleteOnExit();
+            return Path.parse(filePath.toString());
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(RoomStateSpace.class, () ->
+        {
+            runner.testGroup("enumerate(Room,Path)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomStateSpace.enumerate(null, RoomStateSpaceTests.createTemporaryFilePath()),
+                        new PreConditionFailure("room cannot be null."));
+                });
+
+                runner.test("with null filePath", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomStateSpace.enumerate(RoomTests.get1stPuzzleWithOrbsRoom(), null),
+                        new PreConditionFailure("filePath cannot be null."));
+                });
+
+                runner.test("with solved room", (Test test) ->
+                {
+                    final RoomStateSpace stateSpace = RoomStateSpace.enumerate(Room.create(), RoomStateSpaceTests.createTemporaryFilePath()).await();
+                    test.assertEqual(1, stateSpace.getStateCount());
+                    test.assertEqual(0L, stateSpace.getEdgeCount());
+                    test.assertEqual(0, stateSpace.getDeadEndCount());
+                    test.assertEqual(0, stateSpace.getDistanceToSolve(0));
+                    test.assertEqual(0, stateSpace.getMaximumDistanceToSolve());
+                });
+
+                runner.test("with unsolvable room", (Test test) ->
+                {
+                    final RoomStateSpace stateSpace = RoomStateSpace.enumerate(Room.create()
+                            .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                            .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 1)),
+                        RoomStateSpaceTests.createTemporaryFilePath()).await();
+                    test.assertEqual(1, stateSpace.getStateCount());
+                    test.assertEqual(1, stateSpace.getDeadEndCount());
+                    test.assertEqual(RoomStateSpace.unsolvable, stateSpace.getDistanceToSolve(0));
+                    test.assertEqual(RoomStateSpace.unsolvable, stateSpace.getMaximumDistanceToSolve());
+                });
+
+                final Action2<Room,Integer> enumerateTest = (Room room, Integer expectedDistanceToSolve) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(room.toString()), (Test test) ->
+                    {
+                        final RoomStateSpace stateSpace = RoomStateSpace.enumerate(room, RoomStateSpaceTests.createTemporaryFilePath()).await();
+                        test.assertEqual(expectedDistanceToSolve, stateSpace.getDistanceToSolve(0));
+                        test.assertEqual(room, stateSpace.getRoom(0));
+                        test.assertTrue(stateSpace.getMaximumDistanceToSolve() >= expectedDistanceToSolve);
+
+                        for (int stateIndex = 0; stateIndex < stateSpace.getStateCount(); ++stateIndex)
+                        {
+                            final Room stateRoom = stateSpace.getRoom(stateIndex);
+                            test.assertEqual(stateRoom.getRoomObjectCount(RoomObject.Orb) == 0, stateSpace.getDistanceToSolve(stateIndex) == 0);
+                        }
+                    });
+                };
+
+                enumerateTest.run(RoomTests.get1stPuzzleWithOrbsRoom(), 6);
+                enumerateTest.run(RoomTests.get2ndPuzzleWithOrbsRoom(), 9);
+                enumerateTest.run(RoomTests.get3rdPuzzleWithOrbsRoom(), 8);
+
+                runner.test("with distances that match the solutions of each state", (Test test) ->
+                {
+                    final RoomStateSpace stateSpace = RoomStateSpace.enumerate(RoomTests.get2ndPuzzleWithOrbsRoom(), RoomStateSpaceTests.createTemporaryFilePath()).await();
+                    for (int stateIndex = 0; stateIndex < stateSpace.getStateCount(); ++stateIndex)
+                    {
+                        final Room stateRoom = stateSpace.getRoom(stateIndex);
+                        final int distanceToSolve = stateSpace.getDistanceToSolve(stateIndex);
+                        if (distanceToSolve == RoomStateSpace.unsolvable)
+                        {
+                            test.assertThrows(() -> stateRoom.findSolution().await(),
+                                new NotFoundException("No solution exists for the provided room."));
+                        }
+                        else
+                        {
+                            test.assertEqual(stateRoom.findSolution().await().getCount(), distanceToSolve);
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("load(Path)", () ->
+            {
+                runner.test("with null filePath", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomStateSpace.load(null),
+                        new PreConditionFailure("filePath cannot be null."));
+                });
+
+                runner.test("with empty file", (Test test) ->
+                {
+                    test.assertThrows(() -> RoomStateSpace.load(RoomStateSpaceTests.createTemporaryFilePath()).await(),
+                        new ParseException("The provided file is not a room state space."));
+                });
+
+                runner.test("with enumerated file", (Test test) ->
+                {
+                    final Path filePath = RoomStateSpaceTests.createTemporaryFilePath();
+                    final RoomStateSpace stateSpace = RoomStateSpace.enumerate(RoomTests.get2ndPuzzleWithOrbsRoom(), filePath).await();
+                    final RoomStateSpace loadedStateSpace = RoomStateSpace.load(filePath).await();
+                    test.assertEqual(stateSpace.getLayout(), loadedStateSpace.getLayout());
+                    test.assertEqual(stateSpace.getStateCount(), loadedStateSpace.getStateCount());
+                    test.assertEqual(stateSpace.getEdgeCount(), loadedStateSpace.getEdgeCount());
+                    test.assertEqual(stateSpace.getDeadEndCount(), loadedStateSpace.getDeadEndCount());
+                    for (int stateIndex = 0; stateIndex < stateSpace.getStateCount(); ++stateIndex)
+                    {
+                        test.assertEqual(stateSpace.getDistanceToSolve(stateIndex), loadedStateSpace.getDistanceToSolve(stateIndex));
+                        test.assertEqual(stateSpace.getRoom(stateIndex), loadedStateSpace.getRoom(stateIndex));
+                    }
+                });
+            });
+        });
+    }
+}
@@ -75,6 +75,73 @@ public interface RoomTests
                 });
             });
 
+            runner.testGroup("getRoomObjectOrNull(Point2Integer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertThrows(() -> room.getRoomObjectOrNull(null),
+                        new PreConditionFailure("location cannot be null."));
+                });
+
+                runner.test("with location that is empty", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertNull(room.getRoomObjectOrNull(Point2Integer.create(0, 0)));
+                });
+
+                runner.test("with location that is not empty", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(-3, 2));
+                    test.assertEqual(RoomObject.Goal, room.getRoomObjectOrNull(Point2Integer.create(-3, 2)));
+                    test.assertEqual(RoomObject.Goal, room.getRoomObjectOrNull(-3, 2));
+                    test.assertNull(room.getRoomObjectOrNull(2, -3));
+                });
+            });
+
+            runner.testGroup("isLocationOccupied(int,int)", () ->
+            {
+                runner.test("with location that is empty", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertFalse(room.isLocationOccupied(0, 0));
+                });
+
+                runner.test("with location that is not empty", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(4, -1));
+                    test.assertTrue(room.isLocationOccupied(4, -1));
+                    test.assertFalse(room.isLocationOccupied(-1, 4));
+                });
+            });
+
+            runner.testGroup("getRoomObjectCount(RoomObject)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertThrows(() -> room.getRoomObjectCount(null),
+                        new PreConditionFailure("roomObject cannot be null."));
+                });
+
+                runner.test("after adding and removing room objects", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(2, 0))
+                        .removeRoomObject(Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 0));
+                    test.assertEqual(1, room.getRoomObjectCount(RoomObject.Orb));
+                    test.assertEqual(1, room.getRoomObjectCount(RoomObject.Block));
+                    test.assertEqual(0, room.getRoomObjectCount(RoomObject.BreakableBlock));
+                    test.assertEqual(1, room.getRoomObjectCount(RoomObject.Goal));
+                    test.assertEqual(List.create(Point2Integer.create(2, 0)), room.iterateRoomObjectLocations(RoomObject.Orb).toList());
+                });
+            });
+
             runner.testGroup("iterateRoomObjectLocations(RoomObject)", () ->
             {
                 runner.test("with null", (Test test) ->
@@ -959,7 +1026,7 @@ public interface RoomTests
                         .setStartLocation(Point2Integer.create(0, 0))
                         .setEndLocation(Point2Integer.create(3, 0));
                     test.assertThrows(() -> room.applyMove(move),
-                        new PreConditionFailure("this.getRoomObject(move.getStartLocation()).catchError().await() (null) must be Orb."));
+                        new PreConditionFailure("this.getRoomObjectOrNull(move.getStartLocation()) (null) must be Orb."));
                 });
 
                 runner.test("with valid move into a block", (Test test) ->
@@ -1222,6 +1289,21 @@ public interface RoomTests
                             .setStartLocation(Point2Integer.create(2, 0))
                             .setEndLocation(Point2Integer.create(2, 2))
                             .setEndLocationIsGoal(true)));
+                findSolutionTest.run("with " + RoomObject.Orb + "s that are far apart",
+                    Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1000000, 1000000))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1000001, 1000000)),
+                    Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(1, 0))
+                            .setEndLocationIsGoal(true),
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(1000000, 1000000))
+                            .setEndLocation(Point2Integer.create(1000001, 1000000))
+                            .setEndLocationIsGoal(true)));
                 findSolutionTest.run("1st Puzzle with Orbs",
                     RoomTests.get1stPuzzleWithOrbsRoom(),
                     Iterable.create(
@@ -1376,6 +1458,102 @@ public interface RoomTests
                             .setEndLocationIsGoal(true)));
             });
 
+            runner.testGroup("findSolution(EndgameTablebase)", () ->
+            {
+                runner.test("with null tablebase", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertThrows(() -> room.findSolution(null),
+                        new PreConditionFailure("tablebase cannot be null."));
+                });
+
+                runner.test("with tablebase that covers the room", (Test test) ->
+                {
+                    final Room room = RoomTests.get2ndPuzzleWithOrbsRoom();
+                    final EndgameTablebase tablebase = EndgameTablebase.create(room, 2).await();
+
+                    final Iterable<Move> solution = room.findSolution(tablebase).await();
+                    test.assertEqual(9, solution.getCount());
+                });
+
+                runner.test("with tablebase that doesn't cover the room", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 0));
+                    final EndgameTablebase tablebase = EndgameTablebase.create(Room.create(), 1).await();
+
+                    test.assertEqual(
+                        Iterable.create(
+                            Move.create()
+                                .setStartLocation(Point2Integer.create(0, 0))
+                                .setEndLocation(Point2Integer.create(1, 0))
+                                .setEndLocationIsGoal(true)),
+                        room.findSolution(tablebase).await());
+                });
+            });
+
+            runner.testGroup("iterateSortedRoomObjectLocations()", () ->
+            {
+                runner.test("with no room objects", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertFalse(room.iterateSortedRoomObjectLocations().any());
+                });
+
+                runner.test("after room changes", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(2, 1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(5, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(-1, 1));
+                    test.assertEqual(
+                        List.create(Point2Integer.create(5, 0), Point2Integer.create(-1, 1), Point2Integer.create(2, 1)),
+                        room.iterateSortedRoomObjectLocations().toList());
+
+                    room.removeRoomObject(Point2Integer.create(5, 0));
+                    room.addRoomObject(RoomObject.Orb, Point2Integer.create(0, 2));
+                    test.assertEqual(
+                        List.create(Point2Integer.create(-1, 1), Point2Integer.create(2, 1), Point2Integer.create(0, 2)),
+                        room.iterateSortedRoomObjectLocations().toList());
+                });
+            });
+
+            runner.testGroup("getVersion()", () ->
+            {
+                runner.test("after room changes", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertEqual(0L, room.getVersion());
+
+                    room.addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0));
+                    test.assertEqual(1L, room.getVersion());
+                    final int hashCode = room.hashCode();
+
+                    room.addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0));
+                    test.assertEqual(2L, room.getVersion());
+                    test.assertNotEqual(hashCode, room.hashCode());
+
+                    room.removeRoomObject(Point2Integer.create(3, 0));
+                    test.assertEqual(3L, room.getVersion());
+                    test.assertEqual(hashCode, room.hashCode());
+                });
+
+                runner.test("with cloned room", (Test test) ->
+                {
+                    final Room room = RoomTests.get1stPuzzleWithOrbsRoom();
+                    final int hashCode = room.hashCode();
+                    final Room clone = room.clone();
+                    test.assertEqual(room.getVersion(), clone.getVersion());
+                    test.assertEqual(hashCode, clone.hashCode());
+
+                    clone.applyMove(clone.getMoves().first());
+                    test.assertNotEqual(room, clone);
+                    test.assertEqual(hashCode, room.hashCode());
+                    test.assertEqual(room.clone().hashCode(), room.hashCode());
+                });
+            });
+
             runner.testGroup("toString()", () ->
             {
                 final Action3<String,Room,Iterable<String>> toStringTest = (String testName, Room room, Iterable<String> expected) ->
@@ -1483,6 +1661,67 @@ public interface RoomTests
                         "|          o        |",
                         "---------------------"));
             });
+
+            runner.testGroup("toString(StringBuilder)", () ->
+            {
+                runner.test("with null builder", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertThrows(() -> room.toString((StringBuilder)null),
+                        new PreConditionFailure("builder cannot be null."));
+                });
+
+                runner.test("with non-empty builder", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 1));
+                    final StringBuilder builder = new StringBuilder("room:\n");
+                    test.assertSame(room, room.toString(builder));
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "room:",
+                            "----",
+                            "| G|",
+                            "|o |",
+                            "----"),
+                        builder.toString());
+                });
+
+                runner.test("with negative coordinates", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(-1, -1))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 0));
+                    final StringBuilder builder = new StringBuilder();
+                    room.toString(builder);
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "-----",
+                            "|B  |",
+                            "|  o|",
+                            "-----"),
+                        builder.toString());
+                });
+            });
+
+            runner.testGroup("toString(java.io.Writer)", () ->
+            {
+                runner.test("with null writer", (Test test) ->
+                {
+                    final Room room = Room.create();
+                    test.assertThrows(() -> room.toString((java.io.Writer)null),
+                        new PreConditionFailure("writer cannot be null."));
+                });
+
+                runner.test("with 3rd Puzzle with Orbs", (Test test) ->
+                {
+                    final Room room = RoomTests.get3rdPuzzleWithOrbsRoom();
+                    final java.io.StringWriter writer = new java.io.StringWriter();
+                    room.toString(writer).await();
+                    test.assertEqual(room.toString(), writer.toString());
+                });
+            });
         });
     }
 
@@ -0,0 +1,231 @@
+package qub;
+
+public interface SolutionValidatorTests
+{
+    /**
+     * Get the result that {@link SolutionValidator#validate(Iterable)} should return for the
+     * provided {@link Move}s by replaying them on a clone of the provided {@link Room}.
+     */
+    public static int replay(Room room, Iterable<Move> moves)
+    {
+        final Room replayRoom = room.clone();
+        int moveIndex = 0;
+        for (final Move move : moves)
+        {
+            if (!replayRoom.getMoves().contains(move))
+            {
+                return moveIndex;
+            }
+            replayRoom.applyMove(move);
+            ++moveIndex;
+        }
+        return replayRoom.getRoomObjectCount(RoomObject.Orb) == 0 ? SolutionValidator.validSolution : moveIndex;
+    }
+
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(SolutionValidator.class, () ->
+        {
+            runner.testGroup("create(Room)", () ->
+            {
+                runner.test("with null room", (Test test) ->
+                {
+                    test.assertThrows(() -> SolutionValidator.create(null),
+                        new PreConditionFailure("room cannot be null."));
+                });
+            });
+
+            runner.testGroup("validate(Iterable<Move>)", () ->
+            {
+                runner.test("with null moves", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> validator.validate(null),
+                        new PreConditionFailure("moves cannot be null."));
+                });
+
+                runner.test("with no moves", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertEqual(0, validator.validate(Iterable.create()));
+                });
+
+                runner.test("with no moves in a room with no orbs", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(0, 0)));
+                    test.assertEqual(SolutionValidator.validSolution, validator.validate(Iterable.create()));
+                });
+
+                runner.test("with move into a goal", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(3, 0)));
+                    test.assertEqual(SolutionValidator.validSolution, validator.validate(Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(3, 0))
+                            .setEndLocationIsGoal(true))));
+                });
+
+                runner.test("with move that doesn't say it breaks a block", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(4, 0)));
+                    test.assertEqual(0, validator.validate(Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(3, 0)))));
+                });
+
+                runner.test("with move from a location without an orb", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0)));
+                    test.assertEqual(0, validator.validate(Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(1, 0))
+                            .setEndLocation(Point2Integer.create(3, 0)))));
+                });
+
+                runner.test("with diagonal move", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 4)));
+                    test.assertEqual(0, validator.validate(Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0))
+                            .setEndLocation(Point2Integer.create(3, 3)))));
+                });
+
+                runner.test("with move that is missing its end location", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0)));
+                    test.assertEqual(0, validator.validate(Iterable.create(
+                        Move.create()
+                            .setStartLocation(Point2Integer.create(0, 0)))));
+                });
+
+                final Action1<Room> validateSolutionTest = (Room room) ->
+                {
+                    runner.test("with solution for room with " + room.getRoomObjectCount() + " room objects", (Test test) ->
+                    {
+                        final SolutionValidator validator = SolutionValidator.create(room);
+                        final List<Move> solution = List.create(room.findSolution().await());
+                        test.assertEqual(SolutionValidator.validSolution, validator.validate(solution));
+
+                        final List<Move> partialSolution = List.create();
+                        final List<Move> repeatedMoveSolution = List.create();
+                        for (int i = 0; i < solution.getCount(); ++i)
+                        {
+                            if (i < solution.getCount() - 1)
+                            {
+                                partialSolution.add(solution.get(i));
+                            }
+                            repeatedMoveSolution.add(solution.get(i));
+                            if (i == 0)
+                            {
+                                repeatedMoveSolution.add(solution.get(i));
+                            }
+                        }
+                        test.assertEqual(solution.getCount() - 1, validator.validate(partialSolution));
+                        test.assertEqual(1, validator.validate(repeatedMoveSolution));
+                    });
+                };
+
+                runner.test("with the same results as replaying the moves on a Room", (Test test) ->
+                {
+                    for (long seed = 0; seed < 200; ++seed)
+                    {
+                        final Room room = RoomGenerator.create()
+                            .setSeed(seed)
+                            .setWidth(7)
+                            .setHeight(7)
+                            .setOrbCount((int)(seed % 3) + 1)
+                            .setGoalRegionSize(1)
+                            .setBlockDensity(0.1)
+                            .setBreakableBlockDensity(0.3)
+                            .generate();
+                        final SolutionValidator validator = SolutionValidator.create(room);
+                        final java.util.Random random = new java.util.Random(seed);
+
+                        // Walk randomly through the room, and sometimes replace a move with a move
+                        // that was legal earlier in the walk.
+                        final Room walkRoom = room.clone();
+                        final java.util.List<Move> earlierMoves = new java.util.ArrayList<>();
+                        final List<Move> moves = List.create();
+                        for (int step = 0; step < 60; ++step)
+                        {
+                            final java.util.List<Move> legalMoves = new java.util.ArrayList<>();
+                            for (final Move move : walkRoom.getMoves())
+                            {
+                                legalMoves.add(move);
+                            }
+                            earlierMoves.addAll(legalMoves);
+
+                            final Move move;
+                            if (legalMoves.isEmpty() || random.nextInt(10) == 0)
+                            {
+                                move = earlierMoves.isEmpty() ? null : earlierMoves.get(random.nextInt(earlierMoves.size()));
+                            }
+                            else
+                            {
+                                move = legalMoves.get(random.nextInt(legalMoves.size()));
+                            }
+                            if (move == null || !legalMoves.contains(move))
+                            {
+                                if (move != null)
+                                {
+                                    moves.add(move);
+                                }
+                                break;
+                            }
+                            moves.add(move);
+                            walkRoom.applyMove(move);
+
+                            test.assertEqual(SolutionValidatorTests.replay(room, moves), validator.validate(moves), room.toString());
+                        }
+                        test.assertEqual(SolutionValidatorTests.replay(room, moves), validator.validate(moves), room.toString());
+                    }
+                });
+
+                validateSolutionTest.run(RoomTests.get1stPuzzleWithOrbsRoom());
+                validateSolutionTest.run(RoomTests.get2ndPuzzleWithOrbsRoom());
+                validateSolutionTest.run(RoomTests.get3rdPuzzleWithOrbsRoom());
+            });
+
+            runner.testGroup("validateAll(Iterable<Iterable<Move>>)", () ->
+            {
+                runner.test("with null solutions", (Test test) ->
+                {
+                    final SolutionValidator validator = SolutionValidator.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertThrows(() -> validator.validateAll(null),
+                        new PreConditionFailure("solutions cannot be null."));
+                });
+
+                runner.test("with valid and invalid solutions", (Test test) ->
+                {
+                    final Room room = RoomTests.get2ndPuzzleWithOrbsRoom();
+                    final SolutionValidator validator = SolutionValidator.create(room);
+                    final Iterable<Move> solution = room.findSolution().await();
+                    final int[] results = validator.validateAll(Iterable.create(
+                        solution,
+                        Iterable.create(),
+                        Iterable.create(solution.first(), solution.first()),
+                        solution));
+                    test.assertEqual(4, results.length);
+                    test.assertEqual(SolutionValidator.validSolution, results[0]);
+                    test.assertEqual(0, results[1]);
+                    test.assertEqual(1, results[2]);
+                    test.assertEqual(SolutionValidator.validSolution, results[3]);
+                });
+            });
+        });
+    }
+}
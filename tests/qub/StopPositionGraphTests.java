@@ -0,0 +1,115 @@
+package qub;
+
+public interface StopPositionGraphTests
+{
+    public static void test(TestRunner runner)
+    {
+        runner.testGroup(StopPositionGraph.class, () ->
+        {
+            runner.testGroup("create(RoomLayout)", () ->
+            {
+                runner.test("with null layout", (Test test) ->
+                {
+                    test.assertThrows(() -> StopPositionGraph.create((RoomLayout)null),
+                        new PreConditionFailure("layout cannot be null."));
+                });
+
+                runner.test("with breakable block in the way", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(3, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(6, 0));
+                    final StopPositionGraph graph = StopPositionGraph.create(room);
+                    final RoomLayout layout = graph.getLayout();
+                    final int startCell = layout.getCellIndex(0, 0);
+
+                    test.assertEqual(2, graph.getEdgeCount(startCell, RoomLayout.rightDirection));
+                    test.assertEqual(0, graph.getEdgeBreakableBlockIndex(startCell, RoomLayout.rightDirection, 0));
+                    test.assertEqual(layout.getCellIndex(2, 0) | RoomLayout.moveBreaksBlockFlag, graph.getEdgeMoveResult(startCell, RoomLayout.rightDirection, 0));
+                    test.assertEqual(-1, graph.getEdgeBreakableBlockIndex(startCell, RoomLayout.rightDirection, 1));
+                    test.assertEqual(layout.getCellIndex(6, 0) | RoomLayout.moveEndsInGoalFlag, graph.getEdgeMoveResult(startCell, RoomLayout.rightDirection, 1));
+
+                    test.assertEqual(layout.getCellIndex(2, 0) | RoomLayout.moveBreaksBlockFlag, graph.getStaticMoveResult(0L, startCell, RoomLayout.rightDirection));
+                    test.assertEqual(layout.getCellIndex(6, 0) | RoomLayout.moveEndsInGoalFlag, graph.getStaticMoveResult(1L, startCell, RoomLayout.rightDirection));
+                    test.assertEqual(RoomLayout.noMove, graph.getStaticMoveResult(0L, startCell, RoomLayout.upDirection));
+                });
+
+                runner.test("with block and goal cells", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.BreakableBlock, Point2Integer.create(2, 0));
+                    final StopPositionGraph graph = StopPositionGraph.create(room);
+                    final RoomLayout layout = graph.getLayout();
+                    for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                    {
+                        test.assertEqual(0, graph.getEdgeCount(layout.getCellIndex(0, 0), direction));
+                        test.assertEqual(0, graph.getEdgeCount(layout.getCellIndex(1, 0), direction));
+                        test.assertEqual(StopPositionGraph.pusherAlwaysBlocked, graph.getPusherRequirement(layout.getCellIndex(0, 0), direction));
+                    }
+                    test.assertEqual(0, graph.getPusherRequirement(layout.getCellIndex(3, 0), RoomLayout.rightDirection));
+                    test.assertEqual(StopPositionGraph.pusherAlwaysOpen, graph.getPusherRequirement(layout.getCellIndex(3, 0), RoomLayout.leftDirection));
+                });
+            });
+
+            runner.testGroup("getByteCount()", () ->
+            {
+                runner.test("with 1st puzzle with orbs", (Test test) ->
+                {
+                    final StopPositionGraph emptyGraph = StopPositionGraph.create(Room.create());
+                    final StopPositionGraph graph = StopPositionGraph.create(RoomTests.get1stPuzzleWithOrbsRoom());
+                    test.assertTrue(graph.getByteCount() >= (long)graph.getEdgeCount() * Integer.BYTES);
+                    test.assertTrue(graph.getByteCount() > emptyGraph.getByteCount());
+                });
+            });
+
+            runner.testGroup("getMoveResult(int[],int,long,int,int)", () ->
+            {
+                runner.test("with other orb in the pusher cell", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(1, 0))
+                        .addRoomObject(RoomObject.Block, Point2Integer.create(4, 0));
+                    final StopPositionGraph graph = StopPositionGraph.create(room);
+                    final RoomLayout layout = graph.getLayout();
+                    final int[] orbCells = layout.getOrbCells(room);
+                    test.assertEqual(RoomLayout.noMove, graph.getMoveResult(orbCells, 2, 0L, layout.getCellIndex(1, 0), RoomLayout.rightDirection));
+                });
+
+                runner.test("with other orb along the path", (Test test) ->
+                {
+                    final Room room = Room.create()
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(0, 0))
+                        .addRoomObject(RoomObject.Orb, Point2Integer.create(3, 0))
+                        .addRoomObject(RoomObject.Goal, Point2Integer.create(5, 0));
+                    final StopPositionGraph graph = StopPositionGraph.create(room);
+                    final RoomLayout layout = graph.getLayout();
+                    final int[] orbCells = layout.getOrbCells(room);
+                    test.assertEqual(layout.getCellIndex(2, 0), graph.getMoveResult(orbCells, 2, 0L, layout.getCellIndex(0, 0), RoomLayout.rightDirection));
+                    test.assertEqual(layout.getCellIndex(5, 0) | RoomLayout.moveEndsInGoalFlag, graph.getMoveResult(orbCells, 2, 0L, layout.getCellIndex(3, 0), RoomLayout.rightDirection));
+                });
+
+                runner.test("with the same results as RoomLayout", (Test test) ->
+                {
+                    final Room room = RoomTests.get4thPuzzleWithOrbsRoom();
+                    final StopPositionGraph graph = StopPositionGraph.create(room);
+                    final RoomLayout layout = graph.getLayout();
+                    final int[] orbCells = layout.getOrbCells(room);
+                    final long brokenBlocks = layout.getBrokenBlocks(room);
+                    for (final int orbCell : orbCells)
+                    {
+                        for (int direction = 0; direction < RoomLayout.directionCount; ++direction)
+                        {
+                            test.assertEqual(
+                                layout.getMoveResult(orbCells, orbCells.length, brokenBlocks, orbCell, direction),
+                                graph.getMoveResult(orbCells, orbCells.length, brokenBlocks, orbCell, direction));
+                        }
+                    }
+                });
+            });
+        });
+    }
+}